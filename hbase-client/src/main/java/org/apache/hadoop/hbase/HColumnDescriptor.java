@@ -97,6 +97,11 @@ public class HColumnDescriptor implements WritableComparable<HColumnDescriptor>
   public static final String MIN_VERSIONS = "MIN_VERSIONS";
   public static final String KEEP_DELETED_CELLS = "KEEP_DELETED_CELLS";
   public static final String COMPRESS_TAGS = "COMPRESS_TAGS";
+  /**
+   * Whether the family keeps counters as delta cells. See
+   * {@link #setDeltaCounters(boolean)}.
+   */
+  public static final String DELTA_COUNTERS = "DELTA_COUNTERS";
 
   /**
    * Default compression type.
@@ -195,6 +200,11 @@ public class HColumnDescriptor implements WritableComparable<HColumnDescriptor>
    */
   public static final boolean DEFAULT_COMPRESS_TAGS = true;
 
+  /**
+   * Default setting for whether the family keeps counters as delta cells.
+   */
+  public static final boolean DEFAULT_DELTA_COUNTERS = false;
+
   private final static Map<String, String> DEFAULT_VALUES
     = new HashMap<String, String>();
   private final static Set<ImmutableBytesWritable> RESERVED_KEYWORDS
@@ -750,6 +760,34 @@ public class HColumnDescriptor implements WritableComparable<HColumnDescriptor>
     return setValue(KEEP_DELETED_CELLS, Boolean.toString(keepDeletedCells));
   }
 
+  /**
+   * @return True if the increments of the family are written as delta cells
+   * @see #setDeltaCounters(boolean)
+   */
+  public boolean isDeltaCounters() {
+    String value = getValue(DELTA_COUNTERS);
+    if (value != null) {
+      return Boolean.valueOf(value).booleanValue();
+    }
+    return DEFAULT_DELTA_COUNTERS;
+  }
+
+  /**
+   * Sets whether the family keeps its counters as delta cells. An increment
+   * then writes the amount to add as a delta cell, without taking the row lock
+   * or reading the current value, and the deltas are added up by reads, and by
+   * flushes and compactions, down to the newest value put in the column.
+   * <p>
+   * Reads only return the current value of each counter, whatever the number
+   * of versions asked, and filters are given the delta cells. A delete should
+   * cover all the versions of a counter.
+   * @param deltaCounters True if increments are to be written as delta cells
+   * @return this (for chained invocation)
+   */
+  public HColumnDescriptor setDeltaCounters(boolean deltaCounters) {
+    return setValue(DELTA_COUNTERS, Boolean.toString(deltaCounters));
+  }
+
   /**
    * @return Time-to-live of cell contents, in seconds.
    */
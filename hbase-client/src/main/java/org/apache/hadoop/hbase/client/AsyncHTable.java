@@ -0,0 +1,509 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.classification.InterfaceStability;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.filter.BinaryComparator;
+import org.apache.hadoop.hbase.ipc.PayloadCarryingRpcController;
+import org.apache.hadoop.hbase.protobuf.ProtobufUtil;
+import org.apache.hadoop.hbase.protobuf.RequestConverter;
+import org.apache.hadoop.hbase.protobuf.ResponseConverter;
+import org.apache.hadoop.hbase.protobuf.generated.ClientProtos.ClientService;
+import org.apache.hadoop.hbase.protobuf.generated.ClientProtos.GetResponse;
+import org.apache.hadoop.hbase.protobuf.generated.ClientProtos.MutateRequest;
+import org.apache.hadoop.hbase.protobuf.generated.ClientProtos.MutateResponse;
+import org.apache.hadoop.hbase.protobuf.generated.ClientProtos.ScanResponse;
+import org.apache.hadoop.hbase.protobuf.generated.HBaseProtos.CompareType;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.Threads;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.protobuf.RpcCallback;
+
+/**
+ * An {@link AsyncTable} calling the region servers through the non-blocking stubs of an
+ * {@link HConnection}, and retrying with an {@link AsyncRpcRetryingCaller}.
+ * <p>
+ * Batches go through an {@link AsyncProcess}, so their calls and back offs still hold a thread
+ * of the pool; only the caller is not blocked.
+ * <p>
+ * The retries, and the steps of scans after the first, are run by a few threads of this table,
+ * "hbase.client.async.retry.threads" of them.
+ */
+@InterfaceAudience.Public
+@InterfaceStability.Evolving
+public class AsyncHTable implements AsyncTable {
+  private static final Log LOG = LogFactory.getLog(AsyncHTable.class);
+
+  /** The number of threads running the retries of an {@link AsyncHTable} */
+  public static final String RETRY_THREADS_KEY = "hbase.client.async.retry.threads";
+  public static final int DEFAULT_RETRY_THREADS = 1;
+
+  private final TableName tableName;
+  private final HConnection connection;
+  private final Configuration configuration;
+  private final ExecutorService pool;
+  private final boolean cleanupPoolOnClose;
+  private final ScheduledExecutorService retryExecutor;
+  private final RpcRetryingCallerFactory rpcCallerFactory;
+  private final int operationTimeout;
+  private final int scannerCaching;
+  private final int maxKeyValueSize;
+  private volatile boolean closed = false;
+
+  /**
+   * Creates an object to access a HBase table without blocking. Batches are run by a pool of
+   * this table.
+   * @param tableName Name of the table.
+   * @param connection HConnection to be used.
+   */
+  public AsyncHTable(TableName tableName, HConnection connection) {
+    this(tableName, connection, HTable.getDefaultExecutor(connection.getConfiguration()), true);
+  }
+
+  /**
+   * Creates an object to access a HBase table without blocking.
+   * @param tableName Name of the table.
+   * @param connection HConnection to be used.
+   * @param pool ExecutorService to be used for batches. Not shut down on close.
+   */
+  public AsyncHTable(TableName tableName, HConnection connection, ExecutorService pool) {
+    this(tableName, connection, pool, false);
+  }
+
+  private AsyncHTable(TableName tableName, HConnection connection, ExecutorService pool,
+      boolean cleanupPoolOnClose) {
+    if (connection == null || connection.isClosed()) {
+      throw new IllegalArgumentException("Connection is null or closed.");
+    }
+    this.tableName = tableName;
+    this.connection = connection;
+    this.configuration = connection.getConfiguration();
+    this.pool = pool;
+    this.cleanupPoolOnClose = cleanupPoolOnClose;
+    this.retryExecutor = new ScheduledThreadPoolExecutor(
+      configuration.getInt(RETRY_THREADS_KEY, DEFAULT_RETRY_THREADS),
+      Threads.newDaemonThreadFactory("asynchtable-retry"));
+    this.rpcCallerFactory = RpcRetryingCallerFactory.instantiate(configuration);
+    this.operationTimeout = tableName.isSystemTable() ?
+      this.configuration.getInt(HConstants.HBASE_CLIENT_META_OPERATION_TIMEOUT,
+        HConstants.DEFAULT_HBASE_CLIENT_OPERATION_TIMEOUT):
+      this.configuration.getInt(HConstants.HBASE_CLIENT_OPERATION_TIMEOUT,
+        HConstants.DEFAULT_HBASE_CLIENT_OPERATION_TIMEOUT);
+    this.scannerCaching = this.configuration.getInt(
+        HConstants.HBASE_CLIENT_SCANNER_CACHING,
+        HConstants.DEFAULT_HBASE_CLIENT_SCANNER_CACHING);
+    this.maxKeyValueSize = this.configuration.getInt(
+        "hbase.client.keyvalue.maxsize", -1);
+  }
+
+  @Override
+  public TableName getName() {
+    return tableName;
+  }
+
+  private <T> ListenableFuture<T> callWithRetries(AsyncRegionServerCallable<?, T> callable) {
+    if (closed) {
+      return Futures.immediateFailedFuture(new IOException(tableName + " is closed"));
+    }
+    return new AsyncRpcRetryingCaller<T>(configuration, retryExecutor)
+        .callWithRetries(callable, operationTimeout);
+  }
+
+  @Override
+  public ListenableFuture<Result> get(final Get get) {
+    return callWithRetries(new AsyncRegionServerCallable<GetResponse, Result>(connection,
+        tableName, get.getRow()) {
+      @Override
+      protected void send(ClientService.Interface stub, PayloadCarryingRpcController controller,
+          RpcCallback<GetResponse> done) throws IOException {
+        stub.get(controller, RequestConverter.buildGetRequest(getRegionName(), get), done);
+      }
+
+      @Override
+      protected Result convert(GetResponse response, PayloadCarryingRpcController controller)
+          throws IOException {
+        return ProtobufUtil.toResult(response.getResult(), controller.cellScanner());
+      }
+    });
+  }
+
+  /**
+   * A call sending a single mutation.
+   */
+  private abstract class MutateCallable<T>
+      extends AsyncRegionServerCallable<MutateResponse, T> {
+    MutateCallable(byte[] row) {
+      super(connection, tableName, row);
+    }
+
+    abstract MutateRequest buildRequest() throws IOException;
+
+    @Override
+    protected void send(ClientService.Interface stub, PayloadCarryingRpcController controller,
+        RpcCallback<MutateResponse> done) throws IOException {
+      stub.mutate(controller, buildRequest(), done);
+    }
+  }
+
+  @Override
+  public ListenableFuture<Void> put(final Put put) {
+    try {
+      HTable.validatePut(put, maxKeyValueSize);
+    } catch (IllegalArgumentException e) {
+      return Futures.immediateFailedFuture(e);
+    }
+    return callWithRetries(new MutateCallable<Void>(put.getRow()) {
+      @Override
+      MutateRequest buildRequest() throws IOException {
+        return RequestConverter.buildMutateRequest(getRegionName(), put);
+      }
+
+      @Override
+      protected Void convert(MutateResponse response, PayloadCarryingRpcController controller) {
+        return null;
+      }
+    });
+  }
+
+  @Override
+  public ListenableFuture<Void> delete(final Delete delete) {
+    return callWithRetries(new MutateCallable<Void>(delete.getRow()) {
+      @Override
+      MutateRequest buildRequest() throws IOException {
+        return RequestConverter.buildMutateRequest(getRegionName(), delete);
+      }
+
+      @Override
+      protected Void convert(MutateResponse response, PayloadCarryingRpcController controller) {
+        return null;
+      }
+    });
+  }
+
+  @Override
+  public ListenableFuture<Result> increment(final Increment increment) {
+    if (!increment.hasFamilies()) {
+      return Futures.immediateFailedFuture(new IOException(
+          "Invalid arguments to increment, no columns specified"));
+    }
+    NonceGenerator ng = this.connection.getNonceGenerator();
+    final long nonceGroup = ng.getNonceGroup(), nonce = ng.newNonce();
+    return callWithRetries(new MutateCallable<Result>(increment.getRow()) {
+      @Override
+      MutateRequest buildRequest() {
+        return RequestConverter.buildMutateRequest(getRegionName(), increment, nonceGroup,
+          nonce);
+      }
+
+      @Override
+      protected Result convert(MutateResponse response, PayloadCarryingRpcController controller)
+          throws IOException {
+        if (!response.hasResult()) return null;
+        return ProtobufUtil.toResult(response.getResult(), controller.cellScanner());
+      }
+    });
+  }
+
+  @Override
+  public ListenableFuture<Boolean> checkAndPut(final byte[] row, final byte[] family,
+      final byte[] qualifier, final byte[] value, final Put put) {
+    return callWithRetries(new MutateCallable<Boolean>(row) {
+      @Override
+      MutateRequest buildRequest() throws IOException {
+        return RequestConverter.buildMutateRequest(getRegionName(), row, family, qualifier,
+          new BinaryComparator(value), CompareType.EQUAL, put);
+      }
+
+      @Override
+      protected Boolean convert(MutateResponse response,
+          PayloadCarryingRpcController controller) {
+        return Boolean.valueOf(response.getProcessed());
+      }
+    });
+  }
+
+  @Override
+  public ListenableFuture<Boolean> checkAndDelete(final byte[] row, final byte[] family,
+      final byte[] qualifier, final byte[] value, final Delete delete) {
+    return callWithRetries(new MutateCallable<Boolean>(row) {
+      @Override
+      MutateRequest buildRequest() throws IOException {
+        return RequestConverter.buildMutateRequest(getRegionName(), row, family, qualifier,
+          new BinaryComparator(value), CompareType.EQUAL, delete);
+      }
+
+      @Override
+      protected Boolean convert(MutateResponse response,
+          PayloadCarryingRpcController controller) {
+        return Boolean.valueOf(response.getProcessed());
+      }
+    });
+  }
+
+  @Override
+  public ListenableFuture<Object[]> batch(List<? extends Row> actions) {
+    if (closed) {
+      return Futures.immediateFailedFuture(new IOException(tableName + " is closed"));
+    }
+    BatchResults results = new BatchResults(actions.size());
+    if (actions.isEmpty()) {
+      results.future.set(results.results);
+      return results.future;
+    }
+    AsyncProcess<Object> ap = new AsyncProcess<Object>(connection, tableName, pool, results,
+        configuration, rpcCallerFactory);
+    // We're doing a submit all. This way, the originalIndex will match the initial list.
+    ap.submitAll(actions);
+    return results.future;
+  }
+
+  /**
+   * Fills the results of a batch, and sets them into its future once all the actions are done.
+   */
+  private static class BatchResults implements AsyncProcess.AsyncProcessCallback<Object> {
+    private final Object[] results;
+    private final AtomicInteger remaining;
+    private final SettableFuture<Object[]> future = SettableFuture.create();
+    private final List<Throwable> throwables = new ArrayList<Throwable>();
+    private final List<Row> failedActions = new ArrayList<Row>();
+    private final List<String> regions = new ArrayList<String>();
+
+    BatchResults(int count) {
+      this.results = new Object[count];
+      this.remaining = new AtomicInteger(count);
+    }
+
+    @Override
+    public void success(int pos, byte[] region, Row row, Object result) {
+      results[pos] = result;
+      actionDone();
+    }
+
+    @Override
+    public boolean failure(int pos, byte[] region, Row row, Throwable t) {
+      results[pos] = t;
+      synchronized (this) {
+        throwables.add(t);
+        failedActions.add(row);
+        regions.add(region == null ? "null location" : Bytes.toStringBinary(region));
+      }
+      actionDone();
+      return true;
+    }
+
+    @Override
+    public boolean retriableFailure(int originalIndex, Row row, byte[] region,
+        Throwable exception) {
+      return true; // we retry
+    }
+
+    private void actionDone() {
+      if (remaining.decrementAndGet() != 0) {
+        return;
+      }
+      synchronized (this) {
+        if (throwables.isEmpty()) {
+          future.set(results);
+        } else {
+          future.setException(
+            new RetriesExhaustedWithDetailsException(throwables, failedActions, regions));
+        }
+      }
+    }
+  }
+
+  @Override
+  public ListenableFuture<List<Result>> scan(Scan scan) {
+    if (scan.getBatch() > 0) {
+      return Futures.immediateFailedFuture(
+        new IllegalArgumentException("Batching is not supported by asynchronous scans"));
+    }
+    if (scan.isReversed()) {
+      return Futures.immediateFailedFuture(
+        new IllegalArgumentException("Reversed scans are not supported asynchronously"));
+    }
+    SmallScan smallScan;
+    try {
+      smallScan = new SmallScan(scan);
+    } catch (IOException e) {
+      return Futures.immediateFailedFuture(e);
+    }
+    smallScan.next(smallScan.scan.getStartRow(), null);
+    return smallScan.future;
+  }
+
+  /**
+   * A scan run as a chain of small scans, as {@link ClientSmallScanner} does: each call opens a
+   * scanner on a region, reads up to caching rows, and closes it. The next call starts from the
+   * last row read, or from the next region once fewer rows than asked for came back.
+   */
+  private class SmallScan {
+    private final Scan scan;
+    private final int caching;
+    private final List<Result> results = new ArrayList<Result>();
+    private final SettableFuture<List<Result>> future = SettableFuture.create();
+
+    SmallScan(Scan scan) throws IOException {
+      // Our own copy, as the start row is moved along
+      this.scan = new Scan(scan);
+      this.caching = scan.getCaching() > 0 ? scan.getCaching() : scannerCaching;
+    }
+
+    /**
+     * Reads the next rows.
+     * @param startKey the row to start from
+     * @param skipRow the row read last, so to skip, or null if starting a region
+     */
+    void next(byte[] startKey, final byte[] skipRow) {
+      if (future.isDone()) {
+        // Cancelled
+        return;
+      }
+      final int cacheNum = skipRow == null ? caching : caching + 1;
+      if (LOG.isTraceEnabled()) {
+        LOG.trace("Advancing asynchronous small scan to startKey at '"
+            + Bytes.toStringBinary(startKey) + "'");
+      }
+      scan.setStartRow(startKey);
+      final AsyncRegionServerCallable<ScanResponse, Result[]> callable =
+        new AsyncRegionServerCallable<ScanResponse, Result[]>(connection, tableName, startKey) {
+          @Override
+          protected void send(ClientService.Interface stub,
+              PayloadCarryingRpcController controller, RpcCallback<ScanResponse> done)
+              throws IOException {
+            stub.scan(controller,
+              RequestConverter.buildScanRequest(getRegionName(), scan, cacheNum, true), done);
+          }
+
+          @Override
+          protected Result[] convert(ScanResponse response,
+              PayloadCarryingRpcController controller) throws IOException {
+            return ResponseConverter.getResults(controller.cellScanner(), response);
+          }
+        };
+      Futures.addCallback(callWithRetries(callable), new FutureCallback<Result[]>() {
+        @Override
+        public void onSuccess(Result[] values) {
+          nextDone(callable.getHRegionInfo(), skipRow, values);
+        }
+
+        @Override
+        public void onFailure(Throwable t) {
+          future.setException(t);
+        }
+      });
+    }
+
+    private void nextDone(HRegionInfo region, byte[] skipRow, Result[] values) {
+      // Server returns a null values if scanning is to stop.
+      if (values == null) {
+        future.set(results);
+        return;
+      }
+      int count = 0;
+      byte[] lastRow = null;
+      for (int i = 0; i < values.length; i++) {
+        Result rs = values[i];
+        if (i == 0 && skipRow != null && Bytes.equals(skipRow, rs.getRow())) {
+          // Skip the first result
+          continue;
+        }
+        results.add(rs);
+        lastRow = rs.getRow();
+        count++;
+      }
+      if (count >= caching) {
+        continueAt(lastRow, lastRow);
+        return;
+      }
+      // We're done with this region
+      byte[] endKey = region.getEndKey();
+      if (endKey == null || Bytes.equals(endKey, HConstants.EMPTY_BYTE_ARRAY)
+          || checkScanStopRow(endKey)) {
+        if (LOG.isDebugEnabled()) {
+          LOG.debug("Finished with asynchronous small scan at " + region);
+        }
+        future.set(results);
+        return;
+      }
+      continueAt(endKey, null);
+    }
+
+    private boolean checkScanStopRow(final byte [] endKey) {
+      byte [] stopRow = scan.getStopRow();
+      // stopRow <= endKey (endKey is equals to or larger than stopRow) is a stop.
+      return stopRow.length > 0 && Bytes.compareTo(stopRow, endKey) <= 0;
+    }
+
+    /**
+     * Reads the next rows on a thread of this table: this one reads responses, and must not
+     * block looking for a region.
+     */
+    private void continueAt(final byte[] startKey, final byte[] skipRow) {
+      try {
+        retryExecutor.execute(new Runnable() {
+          @Override
+          public void run() {
+            next(startKey, skipRow);
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        future.setException(new InterruptedIOException(tableName + " closed while scanning"));
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (this.closed) {
+      return;
+    }
+    this.closed = true;
+    this.retryExecutor.shutdown();
+    if (cleanupPoolOnClose) {
+      this.pool.shutdown();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return tableName + ";" + connection;
+  }
+}
@@ -0,0 +1,164 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hbase.client;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.HRegionLocation;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.ipc.PayloadCarryingRpcController;
+import org.apache.hadoop.hbase.protobuf.generated.ClientProtos.ClientService;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.protobuf.Message;
+import com.google.protobuf.RpcCallback;
+
+/**
+ * A {@link RegionServerCallable} calling the region server through the non-blocking stub, so
+ * that no thread waits for the response. Implementations send their request in
+ * {@link #send(ClientService.Interface, PayloadCarryingRpcController, RpcCallback)} and convert
+ * the response in {@link #convert(Message, PayloadCarryingRpcController)}. Passed to a
+ * {@link AsyncRpcRetryingCaller} so we retry on fail.
+ * @param <R> the protobuf response of the call
+ * @param <T> the class that the callable returns
+ */
+@InterfaceAudience.Private
+public abstract class AsyncRegionServerCallable<R extends Message, T>
+    extends RegionServerCallable<T> {
+  private ClientService.Interface asyncStub;
+
+  /**
+   * @param connection Connection to use.
+   * @param tableName Table name to which <code>row</code> belongs.
+   * @param row The row we want in <code>tableName</code>.
+   */
+  public AsyncRegionServerCallable(HConnection connection, TableName tableName, byte [] row) {
+    super(connection, tableName, row);
+  }
+
+  /**
+   * Finds the region location, as {@link RegionServerCallable#prepare(boolean)} does, and the
+   * non-blocking stub of its server. Blocks if the location is not in the cache.
+   */
+  @Override
+  public void prepare(final boolean reload) throws IOException {
+    HRegionLocation location = getConnection().getRegionLocation(getTableName(), getRow(),
+      reload);
+    if (location == null) {
+      throw new IOException("Failed to find location, tableName=" + getTableName() +
+        ", row=" + Bytes.toString(getRow()) + ", reload=" + reload);
+    }
+    setLocation(location);
+    this.asyncStub = getConnection().getAsyncClient(location.getServerName());
+  }
+
+  /**
+   * @return the name of the region the row is in, once prepared
+   */
+  protected byte[] getRegionName() {
+    return getLocation().getRegionInfo().getRegionName();
+  }
+
+  /**
+   * Sends the request. Must not block.
+   * @param stub the stub of the server of the region
+   * @param controller the controller to pass along, with the priority set
+   * @param done to pass along, run with the response or with null on failure
+   */
+  protected abstract void send(ClientService.Interface stub,
+      PayloadCarryingRpcController controller, RpcCallback<R> done) throws IOException;
+
+  /**
+   * Converts the response. Runs on the thread that read it, so must not block.
+   * @param controller the controller passed to send, carrying the cells of the response if any
+   */
+  protected abstract T convert(R response, PayloadCarryingRpcController controller)
+      throws IOException;
+
+  /**
+   * Calls the server once, without waiting for the response. The callback is run on the thread
+   * reading the response, or on this one if the request could not be sent.
+   */
+  void callAsync(final FutureCallback<T> callback) {
+    final PayloadCarryingRpcController controller = new PayloadCarryingRpcController();
+    controller.setPriority(getTableName());
+    RpcCallback<R> done = new RpcCallback<R>() {
+      @Override
+      public void run(R response) {
+        if (response == null) {
+          IOException e = controller.getFailedOn();
+          callback.onFailure(e != null ? e : new IOException(controller.errorText()));
+          return;
+        }
+        T result;
+        try {
+          result = convert(response, controller);
+        } catch (Throwable t) {
+          callback.onFailure(t);
+          return;
+        }
+        callback.onSuccess(result);
+      }
+    };
+    try {
+      send(this.asyncStub, controller, done);
+    } catch (Throwable t) {
+      callback.onFailure(t);
+    }
+  }
+
+  /**
+   * Calls the server once and waits for the response, so that this callable can be passed to a
+   * {@link RpcRetryingCaller} as well.
+   */
+  @Override
+  public T call() throws IOException {
+    final SettableFuture<T> future = SettableFuture.create();
+    callAsync(new FutureCallback<T>() {
+      @Override
+      public void onSuccess(T result) {
+        future.set(result);
+      }
+
+      @Override
+      public void onFailure(Throwable t) {
+        future.setException(t);
+      }
+    });
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted waiting for " +
+        getExceptionMessageAdditionalDetail());
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException)cause;
+      }
+      throw new IOException(cause);
+    }
+  }
+}
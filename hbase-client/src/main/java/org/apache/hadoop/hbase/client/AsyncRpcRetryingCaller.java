@@ -0,0 +1,168 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hbase.client;
+
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.DoNotRetryIOException;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Runs an {@link AsyncRegionServerCallable} with the retry policy of {@link RpcRetryingCaller},
+ * but without waiting: the result is set into a future, and the retries are scheduled on an
+ * executor instead of sleeping. No thread is held while a call is in flight or backing off, so
+ * one caller can serve many calls at once.
+ */
+@InterfaceAudience.Private
+public class AsyncRpcRetryingCaller<T> {
+  static final Log LOG = LogFactory.getLog(AsyncRpcRetryingCaller.class);
+  private final static int MIN_RPC_TIMEOUT = 2000;
+
+  private final long pause;
+  private final int retries;
+  private final ScheduledExecutorService retryExecutor;
+
+  /**
+   * @param retryExecutor where the retries are run, after their pause
+   */
+  public AsyncRpcRetryingCaller(Configuration conf, ScheduledExecutorService retryExecutor) {
+    this.pause = conf.getLong(HConstants.HBASE_CLIENT_PAUSE,
+      HConstants.DEFAULT_HBASE_CLIENT_PAUSE);
+    this.retries =
+        conf.getInt(HConstants.HBASE_CLIENT_RETRIES_NUMBER,
+          HConstants.DEFAULT_HBASE_CLIENT_RETRIES_NUMBER);
+    this.retryExecutor = retryExecutor;
+  }
+
+  /**
+   * Retries if invocation fails. The first try is made on the calling thread, and blocks it if
+   * the region location is not in the cache; the next ones on the retry executor.
+   * @param callable The {@link AsyncRegionServerCallable} to run.
+   * @param callTimeout Timeout for this call, retries included
+   * @return the future result of the call. Cancelling it stops the retries.
+   */
+  public ListenableFuture<T> callWithRetries(AsyncRegionServerCallable<?, T> callable,
+      int callTimeout) {
+    Retries retrying = new Retries(callable, callTimeout);
+    retrying.tryCall(0);
+    return retrying.future;
+  }
+
+  /**
+   * The state of one call and its retries. Only one try is in flight at a time.
+   */
+  private class Retries {
+    private final AsyncRegionServerCallable<?, T> callable;
+    private final int callTimeout;
+    private final long globalStartTime;
+    private final SettableFuture<T> future = SettableFuture.create();
+    private final List<RetriesExhaustedException.ThrowableWithExtraContext> exceptions =
+      new ArrayList<RetriesExhaustedException.ThrowableWithExtraContext>();
+
+    Retries(AsyncRegionServerCallable<?, T> callable, int callTimeout) {
+      this.callable = callable;
+      this.callTimeout = callTimeout;
+      this.globalStartTime = EnvironmentEdgeManager.currentTimeMillis();
+    }
+
+    void tryCall(final int tries) {
+      if (future.isDone()) {
+        // Cancelled
+        return;
+      }
+      try {
+        callable.prepare(tries != 0); // if called with false, check table status on ZK
+      } catch (Throwable t) {
+        failed(tries, t);
+        return;
+      }
+      callable.callAsync(new FutureCallback<T>() {
+        @Override
+        public void onSuccess(T result) {
+          future.set(result);
+        }
+
+        @Override
+        public void onFailure(Throwable t) {
+          failed(tries, t);
+        }
+      });
+    }
+
+    private void failed(final int tries, Throwable t) {
+      if (LOG.isTraceEnabled()) {
+        LOG.trace("Call exception, tries=" + tries + ", retries=" + retries + ", retryTime=" +
+            (EnvironmentEdgeManager.currentTimeMillis() - this.globalStartTime) + "ms", t);
+      }
+      try {
+        // translateException throws exception when should not retry: i.e. when request is bad.
+        t = RpcRetryingCaller.translateException(t);
+      } catch (DoNotRetryIOException e) {
+        future.setException(e);
+        return;
+      }
+      callable.throwable(t, retries != 1);
+      exceptions.add(new RetriesExhaustedException.ThrowableWithExtraContext(t,
+          EnvironmentEdgeManager.currentTimeMillis(), toString()));
+      if (tries >= retries - 1) {
+        future.setException(new RetriesExhaustedException(tries, exceptions));
+        return;
+      }
+      // tries hasn't been bumped up yet so we use "tries + 1" to get right pause time
+      long expectedSleep = callable.sleep(pause, tries + 1);
+
+      // If, after the planned pause, there won't be enough time left, we stop now.
+      long duration = (EnvironmentEdgeManager.currentTimeMillis() - this.globalStartTime)
+        + MIN_RPC_TIMEOUT + expectedSleep;
+      if (duration > this.callTimeout) {
+        String msg = "callTimeout=" + this.callTimeout + ", callDuration=" + duration +
+            ": " + callable.getExceptionMessageAdditionalDetail();
+        future.setException(new SocketTimeoutException(msg).initCause(t));
+        return;
+      }
+      try {
+        retryExecutor.schedule(new Runnable() {
+          @Override
+          public void run() {
+            tryCall(tries + 1);
+          }
+        }, expectedSleep, TimeUnit.MILLISECONDS);
+      } catch (RejectedExecutionException e) {
+        future.setException(new InterruptedIOException("Stopped after " + (tries + 1) +
+          " tries on " + retries + ": " + callable.getExceptionMessageAdditionalDetail()));
+      }
+    }
+  }
+}
@@ -0,0 +1,140 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.classification.InterfaceStability;
+import org.apache.hadoop.hbase.TableName;
+
+import com.google.common.util.concurrent.ListenableFuture;
+
+/**
+ * Used to communicate with a single HBase table without blocking: each operation returns at once
+ * with a future of its result, so that many operations can be in flight from a few threads.
+ * <p>
+ * Operations are validated and retried as with {@link HTableInterface}, and their futures fail
+ * with the same exceptions its methods throw, invalid arguments included: no method throws
+ * itself. Listeners added to the futures without an executor run on the threads reading the
+ * responses, and must not block.
+ * <p>
+ * Finding the location of a region not in the cache still blocks, on the calling thread for the
+ * first try of an operation.
+ */
+@InterfaceAudience.Public
+@InterfaceStability.Evolving
+public interface AsyncTable extends Closeable {
+
+  /**
+   * Gets the fully qualified table name instance of this table.
+   */
+  TableName getName();
+
+  /**
+   * Extracts certain cells from a given row.
+   * @param get The object that specifies what data to fetch and from which row.
+   * @return the future data coming from the specified row, as in
+   * {@link HTableInterface#get(Get)}.
+   */
+  ListenableFuture<Result> get(Get get);
+
+  /**
+   * Puts some data in the table. Unlike {@link HTableInterface#put(Put)}, the put is not
+   * buffered.
+   * @param put The data to put.
+   * @return a future done once the data is written
+   */
+  ListenableFuture<Void> put(Put put);
+
+  /**
+   * Deletes the specified cells/row.
+   * @param delete The object that specifies what to delete.
+   * @return a future done once the data is deleted
+   */
+  ListenableFuture<Void> delete(Delete delete);
+
+  /**
+   * Increments one or more columns within a single row.
+   * @param increment object that specifies the columns and amounts to be used
+   *                  for the increment operations
+   * @return the future values of the columns after the increment
+   */
+  ListenableFuture<Result> increment(Increment increment);
+
+  /**
+   * Atomically checks if a row/family/qualifier value matches the expected
+   * value. If it does, it adds the put.  If the passed value is null, the check
+   * is for the lack of column (ie: non-existance)
+   *
+   * @param row to check
+   * @param family column family to check
+   * @param qualifier column qualifier to check
+   * @param value the expected value
+   * @param put data to put if check succeeds
+   * @return the future of whether the put was done
+   */
+  ListenableFuture<Boolean> checkAndPut(byte[] row, byte[] family, byte[] qualifier,
+      byte[] value, Put put);
+
+  /**
+   * Atomically checks if a row/family/qualifier value matches the expected
+   * value. If it does, it adds the delete.  If the passed value is null, the
+   * check is for the lack of column (ie: non-existance)
+   *
+   * @param row to check
+   * @param family column family to check
+   * @param qualifier column qualifier to check
+   * @param value the expected value
+   * @param delete data to delete if check succeeds
+   * @return the future of whether the delete was done
+   */
+  ListenableFuture<Boolean> checkAndDelete(byte[] row, byte[] family, byte[] qualifier,
+      byte[] value, Delete delete);
+
+  /**
+   * Method that does a batch call on Deletes, Gets, Puts, Increments, Appends and RowMutations.
+   * The execution ordering of the actions is not defined.
+   * @param actions list of Get, Put, Delete, Increment, Append, RowMutations objects
+   * @return the future results, in the order of the actions, as in
+   * {@link HTableInterface#batch(List)}. On failure, the future fails with a
+   * {@link RetriesExhaustedWithDetailsException} once all the actions are done.
+   */
+  ListenableFuture<Object[]> batch(List<? extends Row> actions);
+
+  /**
+   * Scans the table, one small scan of a region at a time: each region server call opens, reads
+   * and closes its scanner. Meant for scans of a bounded number of rows, all of which are held
+   * in memory.
+   * @param scan A configured {@link Scan} object. It is not modified. Batching and reversed
+   * scans are not supported: the future fails with an {@link IllegalArgumentException}.
+   * @return the future rows found by the scan
+   */
+  ListenableFuture<List<Result>> scan(Scan scan);
+
+  /**
+   * Releases any resources held. Operations in flight are completed, but their retries are not
+   * run.
+   * @throws IOException if a remote or network exception occurs.
+   */
+  @Override
+  void close() throws IOException;
+}
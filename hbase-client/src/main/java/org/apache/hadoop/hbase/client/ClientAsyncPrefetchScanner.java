@@ -0,0 +1,195 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.TableName;
+
+/**
+ * A {@link ClientScanner} that fetches the next rows of the scan on a thread
+ * pool while the application consumes the rows already fetched.
+ * <p>
+ * A prefetch starts once the rows buffered drop to half of the caching of the
+ * scan and half of its max result size, and asks for what is missing to get
+ * back to them, so the buffered rows never take more than either. At most one
+ * prefetch runs at a time, and it is the only one to use the scanner state of
+ * ClientScanner while it runs: it moves to the next regions, reopens the
+ * scanner after a region moved and detects scanner timeouts just as a
+ * synchronous scanner does. Its errors are thrown by the next call to
+ * {@link #next()} that finds no row buffered.
+ */
+@InterfaceAudience.Private
+public class ClientAsyncPrefetchScanner extends ClientScanner {
+  private static final Log LOG = LogFactory.getLog(ClientAsyncPrefetchScanner.class);
+
+  private final ExecutorService pool;
+
+  // Guards the cache and the fields below
+  private final Object lock = new Object();
+  private long cacheSizeInBytes = 0;
+  private boolean prefetching = false;
+  private IOException exception;
+  private boolean closing = false;
+  // The thread running a prefetch, to tell the close of the scanner at the
+  // end of the scan, done by the prefetch, from the close of the application
+  private volatile Thread loader;
+
+  /**
+   * Create a new ClientAsyncPrefetchScanner for the specified table.
+   * Note that the passed {@link Scan}'s start row maybe changed.
+   * @param conf The {@link Configuration} to use.
+   * @param scan {@link Scan} to use in this scanner
+   * @param tableName The table that we wish to scan
+   * @param connection Connection identifying the cluster
+   * @param pool the threads to prefetch the rows with
+   * @throws IOException
+   */
+  public ClientAsyncPrefetchScanner(final Configuration conf, final Scan scan,
+      final TableName tableName, HConnection connection, ExecutorService pool)
+      throws IOException {
+    super(conf, scan, tableName, connection);
+    this.pool = pool;
+    synchronized (lock) {
+      maybePrefetch();
+    }
+  }
+
+  @Override
+  public Result next() throws IOException {
+    synchronized (lock) {
+      while (true) {
+        if (closing) {
+          return null;
+        }
+        Result result = cache.poll();
+        if (result != null) {
+          cacheSizeInBytes -= Result.getTotalSizeOfCells(result);
+          maybePrefetch();
+          return result;
+        }
+        if (exception != null) {
+          IOException e = exception;
+          exception = null;
+          throw e;
+        }
+        if (!prefetching) {
+          if (closed) {
+            // if we exhausted this scanner before calling close, write out the scan metrics
+            writeScanMetrics();
+            return null;
+          }
+          maybePrefetch();
+        }
+        try {
+          lock.wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("Interrupted waiting for the rows of "
+              + getTable());
+        }
+      }
+    }
+  }
+
+  /*
+   * Starts a prefetch if none is running and the cache has room for it.
+   * Called with the lock held.
+   */
+  private void maybePrefetch() {
+    if (prefetching || closed || closing || exception != null
+        || cache.size() > caching / 2 || cacheSizeInBytes > maxScannerResultSize / 2) {
+      return;
+    }
+    final int nbRows = caching - cache.size();
+    final long maxResultSize = maxScannerResultSize - cacheSizeInBytes;
+    prefetching = true;
+    try {
+      pool.execute(new Runnable() {
+        @Override
+        public void run() {
+          prefetch(nbRows, maxResultSize);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      prefetching = false;
+      exception = new IOException("Failed to prefetch the rows of " + getTable(), e);
+    }
+  }
+
+  private void prefetch(int nbRows, long maxResultSize) {
+    List<Result> results = new ArrayList<Result>(nbRows);
+    IOException error = null;
+    loader = Thread.currentThread();
+    try {
+      loadCache(results, nbRows, maxResultSize);
+    } catch (IOException e) {
+      error = e;
+    } catch (RuntimeException e) {
+      LOG.warn("Failed prefetching the rows of " + getTable(), e);
+      error = new IOException(e);
+    } finally {
+      loader = null;
+    }
+    synchronized (lock) {
+      prefetching = false;
+      if (closing) {
+        // The application closed the scanner while we were reading
+        super.close();
+      } else {
+        for (Result result : results) {
+          cache.add(result);
+          cacheSizeInBytes += Result.getTotalSizeOfCells(result);
+        }
+        exception = error;
+      }
+      lock.notifyAll();
+    }
+  }
+
+  @Override
+  public void close() {
+    if (Thread.currentThread() == loader) {
+      // The prefetch reached the end of the scan
+      super.close();
+      return;
+    }
+    synchronized (lock) {
+      if (closing) {
+        return;
+      }
+      closing = true;
+      cache.clear();
+      cacheSizeInBytes = 0;
+      if (!prefetching) {
+        super.close();
+      }
+      // else the prefetch closes the scanner when it is done
+      lock.notifyAll();
+    }
+  }
+}
@@ -19,6 +19,7 @@ package org.apache.hadoop.hbase.client;
 
 import java.io.IOException;
 import java.util.LinkedList;
+import java.util.List;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -54,7 +55,7 @@ public class ClientScanner extends AbstractClientScanner {
     // Current region scanner is against.  Gets cleared if current region goes
     // wonky: e.g. if it splits on us.
     protected HRegionInfo currentRegion = null;
-    private ScannerCallable callable = null;
+    protected ScannerCallable callable = null;
     protected final LinkedList<Result> cache = new LinkedList<Result>();
     protected final int caching;
     protected long lastNext;
@@ -219,7 +220,7 @@ public class ClientScanner extends AbstractClientScanner {
      * @param nbRows
      * @param done Server-side says we're done scanning.
      */
-    private boolean nextScanner(int nbRows, final boolean done)
+    protected boolean nextScanner(int nbRows, final boolean done)
     throws IOException {
       // Close the previous scanner if it's open
       if (this.callable != null) {
@@ -310,107 +311,7 @@ public class ClientScanner extends AbstractClientScanner {
         return null;
       }
       if (cache.size() == 0) {
-        Result [] values = null;
-        long remainingResultSize = maxScannerResultSize;
-        int countdown = this.caching;
-        // We need to reset it if it's a new callable that was created
-        // with a countdown in nextScanner
-        callable.setCaching(this.caching);
-        // This flag is set when we want to skip the result returned.  We do
-        // this when we reset scanner because it split under us.
-        boolean skipFirst = false;
-        boolean retryAfterOutOfOrderException  = true;
-        do {
-          try {
-            if (skipFirst) {
-              // Skip only the first row (which was the last row of the last
-              // already-processed batch).
-              callable.setCaching(1);
-              values = this.caller.callWithRetries(callable);
-              callable.setCaching(this.caching);
-              skipFirst = false;
-            }
-            // Server returns a null values if scanning is to stop.  Else,
-            // returns an empty array if scanning is to go on and we've just
-            // exhausted current region.
-            values = this.caller.callWithRetries(callable);
-            if (skipFirst && values != null && values.length == 1) {
-              skipFirst = false; // Already skipped, unset it before scanning again
-              values = this.caller.callWithRetries(callable);
-            }
-            retryAfterOutOfOrderException  = true;
-          } catch (DoNotRetryIOException e) {
-            // DNRIOEs are thrown to make us break out of retries.  Some types of DNRIOEs want us
-            // to reset the scanner and come back in again.
-            if (e instanceof UnknownScannerException) {
-              long timeout = lastNext + scannerTimeout;
-              // If we are over the timeout, throw this exception to the client wrapped in
-              // a ScannerTimeoutException. Else, it's because the region moved and we used the old
-              // id against the new region server; reset the scanner.
-              if (timeout < System.currentTimeMillis()) {
-                long elapsed = System.currentTimeMillis() - lastNext;
-                ScannerTimeoutException ex = new ScannerTimeoutException(
-                    elapsed + "ms passed since the last invocation, " +
-                        "timeout is currently set to " + scannerTimeout);
-                ex.initCause(e);
-                throw ex;
-              }
-            } else {
-              // If exception is any but the list below throw it back to the client; else setup
-              // the scanner and retry.
-              Throwable cause = e.getCause();
-              if ((cause != null && cause instanceof NotServingRegionException) ||
-                (cause != null && cause instanceof RegionServerStoppedException) ||
-                e instanceof OutOfOrderScannerNextException) {
-                // Pass
-                // It is easier writing the if loop test as list of what is allowed rather than
-                // as a list of what is not allowed... so if in here, it means we do not throw.
-              } else {
-                throw e;
-              }
-            }
-            // Else, its signal from depths of ScannerCallable that we need to reset the scanner.
-            if (this.lastResult != null) {
-              this.scan.setStartRow(this.lastResult.getRow());
-              // Skip first row returned.  We already let it out on previous
-              // invocation.
-              skipFirst = true;
-            }
-            if (e instanceof OutOfOrderScannerNextException) {
-              if (retryAfterOutOfOrderException) {
-                retryAfterOutOfOrderException = false;
-              } else {
-                // TODO: Why wrap this in a DNRIOE when it already is a DNRIOE?
-                throw new DoNotRetryIOException("Failed after retry of " +
-                  "OutOfOrderScannerNextException: was there a rpc timeout?", e);
-              }
-            }
-            // Clear region.
-            this.currentRegion = null;
-            // Set this to zero so we don't try and do an rpc and close on remote server when
-            // the exception we got was UnknownScanner or the Server is going down.
-            callable = null;
-            // This continue will take us to while at end of loop where we will set up new scanner.
-            continue;
-          }
-          long currentTime = System.currentTimeMillis();
-          if (this.scanMetrics != null ) {
-            this.scanMetrics.sumOfMillisSecBetweenNexts.addAndGet(currentTime-lastNext);
-          }
-          lastNext = currentTime;
-          if (values != null && values.length > 0) {
-            for (Result rs : values) {
-              cache.add(rs);
-              for (Cell kv : rs.rawCells()) {
-                // TODO make method in Cell or CellUtil
-                remainingResultSize -= KeyValueUtil.ensureKeyValue(kv).heapSize();
-              }
-              countdown--;
-              this.lastResult = rs;
-            }
-          }
-          // Values == null means server-side filter has determined we must STOP
-        } while (remainingResultSize > 0 && countdown > 0 && nextScanner(countdown, values == null));
+        loadCache(cache, this.caching, maxScannerResultSize);
       }
 
       if (cache.size() > 0) {
@@ -422,6 +323,121 @@ public class ClientScanner extends AbstractClientScanner {
       return null;
     }
 
+    /**
+     * Reads the next rows of the scan from the region servers into the given
+     * list, moving on to the next regions as needed, until about the given
+     * number of rows or bytes are read or the scan is done. The scanner must
+     * not be closed.
+     * @param results where to add the rows read
+     * @param nbRows the number of rows to read at most
+     * @param maxResultSize the size in bytes after which to stop reading
+     * @throws IOException
+     */
+    protected void loadCache(final List<Result> results, final int nbRows,
+        final long maxResultSize) throws IOException {
+      Result [] values = null;
+      long remainingResultSize = maxResultSize;
+      int countdown = nbRows;
+      // We need to reset it if it's a new callable that was created
+      // with a countdown in nextScanner
+      callable.setCaching(nbRows);
+      // This flag is set when we want to skip the result returned.  We do
+      // this when we reset scanner because it split under us.
+      boolean skipFirst = false;
+      boolean retryAfterOutOfOrderException  = true;
+      do {
+        try {
+          if (skipFirst) {
+            // Skip only the first row (which was the last row of the last
+            // already-processed batch).
+            callable.setCaching(1);
+            values = this.caller.callWithRetries(callable);
+            callable.setCaching(nbRows);
+            skipFirst = false;
+          }
+          // Server returns a null values if scanning is to stop.  Else,
+          // returns an empty array if scanning is to go on and we've just
+          // exhausted current region.
+          values = this.caller.callWithRetries(callable);
+          if (skipFirst && values != null && values.length == 1) {
+            skipFirst = false; // Already skipped, unset it before scanning again
+            values = this.caller.callWithRetries(callable);
+          }
+          retryAfterOutOfOrderException  = true;
+        } catch (DoNotRetryIOException e) {
+          // DNRIOEs are thrown to make us break out of retries.  Some types of DNRIOEs want us
+          // to reset the scanner and come back in again.
+          if (e instanceof UnknownScannerException) {
+            long timeout = lastNext + scannerTimeout;
+            // If we are over the timeout, throw this exception to the client wrapped in
+            // a ScannerTimeoutException. Else, it's because the region moved and we used the old
+            // id against the new region server; reset the scanner.
+            if (timeout < System.currentTimeMillis()) {
+              long elapsed = System.currentTimeMillis() - lastNext;
+              ScannerTimeoutException ex = new ScannerTimeoutException(
+                  elapsed + "ms passed since the last invocation, " +
+                      "timeout is currently set to " + scannerTimeout);
+              ex.initCause(e);
+              throw ex;
+            }
+          } else {
+            // If exception is any but the list below throw it back to the client; else setup
+            // the scanner and retry.
+            Throwable cause = e.getCause();
+            if ((cause != null && cause instanceof NotServingRegionException) ||
+              (cause != null && cause instanceof RegionServerStoppedException) ||
+              e instanceof OutOfOrderScannerNextException) {
+              // Pass
+              // It is easier writing the if loop test as list of what is allowed rather than
+              // as a list of what is not allowed... so if in here, it means we do not throw.
+            } else {
+              throw e;
+            }
+          }
+          // Else, its signal from depths of ScannerCallable that we need to reset the scanner.
+          if (this.lastResult != null) {
+            this.scan.setStartRow(this.lastResult.getRow());
+            // Skip first row returned.  We already let it out on previous
+            // invocation.
+            skipFirst = true;
+          }
+          if (e instanceof OutOfOrderScannerNextException) {
+            if (retryAfterOutOfOrderException) {
+              retryAfterOutOfOrderException = false;
+            } else {
+              // TODO: Why wrap this in a DNRIOE when it already is a DNRIOE?
+              throw new DoNotRetryIOException("Failed after retry of " +
+                "OutOfOrderScannerNextException: was there a rpc timeout?", e);
+            }
+          }
+          // Clear region.
+          this.currentRegion = null;
+          // Set this to zero so we don't try and do an rpc and close on remote server when
+          // the exception we got was UnknownScanner or the Server is going down.
+          callable = null;
+          // This continue will take us to while at end of loop where we will set up new scanner.
+          continue;
+        }
+        long currentTime = System.currentTimeMillis();
+        if (this.scanMetrics != null ) {
+          this.scanMetrics.sumOfMillisSecBetweenNexts.addAndGet(currentTime-lastNext);
+        }
+        lastNext = currentTime;
+        if (values != null && values.length > 0) {
+          for (Result rs : values) {
+            results.add(rs);
+            for (Cell kv : rs.rawCells()) {
+              // TODO make method in Cell or CellUtil
+              remainingResultSize -= KeyValueUtil.ensureKeyValue(kv).heapSize();
+            }
+            countdown--;
+            this.lastResult = rs;
+          }
+        }
+        // Values == null means server-side filter has determined we must STOP
+      } while (remainingResultSize > 0 && countdown > 0 && nextScanner(countdown, values == null));
+    }
+
     @Override
     public void close() {
       if (!scanMetricsPublished) writeScanMetrics();
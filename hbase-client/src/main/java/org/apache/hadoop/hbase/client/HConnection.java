@@ -375,6 +375,18 @@ public interface HConnection extends Abortable, Closeable {
    */
   ClientService.BlockingInterface getClient(final ServerName serverName) throws IOException;
 
+  /**
+   * Establishes a connection to the region server at the specified address, and returns
+   * a non-blocking region client protocol: calls return at once, and run their callback
+   * when the region server answers. The callbacks run on the threads reading responses and
+   * must not block.
+   *
+   * @param serverName
+   * @return non-blocking ClientProtocol proxy for RegionServer
+   * @throws IOException if a remote or network exception occurs
+   */
+  ClientService.Interface getAsyncClient(final ServerName serverName) throws IOException;
+
   /**
    * Establishes a connection to the region server at the specified address.
    * @param serverName
@@ -68,6 +68,7 @@ import org.apache.hadoop.hbase.client.MetaScanner.MetaScannerVisitorBase;
 import org.apache.hadoop.hbase.client.coprocessor.Batch;
 import org.apache.hadoop.hbase.exceptions.RegionMovedException;
 import org.apache.hadoop.hbase.exceptions.RegionOpeningException;
+import org.apache.hadoop.hbase.ipc.CallDroppedException;
 import org.apache.hadoop.hbase.ipc.RpcClient;
 import org.apache.hadoop.hbase.protobuf.ProtobufUtil;
 import org.apache.hadoop.hbase.protobuf.RequestConverter;
@@ -126,6 +127,7 @@ import org.apache.zookeeper.KeeperException;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.protobuf.BlockingRpcChannel;
+import com.google.protobuf.RpcChannel;
 import com.google.protobuf.RpcController;
 import com.google.protobuf.ServiceException;
 
@@ -1728,6 +1730,26 @@ public class HConnectionManager {
       return stub;
     }
 
+    @Override
+    public ClientService.Interface getAsyncClient(final ServerName sn)
+    throws IOException {
+      if (isDeadServer(sn)) {
+        throw new RegionServerStoppedException(sn + " is dead.");
+      }
+      String key = getStubKey(ClientService.Interface.class.getName(), sn.getHostAndPort());
+      this.connectionLock.putIfAbsent(key, key);
+      ClientService.Interface stub = null;
+      synchronized (this.connectionLock.get(key)) {
+        stub = (ClientService.Interface)this.stubs.get(key);
+        if (stub == null) {
+          RpcChannel channel = this.rpcClient.createRpcChannel(sn, user, this.rpcTimeout);
+          stub = ClientService.newStub(channel);
+          this.stubs.put(key, stub);
+        }
+      }
+      return stub;
+    }
+
     static String getStubKey(final String serviceName, final String rsHostnamePort) {
       return serviceName + "@" + rsHostnamePort;
     }
@@ -2247,7 +2269,8 @@ public class HConnectionManager {
       HRegionInfo regionInfo = oldLocation.getRegionInfo();
       Throwable cause = findException(exception);
       if (cause != null) {
-        if (cause instanceof RegionTooBusyException || cause instanceof RegionOpeningException) {
+        if (cause instanceof RegionTooBusyException || cause instanceof RegionOpeningException
+            || cause instanceof CallDroppedException) {
           // We know that the region is still on this region server
           return;
         }
@@ -2745,7 +2768,8 @@ public class HConnectionManager {
    * - hadoop.ipc wrapped exceptions
    * - nested exceptions
    * 
-   * Looks for: RegionMovedException / RegionOpeningException / RegionTooBusyException
+   * Looks for: RegionMovedException / RegionOpeningException / RegionTooBusyException /
+   * CallDroppedException
    * @return null if we didn't find the exception, the exception otherwise.
    */
   public static Throwable findException(Object exception) {
@@ -2755,14 +2779,14 @@ public class HConnectionManager {
     Throwable cur = (Throwable) exception;
     while (cur != null) {
       if (cur instanceof RegionMovedException || cur instanceof RegionOpeningException
-          || cur instanceof RegionTooBusyException) {
+          || cur instanceof RegionTooBusyException || cur instanceof CallDroppedException) {
         return cur;
       }
       if (cur instanceof RemoteException) {
         RemoteException re = (RemoteException) cur;
         cur = re.unwrapRemoteException(
             RegionOpeningException.class, RegionMovedException.class,
-            RegionTooBusyException.class);
+            RegionTooBusyException.class, CallDroppedException.class);
         if (cur == null) {
           cur = re.unwrapRemoteException();
         }
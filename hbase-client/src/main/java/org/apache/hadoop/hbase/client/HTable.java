@@ -713,10 +713,22 @@ public class HTable implements HTableInterface {
     if (scan.getCaching() <= 0) {
       scan.setCaching(getScannerCaching());
     }
+    if (scan.isReversed()) {
+      return new ReversedClientScanner(getConfiguration(), scan, getName(),
+          this.connection);
+    }
+    if (scan.getParallelism() > 1 && !scan.isSmall()) {
+      return new ParallelClientScanner(getConfiguration(), scan, getName(),
+          this.connection, this.pool);
+    }
     if (scan.isSmall()) {
       return new ClientSmallScanner(getConfiguration(), scan, getName(),
           this.connection);
     }
+    if (scan.isAsyncPrefetch()) {
+      return new ClientAsyncPrefetchScanner(getConfiguration(), scan, getName(),
+          this.connection, this.pool);
+    }
     return new ClientScanner(getConfiguration(), scan,
         getName(), this.connection);
   }
@@ -1028,6 +1040,7 @@ public class HTable implements HTableInterface {
           PayloadCarryingRpcController rpcController = new PayloadCarryingRpcController();
           rpcController.setPriority(getTableName());
           MutateResponse response = getStub().mutate(rpcController, request);
+          if (!response.hasResult()) return null;
           return ProtobufUtil.toResult(response.getResult(), rpcController.cellScanner());
         } catch (ServiceException se) {
           throw ProtobufUtil.getRemoteException(se);
@@ -1252,6 +1265,12 @@ public class HTable implements HTableInterface {
 
   // validate for well-formedness
   public void validatePut(final Put put) throws IllegalArgumentException{
+    validatePut(put, maxKeyValueSize);
+  }
+
+  // validate for well-formedness
+  static void validatePut(final Put put, final int maxKeyValueSize)
+  throws IllegalArgumentException {
     if (put.isEmpty()) {
       throw new IllegalArgumentException("No columns to insert");
     }
@@ -49,9 +49,29 @@ import org.apache.hadoop.hbase.util.ClassSize;
 @InterfaceStability.Stable
 public class Increment extends Mutation implements Comparable<Row> {
   private static final long HEAP_OVERHEAD =  ClassSize.REFERENCE + ClassSize.TIMERANGE;
+  private static final String RETURN_RESULTS = "_rr_";
 
   private TimeRange tr = new TimeRange();
 
+  /**
+   * @param returnResults
+   *          True (default) if the increment operation should return the results.
+   *          A client that is not interested in the result can save network
+   *          bandwidth setting this to false; in a family keeping delta counters,
+   *          it also saves reading the counters back after the increment.
+   */
+  public void setReturnResults(boolean returnResults) {
+    setAttribute(RETURN_RESULTS, Bytes.toBytes(returnResults));
+  }
+
+  /**
+   * @return current setting for returnResults
+   */
+  public boolean isReturnResults() {
+    byte[] v = getAttribute(RETURN_RESULTS);
+    return v == null ? true : Bytes.toBoolean(v);
+  }
+
   /**
    * Create a Increment operation for the specified row.
    * <p>
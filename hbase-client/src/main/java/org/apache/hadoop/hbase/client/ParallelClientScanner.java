@@ -0,0 +1,352 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.HRegionLocation;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.metrics.ScanMetrics;
+import org.apache.hadoop.hbase.protobuf.ProtobufUtil;
+import org.apache.hadoop.hbase.protobuf.generated.MapReduceProtos;
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * A client scanner that scans several regions of a table at the same time.
+ * <p>
+ * The range of the scan is cut at the region boundaries known when the
+ * scanner is created. Up to {@link Scan#getParallelism()} of these ranges are
+ * read at the same time, each one by a {@link ClientScanner} running on the
+ * given thread pool. A range that spans several regions by the time it is
+ * read, after a split, is read through all of them by its ClientScanner.
+ * <p>
+ * Each range buffers the rows it reads ahead, up to the max result size of
+ * the scan and up to its caching. When {@link Scan#isParallelOrdered()}, the
+ * rows are returned range after range, so in key order, and the next ranges
+ * only read ahead up to their buffers. Otherwise the rows are returned from
+ * whatever range has some.
+ * <p>
+ * Scan metrics of the ranges are added up into the metrics of this scanner,
+ * along with the number of ranges completed, as the ranges complete and when
+ * the metrics are asked for.
+ */
+@InterfaceAudience.Private
+public class ParallelClientScanner extends AbstractClientScanner {
+  private static final Log LOG = LogFactory.getLog(ParallelClientScanner.class);
+
+  private final Configuration conf;
+  private final Scan scan;
+  private final TableName tableName;
+  private final HConnection connection;
+  private final ExecutorService pool;
+  private final boolean ordered;
+  private final int parallelism;
+  private final long maxBufferSize;
+  private final int maxBufferedRows;
+
+  // The ranges of the scan, one per region, and the next one to read
+  private final List<Scan> ranges;
+  private int nextRange = 0;
+
+  // Guards the fields below and the buffers of the range scans
+  private final Object lock = new Object();
+  // The ranges being read, in key order
+  private final LinkedList<RangeScan> active = new LinkedList<RangeScan>();
+  private boolean closed = false;
+  private boolean scanMetricsPublished = false;
+
+  /**
+   * Create a new ParallelClientScanner for the specified table.
+   * @param conf The {@link Configuration} to use.
+   * @param scan {@link Scan} to use in this scanner
+   * @param tableName The table that we wish to scan
+   * @param connection Connection identifying the cluster
+   * @param pool the threads to read the regions with
+   * @throws IOException
+   */
+  public ParallelClientScanner(final Configuration conf, final Scan scan,
+      final TableName tableName, HConnection connection, ExecutorService pool)
+      throws IOException {
+    this.conf = conf;
+    this.scan = scan;
+    this.tableName = tableName;
+    this.connection = connection;
+    this.pool = pool;
+    this.ordered = scan.isParallelOrdered();
+    this.parallelism = Math.max(1, scan.getParallelism());
+    if (scan.getMaxResultSize() > 0) {
+      this.maxBufferSize = scan.getMaxResultSize();
+    } else {
+      this.maxBufferSize = conf.getLong(
+          HConstants.HBASE_CLIENT_SCANNER_MAX_RESULT_SIZE_KEY,
+          HConstants.DEFAULT_HBASE_CLIENT_SCANNER_MAX_RESULT_SIZE);
+    }
+    // Use the caching from the Scan.  If not set, use the default cache setting for this table.
+    if (scan.getCaching() > 0) {
+      this.maxBufferedRows = scan.getCaching();
+    } else {
+      this.maxBufferedRows = Math.max(1, conf.getInt(
+          HConstants.HBASE_CLIENT_SCANNER_CACHING,
+          HConstants.DEFAULT_HBASE_CLIENT_SCANNER_CACHING));
+    }
+    initScanMetrics(scan);
+    this.ranges = splitByRegion();
+    synchronized (lock) {
+      try {
+        startRangeScans();
+      } catch (IOException e) {
+        close();
+        throw e;
+      }
+    }
+  }
+
+  /*
+   * Cuts the range of the scan at the region boundaries.
+   */
+  private List<Scan> splitByRegion() throws IOException {
+    byte[] stopRow = scan.getStopRow();
+    List<Scan> result = new ArrayList<Scan>();
+    byte[] currentKey = scan.getStartRow();
+    boolean last;
+    do {
+      HRegionLocation location = connection.getRegionLocation(tableName, currentKey, false);
+      if (location == null) {
+        throw new IOException("Failed to find location, tableName=" + tableName
+            + ", row=" + Bytes.toStringBinary(currentKey));
+      }
+      byte[] endKey = location.getRegionInfo().getEndKey();
+      last = Bytes.equals(endKey, HConstants.EMPTY_END_ROW)
+          || (stopRow.length > 0 && Bytes.compareTo(endKey, stopRow) >= 0);
+      Scan range = new Scan(scan);
+      range.setParallelism(1);
+      range.setStartRow(currentKey);
+      range.setStopRow(last ? stopRow : endKey);
+      result.add(range);
+      currentKey = endKey;
+    } while (!last);
+    return result;
+  }
+
+  /*
+   * Starts reading the next ranges, up to the parallelism. Called with the
+   * lock held.
+   */
+  private void startRangeScans() throws IOException {
+    while (active.size() < parallelism && nextRange < ranges.size()) {
+      RangeScan rangeScan = new RangeScan(ranges.get(nextRange++));
+      active.add(rangeScan);
+      try {
+        pool.execute(rangeScan);
+      } catch (RejectedExecutionException e) {
+        active.remove(rangeScan);
+        throw new IOException("Failed to start the scan of "
+            + Bytes.toStringBinary(rangeScan.scan.getStartRow()), e);
+      }
+    }
+  }
+
+  @Override
+  public Result next() throws IOException {
+    synchronized (lock) {
+      while (!closed && !active.isEmpty()) {
+        RangeScan completed = null;
+        for (Iterator<RangeScan> i = active.iterator(); i.hasNext();) {
+          RangeScan rangeScan = i.next();
+          if (rangeScan.exception != null) {
+            IOException e = rangeScan.exception;
+            close();
+            throw e;
+          }
+          Result result = rangeScan.results.poll();
+          if (result != null) {
+            rangeScan.bufferedSize -= Result.getTotalSizeOfCells(result);
+            lock.notifyAll();
+            return result;
+          }
+          if (rangeScan.done) {
+            i.remove();
+            completed = rangeScan;
+            break;
+          }
+          if (ordered) {
+            // The rows of the next ranges wait for this one
+            break;
+          }
+        }
+        if (completed != null) {
+          collectMetrics(completed);
+          if (this.scanMetrics != null) {
+            this.scanMetrics.countOfRegionsCompleted.incrementAndGet();
+          }
+          startRangeScans();
+          continue;
+        }
+        try {
+          lock.wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("Interrupted waiting for the rows of "
+              + tableName);
+        }
+      }
+      // if we exhausted this scanner before calling close, write out the scan metrics
+      writeScanMetrics();
+      return null;
+    }
+  }
+
+  @Override
+  public void close() {
+    synchronized (lock) {
+      if (closed) {
+        return;
+      }
+      writeScanMetrics();
+      closed = true;
+      // The range scans close their scanners as they see this
+      lock.notifyAll();
+    }
+  }
+
+  @Override
+  public ScanMetrics getScanMetrics() {
+    synchronized (lock) {
+      for (RangeScan rangeScan : active) {
+        collectMetrics(rangeScan);
+      }
+    }
+    return scanMetrics;
+  }
+
+  /**
+   * @return the number of rows each range scan reads ahead of the caller
+   */
+  int getMaxBufferedRows() {
+    return maxBufferedRows;
+  }
+
+  /*
+   * Adds the metrics the scanner of the range collected since the last time
+   * into the metrics of this scanner.
+   */
+  private void collectMetrics(RangeScan rangeScan) {
+    ScanMetrics rangeMetrics = rangeScan.scanMetrics;
+    if (this.scanMetrics != null && rangeMetrics != null) {
+      this.scanMetrics.addMetrics(rangeMetrics);
+    }
+  }
+
+  /*
+   * Publishes the metrics on the scan, as ClientScanner does. Called with the
+   * lock held.
+   */
+  private void writeScanMetrics() {
+    if (this.scanMetrics == null || scanMetricsPublished) {
+      return;
+    }
+    for (RangeScan rangeScan : active) {
+      collectMetrics(rangeScan);
+    }
+    MapReduceProtos.ScanMetrics pScanMetrics = ProtobufUtil.toScanMetrics(scanMetrics);
+    scan.setAttribute(Scan.SCAN_ATTRIBUTES_METRICS_DATA, pScanMetrics.toByteArray());
+    scanMetricsPublished = true;
+  }
+
+  /**
+   * Reads the rows of one range into its buffer, until the range is done,
+   * the buffer is full or the scanner is closed.
+   */
+  private class RangeScan implements Runnable {
+    private final Scan scan;
+    // The fields below are guarded by the lock of the scanner
+    private final LinkedList<Result> results = new LinkedList<Result>();
+    private long bufferedSize = 0;
+    private boolean done = false;
+    private IOException exception;
+    private volatile ScanMetrics scanMetrics;
+
+    RangeScan(Scan scan) {
+      this.scan = scan;
+    }
+
+    private boolean isFull() {
+      return bufferedSize >= maxBufferSize || results.size() >= maxBufferedRows;
+    }
+
+    @Override
+    public void run() {
+      ClientScanner scanner = null;
+      try {
+        scanner = new ClientScanner(conf, scan, tableName, connection);
+        this.scanMetrics = scanner.getScanMetrics();
+        Result result;
+        while ((result = scanner.next()) != null) {
+          long size = Result.getTotalSizeOfCells(result);
+          synchronized (lock) {
+            while (!closed && isFull()) {
+              lock.wait();
+            }
+            if (closed) {
+              break;
+            }
+            results.add(result);
+            bufferedSize += size;
+            lock.notifyAll();
+          }
+        }
+      } catch (IOException e) {
+        synchronized (lock) {
+          exception = e;
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        synchronized (lock) {
+          exception = new InterruptedIOException("Interrupted scanning "
+              + Bytes.toStringBinary(scan.getStartRow()));
+        }
+      } catch (RuntimeException e) {
+        LOG.warn("Failed scanning " + Bytes.toStringBinary(scan.getStartRow()), e);
+        synchronized (lock) {
+          exception = new IOException(e);
+        }
+      } finally {
+        if (scanner != null) {
+          scanner.close();
+        }
+        synchronized (lock) {
+          done = true;
+          lock.notifyAll();
+        }
+      }
+    }
+  }
+}
@@ -791,6 +791,22 @@ public class Result implements CellScannable {
     }
   }
 
+  /**
+   * Get total size of raw cells
+   * @param result
+   * @return Total size.
+   */
+  public static long getTotalSizeOfCells(Result result) {
+    long size = 0;
+    Cell[] cells = result.rawCells();
+    if (cells != null) {
+      for (Cell cell : cells) {
+        size += KeyValueUtil.ensureKeyValue(cell).heapSize();
+      }
+    }
+    return size;
+  }
+
   /**
    * Copy another Result into this one. Needed for the old Mapred framework
    * @param other
@@ -136,6 +136,25 @@ public class Scan extends Query {
    */
   private boolean small = false;
 
+  /**
+   * Whether the rows are returned from the start row down to the stop row,
+   * in descending order.
+   */
+  private boolean reversed = false;
+
+  /**
+   * How many regions the client scans at the same time, and whether it returns
+   * their rows in key order. Client side only.
+   */
+  private int parallelism = 1;
+  private boolean parallelOrdered = true;
+
+  /**
+   * Whether the client reads the next rows while the current ones are being
+   * consumed. Client side only.
+   */
+  private boolean asyncPrefetch = false;
+
   /**
    * Create a Scan operation across all rows.
    */
@@ -188,6 +207,10 @@ public class Scan extends Query {
     getScan = scan.isGetScan();
     filter = scan.getFilter(); // clone?
     loadColumnFamiliesOnDemand = scan.getLoadColumnFamiliesOnDemandValue();
+    reversed = scan.isReversed();
+    parallelism = scan.getParallelism();
+    parallelOrdered = scan.isParallelOrdered();
+    asyncPrefetch = scan.isAsyncPrefetch();
     TimeRange ctr = scan.getTimeRange();
     tr = new TimeRange(ctr.getMin(), ctr.getMax());
     Map<byte[], NavigableSet<byte[]>> fams = scan.getFamilyMap();
@@ -755,4 +778,101 @@ public class Scan extends Query {
   public boolean isSmall() {
     return small;
   }
+
+  /**
+   * Set whether this scan is a reversed one
+   * <p>
+   * A reversed scan returns the rows in descending order, from the start row
+   * down to the stop row. The start row is inclusive and the stop row is
+   * exclusive, as for a forward scan, so the start row has to be greater than
+   * the stop row. An empty start row begins at the last row of the table. The
+   * cells of each row are still returned in ascending order.
+   * <p>
+   * Seeking a reversed scan is costlier than a forward one, as every step to
+   * the previous row seeks the store files anew.
+   * @param reversed if true, scan in reverse order
+   * @return this instance
+   */
+  public Scan setReversed(boolean reversed) {
+    this.reversed = reversed;
+    return this;
+  }
+
+  /**
+   * Get whether this scan is a reversed one.
+   * @return true if reversed scan
+   */
+  public boolean isReversed() {
+    return reversed;
+  }
+
+  /**
+   * Set how many regions the client scans at the same time.
+   * <p>
+   * With a parallelism greater than one, the client keeps that many region
+   * scanners open and reading ahead on the thread pool of the table, each one
+   * buffering up to {@link #getMaxResultSize()} bytes, or the client maximum
+   * result size when not set, and up to {@link #getCaching()} rows. This is
+   * used by forward scans that are not small; others scan one region at a
+   * time. This setting is not sent to the region servers.
+   * @param parallelism the number of regions scanned at the same time
+   * @return this instance
+   * @see #setParallelOrdered(boolean)
+   */
+  public Scan setParallelism(int parallelism) {
+    this.parallelism = parallelism;
+    return this;
+  }
+
+  /**
+   * @return the number of regions the client scans at the same time
+   */
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  /**
+   * Set whether a parallel scan returns its rows in key order, the default.
+   * Otherwise the rows of a region come in order, but interleaved with the
+   * rows of the other regions being scanned, as they arrive; this gives the
+   * most throughput when the order does not matter.
+   * @param ordered false to return the rows as they arrive
+   * @return this instance
+   * @see #setParallelism(int)
+   */
+  public Scan setParallelOrdered(boolean ordered) {
+    this.parallelOrdered = ordered;
+    return this;
+  }
+
+  /**
+   * @return true if a parallel scan returns its rows in key order
+   */
+  public boolean isParallelOrdered() {
+    return parallelOrdered;
+  }
+
+  /**
+   * Set whether the client fetches the next rows of the scan in the background
+   * while the application consumes the ones already fetched.
+   * <p>
+   * The rows fetched ahead and not yet consumed never take more than
+   * {@link #getMaxResultSize()} bytes, or the client maximum result size when
+   * not set, nor more than {@link #getCaching()} rows. This is used by forward
+   * scans that are neither small nor parallel. This setting is not sent to the
+   * region servers.
+   * @param asyncPrefetch true to prefetch the next rows
+   * @return this instance
+   */
+  public Scan setAsyncPrefetch(boolean asyncPrefetch) {
+    this.asyncPrefetch = asyncPrefetch;
+    return this;
+  }
+
+  /**
+   * @return true if the client prefetches the next rows of the scan
+   */
+  public boolean isAsyncPrefetch() {
+    return asyncPrefetch;
+  }
 }
@@ -101,6 +101,11 @@ public class ScanMetrics {
    */
   public final AtomicLong countOfRemoteRPCRetries = createCounter("REMOTE_RPC_RETRIES");
 
+  /**
+   * number of region ranges a parallel scan has finished with
+   */
+  public final AtomicLong countOfRegionsCompleted = createCounter("REGIONS_COMPLETED");
+
   /**
    * constructor
    */
@@ -120,6 +125,20 @@ public class ScanMetrics {
     }
   }
 
+  /**
+   * Add the values of the given metrics to these ones. The given metrics are
+   * reset to 0, as by {@link #getMetricsMap()}.
+   * @param other the metrics to move over
+   */
+  public void addMetrics(ScanMetrics other) {
+    for (Map.Entry<String, Long> e : other.getMetricsMap().entrySet()) {
+      AtomicLong c = this.counters.get(e.getKey());
+      if (c != null) {
+        c.addAndGet(e.getValue());
+      }
+    }
+  }
+
   /**
    * Get all of the values since the last time this function was called.
    *
@@ -250,7 +250,15 @@ public enum EventType {
    * 
    * RS_PARALLEL_SEEK
    */
-  RS_PARALLEL_SEEK          (80, ExecutorType.RS_PARALLEL_SEEK);
+  RS_PARALLEL_SEEK          (80, ExecutorType.RS_PARALLEL_SEEK),
+
+  /**
+   * RS controlled events to be executed on the RS.<br>
+   * 
+   * RS_SCANNER_READ_AHEAD<br>
+   * RS is reading the next batch of a scanner ahead of the client's next call
+   */
+  RS_SCANNER_READ_AHEAD     (81, ExecutorType.RS_SCANNER_READ_AHEAD);
 
   private final int code;
   private final ExecutorType executor;
@@ -44,7 +44,8 @@ public enum ExecutorType {
   RS_CLOSE_REGION            (23),
   RS_CLOSE_ROOT              (24),
   RS_CLOSE_META              (25),
-  RS_PARALLEL_SEEK           (26);
+  RS_PARALLEL_SEEK           (26),
+  RS_SCANNER_READ_AHEAD      (27);
 
   ExecutorType(int value) {}
 
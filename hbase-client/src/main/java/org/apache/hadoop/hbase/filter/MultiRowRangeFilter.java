@@ -0,0 +1,471 @@
+/*
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hbase.filter;
+
+import com.google.common.base.Preconditions;
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.ZeroCopyLiteralByteString;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.classification.InterfaceStability;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.exceptions.DeserializationException;
+import org.apache.hadoop.hbase.protobuf.generated.FilterProtos;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.Pair;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Filter to select the rows of a set of row ranges, seeking from one range to
+ * the next instead of reading the rows in between. This gives a single scan
+ * over many disjoint ranges, where a FilterList of RowFilters would read and
+ * drop every row between them.
+ * <p>
+ * Each {@link RowRange} has a start and a stop row, either of them inclusive
+ * or not. An empty start row means the start of the table and an empty stop
+ * row the end of the table. The ranges are sorted, and overlapping ranges
+ * merged, when the filter is built.
+ * <p>
+ * For the scan to start at the first range, set its start row to the start of
+ * the first range; {@link #createScansByRegion(HTable, Scan, List)} goes
+ * further and returns a scan per region holding some of the ranges, to be run
+ * in parallel.
+ */
+@InterfaceAudience.Public
+@InterfaceStability.Evolving
+public class MultiRowRangeFilter extends FilterBase {
+
+  private final List<RowRange> rangeList;
+
+  // The range of the last row seen, or the next range after it
+  private int index = 0;
+  private ReturnCode currentReturnCode = ReturnCode.INCLUDE;
+  private boolean done = false;
+
+  /**
+   * @param list the row ranges to select, in any order
+   * @throws IllegalArgumentException if a range stops before its start
+   */
+  public MultiRowRangeFilter(List<RowRange> list) {
+    this.rangeList = sortAndMerge(list);
+  }
+
+  /**
+   * @return the sorted and merged row ranges selected
+   */
+  public List<RowRange> getRowRanges() {
+    return Collections.unmodifiableList(this.rangeList);
+  }
+
+  @Override
+  public boolean filterAllRemaining() {
+    return done;
+  }
+
+  @Override
+  public boolean filterRowKey(byte[] buffer, int offset, int length) {
+    if (index < rangeList.size() && rangeList.get(index).contains(buffer, offset, length)) {
+      currentReturnCode = ReturnCode.INCLUDE;
+      return false;
+    }
+    index = getNextRangeIndex(buffer, offset, length);
+    if (index >= rangeList.size()) {
+      // Past the last range
+      done = true;
+      currentReturnCode = ReturnCode.NEXT_ROW;
+      return true;
+    }
+    if (rangeList.get(index).contains(buffer, offset, length)) {
+      currentReturnCode = ReturnCode.INCLUDE;
+    } else {
+      // Before the range; the cells of the row get a hint to its start
+      currentReturnCode = ReturnCode.SEEK_NEXT_USING_HINT;
+    }
+    return false;
+  }
+
+  @Override
+  public ReturnCode filterKeyValue(Cell ignored) {
+    return currentReturnCode;
+  }
+
+  @Override
+  public Cell getNextCellHint(Cell currentKV) {
+    RowRange range = rangeList.get(index);
+    byte[] row = range.startRow;
+    if (!range.startRowInclusive) {
+      // The row right after the start row
+      row = Bytes.add(row, new byte[] { 0 });
+    }
+    return KeyValue.createFirstOnRow(row);
+  }
+
+  /*
+   * @return the index of the first range not ending before the row, which is
+   * the range holding the row if any; the number of ranges if none
+   */
+  private int getNextRangeIndex(byte[] buffer, int offset, int length) {
+    int low = 0;
+    int high = rangeList.size();
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (rangeList.get(mid).isBeforeStop(buffer, offset, length)) {
+        high = mid;
+      } else {
+        low = mid + 1;
+      }
+    }
+    return low;
+  }
+
+  public static Filter createFilterFromArguments(ArrayList<byte []> filterArguments) {
+    Preconditions.checkArgument(filterArguments.size() > 0 && filterArguments.size() % 4 == 0,
+        "Expected groups of 4 arguments but got: %s", filterArguments.size());
+    List<RowRange> ranges = new ArrayList<RowRange>(filterArguments.size() / 4);
+    for (int i = 0; i < filterArguments.size(); i += 4) {
+      byte [] startRow = ParseFilter.removeQuotesFromByteArray(filterArguments.get(i));
+      boolean startRowInclusive = ParseFilter.convertByteArrayToBoolean(filterArguments.get(i + 1));
+      byte [] stopRow = ParseFilter.removeQuotesFromByteArray(filterArguments.get(i + 2));
+      boolean stopRowInclusive = ParseFilter.convertByteArrayToBoolean(filterArguments.get(i + 3));
+      ranges.add(new RowRange(startRow, startRowInclusive, stopRow, stopRowInclusive));
+    }
+    return new MultiRowRangeFilter(ranges);
+  }
+
+  /**
+   * @return The filter serialized using pb
+   */
+  public byte [] toByteArray() {
+    FilterProtos.MultiRowRangeFilter.Builder builder =
+      FilterProtos.MultiRowRangeFilter.newBuilder();
+    for (RowRange range : rangeList) {
+      FilterProtos.RowRange.Builder rangeBuilder = FilterProtos.RowRange.newBuilder();
+      rangeBuilder.setStartRow(ZeroCopyLiteralByteString.wrap(range.startRow));
+      rangeBuilder.setStartRowInclusive(range.startRowInclusive);
+      rangeBuilder.setStopRow(ZeroCopyLiteralByteString.wrap(range.stopRow));
+      rangeBuilder.setStopRowInclusive(range.stopRowInclusive);
+      builder.addRowRangeList(rangeBuilder);
+    }
+    return builder.build().toByteArray();
+  }
+
+  /**
+   * @param pbBytes A pb serialized {@link MultiRowRangeFilter} instance
+   * @return An instance of {@link MultiRowRangeFilter} made from <code>bytes</code>
+   * @throws DeserializationException
+   * @see #toByteArray
+   */
+  public static MultiRowRangeFilter parseFrom(final byte [] pbBytes)
+  throws DeserializationException {
+    FilterProtos.MultiRowRangeFilter proto;
+    try {
+      proto = FilterProtos.MultiRowRangeFilter.parseFrom(pbBytes);
+    } catch (InvalidProtocolBufferException e) {
+      throw new DeserializationException(e);
+    }
+    int count = proto.getRowRangeListCount();
+    List<RowRange> ranges = new ArrayList<RowRange>(count);
+    for (FilterProtos.RowRange range : proto.getRowRangeListList()) {
+      ranges.add(new RowRange(
+          range.hasStartRow() ? range.getStartRow().toByteArray() : null,
+          range.getStartRowInclusive(),
+          range.hasStopRow() ? range.getStopRow().toByteArray() : null,
+          range.getStopRowInclusive()));
+    }
+    try {
+      return new MultiRowRangeFilter(ranges);
+    } catch (IllegalArgumentException e) {
+      throw new DeserializationException(e);
+    }
+  }
+
+  /**
+   * @param other
+   * @return true if and only if the fields of the filter that are serialized
+   * are equal to the corresponding fields in other.  Used for testing.
+   */
+  boolean areSerializedFieldsEqual(Filter o) {
+    if (o == this) return true;
+    if (!(o instanceof MultiRowRangeFilter)) return false;
+
+    MultiRowRangeFilter other = (MultiRowRangeFilter)o;
+    return this.rangeList.equals(other.rangeList);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder(this.getClass().getSimpleName());
+    for (RowRange range : rangeList) {
+      sb.append(' ').append(range);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Sorts the ranges by their start row and merges the ones that overlap or
+   * touch.
+   */
+  private static List<RowRange> sortAndMerge(List<RowRange> ranges) {
+    List<RowRange> sorted = new ArrayList<RowRange>(ranges);
+    Collections.sort(sorted);
+    List<RowRange> merged = new ArrayList<RowRange>(sorted.size());
+    RowRange current = null;
+    for (RowRange range : sorted) {
+      if (current == null) {
+        current = range;
+      } else if (current.reaches(range)) {
+        if (current.compareStopTo(range) < 0) {
+          current = new RowRange(current.startRow, current.startRowInclusive,
+              range.stopRow, range.stopRowInclusive);
+        }
+      } else {
+        merged.add(current);
+        current = range;
+      }
+    }
+    if (current != null) {
+      merged.add(current);
+    }
+    return merged;
+  }
+
+  /**
+   * Returns one scan per region of the table that holds some of the row
+   * ranges. Each scan is a copy of the given scan, bounded to the part of the
+   * ranges in its region, and filtered by them; the filter of the given scan,
+   * if any, still applies after them. The scans come in row order and may be
+   * run in parallel.
+   * @param table the table to scan
+   * @param scan the scan to copy; its start and stop rows are replaced
+   * @param ranges the row ranges to read
+   * @return the scans of the regions holding some of the ranges
+   * @throws IOException if the regions of the table cannot be found
+   */
+  public static List<Scan> createScansByRegion(HTable table, Scan scan, List<RowRange> ranges)
+      throws IOException {
+    List<RowRange> rangeList = sortAndMerge(ranges);
+    Pair<byte[][], byte[][]> keys = table.getStartEndKeys();
+    List<Scan> scans = new ArrayList<Scan>();
+    int first = 0;
+    for (int i = 0; i < keys.getFirst().length; i++) {
+      byte[] regionStart = keys.getFirst()[i];
+      byte[] regionEnd = keys.getSecond()[i];
+      List<RowRange> regionRanges = new ArrayList<RowRange>();
+      for (int j = first; j < rangeList.size(); j++) {
+        RowRange range = rangeList.get(j);
+        if (!range.isBeforeStop(regionStart, 0, regionStart.length)) {
+          // Ends before this region, so before the next ones as well
+          first = j + 1;
+          continue;
+        }
+        if (regionEnd.length > 0 && (range.startRow.length > 0
+            && Bytes.compareTo(range.startRow, regionEnd) >= 0)) {
+          break;
+        }
+        regionRanges.add(range.clip(regionStart, regionEnd));
+      }
+      if (regionRanges.isEmpty()) {
+        continue;
+      }
+      RowRange firstRange = regionRanges.get(0);
+      RowRange lastRange = regionRanges.get(regionRanges.size() - 1);
+      Scan regionScan = new Scan(scan);
+      regionScan.setStartRow(firstRange.startRow);
+      if (lastRange.stopRowInclusive) {
+        regionScan.setStopRow(Bytes.add(lastRange.stopRow, new byte[] { 0 }));
+      } else {
+        regionScan.setStopRow(lastRange.stopRow);
+      }
+      Filter filter = new MultiRowRangeFilter(regionRanges);
+      if (scan.getFilter() != null) {
+        filter = new FilterList(FilterList.Operator.MUST_PASS_ALL, filter, scan.getFilter());
+      }
+      regionScan.setFilter(filter);
+      scans.add(regionScan);
+    }
+    return scans;
+  }
+
+  /**
+   * A range of rows, from a start row to a stop row, each of them inclusive or
+   * not. An empty start row means the start of the table, and an empty stop row
+   * the end of the table.
+   */
+  @InterfaceAudience.Public
+  @InterfaceStability.Evolving
+  public static class RowRange implements Comparable<RowRange> {
+    private final byte[] startRow;
+    private final boolean startRowInclusive;
+    private final byte[] stopRow;
+    private final boolean stopRowInclusive;
+
+    /**
+     * @param startRow the first row of the range, null or empty for the start of the table
+     * @param startRowInclusive whether the start row is in the range
+     * @param stopRow the last row of the range, null or empty for the end of the table
+     * @param stopRowInclusive whether the stop row is in the range; ignored for the end of the
+     * table
+     * @throws IllegalArgumentException if the range stops before its start
+     */
+    public RowRange(byte[] startRow, boolean startRowInclusive, byte[] stopRow,
+        boolean stopRowInclusive) {
+      this.startRow = startRow == null ? HConstants.EMPTY_BYTE_ARRAY : startRow;
+      this.startRowInclusive = startRowInclusive;
+      this.stopRow = stopRow == null ? HConstants.EMPTY_BYTE_ARRAY : stopRow;
+      // There is no row to include at the end of the table
+      this.stopRowInclusive = stopRowInclusive && this.stopRow.length > 0;
+      Preconditions.checkArgument(this.stopRow.length == 0
+          || Bytes.compareTo(this.startRow, this.stopRow) <= 0,
+          "Stop row %s is before start row %s", Bytes.toStringBinary(this.stopRow),
+          Bytes.toStringBinary(this.startRow));
+    }
+
+    public RowRange(String startRow, boolean startRowInclusive, String stopRow,
+        boolean stopRowInclusive) {
+      this(startRow == null ? null : Bytes.toBytes(startRow), startRowInclusive,
+          stopRow == null ? null : Bytes.toBytes(stopRow), stopRowInclusive);
+    }
+
+    public byte[] getStartRow() {
+      return startRow;
+    }
+
+    public boolean isStartRowInclusive() {
+      return startRowInclusive;
+    }
+
+    public byte[] getStopRow() {
+      return stopRow;
+    }
+
+    public boolean isStopRowInclusive() {
+      return stopRowInclusive;
+    }
+
+    /**
+     * @return true if the row is in the range
+     */
+    public boolean contains(byte[] buffer, int offset, int length) {
+      if (startRow.length > 0) {
+        int cmp = Bytes.compareTo(buffer, offset, length, startRow, 0, startRow.length);
+        if (cmp < 0 || (cmp == 0 && !startRowInclusive)) {
+          return false;
+        }
+      }
+      return isBeforeStop(buffer, offset, length);
+    }
+
+    /**
+     * @return true if the row is not after the end of the range
+     */
+    boolean isBeforeStop(byte[] buffer, int offset, int length) {
+      if (stopRow.length == 0) {
+        return true;
+      }
+      int cmp = Bytes.compareTo(buffer, offset, length, stopRow, 0, stopRow.length);
+      return cmp < 0 || (cmp == 0 && stopRowInclusive);
+    }
+
+    /**
+     * @return true if the given range, starting at or after this one, starts
+     * before the end of this one or right at it
+     */
+    boolean reaches(RowRange other) {
+      if (stopRow.length == 0 || other.startRow.length == 0) {
+        return true;
+      }
+      int cmp = Bytes.compareTo(other.startRow, stopRow);
+      return cmp < 0 || (cmp == 0 && (stopRowInclusive || other.startRowInclusive));
+    }
+
+    int compareStopTo(RowRange other) {
+      if (stopRow.length == 0 || other.stopRow.length == 0) {
+        return (stopRow.length == 0 ? 1 : 0) - (other.stopRow.length == 0 ? 1 : 0);
+      }
+      int cmp = Bytes.compareTo(stopRow, other.stopRow);
+      if (cmp != 0) {
+        return cmp;
+      }
+      return (stopRowInclusive ? 1 : 0) - (other.stopRowInclusive ? 1 : 0);
+    }
+
+    /**
+     * @return the part of the range in the given region
+     */
+    RowRange clip(byte[] regionStart, byte[] regionEnd) {
+      byte[] start = startRow;
+      boolean startInclusive = startRowInclusive;
+      if (Bytes.compareTo(regionStart, startRow) > 0) {
+        start = regionStart;
+        startInclusive = true;
+      }
+      byte[] stop = stopRow;
+      boolean stopInclusive = stopRowInclusive;
+      if (regionEnd.length > 0
+          && (stopRow.length == 0 || Bytes.compareTo(stopRow, regionEnd) >= 0)) {
+        stop = regionEnd;
+        stopInclusive = false;
+      }
+      return new RowRange(start, startInclusive, stop, stopInclusive);
+    }
+
+    @Override
+    public int compareTo(RowRange other) {
+      int cmp = Bytes.compareTo(startRow, other.startRow);
+      if (cmp != 0) {
+        return cmp;
+      }
+      return (other.startRowInclusive ? 1 : 0) - (startRowInclusive ? 1 : 0);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (o == this) return true;
+      if (!(o instanceof RowRange)) return false;
+      RowRange other = (RowRange) o;
+      return Bytes.equals(startRow, other.startRow)
+          && startRowInclusive == other.startRowInclusive
+          && Bytes.equals(stopRow, other.stopRow)
+          && stopRowInclusive == other.stopRowInclusive;
+    }
+
+    @Override
+    public int hashCode() {
+      int result = Bytes.hashCode(startRow);
+      result = 31 * result + (startRowInclusive ? 1 : 0);
+      result = 31 * result + Bytes.hashCode(stopRow);
+      return 31 * result + (stopRowInclusive ? 1 : 0);
+    }
+
+    @Override
+    public String toString() {
+      return (startRowInclusive ? "[" : "(") + Bytes.toStringBinary(startRow)
+          + ", " + Bytes.toStringBinary(stopRow) + (stopRowInclusive ? "]" : ")");
+    }
+  }
+}
@@ -94,6 +94,8 @@ public class ParseFilter {
                       "SingleColumnValueExcludeFilter");
     filterHashMap.put("DependentColumnFilter", ParseConstants.FILTER_PACKAGE + "." +
                       "DependentColumnFilter");
+    filterHashMap.put("MultiRowRangeFilter", ParseConstants.FILTER_PACKAGE + "." +
+                      "MultiRowRangeFilter");
 
     // Creates the operatorPrecedenceHashMap
     operatorPrecedenceHashMap = new HashMap<ByteBuffer, Integer>();
@@ -33,6 +33,8 @@ import org.apache.hadoop.hbase.CellScanner;
 import org.apache.hadoop.hbase.HBaseIOException;
 import org.apache.hadoop.hbase.codec.Codec;
 import org.apache.hadoop.hbase.io.ByteBufferOutputStream;
+import org.apache.hadoop.hbase.io.ByteBufferPool;
+import org.apache.hadoop.hbase.io.ChunkedByteBufferOutputStream;
 import org.apache.hadoop.hbase.io.HeapSize;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.hbase.util.ClassSize;
@@ -106,7 +108,58 @@ class IPCUtil {
     // outside the guesstimated buffer size, the processing can be done in half the time if we
     // go w/ the estimated size rather than let the buffer resize.
     ByteBufferOutputStream baos = new ByteBufferOutputStream(bufferSize);
-    OutputStream os = baos;
+    // If no cells, don't mess around.  Just return null (could be a bunch of existence checking
+    // gets or something -- stuff that does not return a cell).
+    if (encodeCells(codec, compressor, cellScanner, baos) == 0) return null;
+    if (LOG.isTraceEnabled()) {
+      if (bufferSize < baos.size()) {
+        LOG.trace("Buffer grew from initial bufferSize=" + bufferSize + " to " + baos.size() +
+          "; up hbase.ipc.cellblock.building.initial.buffersize?");
+      }
+    }
+    return baos.getByteBuffer();
+  }
+
+  /**
+   * Puts CellScanner Cells into a cell block like
+   * {@link #buildCellBlock(Codec, CompressionCodec, CellScanner)} does, but into chunks of the
+   * given size taken from <code>pool</code>, so the cell block is never copied to grow it and
+   * can be written out as is with a gathering write.
+   * @param codec
+   * @param compressor
+   * @param cellScanner
+   * @param pool
+   * @param chunkSize
+   * @return Null or a stream holding the cellblock; the caller must
+   * {@link ChunkedByteBufferOutputStream#release()} it once done with its buffers.
+   * @throws IOException
+   */
+  ChunkedByteBufferOutputStream buildCellBlock(final Codec codec,
+      final CompressionCodec compressor, final CellScanner cellScanner, final ByteBufferPool pool,
+      final int chunkSize)
+  throws IOException {
+    if (cellScanner == null) return null;
+    if (codec == null) throw new CellScannerButNoCodecException();
+    ChunkedByteBufferOutputStream cbbos = new ChunkedByteBufferOutputStream(pool, chunkSize);
+    boolean built = false;
+    try {
+      built = encodeCells(codec, compressor, cellScanner, cbbos) > 0;
+    } finally {
+      if (!built) cbbos.release();
+    }
+    return built ? cbbos : null;
+  }
+
+  /**
+   * Encodes the cells of <code>cellScanner</code> into <code>out</code>, compressed if a
+   * <code>compressor</code> is given.
+   * @return the number of cells encoded
+   */
+  @SuppressWarnings("resource")
+  private int encodeCells(final Codec codec, final CompressionCodec compressor,
+      final CellScanner cellScanner, final OutputStream out)
+  throws IOException {
+    OutputStream os = out;
     Compressor poolCompressor = null;
     try {
       if (compressor != null) {
@@ -121,20 +174,11 @@ class IPCUtil {
         count++;
       }
       encoder.flush();
-      // If no cells, don't mess around.  Just return null (could be a bunch of existence checking
-      // gets or something -- stuff that does not return a cell).
-      if (count == 0) return null;
+      return count;
     } finally {
       os.close();
       if (poolCompressor != null) CodecPool.returnCompressor(poolCompressor);
     }
-    if (LOG.isTraceEnabled()) {
-      if (bufferSize < baos.size()) {
-        LOG.trace("Buffer grew from initial bufferSize=" + bufferSize + " to " + baos.size() +
-          "; up hbase.ipc.cellblock.building.initial.buffersize?");
-      }
-    }
-    return baos.getByteBuffer();
   }
 
   /**
@@ -153,8 +197,10 @@ class IPCUtil {
    * @param codec
    * @param cellBlock
    * @param offset
-   * @param length
-   * @return CellScanner to work against the content of <code>cellBlock</code>
+   * @param length the length of the cell block, which other data may follow in
+   * <code>cellBlock</code>
+   * @return CellScanner to work against the content of <code>cellBlock</code>; unless compressed,
+   * the cells are decoded from <code>cellBlock</code> as they are scanned
    * @throws IOException
    */
   CellScanner createCellScanner(final Codec codec, final CompressionCodec compressor,
@@ -173,7 +219,7 @@ class IPCUtil {
       try {
         // TODO: This is ugly.  The buffer will be resized on us if we guess wrong.
         // TODO: Reuse buffers.
-        ByteBufferOutputStream bbos = new ByteBufferOutputStream((length - offset) *
+        ByteBufferOutputStream bbos = new ByteBufferOutputStream(length *
           this.cellBlockDecompressionMultiplier);
         IOUtils.copy(cis, bbos);
         bbos.close();
@@ -17,6 +17,7 @@
  */
 package org.apache.hadoop.hbase.ipc;
 
+import java.io.IOException;
 import java.util.List;
 
 import org.apache.hadoop.classification.InterfaceAudience;
@@ -25,6 +26,7 @@ import org.apache.hadoop.hbase.CellScanner;
 import org.apache.hadoop.hbase.CellUtil;
 import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.util.StringUtils;
 
 import com.google.protobuf.RpcCallback;
 import com.google.protobuf.RpcController;
@@ -56,6 +58,13 @@ public class PayloadCarryingRpcController implements RpcController, CellScannabl
    */
   private CellScanner cellScanner;
 
+  /**
+   * Set when a call made through an {@link com.google.protobuf.RpcChannel} fails, as the
+   * callback then gets no response.
+   */
+  private IOException failedOn;
+  private String errorText;
+
   public PayloadCarryingRpcController() {
     this((CellScanner)null);
   }
@@ -81,12 +90,12 @@ public class PayloadCarryingRpcController implements RpcController, CellScannabl
 
   @Override
   public String errorText() {
-    throw new UnsupportedOperationException();
+    return errorText;
   }
 
   @Override
   public boolean failed() {
-    throw new UnsupportedOperationException();
+    return failedOn != null || errorText != null;
   }
 
   @Override
@@ -105,8 +114,24 @@ public class PayloadCarryingRpcController implements RpcController, CellScannabl
   }
 
   @Override
-  public void setFailed(String arg0) {
-    throw new UnsupportedOperationException();
+  public void setFailed(String errorText) {
+    this.errorText = errorText;
+  }
+
+  /**
+   * Sets the exception a call failed on.
+   */
+  public void setFailedOn(IOException e) {
+    this.failedOn = e;
+    setFailed(StringUtils.stringifyException(e));
+  }
+
+  /**
+   * @return the exception the call failed on, or null if it did not, or failed with only an
+   * error text
+   */
+  public IOException getFailedOn() {
+    return failedOn;
   }
 
   @Override
@@ -21,11 +21,14 @@ package org.apache.hadoop.hbase.ipc;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.net.ConnectException;
 import java.net.InetSocketAddress;
@@ -35,15 +38,21 @@ import java.net.SocketException;
 import java.net.SocketTimeoutException;
 import java.net.UnknownHostException;
 import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
 import java.security.PrivilegedExceptionAction;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
 import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import javax.net.SocketFactory;
@@ -75,6 +84,7 @@ import org.apache.hadoop.hbase.security.SecurityInfo;
 import org.apache.hadoop.hbase.security.User;
 import org.apache.hadoop.hbase.security.UserProvider;
 import org.apache.hadoop.hbase.security.token.AuthenticationTokenSelector;
+import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
 import org.apache.hadoop.hbase.util.Pair;
 import org.apache.hadoop.hbase.util.PoolMap;
@@ -89,6 +99,7 @@ import org.apache.hadoop.security.UserGroupInformation;
 import org.apache.hadoop.security.token.Token;
 import org.apache.hadoop.security.token.TokenIdentifier;
 import org.apache.hadoop.security.token.TokenSelector;
+import org.apache.hadoop.util.StringUtils;
 import org.cloudera.htrace.Span;
 import org.cloudera.htrace.Trace;
 
@@ -97,6 +108,8 @@ import com.google.protobuf.BlockingRpcChannel;
 import com.google.protobuf.Descriptors.MethodDescriptor;
 import com.google.protobuf.Message;
 import com.google.protobuf.Message.Builder;
+import com.google.protobuf.RpcCallback;
+import com.google.protobuf.RpcChannel;
 import com.google.protobuf.RpcController;
 import com.google.protobuf.ServiceException;
 import com.google.protobuf.TextFormat;
@@ -135,6 +148,18 @@ public class RpcClient {
   private final boolean fallbackAllowed;
   private UserProvider userProvider;
 
+  /**
+   * Number of threads reading the responses of all connections, each waiting on a selector for
+   * any of its connections to have data. 0, the default, has each connection read its own
+   * responses on a thread of its own, as do connections using SASL whatever this is set to.
+   */
+  public static final String READER_COUNT_KEY = "hbase.ipc.client.reader.count";
+  // How often, in milliseconds, the readers time out calls and close idle connections
+  private static final int READER_CHECK_INTERVAL = 100;
+  // Null if each connection reads its own responses
+  private final Reader[] readers;
+  private final AtomicInteger nextReader = new AtomicInteger(0);
+
   final private static String PING_INTERVAL_NAME = "ipc.ping.interval";
   final private static String SOCKET_TIMEOUT = "ipc.socket.timeout";
   final static int DEFAULT_PING_INTERVAL = 60000;  // 1 min
@@ -276,14 +301,22 @@ public class RpcClient {
     boolean done;                                 // true when call is done
     long startTime;
     final MethodDescriptor md;
+    // Run once when the call completes, on the thread completing it; may be null
+    final RpcCallback<Call> callback;
 
     protected Call(final MethodDescriptor md, Message param, final CellScanner cells,
         final Message responseDefaultType) {
+      this(md, param, cells, responseDefaultType, null);
+    }
+
+    protected Call(final MethodDescriptor md, Message param, final CellScanner cells,
+        final Message responseDefaultType, final RpcCallback<Call> callback) {
       this.param = param;
       this.md = md;
       this.cells = cells;
       this.startTime = System.currentTimeMillis();
       this.responseDefaultType = responseDefaultType;
+      this.callback = callback;
       synchronized (RpcClient.this) {
         this.id = counter++;
       }
@@ -296,10 +329,18 @@ public class RpcClient {
     }
 
     /** Indicate when the call is complete and the
-     * value or error are available.  Notifies by default.  */
-    protected synchronized void callComplete() {
-      this.done = true;
-      notify();                                 // notify caller
+     * value or error are available.  Notifies by default, and runs the callback if any, the
+     * first time only. */
+    protected void callComplete() {
+      boolean first;
+      synchronized (this) {
+        first = !this.done;
+        this.done = true;
+        notify();                               // notify caller
+      }
+      if (first && this.callback != null) {
+        this.callback.run(this);
+      }
     }
 
     /** Set the exception when there is an error.
@@ -376,6 +417,13 @@ public class RpcClient {
       new AtomicBoolean();  // indicate if the connection is closed
     protected IOException closeException; // close reason
 
+    // Set when a Reader rather than this thread reads the responses
+    private Reader reader;
+    private SocketChannel channel;
+    // The response being read by the Reader: its length, then the response itself
+    private final ByteBuffer responseLength = ByteBuffer.allocate(Bytes.SIZEOF_INT);
+    private ByteBuffer responseBuffer;
+
     Connection(ConnectionId remoteId, final Codec codec, final CompressionCodec compressor)
     throws IOException {
       if (remoteId.getAddress().isUnresolved()) {
@@ -908,8 +956,15 @@ public class RpcClient {
           // update last activity time
           touch();
 
-          // start the receiver thread after the socket connection has been set up
-          start();
+          // start the receiver after the socket connection has been set up
+          if (readers != null && !useSasl && socket.getChannel() != null) {
+            this.channel = socket.getChannel();
+            this.reader = readers[(nextReader.getAndIncrement() & Integer.MAX_VALUE) %
+              readers.length];
+            this.reader.add(this);
+          } else {
+            start();
+          }
           return;
         }
       } catch (Throwable t) {
@@ -1052,60 +1107,11 @@ public class RpcClient {
     protected void readResponse() {
       if (shouldCloseConnection.get()) return;
       touch();
-      int totalSize = -1;
       try {
         // See HBaseServer.Call.setResponse for where we write out the response.
         // Total size of the response.  Unused.  But have to read it in anyways.
-        totalSize = in.readInt();
-
-        // Read the header
-        ResponseHeader responseHeader = ResponseHeader.parseDelimitedFrom(in);
-        int id = responseHeader.getCallId();
-        if (LOG.isDebugEnabled()) {
-          LOG.debug(getName() + ": got response header " +
-            TextFormat.shortDebugString(responseHeader) + ", totalSize: " + totalSize + " bytes");
-        }
-        Call call = calls.get(id);
-        if (call == null) {
-          // So we got a response for which we have no corresponding 'call' here on the client-side.
-          // We probably timed out waiting, cleaned up all references, and now the server decides
-          // to return a response.  There is nothing we can do w/ the response at this stage. Clean
-          // out the wire of the response so its out of the way and we can get other responses on
-          // this connection.
-          int readSoFar = IPCUtil.getTotalSizeWhenWrittenDelimited(responseHeader);
-          int whatIsLeftToRead = totalSize - readSoFar;
-          LOG.debug("Unknown callId: " + id + ", skipping over this response of " +
-            whatIsLeftToRead + " bytes");
-          IOUtils.skipFully(in, whatIsLeftToRead);
-        }
-        if (responseHeader.hasException()) {
-          ExceptionResponse exceptionResponse = responseHeader.getException();
-          RemoteException re = createRemoteException(exceptionResponse);
-          if (isFatalConnectionException(exceptionResponse)) {
-            markClosed(re);
-          } else {
-            if (call != null) call.setException(re);
-          }
-        } else {
-          Message value = null;
-          // Call may be null because it may have timedout and been cleaned up on this side already
-          if (call != null && call.responseDefaultType != null) {
-            Builder builder = call.responseDefaultType.newBuilderForType();
-            builder.mergeDelimitedFrom(in);
-            value = builder.build();
-          }
-          CellScanner cellBlockScanner = null;
-          if (responseHeader.hasCellBlockMeta()) {
-            int size = responseHeader.getCellBlockMeta().getLength();
-            byte [] cellBlock = new byte[size];
-            IOUtils.readFully(this.in, cellBlock, 0, cellBlock.length);
-            cellBlockScanner = ipcUtil.createCellScanner(this.codec, this.compressor, cellBlock);
-          }
-          // it's possible that this call may have been cleaned up due to a RPC
-          // timeout, so check if it still exists before setting the value.
-          if (call != null) call.setResponse(value, cellBlockScanner);
-        }
-        if (call != null) calls.remove(id);
+        int totalSize = in.readInt();
+        processResponse(in, totalSize);
       } catch (IOException e) {
         if (e instanceof SocketTimeoutException && remoteId.rpcTimeout > 0) {
           // Clean up open calls but don't treat this as a fatal condition,
@@ -1123,6 +1129,133 @@ public class RpcClient {
       }
     }
 
+    /**
+     * Reads what the socket has of the responses without blocking, and processes those read
+     * whole. Called by the {@link Reader} when the socket is readable.
+     */
+    protected void readResponses() {
+      if (shouldCloseConnection.get()) return;
+      touch();
+      try {
+        while (true) {
+          if (this.responseBuffer == null) {
+            if (channel.read(this.responseLength) < 0) {
+              throw new EOFException("Connection to " + server + " closed by the server");
+            }
+            if (this.responseLength.hasRemaining()) return;
+            this.responseLength.flip();
+            this.responseBuffer = ByteBuffer.allocate(this.responseLength.getInt());
+            this.responseLength.clear();
+          }
+          if (channel.read(this.responseBuffer) < 0) {
+            throw new EOFException("Connection to " + server + " closed by the server");
+          }
+          if (this.responseBuffer.hasRemaining()) return;
+          byte [] bytes = this.responseBuffer.array();
+          this.responseBuffer = null;
+          processResponse(new DataInputStream(new ByteArrayInputStream(bytes)), bytes.length);
+        }
+      } catch (IOException e) {
+        markClosed(e);
+      }
+    }
+
+    /**
+     * Times out calls and closes the connection when idle or when the client stops, as the
+     * connection's own thread does when its socket read times out. Called regularly by the
+     * {@link Reader}. Does not ping the server: the server does not close a connection with
+     * calls in progress, and a ping could block the Reader behind a slow request write.
+     * @return false if the connection is to be closed
+     */
+    protected boolean checkTimeouts(long now) {
+      if (shouldCloseConnection.get()) {
+        return false;
+      }
+      if (!running.get()) {
+        // get stopped, but there may still be pending requests
+        markClosed(calls.isEmpty()? null:
+          (IOException)new IOException().initCause(new InterruptedException()));
+      } else if (!channel.isOpen()) {
+        markClosed(new IOException("Connection to " + server + " closed"));
+      } else if (calls.isEmpty()) {
+        if (now - lastActivity.get() >= maxIdleTime) {
+          markClosed(null);
+        }
+      } else if (remoteId.rpcTimeout > 0) {
+        cleanupCalls(remoteId.rpcTimeout);
+      }
+      return !shouldCloseConnection.get();
+    }
+
+    /**
+     * @return whether the responses of this connection are being read, by its own thread or by
+     * a {@link Reader}
+     */
+    protected boolean isReading() {
+      return isAlive() || (reader != null && !shouldCloseConnection.get());
+    }
+
+    /**
+     * Processes a response read from <code>in</code>, less its total size which was read
+     * already.
+     */
+    private void processResponse(final DataInputStream in, final int totalSize)
+    throws IOException {
+      // Read the header
+      ResponseHeader responseHeader = ResponseHeader.parseDelimitedFrom(in);
+      int id = responseHeader.getCallId();
+      if (LOG.isDebugEnabled()) {
+        LOG.debug(getName() + ": got response header " +
+          TextFormat.shortDebugString(responseHeader) + ", totalSize: " + totalSize + " bytes");
+      }
+      Call call = calls.get(id);
+      if (call == null) {
+        // So we got a response for which we have no corresponding 'call' here on the client-side.
+        // We probably timed out waiting, cleaned up all references, and now the server decides
+        // to return a response.  There is nothing we can do w/ the response at this stage. Clean
+        // out the wire of the response so its out of the way and we can get other responses on
+        // this connection.
+        int readSoFar = IPCUtil.getTotalSizeWhenWrittenDelimited(responseHeader);
+        int whatIsLeftToRead = totalSize - readSoFar;
+        LOG.debug("Unknown callId: " + id + ", skipping over this response of " +
+          whatIsLeftToRead + " bytes");
+        IOUtils.skipFully(in, whatIsLeftToRead);
+        if (responseHeader.hasException() &&
+            isFatalConnectionException(responseHeader.getException())) {
+          markClosed(createRemoteException(responseHeader.getException()));
+        }
+        return;
+      }
+      if (responseHeader.hasException()) {
+        ExceptionResponse exceptionResponse = responseHeader.getException();
+        RemoteException re = createRemoteException(exceptionResponse);
+        if (isFatalConnectionException(exceptionResponse)) {
+          markClosed(re);
+        } else {
+          if (call != null) call.setException(re);
+        }
+      } else {
+        Message value = null;
+        // Call may be null because it may have timedout and been cleaned up on this side already
+        if (call != null && call.responseDefaultType != null) {
+          Builder builder = call.responseDefaultType.newBuilderForType();
+          builder.mergeDelimitedFrom(in);
+          value = builder.build();
+        }
+        CellScanner cellBlockScanner = null;
+        if (responseHeader.hasCellBlockMeta()) {
+          int size = responseHeader.getCellBlockMeta().getLength();
+          byte [] cellBlock = new byte[size];
+          IOUtils.readFully(in, cellBlock, 0, cellBlock.length);
+          cellBlockScanner = ipcUtil.createCellScanner(this.codec, this.compressor, cellBlock);
+        }
+        // it's possible that this call may have been cleaned up due to a RPC
+        // timeout, so check if it still exists before setting the value.
+        if (call != null) call.setResponse(value, cellBlockScanner);
+      }
+      if (call != null) calls.remove(id);
+    }
+
     /**
      * @param e
      * @return True if the exception is a fatal connection exception.
@@ -1151,6 +1284,7 @@ public class RpcClient {
       if (shouldCloseConnection.compareAndSet(false, true)) {
         closeException = e;
         notifyAll();
+        if (reader != null) reader.wakeup();
       }
     }
 
@@ -1204,6 +1338,103 @@ public class RpcClient {
     }
   }
 
+  /**
+   * Thread that reads the responses of many connections, waiting on a selector for any of them to
+   * have data rather than each blocking a thread of its own on its socket. Connections are
+   * spread over a few readers, so the number of threads does not grow with the number of servers.
+   * The requests are still written by the threads making the calls.
+   */
+  protected class Reader extends Thread {
+    private final Selector selector;
+    // Connections set up, to be registered with the selector by this thread
+    private final Queue<Connection> pending = new ConcurrentLinkedQueue<Connection>();
+
+    Reader(int index) throws IOException {
+      this.selector = Selector.open();
+      setName("IPC Client (" + socketFactory.hashCode() + ") reader " + index);
+      setDaemon(true);
+    }
+
+    /**
+     * Has this reader read the responses of the given connection from now on.
+     */
+    void add(Connection connection) {
+      pending.add(connection);
+      selector.wakeup();
+    }
+
+    void wakeup() {
+      selector.wakeup();
+    }
+
+    private void registerPending() {
+      Connection connection;
+      while ((connection = pending.poll()) != null) {
+        try {
+          connection.channel.configureBlocking(false);
+          connection.channel.register(selector, SelectionKey.OP_READ, connection);
+          if (LOG.isDebugEnabled()) {
+            LOG.debug(getName() + ": reading for " + connection.getName());
+          }
+        } catch (IOException e) {
+          connection.markClosed(e);
+          connection.close();
+        }
+      }
+    }
+
+    private void close(SelectionKey key) {
+      key.cancel();
+      ((Connection)key.attachment()).close();
+    }
+
+    @Override
+    public void run() {
+      if (LOG.isDebugEnabled()) LOG.debug(getName() + ": starting");
+      try {
+        // Once stopped, keep on until the connections are all closed
+        while (running.get() || !selector.keys().isEmpty()) {
+          registerPending();
+          selector.select(READER_CHECK_INTERVAL);
+          Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+          while (selected.hasNext()) {
+            SelectionKey key = selected.next();
+            selected.remove();
+            if (key.isValid() && key.isReadable()) {
+              Connection connection = (Connection)key.attachment();
+              connection.readResponses();
+              if (connection.shouldCloseConnection.get()) close(key);
+            }
+          }
+          long now = System.currentTimeMillis();
+          for (SelectionKey key : selector.keys()) {
+            if (key.isValid() && !((Connection)key.attachment()).checkTimeouts(now)) {
+              close(key);
+            }
+          }
+        }
+      } catch (Throwable t) {
+        LOG.warn(getName() + ": unexpected exception receiving call responses", t);
+        IOException e = new IOException("Unexpected exception receiving call responses", t);
+        for (SelectionKey key : selector.keys()) {
+          ((Connection)key.attachment()).markClosed(e);
+          close(key);
+        }
+      } finally {
+        Connection connection;
+        while ((connection = pending.poll()) != null) {
+          connection.markClosed(new StoppedRpcClientException());
+          connection.close();
+        }
+        try {
+          selector.close();
+        } catch (IOException ignored) {
+        }
+      }
+      if (LOG.isDebugEnabled()) LOG.debug(getName() + ": stopped");
+    }
+  }
+
   @edu.umd.cs.findbugs.annotations.SuppressWarnings(value="IS2_INCONSISTENT_SYNC",
     justification="Presume sync not needed setting socket timeout")
   private static void setSocketTimeout(final Socket socket, final int rpcTimeout)
@@ -1261,6 +1492,22 @@ public class RpcClient {
         IPC_CLIENT_FALLBACK_TO_SIMPLE_AUTH_ALLOWED_DEFAULT);
     this.localAddr = localAddr;
     this.userProvider = UserProvider.instantiate(conf);
+    int readerCount = conf.getInt(READER_COUNT_KEY, 0);
+    if (readerCount > 0) {
+      this.readers = new Reader[readerCount];
+      try {
+        for (int i = 0; i < readerCount; i++) {
+          this.readers[i] = new Reader(i);
+        }
+      } catch (IOException e) {
+        throw new RuntimeException("Could not open a selector", e);
+      }
+      for (Reader reader : this.readers) {
+        reader.start();
+      }
+    } else {
+      this.readers = null;
+    }
     // login the server principal (if using secure Hadoop)
     if (LOG.isDebugEnabled()) {
       LOG.debug("Codec=" + this.codec + ", compressor=" + this.compressor +
@@ -1270,6 +1517,7 @@ public class RpcClient {
         ", maxRetries=" + this.maxRetries +
         ", fallbackAllowed=" + this.fallbackAllowed +
         ", ping interval=" + this.pingInterval + "ms" +
+        ", readers=" + readerCount +
         ", bind address=" + (this.localAddr != null ? this.localAddr : "null"));
     }
   }
@@ -1383,6 +1631,11 @@ public class RpcClient {
         conn.interrupt();
       }
     }
+    if (readers != null) {
+      for (Reader reader : readers) {
+        reader.wakeup();
+      }
+    }
 
     // wait until all connections are closed
     while (!connections.isEmpty()) {
@@ -1457,6 +1710,47 @@ public class RpcClient {
     }
   }
 
+  /**
+   * Makes a call like {@link #call(MethodDescriptor, Message, CellScanner, Message, User,
+   * InetSocketAddress, int, int)} but without waiting for its result: <code>callback</code> is
+   * run with the completed call, its response and cells or its error set, once the server
+   * answers, the call times out or fails. Only connecting to the server, the first time, is done
+   * on the calling thread. The callback runs on the thread reading the responses, so it must
+   * hand off anything that could block, and above all any other call.
+   * @param md
+   * @param param
+   * @param cells
+   * @param returnType
+   * @param ticket Be careful which ticket you pass. A new user will mean a new Connection.
+   * @param addr
+   * @param rpcTimeout
+   * @param priority
+   * @param callback
+   */
+  void asyncCall(MethodDescriptor md, Message param, CellScanner cells, Message returnType,
+      User ticket, final InetSocketAddress addr, int rpcTimeout, int priority,
+      final RpcCallback<Call> callback) {
+    Call call = new Call(md, param, cells, returnType, new RpcCallback<Call>() {
+      @Override
+      public void run(Call completed) {
+        if (completed.error != null && !(completed.error instanceof RemoteException)) {
+          completed.error = wrapException(addr, completed.error);
+        }
+        callback.run(completed);
+      }
+    });
+    try {
+      Connection connection =
+        getConnection(ticket, call, addr, rpcTimeout, this.codec, this.compressor);
+      connection.writeRequest(call, priority);
+    } catch (IOException e) {
+      call.setException(e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      call.setException((IOException)new InterruptedIOException().initCause(e));
+    }
+  }
+
   /**
    * Take an IOException and the address we were trying to connect to
    * and return an IOException with the input exception as the cause.
@@ -1495,7 +1789,7 @@ public class RpcClient {
   public void cancelConnections(String hostname, int port, IOException ioe) {
     synchronized (connections) {
       for (Connection connection : connections.values()) {
-        if (connection.isAlive() &&
+        if (connection.isReading() &&
             connection.getRemoteAddress().getPort() == port &&
             connection.getRemoteAddress().getHostName().equals(hostname)) {
           LOG.info("The server on " + hostname + ":" + port +
@@ -1713,4 +2007,74 @@ public class RpcClient {
         this.isa, this.rpcTimeout);
     }
   }
+
+  /**
+   * Creates a "channel" that can be used by a non-blocking protobuf service, for making calls
+   * without a thread waiting for each.  Useful setting up protobuf stubs.  A failed call runs the
+   * callback with null, and sets the error on the controller; pass a
+   * {@link PayloadCarryingRpcController} to get the error as an exception, and to pass and get
+   * cells.  Callbacks run on the thread reading the responses and must not block.
+   * @param sn
+   * @param ticket
+   * @param rpcTimeout
+   * @return An rpc channel that goes via this rpc client instance.
+   */
+  public RpcChannel createRpcChannel(final ServerName sn, final User ticket,
+      final int rpcTimeout) {
+    return new RpcChannelImplementation(this, sn, ticket, rpcTimeout);
+  }
+
+  /**
+   * Non-blocking rpc channel that goes via hbase rpc.
+   */
+  public static class RpcChannelImplementation implements RpcChannel {
+    private final InetSocketAddress isa;
+    private final RpcClient rpcClient;
+    private final int rpcTimeout;
+    private final User ticket;
+
+    protected RpcChannelImplementation(final RpcClient rpcClient, final ServerName sn,
+        final User ticket, final int rpcTimeout) {
+      this.isa = new InetSocketAddress(sn.getHostname(), sn.getPort());
+      this.rpcClient = rpcClient;
+      this.rpcTimeout = getRpcTimeout(rpcTimeout);
+      this.ticket = ticket;
+    }
+
+    @Override
+    public void callMethod(MethodDescriptor md, final RpcController controller, Message param,
+        Message returnType, final RpcCallback<Message> done) {
+      final PayloadCarryingRpcController pcrc =
+        controller instanceof PayloadCarryingRpcController?
+          (PayloadCarryingRpcController)controller: null;
+      CellScanner cells = null;
+      if (pcrc != null) {
+        cells = pcrc.cellScanner();
+        // Clear it here so we don't by mistake try and these cells processing results.
+        pcrc.setCellScanner(null);
+      }
+      this.rpcClient.asyncCall(md, param, cells, returnType, this.ticket, this.isa,
+        this.rpcTimeout, pcrc != null? pcrc.getPriority(): HConstants.NORMAL_QOS,
+        new RpcCallback<Call>() {
+          @Override
+          public void run(Call call) {
+            IOException error = call.error;
+            if (error == null && call.cells != null && pcrc == null) {
+              error = new IOException("Client dropping data on the floor!");
+            }
+            if (error != null) {
+              if (pcrc != null) {
+                pcrc.setFailedOn(error);
+              } else if (controller != null) {
+                controller.setFailed(StringUtils.stringifyException(error));
+              }
+              done.run(null);
+              return;
+            }
+            if (pcrc != null && call.cells != null) pcrc.setCellScanner(call.cells);
+            done.run(call.response);
+          }
+        });
+    }
+  }
 }
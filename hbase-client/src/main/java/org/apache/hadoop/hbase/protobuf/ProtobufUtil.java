@@ -796,6 +796,9 @@ public final class ProtobufUtil {
     if (scan.isSmall()) {
       scanBuilder.setSmall(scan.isSmall());
     }
+    if (scan.isReversed()) {
+      scanBuilder.setReversed(scan.isReversed());
+    }
     Boolean loadColumnFamiliesOnDemand = scan.getLoadColumnFamiliesOnDemandValue();
     if (loadColumnFamiliesOnDemand != null) {
       scanBuilder.setLoadColumnFamiliesOnDemand(loadColumnFamiliesOnDemand.booleanValue());
@@ -911,6 +914,9 @@ public final class ProtobufUtil {
     if (proto.hasSmall()) {
       scan.setSmall(proto.getSmall());
     }
+    if (proto.hasReversed()) {
+      scan.setReversed(proto.getReversed());
+    }
     for (NameBytesPair attribute: proto.getAttributeList()) {
       scan.setAttribute(attribute.getName(), attribute.getValue().toByteArray());
     }
@@ -30,6 +30,7 @@ import org.apache.hadoop.hbase.DoNotRetryIOException;
 import org.apache.hadoop.hbase.HRegionInfo;
 import org.apache.hadoop.hbase.ServerName;
 import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.ipc.PayloadCarryingRpcController;
 import org.apache.hadoop.hbase.ipc.ServerRpcController;
 import org.apache.hadoop.hbase.protobuf.generated.AccessControlProtos.GetUserPermissionsResponse;
 import org.apache.hadoop.hbase.protobuf.generated.AdminProtos.CloseRegionResponse;
@@ -323,6 +324,8 @@ public final class ResponseConverter {
     if (controller != null) {
       if (controller instanceof ServerRpcController) {
         ((ServerRpcController)controller).setFailedOn(ioe);
+      } else if (controller instanceof PayloadCarryingRpcController) {
+        ((PayloadCarryingRpcController)controller).setFailedOn(ioe);
       } else {
         controller.setFailed(StringUtils.stringifyException(ioe));
       }
@@ -0,0 +1,69 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.HRegionLocation;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.SmallTests;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.ipc.CallDroppedException;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.ipc.RemoteException;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(SmallTests.class)
+public class TestCachedLocationOnDroppedCall {
+  private static final TableName TABLE = TableName.valueOf("testCachedLocationOnDroppedCall");
+  private static final byte[] ROW = Bytes.toBytes("row");
+  private static final ServerName SN = new ServerName("localhost:10,1254");
+  private static final HRegionInfo HRI = new HRegionInfo(TABLE, HConstants.EMPTY_START_ROW,
+      HConstants.EMPTY_END_ROW, false, 1);
+  private static final HRegionLocation LOCATION = new HRegionLocation(HRI, SN);
+
+  @Test
+  public void testDroppedCallKeepsLocation() {
+    Configuration conf = HBaseConfiguration.create();
+    HConnectionManager.HConnectionImplementation connection =
+        new HConnectionManager.HConnectionImplementation(conf);
+    connection.updateCachedLocation(HRI, null, SN, 1);
+    assertNotNull(connection.getCachedLocation(TABLE, ROW));
+
+    // As received from the server
+    RemoteException dropped = new RemoteException(CallDroppedException.class.getName(),
+        "Call dropped, the server is overloaded");
+    assertTrue(HConnectionManager.findException(dropped) instanceof CallDroppedException);
+    connection.updateCachedLocations(TABLE, ROW, dropped, LOCATION);
+    assertNotNull(connection.getCachedLocation(TABLE, ROW));
+
+    // Whereas an error we know nothing about evicts the location
+    connection.updateCachedLocations(TABLE, ROW,
+        new RemoteException(IOException.class.getName(), "failure"), LOCATION);
+    assertNull(connection.getCachedLocation(TABLE, ROW));
+  }
+}
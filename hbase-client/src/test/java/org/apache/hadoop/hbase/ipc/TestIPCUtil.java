@@ -18,10 +18,13 @@
 package org.apache.hadoop.hbase.ipc;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.List;
 
 import org.apache.commons.lang.time.StopWatch;
 import org.apache.commons.logging.Log;
@@ -36,6 +39,8 @@ import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.SmallTests;
 import org.apache.hadoop.hbase.codec.Codec;
 import org.apache.hadoop.hbase.codec.KeyValueCodec;
+import org.apache.hadoop.hbase.io.ByteBufferPool;
+import org.apache.hadoop.hbase.io.ChunkedByteBufferOutputStream;
 import org.apache.hadoop.hbase.io.SizedCellScanner;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.hbase.util.ClassSize;
@@ -65,6 +70,46 @@ public class TestIPCUtil {
     doBuildCellBlockUndoCellBlock(this.util, new KeyValueCodec(), new GzipCodec());
   }
 
+  @Test
+  public void testBuildChunkedCellBlock() throws IOException {
+    // Chunks smaller than a cell, so cells span chunks
+    ByteBufferPool pool = new ByteBufferPool(256, 256, 64, true);
+    doBuildChunkedCellBlockUndoCellBlock(this.util, new KeyValueCodec(), null, pool, 256, 10, 1024);
+    doBuildChunkedCellBlockUndoCellBlock(this.util, new KeyValueCodec(), new DefaultCodec(), pool,
+      256, 10, 1024);
+    doBuildChunkedCellBlockUndoCellBlock(this.util, new KeyValueCodec(), new GzipCodec(), pool,
+      256, 10, 1024);
+    // Chunks released once read were handed out again
+    assertTrue(pool.getReusedBytes() > 0);
+    assertNull(this.util.buildCellBlock(new KeyValueCodec(), null,
+      CellUtil.createCellScanner(new Cell[0]), pool, 256));
+  }
+
+  static void doBuildChunkedCellBlockUndoCellBlock(final IPCUtil util, final Codec codec,
+      final CompressionCodec compressor, final ByteBufferPool pool, final int chunkSize,
+      final int count, final int size)
+  throws IOException {
+    CellScanner cellScanner = CellUtil.createCellScanner(getCells(count, size));
+    ChunkedByteBufferOutputStream cellBlock =
+      util.buildCellBlock(codec, compressor, cellScanner, pool, chunkSize);
+    List<ByteBuffer> chunks = cellBlock.getByteBuffers();
+    byte [] bytes = new byte[cellBlock.size()];
+    int offset = 0;
+    for (ByteBuffer chunk: chunks) {
+      int length = chunk.remaining();
+      chunk.get(bytes, offset, length);
+      offset += length;
+    }
+    cellBlock.release();
+    assertEquals(bytes.length, offset);
+    cellScanner = util.createCellScanner(codec, compressor, bytes);
+    int i = 0;
+    while (cellScanner.advance()) {
+      i++;
+    }
+    assertEquals(count, i);
+  }
+
   static void doBuildCellBlockUndoCellBlock(final IPCUtil util,
       final Codec codec, final CompressionCodec compressor)
   throws IOException {
@@ -136,6 +181,7 @@ public class TestIPCUtil {
   private static void usage(final int errCode) {
     System.out.println("Usage: IPCUtil [options]");
     System.out.println("Micro-benchmarking how changed sizes and counts work with buffer resizing");
+    System.out.println("and with pooled chunks");
     System.out.println(" --count  Count of Cells");
     System.out.println(" --size   Size of Cell values");
     System.out.println("Example: IPCUtil --count=1024 --size=1024");
@@ -162,6 +208,16 @@ public class TestIPCUtil {
     timer.stop();
     LOG.info("Codec=" + codec + ", compression=" + compressor + ", sized=" + true +
       ", count=" + count + ", size=" + size + ", + took=" + timer.getTime() + "ms");
+    // Into pooled chunks, as the server builds response cell blocks
+    ByteBufferPool pool = new ByteBufferPool(64 * 1024, 64 * 1024, 1024, true);
+    timer.reset();
+    timer.start();
+    for (int i = 0; i < cycles; i++) {
+      doBuildChunkedCellBlockUndoCellBlock(util, codec, compressor, pool, 64 * 1024, count, size);
+    }
+    timer.stop();
+    LOG.info("Codec=" + codec + ", compression=" + compressor + ", chunked=" + true +
+      ", count=" + count + ", size=" + size + ", + took=" + timer.getTime() + "ms");
   }
 
   private static void timerTest(final IPCUtil util, final StopWatch timer, final int count,
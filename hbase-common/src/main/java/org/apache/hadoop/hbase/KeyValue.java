@@ -221,6 +221,9 @@ public class KeyValue implements Cell, HeapSize, Cloneable {
   public static enum Type {
     Minimum((byte)0),
     Put((byte)4),
+    // An amount to add to the counter in the cell, in a family keeping delta
+    // counters; sorts between the puts and the deletes of a same timestamp.
+    Delta((byte)6),
 
     Delete((byte)8),
     DeleteFamilyVersion((byte)10),
@@ -1512,6 +1515,13 @@ public class KeyValue implements Cell, HeapSize, Cloneable {
     return KeyValue.isDelete(getType());
   }
 
+  /**
+   * @return True if this KV is a {@link KeyValue.Type#Delta} type.
+   */
+  public boolean isDelta() {
+    return getTypeByte() == Type.Delta.getCode();
+  }
+
   /**
    * @return True if this KV is a {@link KeyValue.Type#Delete} type.
    */
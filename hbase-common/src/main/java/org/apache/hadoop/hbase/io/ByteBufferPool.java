@@ -0,0 +1,147 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hbase.io;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+
+/**
+ * A pool of byte buffers, so that short-lived buffers of similar sizes are reused rather than
+ * allocated each time. Buffers come in size classes, the powers of two from the minimum to the
+ * maximum buffer size, and a buffer is handed out from the smallest class that fits the size
+ * asked for. Each class keeps a bounded number of buffers; larger sizes are allocated exactly and
+ * never pooled. Thread safe.
+ */
+@InterfaceAudience.Private
+public class ByteBufferPool {
+  private final int minBufferSize;
+  private final int maxBufferSize;
+  private final int maxBuffersPerClass;
+  private final boolean direct;
+  private final Queue<ByteBuffer>[] buffers;
+  private final AtomicInteger[] bufferCounts;
+
+  private final AtomicLong allocatedBytes = new AtomicLong(0);
+  private final AtomicLong reusedBytes = new AtomicLong(0);
+
+  /**
+   * @param minBufferSize the size of the smallest buffers, rounded up to a power of two
+   * @param maxBufferSize the size of the largest buffers pooled; 0 pools none
+   * @param maxBuffersPerClass how many buffers of each size the pool keeps
+   * @param direct whether to allocate direct rather than heap buffers
+   */
+  @SuppressWarnings("unchecked")
+  public ByteBufferPool(int minBufferSize, int maxBufferSize, int maxBuffersPerClass,
+      boolean direct) {
+    this.minBufferSize = roundUp(Math.max(1, minBufferSize));
+    this.maxBufferSize = maxBufferSize;
+    this.maxBuffersPerClass = maxBuffersPerClass;
+    this.direct = direct;
+    int classes = 0;
+    for (long size = this.minBufferSize; size <= maxBufferSize; size <<= 1) {
+      classes++;
+    }
+    this.buffers = new Queue[classes];
+    this.bufferCounts = new AtomicInteger[classes];
+    for (int i = 0; i < classes; i++) {
+      buffers[i] = new ConcurrentLinkedQueue<ByteBuffer>();
+      bufferCounts[i] = new AtomicInteger(0);
+    }
+  }
+
+  private static int roundUp(int size) {
+    int highest = Integer.highestOneBit(size);
+    return highest == size ? size : highest << 1;
+  }
+
+  /**
+   * @return the index of the class of buffers of the given capacity, or -1 if not pooled
+   */
+  private int classOf(int capacity) {
+    if (capacity > maxBufferSize || buffers.length == 0) {
+      return -1;
+    }
+    int size = roundUp(Math.max(capacity, minBufferSize));
+    return Integer.numberOfTrailingZeros(size) - Integer.numberOfTrailingZeros(minBufferSize);
+  }
+
+  private ByteBuffer allocate(int capacity) {
+    allocatedBytes.addAndGet(capacity);
+    return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+  }
+
+  /**
+   * @return a buffer with room for at least the given number of bytes, with its position at 0
+   * and its limit at the given size. Give it back with {@link #putBuffer(ByteBuffer)} once done.
+   */
+  public ByteBuffer getBuffer(int size) {
+    int index = classOf(size);
+    ByteBuffer buffer = null;
+    if (index < 0) {
+      buffer = allocate(size);
+    } else {
+      buffer = buffers[index].poll();
+      if (buffer != null) {
+        bufferCounts[index].decrementAndGet();
+        reusedBytes.addAndGet(buffer.capacity());
+        buffer.clear();
+      } else {
+        buffer = allocate(minBufferSize << index);
+      }
+    }
+    buffer.limit(size);
+    return buffer;
+  }
+
+  /**
+   * Gives back a buffer got from {@link #getBuffer(int)}. The caller must not use it anymore.
+   */
+  public void putBuffer(ByteBuffer buffer) {
+    int index = classOf(buffer.capacity());
+    if (index < 0 || buffer.isDirect() != direct
+        || buffer.capacity() != minBufferSize << index) {
+      // Not one of ours
+      return;
+    }
+    if (bufferCounts[index].incrementAndGet() > maxBuffersPerClass) {
+      bufferCounts[index].decrementAndGet();
+      return;
+    }
+    buffers[index].offer(buffer);
+  }
+
+  /**
+   * @return the number of bytes of the buffers allocated since the pool was created
+   */
+  public long getAllocatedBytes() {
+    return allocatedBytes.get();
+  }
+
+  /**
+   * @return the number of bytes of the buffers handed out again rather than allocated
+   */
+  public long getReusedBytes() {
+    return reusedBytes.get();
+  }
+}
@@ -0,0 +1,106 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hbase.io;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+
+/**
+ * An output stream writing into a list of fixed size chunks from a {@link ByteBufferPool}.
+ * Unlike {@link ByteBufferOutputStream}, it never grows a buffer by copying it; what is written
+ * is meant to be sent as is, with a gathering write of the chunks. Not thread safe!
+ */
+@InterfaceAudience.Private
+public class ChunkedByteBufferOutputStream extends OutputStream {
+  private final ByteBufferPool pool;
+  private final int chunkSize;
+  private final List<ByteBuffer> chunks = new ArrayList<ByteBuffer>();
+  private ByteBuffer current = null;
+  private int size = 0;
+
+  /**
+   * @param pool where the chunks come from, and go back to on {@link #release()}
+   * @param chunkSize the size of the chunks
+   */
+  public ChunkedByteBufferOutputStream(ByteBufferPool pool, int chunkSize) {
+    this.pool = pool;
+    this.chunkSize = chunkSize;
+  }
+
+  private ByteBuffer chunkWithRoom() {
+    if (current == null || !current.hasRemaining()) {
+      current = pool.getBuffer(chunkSize);
+      chunks.add(current);
+    }
+    return current;
+  }
+
+  @Override
+  public void write(int b) {
+    chunkWithRoom().put((byte) b);
+    size++;
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) {
+    while (len > 0) {
+      ByteBuffer chunk = chunkWithRoom();
+      int n = Math.min(len, chunk.remaining());
+      chunk.put(b, off, n);
+      off += n;
+      len -= n;
+      size += n;
+    }
+  }
+
+  /**
+   * @return the number of bytes written
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Flips the chunks, so be sure to call it _last_!
+   * @return the chunks holding what was written, ready for reading
+   */
+  public List<ByteBuffer> getByteBuffers() {
+    for (ByteBuffer chunk : chunks) {
+      chunk.flip();
+    }
+    current = null;
+    return chunks;
+  }
+
+  /**
+   * Gives the chunks back to the pool. They must not be used anymore.
+   */
+  public void release() {
+    for (ByteBuffer chunk : chunks) {
+      pool.putBuffer(chunk);
+    }
+    chunks.clear();
+    current = null;
+    size = 0;
+  }
+}
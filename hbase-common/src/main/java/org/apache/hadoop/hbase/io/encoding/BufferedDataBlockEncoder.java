@@ -22,6 +22,8 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 
 import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
 import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.KeyValue.KVComparator;
@@ -138,6 +140,13 @@ abstract class BufferedDataBlockEncoder implements DataBlockEncoder {
       lastCommonPrefix = nextState.lastCommonPrefix;
       nextKvOffset = nextState.nextKvOffset;
       memstoreTS = nextState.memstoreTS;
+      tagsOffset = nextState.tagsOffset;
+      tagsLength = nextState.tagsLength;
+      if (tagsOffset == -1 && tagsLength > 0) {
+        // the tags were uncompressed into the buffer of the next state
+        ensureSpaceForTags();
+        System.arraycopy(nextState.tagsBuffer, 0, tagsBuffer, 0, tagsLength);
+      }
     }
 
   }
@@ -152,6 +161,10 @@ abstract class BufferedDataBlockEncoder implements DataBlockEncoder {
     protected STATE current = createSeekerState(); // always valid
     protected STATE previous = createSeekerState(); // may not be valid
     protected TagCompressionContext tagCompressionContext = null;
+    private final SeekerStateCell currentCell = new SeekerStateCell();
+    /** Scratch space for values and tags of a block that has no backing array. */
+    private byte[] valueCopyBuffer = new byte[INITIAL_KEY_BUFFER_SIZE];
+    private byte[] tagsCopyBuffer = new byte[INITIAL_KEY_BUFFER_SIZE];
 
     public BufferedEncodedSeeker(KVComparator comparator,
         HFileBlockDecodingContext decodingCtx) {
@@ -201,9 +214,11 @@ abstract class BufferedDataBlockEncoder implements DataBlockEncoder {
 
     @Override
     public ByteBuffer getValueShallowCopy() {
-      return ByteBuffer.wrap(currentBuffer.array(),
-          currentBuffer.arrayOffset() + current.valueOffset,
-          current.valueLength);
+      // works for both heap and direct buffers
+      ByteBuffer dup = currentBuffer.duplicate();
+      dup.limit(current.valueOffset + current.valueLength);
+      dup.position(current.valueOffset);
+      return dup.slice();
     }
 
     @Override
@@ -212,15 +227,14 @@ abstract class BufferedDataBlockEncoder implements DataBlockEncoder {
       kvBuffer.putInt(current.keyLength);
       kvBuffer.putInt(current.valueLength);
       kvBuffer.put(current.keyBuffer, 0, current.keyLength);
-      kvBuffer.put(currentBuffer.array(),
-          currentBuffer.arrayOffset() + current.valueOffset,
+      ByteBufferUtils.copyFromBufferToBuffer(kvBuffer, currentBuffer, current.valueOffset,
           current.valueLength);
       if (current.tagsLength > 0) {
         kvBuffer.putShort((short) current.tagsLength);
         if (current.tagsOffset != -1) {
           // the offset of the tags bytes in the underlying buffer is marked. So the temp
           // buffer,tagsBuffer was not been used.
-          kvBuffer.put(currentBuffer.array(), currentBuffer.arrayOffset() + current.tagsOffset,
+          ByteBufferUtils.copyFromBufferToBuffer(kvBuffer, currentBuffer, current.tagsOffset,
               current.tagsLength);
         } else {
           // When tagsOffset is marked as -1, tag compression was present and so the tags were
@@ -247,6 +261,11 @@ abstract class BufferedDataBlockEncoder implements DataBlockEncoder {
       return kv;
     }
 
+    @Override
+    public Cell get() {
+      return currentCell;
+    }
+
     @Override
     public void rewind() {
       currentBuffer.rewind();
@@ -369,6 +388,169 @@ abstract class BufferedDataBlockEncoder implements DataBlockEncoder {
 
     abstract protected void decodeFirst();
     abstract protected void decodeNext();
+
+    /**
+     * Copies a part of the current block into a scratch buffer, growing it if
+     * needed. Only used when the block has no backing array, e.g. off heap.
+     * @return the scratch buffer holding the bytes at offset 0
+     */
+    private byte[] copyFromDirectBuffer(byte[] scratch, int offset, int length) {
+      if (scratch.length < length) {
+        scratch = new byte[Math.max(length, scratch.length * 2)];
+      }
+      for (int i = 0; i < length; ++i) {
+        scratch[i] = currentBuffer.get(offset + i);
+      }
+      return scratch;
+    }
+
+    /**
+     * A view of the cell the seeker is positioned on. The key is read from the
+     * decoded key buffer, the value and the tags straight from the block. It is
+     * only valid until the seeker moves.
+     */
+    private class SeekerStateCell implements Cell {
+
+      private int familyLengthOffset() {
+        return KeyValue.ROW_LENGTH_SIZE + getRowLength();
+      }
+
+      @Override
+      public byte[] getRowArray() {
+        return current.keyBuffer;
+      }
+
+      @Override
+      public int getRowOffset() {
+        return KeyValue.ROW_LENGTH_SIZE;
+      }
+
+      @Override
+      public short getRowLength() {
+        return Bytes.toShort(current.keyBuffer, 0);
+      }
+
+      @Override
+      public byte[] getFamilyArray() {
+        return current.keyBuffer;
+      }
+
+      @Override
+      public int getFamilyOffset() {
+        return familyLengthOffset() + KeyValue.FAMILY_LENGTH_SIZE;
+      }
+
+      @Override
+      public byte getFamilyLength() {
+        return current.keyBuffer[familyLengthOffset()];
+      }
+
+      @Override
+      public byte[] getQualifierArray() {
+        return current.keyBuffer;
+      }
+
+      @Override
+      public int getQualifierOffset() {
+        return getFamilyOffset() + getFamilyLength();
+      }
+
+      @Override
+      public int getQualifierLength() {
+        return current.keyLength - getQualifierOffset() - KeyValue.TIMESTAMP_TYPE_SIZE;
+      }
+
+      @Override
+      public long getTimestamp() {
+        return Bytes.toLong(current.keyBuffer,
+            current.keyLength - KeyValue.TIMESTAMP_TYPE_SIZE);
+      }
+
+      @Override
+      public byte getTypeByte() {
+        return current.keyBuffer[current.keyLength - Bytes.SIZEOF_BYTE];
+      }
+
+      @Override
+      public long getMvccVersion() {
+        return current.memstoreTS;
+      }
+
+      @Override
+      public byte[] getValueArray() {
+        if (currentBuffer.hasArray()) {
+          return currentBuffer.array();
+        }
+        valueCopyBuffer = copyFromDirectBuffer(valueCopyBuffer, current.valueOffset,
+            current.valueLength);
+        return valueCopyBuffer;
+      }
+
+      @Override
+      public int getValueOffset() {
+        if (currentBuffer.hasArray()) {
+          return currentBuffer.arrayOffset() + current.valueOffset;
+        }
+        return 0;
+      }
+
+      @Override
+      public int getValueLength() {
+        return current.valueLength;
+      }
+
+      @Override
+      public byte[] getTagsArray() {
+        if (current.tagsOffset == -1) {
+          return current.tagsBuffer;
+        }
+        if (currentBuffer.hasArray()) {
+          return currentBuffer.array();
+        }
+        tagsCopyBuffer = copyFromDirectBuffer(tagsCopyBuffer, current.tagsOffset,
+            current.tagsLength);
+        return tagsCopyBuffer;
+      }
+
+      @Override
+      public int getTagsOffset() {
+        if (current.tagsOffset != -1 && currentBuffer.hasArray()) {
+          return currentBuffer.arrayOffset() + current.tagsOffset;
+        }
+        return 0;
+      }
+
+      @Override
+      public short getTagsLength() {
+        return (short) current.tagsLength;
+      }
+
+      @Override
+      public byte[] getValue() {
+        return CellUtil.cloneValue(this);
+      }
+
+      @Override
+      public byte[] getFamily() {
+        return CellUtil.cloneFamily(this);
+      }
+
+      @Override
+      public byte[] getQualifier() {
+        return CellUtil.cloneQualifier(this);
+      }
+
+      @Override
+      public byte[] getRow() {
+        return CellUtil.cloneRow(this);
+      }
+
+      @Override
+      public String toString() {
+        return KeyValue.keyToString(current.keyBuffer, 0, current.keyLength) + "/vlen="
+            + current.valueLength + "/mvcc=" + current.memstoreTS;
+      }
+    }
   }
 
   protected final void afterEncodingKeyValue(ByteBuffer in,
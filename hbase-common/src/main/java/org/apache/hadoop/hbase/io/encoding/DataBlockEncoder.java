@@ -21,6 +21,7 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 
 import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.KeyValue.KVComparator;
 import org.apache.hadoop.hbase.io.hfile.HFileContext;
@@ -115,7 +116,8 @@ public interface DataBlockEncoder {
    * An interface which enable to seek while underlying data is encoded.
    *
    * It works on one HFileBlock, but it is reusable. See
-   * {@link #setCurrentBuffer(ByteBuffer)}.
+   * {@link #setCurrentBuffer(ByteBuffer)}. The block may be a heap or a direct
+   * buffer.
    */
   interface EncodedSeeker {
     /**
@@ -148,6 +150,16 @@ public interface DataBlockEncoder {
      */
     KeyValue getKeyValue();
 
+    /**
+     * A view of the cell at the current position that is not copied out of
+     * the seeker. The returned object may be reused and its content changes
+     * or becomes invalid when the seeker moves, so callers that keep the cell
+     * must use {@link #getKeyValue()} instead. Works on blocks in direct
+     * buffers as well.
+     * @return the cell at the current position. Includes memstore timestamp.
+     */
+    Cell get();
+
     /** Set position to beginning of given block */
     void rewind();
 
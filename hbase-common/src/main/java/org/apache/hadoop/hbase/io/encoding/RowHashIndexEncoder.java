@@ -0,0 +1,338 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hadoop.hbase.io.encoding;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.KeyValue.KVComparator;
+import org.apache.hadoop.hbase.util.ByteBufferUtils;
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * Prefix encoding (see {@link PrefixKeyDeltaEncoder}) extended with a hash
+ * index over the rows of the block, so that a seek to a row can jump straight
+ * to the first cell of that row instead of decoding the block from its start.
+ *
+ * The first cell of every row is a restart point: it is written with a common
+ * prefix of zero, so it can be decoded without the state of the previous cell.
+ * The offsets of the restart points are kept in an open addressing hash table
+ * (linear probing) keyed by the hash of the row, which is appended to the end
+ * of the block.
+ *
+ * Format:
+ * 4 bytes:   size of the unencoded key values
+ * ... bytes: cells, in the format of {@link PrefixKeyDeltaEncoder}
+ * 4 * n bytes: hash table slots, offset of the restart point from the start
+ *            of the block or 0 for an empty slot
+ * 4 bytes:   number of slots n, always a power of two
+ */
+@InterfaceAudience.Private
+public class RowHashIndexEncoder extends BufferedDataBlockEncoder {
+
+  /** Maximum fill ratio of the hash table, in percent. */
+  private static final int MAX_LOAD_PERCENT = 75;
+
+  /** Marks an empty slot. No cell can start at offset 0 of the block. */
+  private static final int EMPTY_SLOT = 0;
+
+  private static final int INITIAL_ROW_OFFSETS_SIZE = 64;
+
+  @Override
+  public void internalEncodeKeyValues(DataOutputStream writeHere, ByteBuffer in,
+      HFileBlockDefaultEncodingContext encodingCtx) throws IOException {
+    // The context reuses its stream across blocks, so count the bytes of this
+    // block separately to learn the offsets of the restart points.
+    DataOutputStream out = new DataOutputStream(writeHere);
+    in.rewind();
+    ByteBufferUtils.putInt(out, in.limit());
+
+    int[] rowOffsets = new int[INITIAL_ROW_OFFSETS_SIZE];
+    int[] rowHashes = new int[INITIAL_ROW_OFFSETS_SIZE];
+    int numRows = 0;
+    int prevKeyOffset = -1;
+    int prevKeyLength = 0;
+    while (in.hasRemaining()) {
+      int kvOffset = out.size();
+      int keyLength = in.getInt();
+      int valueLength = in.getInt();
+      int keyOffset = in.position();
+      int rowLengthWithSize = KeyValue.ROW_LENGTH_SIZE + in.getShort(keyOffset);
+
+      int common = 0;
+      if (prevKeyOffset != -1) {
+        common = ByteBufferUtils.findCommonPrefix(in, prevKeyOffset, keyOffset,
+            Math.min(prevKeyLength, keyLength));
+      }
+      if (prevKeyOffset == -1 || common < rowLengthWithSize) {
+        // first cell of a row, write the whole key
+        common = 0;
+        if (numRows == rowOffsets.length) {
+          rowOffsets = grow(rowOffsets);
+          rowHashes = grow(rowHashes);
+        }
+        rowOffsets[numRows] = kvOffset;
+        rowHashes[numRows] = rowHash(in.array(), in.arrayOffset() + keyOffset
+            + KeyValue.ROW_LENGTH_SIZE, rowLengthWithSize - KeyValue.ROW_LENGTH_SIZE);
+        numRows++;
+      }
+
+      ByteBufferUtils.putCompressedInt(out, keyLength - common);
+      ByteBufferUtils.putCompressedInt(out, valueLength);
+      ByteBufferUtils.putCompressedInt(out, common);
+      ByteBufferUtils.skip(in, common);
+      ByteBufferUtils.moveBufferToStream(out, in, keyLength - common + valueLength);
+      afterEncodingKeyValue(in, out, encodingCtx);
+
+      prevKeyOffset = keyOffset;
+      prevKeyLength = keyLength;
+    }
+
+    writeHashIndex(out, rowOffsets, rowHashes, numRows);
+    out.flush();
+  }
+
+  private static int[] grow(int[] array) {
+    int[] grown = new int[array.length * 2];
+    System.arraycopy(array, 0, grown, 0, array.length);
+    return grown;
+  }
+
+  private static void writeHashIndex(DataOutputStream out, int[] rowOffsets,
+      int[] rowHashes, int numRows) throws IOException {
+    int numSlots = 1;
+    while (numSlots * MAX_LOAD_PERCENT < numRows * 100) {
+      numSlots <<= 1;
+    }
+    int[] slots = new int[numSlots];
+    int mask = numSlots - 1;
+    for (int i = 0; i < numRows; ++i) {
+      int slot = rowHashes[i] & mask;
+      while (slots[slot] != EMPTY_SLOT) {
+        slot = (slot + 1) & mask;
+      }
+      slots[slot] = rowOffsets[i];
+    }
+    for (int slot : slots) {
+      out.writeInt(slot);
+    }
+    out.writeInt(numSlots);
+  }
+
+  /**
+   * Hash of the row used to place it in the index. The result is spread with
+   * the murmur3 finalizer since only the lowest bits are used.
+   */
+  static int rowHash(byte[] row, int offset, int length) {
+    int h = Bytes.hashCode(row, offset, length);
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    h ^= h >>> 16;
+    return h;
+  }
+
+  @Override
+  protected ByteBuffer internalDecodeKeyValues(DataInputStream source, int allocateHeaderLength,
+      int skipLastBytes, HFileBlockDefaultDecodingContext decodingCtx) throws IOException {
+    int decompressedSize = source.readInt();
+    ByteBuffer buffer = ByteBuffer.allocate(decompressedSize +
+        allocateHeaderLength);
+    buffer.position(allocateHeaderLength);
+    int prevKeyOffset = 0;
+
+    while (buffer.hasRemaining()) {
+      prevKeyOffset = decodeKeyValue(source, buffer, prevKeyOffset);
+      afterDecodingKeyValue(source, buffer, decodingCtx);
+    }
+
+    // the hash index is only needed by the seeker
+    int indexSize = source.available() - skipLastBytes;
+    if (indexSize < Bytes.SIZEOF_INT || source.skipBytes(indexSize) != indexSize) {
+      throw new IllegalStateException("Missing or truncated row hash index.");
+    }
+
+    buffer.limit(buffer.position());
+    return buffer;
+  }
+
+  private int decodeKeyValue(DataInputStream source, ByteBuffer buffer,
+      int prevKeyOffset)
+          throws IOException, EncoderBufferTooSmallException {
+    int keyLength = ByteBufferUtils.readCompressedInt(source);
+    int valueLength = ByteBufferUtils.readCompressedInt(source);
+    int commonLength = ByteBufferUtils.readCompressedInt(source);
+    keyLength += commonLength;
+
+    ensureSpace(buffer, keyLength + valueLength + KeyValue.ROW_OFFSET);
+
+    buffer.putInt(keyLength);
+    buffer.putInt(valueLength);
+
+    int keyOffset = buffer.position();
+    // copy the prefix
+    if (commonLength > 0) {
+      ByteBufferUtils.copyFromBufferToBuffer(buffer, buffer, prevKeyOffset,
+          commonLength);
+    }
+
+    // copy rest of the key and value
+    int len = keyLength - commonLength + valueLength;
+    ByteBufferUtils.copyFromStreamToBuffer(buffer, source, len);
+    return keyOffset;
+  }
+
+  @Override
+  public ByteBuffer getFirstKeyInBlock(ByteBuffer block) {
+    block.mark();
+    block.position(Bytes.SIZEOF_INT);
+    int keyLength = ByteBufferUtils.readCompressedInt(block);
+    ByteBufferUtils.readCompressedInt(block);
+    int commonLength = ByteBufferUtils.readCompressedInt(block);
+    if (commonLength != 0) {
+      throw new AssertionError("Nonzero common length in the first key in "
+          + "block: " + commonLength);
+    }
+    int pos = block.position();
+    block.reset();
+    return ByteBuffer.wrap(block.array(), block.arrayOffset() + pos, keyLength).slice();
+  }
+
+  @Override
+  public String toString() {
+    return RowHashIndexEncoder.class.getSimpleName();
+  }
+
+  @Override
+  public EncodedSeeker createSeeker(KVComparator comparator,
+      final HFileBlockDecodingContext decodingCtx) {
+    return new BufferedEncodedSeeker<SeekerState>(comparator, decodingCtx) {
+      /** Offset of the first hash table slot, also the end of the cells. */
+      private int indexOffset;
+      private int slotMask;
+
+      @Override
+      public void setCurrentBuffer(ByteBuffer buffer) {
+        int numSlots = buffer.getInt(buffer.limit() - Bytes.SIZEOF_INT);
+        indexOffset = buffer.limit() - Bytes.SIZEOF_INT * (numSlots + 1);
+        slotMask = numSlots - 1;
+        // hide the index from the cell decoding
+        buffer.limit(indexOffset);
+        super.setCurrentBuffer(buffer);
+      }
+
+      @Override
+      public int seekToKeyInBlock(byte[] key, int offset, int length,
+          boolean seekBefore) {
+        // The tag dictionary is built cell by cell, so it cannot be skipped.
+        if (!seekBefore && tagCompressionContext == null) {
+          int rowOffset = findRowStart(key, offset, length);
+          // Only jump forward: a reseek must not go back, and if the current
+          // cell is already in the row a linear scan is just as good.
+          if (rowOffset >= current.nextKvOffset) {
+            currentBuffer.position(rowOffset);
+            decodeNext();
+            // If the key sorts before the first cell of its row, the linear
+            // seek below stops at once and reports that we are positioned on
+            // the first cell after the key.
+          }
+        }
+        return super.seekToKeyInBlock(key, offset, length, seekBefore);
+      }
+
+      /**
+       * @return the offset of the first cell of the row of the given key, or
+       *         -1 if the row has no cells in this block
+       */
+      private int findRowStart(byte[] key, int offset, int length) {
+        if (length < KeyValue.ROW_LENGTH_SIZE) {
+          return -1;
+        }
+        int rowLength = Bytes.toShort(key, offset);
+        int rowOffset = offset + KeyValue.ROW_LENGTH_SIZE;
+        int slot = rowHash(key, rowOffset, rowLength) & slotMask;
+        int savedPosition = currentBuffer.position();
+        try {
+          while (true) {
+            int kvOffset = currentBuffer.getInt(indexOffset + slot * Bytes.SIZEOF_INT);
+            if (kvOffset == EMPTY_SLOT) {
+              return -1;
+            }
+            // restart points hold the whole key: skip the key, value and
+            // common prefix lengths to get to the row
+            currentBuffer.position(kvOffset);
+            ByteBufferUtils.readCompressedInt(currentBuffer);
+            ByteBufferUtils.readCompressedInt(currentBuffer);
+            ByteBufferUtils.readCompressedInt(currentBuffer);
+            if (currentBuffer.getShort() == rowLength
+                && isRowAtPosition(key, rowOffset, rowLength)) {
+              return kvOffset;
+            }
+            slot = (slot + 1) & slotMask;
+          }
+        } finally {
+          currentBuffer.position(savedPosition);
+        }
+      }
+
+      /** Compares without the backing array, the block may be off heap. */
+      private boolean isRowAtPosition(byte[] row, int rowOffset, int rowLength) {
+        int pos = currentBuffer.position();
+        for (int i = 0; i < rowLength; ++i) {
+          if (currentBuffer.get(pos + i) != row[rowOffset + i]) {
+            return false;
+          }
+        }
+        return true;
+      }
+
+      @Override
+      protected void decodeNext() {
+        current.keyLength = ByteBufferUtils.readCompressedInt(currentBuffer);
+        current.valueLength = ByteBufferUtils.readCompressedInt(currentBuffer);
+        current.lastCommonPrefix =
+            ByteBufferUtils.readCompressedInt(currentBuffer);
+        current.keyLength += current.lastCommonPrefix;
+        current.ensureSpaceForKey();
+        currentBuffer.get(current.keyBuffer, current.lastCommonPrefix,
+            current.keyLength - current.lastCommonPrefix);
+        current.valueOffset = currentBuffer.position();
+        ByteBufferUtils.skip(currentBuffer, current.valueLength);
+        if (includesTags()) {
+          decodeTags();
+        }
+        if (includesMvcc()) {
+          current.memstoreTS = ByteBufferUtils.readVLong(currentBuffer);
+        } else {
+          current.memstoreTS = 0;
+        }
+        current.nextKvOffset = currentBuffer.position();
+      }
+
+      @Override
+      protected void decodeFirst() {
+        ByteBufferUtils.skip(currentBuffer, Bytes.SIZEOF_INT);
+        decodeNext();
+      }
+    };
+  }
+}
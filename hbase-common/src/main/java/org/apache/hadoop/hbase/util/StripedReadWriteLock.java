@@ -0,0 +1,436 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hbase.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+
+/**
+ * A reentrant read-write lock for locks taken for reading far more often than
+ * for writing. Readers count themselves in one of several stripes, each on a
+ * cache line of its own, picked by thread; an uncontended reader only touches
+ * its stripe. A writer announces itself, which sends new readers to wait, then
+ * waits for the stripes to drain. Writers are therefore preferred over new
+ * readers, and taking the write lock costs a pass over all the stripes.
+ * <p>
+ * As with {@link java.util.concurrent.locks.ReentrantReadWriteLock}, the
+ * writer may take the read lock, and keeps it when releasing the write lock,
+ * but a reader may not upgrade to the write lock. Conditions are not supported.
+ */
+@InterfaceAudience.Private
+public class StripedReadWriteLock implements ReadWriteLock {
+  // Longs from one stripe counter to the next, so that they do not share a cache line
+  private static final int PADDING = 8;
+  private static final int MAX_STRIPES = 16;
+  // A power of two, from the number of processors
+  private static final int STRIPES = stripeCount();
+
+  private final AtomicLongArray readers;
+  private final int stripeMask;
+
+  // The read holds of each thread
+  private final ThreadLocal<ReadHolds> readHolds = new ThreadLocal<ReadHolds>() {
+    @Override
+    protected ReadHolds initialValue() {
+      return new ReadHolds();
+    }
+  };
+
+  // Held by the writer, and by the writer waiting for the readers to leave
+  private final ReentrantLock writerLock = new ReentrantLock();
+  private volatile boolean writerActive = false;
+
+  // To wait for the writer to leave, or for the readers to
+  private final ReentrantLock stateLock = new ReentrantLock();
+  private final Condition stateChanged = stateLock.newCondition();
+
+  private final AtomicLong waitTimeNanos = new AtomicLong(0);
+
+  private final ReadLock readLock = new ReadLock();
+  private final WriteLock writeLock = new WriteLock();
+
+  public static final long FIXED_OVERHEAD = ClassSize.align(
+      ClassSize.OBJECT +
+      8 * ClassSize.REFERENCE +
+      Bytes.SIZEOF_INT +
+      Bytes.SIZEOF_BOOLEAN);
+
+  public static final long DEEP_OVERHEAD = FIXED_OVERHEAD +
+      ClassSize.align(ClassSize.OBJECT + ClassSize.REFERENCE) + // readers
+      ClassSize.align(ClassSize.ARRAY + STRIPES * PADDING * Bytes.SIZEOF_LONG) + // stripes
+      ClassSize.align(ClassSize.OBJECT + Bytes.SIZEOF_INT) + // readHolds
+      (2 * ClassSize.REENTRANT_LOCK) + // writerLock, stateLock
+      ClassSize.align(ClassSize.OBJECT + 3 * ClassSize.REFERENCE) + // stateChanged
+      ClassSize.ATOMIC_LONG + // waitTimeNanos
+      (2 * ClassSize.align(ClassSize.OBJECT + ClassSize.REFERENCE)); // readLock, writeLock
+
+  public StripedReadWriteLock() {
+    this.stripeMask = STRIPES - 1;
+    this.readers = new AtomicLongArray(STRIPES * PADDING);
+  }
+
+  private static int stripeCount() {
+    int stripes = 1;
+    while (stripes < Math.min(Runtime.getRuntime().availableProcessors(), MAX_STRIPES)) {
+      stripes <<= 1;
+    }
+    return stripes;
+  }
+
+  private static class ReadHolds {
+    int count = 0;
+    // Whether the thread is counted in a stripe, which it is not when it
+    // took the read lock while holding the write lock
+    boolean counted = false;
+    int stripe;
+  }
+
+  @Override
+  public ReadLock readLock() {
+    return readLock;
+  }
+
+  @Override
+  public WriteLock writeLock() {
+    return writeLock;
+  }
+
+  /**
+   * @return the total time threads waited for this lock, in milliseconds
+   */
+  public long getWaitTime() {
+    return TimeUnit.NANOSECONDS.toMillis(waitTimeNanos.get());
+  }
+
+  /**
+   * @return the number of threads holding the read lock
+   */
+  public long getReadLockCount() {
+    long count = 0;
+    for (int i = 0; i <= stripeMask; i++) {
+      count += readers.get(i * PADDING);
+    }
+    return count;
+  }
+
+  private int stripe() {
+    long id = Thread.currentThread().getId();
+    return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & stripeMask;
+  }
+
+  /**
+   * @param locked whether the caller holds the state lock
+   * @return whether the reader got in, rather than backed off for a writer
+   */
+  private boolean tryEnterRead(int stripe, boolean locked) {
+    readers.incrementAndGet(stripe * PADDING);
+    if (!writerActive) {
+      return true;
+    }
+    if (locked) {
+      // The writer counts the readers holding the state lock before it waits,
+      // so it cannot be waiting for this one; signalling would only wake the
+      // other waiting readers to back off in turn
+      readers.decrementAndGet(stripe * PADDING);
+    } else {
+      exitRead(stripe);
+    }
+    return false;
+  }
+
+  private void exitRead(int stripe) {
+    readers.decrementAndGet(stripe * PADDING);
+    if (writerActive) {
+      // The writer may be waiting for this reader
+      signalStateChanged();
+    }
+  }
+
+  private void signalStateChanged() {
+    stateLock.lock();
+    try {
+      stateChanged.signalAll();
+    } finally {
+      stateLock.unlock();
+    }
+  }
+
+  /**
+   * @param nanos how long to wait, or a negative value to wait as long as it takes
+   * @return whether the read lock was acquired
+   */
+  private boolean acquireRead(boolean interruptible, long nanos) throws InterruptedException {
+    ReadHolds holds = readHolds.get();
+    if (holds.count > 0 || writerLock.isHeldByCurrentThread()) {
+      // Reentrant reads do not wait for writers, who would wait for them
+      holds.count++;
+      return true;
+    }
+    int stripe = stripe();
+    if (!tryEnterRead(stripe, false)) {
+      if (nanos == 0) {
+        return false;
+      }
+      long start = System.nanoTime();
+      stateLock.lock();
+      try {
+        while (!tryEnterRead(stripe, true)) {
+          nanos = await(interruptible, nanos);
+          if (nanos == 0) {
+            return false;
+          }
+        }
+      } finally {
+        stateLock.unlock();
+        waitTimeNanos.addAndGet(System.nanoTime() - start);
+      }
+    }
+    holds.count = 1;
+    holds.counted = true;
+    holds.stripe = stripe;
+    return true;
+  }
+
+  private void releaseRead() {
+    ReadHolds holds = readHolds.get();
+    if (holds.count <= 0) {
+      throw new IllegalMonitorStateException("Read lock not held by the current thread");
+    }
+    if (--holds.count == 0 && holds.counted) {
+      holds.counted = false;
+      exitRead(holds.stripe);
+    }
+  }
+
+  /**
+   * @param nanos how long to wait, or a negative value to wait as long as it takes
+   * @return whether the write lock was acquired
+   */
+  private boolean acquireWrite(boolean interruptible, long nanos) throws InterruptedException {
+    if (writerLock.isHeldByCurrentThread()) {
+      writerLock.lock();
+      return true;
+    }
+    if (readHolds.get().count > 0) {
+      throw new IllegalMonitorStateException("Read lock held by the current thread");
+    }
+    long start = System.nanoTime();
+    boolean waited = false;
+    try {
+      if (!writerLock.tryLock()) {
+        waited = true;
+        if (nanos < 0) {
+          if (interruptible) {
+            writerLock.lockInterruptibly();
+          } else {
+            writerLock.lock();
+          }
+        } else if (!writerLock.tryLock(nanos, TimeUnit.NANOSECONDS)) {
+          return false;
+        } else {
+          nanos = Math.max(1, nanos - (System.nanoTime() - start));
+        }
+      }
+      writerActive = true;
+      if (getReadLockCount() == 0) {
+        return true;
+      }
+      waited = true;
+      boolean acquired = false;
+      stateLock.lock();
+      try {
+        while (getReadLockCount() > 0) {
+          nanos = await(interruptible, nanos);
+          if (nanos == 0) {
+            return false;
+          }
+        }
+        acquired = true;
+        return true;
+      } finally {
+        stateLock.unlock();
+        if (!acquired) {
+          // Let the readers sent to wait in
+          writerActive = false;
+          signalStateChanged();
+          writerLock.unlock();
+        }
+      }
+    } finally {
+      if (waited) {
+        waitTimeNanos.addAndGet(System.nanoTime() - start);
+      }
+    }
+  }
+
+  private void releaseWrite() {
+    if (!writerLock.isHeldByCurrentThread()) {
+      throw new IllegalMonitorStateException("Write lock not held by the current thread");
+    }
+    if (writerLock.getHoldCount() == 1) {
+      ReadHolds holds = readHolds.get();
+      if (holds.count > 0 && !holds.counted) {
+        // The writer keeps the read lock it took
+        holds.stripe = stripe();
+        holds.counted = true;
+        readers.incrementAndGet(holds.stripe * PADDING);
+      }
+      writerActive = false;
+      signalStateChanged();
+    }
+    writerLock.unlock();
+  }
+
+  /**
+   * Waits on the state condition, which the caller holds the lock of.
+   * @param nanos how long to wait, or a negative value to wait as long as it takes
+   * @return the time left to wait, 0 when there is none left, or a negative
+   * value when waiting as long as it takes
+   */
+  private long await(boolean interruptible, long nanos) throws InterruptedException {
+    if (nanos < 0) {
+      if (interruptible) {
+        stateChanged.await();
+      } else {
+        stateChanged.awaitUninterruptibly();
+      }
+      return nanos;
+    }
+    long left = stateChanged.awaitNanos(nanos);
+    return left > 0 ? left : 0;
+  }
+
+  private static long toNanos(long time, TimeUnit unit) {
+    return Math.max(0, unit.toNanos(time));
+  }
+
+  /**
+   * The read lock of a {@link StripedReadWriteLock}.
+   */
+  public class ReadLock implements Lock {
+    @Override
+    public void lock() {
+      try {
+        acquireRead(false, -1);
+      } catch (InterruptedException e) {
+        // Cannot happen when not interruptible
+        throw new AssertionError(e);
+      }
+    }
+
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+      acquireRead(true, -1);
+    }
+
+    @Override
+    public boolean tryLock() {
+      try {
+        return acquireRead(false, 0);
+      } catch (InterruptedException e) {
+        throw new AssertionError(e);
+      }
+    }
+
+    @Override
+    public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+      return acquireRead(true, toNanos(time, unit));
+    }
+
+    @Override
+    public void unlock() {
+      releaseRead();
+    }
+
+    @Override
+    public Condition newCondition() {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  /**
+   * The write lock of a {@link StripedReadWriteLock}.
+   */
+  public class WriteLock implements Lock {
+    @Override
+    public void lock() {
+      try {
+        acquireWrite(false, -1);
+      } catch (InterruptedException e) {
+        // Cannot happen when not interruptible
+        throw new AssertionError(e);
+      }
+    }
+
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+      acquireWrite(true, -1);
+    }
+
+    @Override
+    public boolean tryLock() {
+      try {
+        return acquireWrite(false, 0);
+      } catch (InterruptedException e) {
+        throw new AssertionError(e);
+      }
+    }
+
+    @Override
+    public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+      return acquireWrite(true, toNanos(time, unit));
+    }
+
+    @Override
+    public void unlock() {
+      releaseWrite();
+    }
+
+    @Override
+    public Condition newCondition() {
+      throw new UnsupportedOperationException();
+    }
+
+    /**
+     * @return whether the current thread holds the write lock
+     */
+    public boolean isHeldByCurrentThread() {
+      return writerLock.isHeldByCurrentThread();
+    }
+  }
+}
@@ -0,0 +1,100 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.apache.hadoop.hbase.SmallTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(SmallTests.class)
+public class TestByteBufferPool {
+
+  @Test
+  public void testReusesBySizeClass() {
+    ByteBufferPool pool = new ByteBufferPool(1024, 8192, 2, false);
+    ByteBuffer buffer = pool.getBuffer(1500);
+    assertEquals(2048, buffer.capacity());
+    assertEquals(0, buffer.position());
+    assertEquals(1500, buffer.limit());
+    assertEquals(2048, pool.getAllocatedBytes());
+    buffer.put((byte) 1);
+    pool.putBuffer(buffer);
+
+    // Any size of the same class gets the same buffer, reset
+    ByteBuffer again = pool.getBuffer(2000);
+    assertSame(buffer, again);
+    assertEquals(0, again.position());
+    assertEquals(2000, again.limit());
+    assertEquals(2048, pool.getReusedBytes());
+
+    // Another class does not
+    ByteBuffer small = pool.getBuffer(10);
+    assertEquals(1024, small.capacity());
+    assertEquals(2048 + 1024, pool.getAllocatedBytes());
+  }
+
+  @Test
+  public void testLargeBuffersNotPooled() {
+    ByteBufferPool pool = new ByteBufferPool(1024, 8192, 2, false);
+    ByteBuffer large = pool.getBuffer(10000);
+    assertEquals(10000, large.capacity());
+    pool.putBuffer(large);
+    assertNotSame(large, pool.getBuffer(10000));
+    assertEquals(20000, pool.getAllocatedBytes());
+    assertEquals(0, pool.getReusedBytes());
+  }
+
+  @Test
+  public void testBoundedPerClass() {
+    ByteBufferPool pool = new ByteBufferPool(1024, 8192, 1, false);
+    ByteBuffer first = pool.getBuffer(1024);
+    ByteBuffer second = pool.getBuffer(1024);
+    pool.putBuffer(first);
+    pool.putBuffer(second);
+    assertSame(first, pool.getBuffer(1024));
+    assertNotSame(second, pool.getBuffer(1024));
+  }
+
+  @Test
+  public void testDisabled() {
+    ByteBufferPool pool = new ByteBufferPool(1024, 0, 2, false);
+    ByteBuffer buffer = pool.getBuffer(100);
+    assertEquals(100, buffer.capacity());
+    pool.putBuffer(buffer);
+    assertNotSame(buffer, pool.getBuffer(100));
+    assertEquals(200, pool.getAllocatedBytes());
+  }
+
+  @Test
+  public void testDirect() {
+    ByteBufferPool pool = new ByteBufferPool(1024, 8192, 2, true);
+    ByteBuffer buffer = pool.getBuffer(100);
+    assertTrue(buffer.isDirect());
+    // A heap buffer is not taken in a direct pool
+    pool.putBuffer(ByteBuffer.allocate(1024));
+    pool.putBuffer(buffer);
+    assertSame(buffer, pool.getBuffer(100));
+  }
+}
@@ -0,0 +1,83 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.apache.hadoop.hbase.SmallTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(SmallTests.class)
+public class TestChunkedByteBufferOutputStream {
+
+  @Test
+  public void testWritesAcrossChunks() {
+    ByteBufferPool pool = new ByteBufferPool(16, 16, 4, true);
+    ChunkedByteBufferOutputStream out = new ChunkedByteBufferOutputStream(pool, 16);
+    byte[] expected = new byte[40];
+    for (int i = 0; i < expected.length; i++) {
+      expected[i] = (byte) i;
+    }
+    out.write(expected[0]);
+    out.write(expected, 1, 20);
+    out.write(expected, 21, 19);
+    assertEquals(40, out.size());
+
+    List<ByteBuffer> chunks = out.getByteBuffers();
+    assertEquals(3, chunks.size());
+    byte[] actual = new byte[40];
+    int offset = 0;
+    for (ByteBuffer chunk : chunks) {
+      assertTrue(chunk.isDirect());
+      assertEquals(16, chunk.capacity());
+      int length = chunk.remaining();
+      chunk.get(actual, offset, length);
+      offset += length;
+    }
+    assertEquals(40, offset);
+    assertArrayEquals(expected, actual);
+  }
+
+  @Test
+  public void testReleaseReturnsChunks() {
+    ByteBufferPool pool = new ByteBufferPool(16, 16, 4, false);
+    ChunkedByteBufferOutputStream out = new ChunkedByteBufferOutputStream(pool, 16);
+    out.write(new byte[20], 0, 20);
+    ByteBuffer first = out.getByteBuffers().get(0);
+    out.release();
+    assertEquals(0, out.size());
+    assertEquals(32, pool.getAllocatedBytes());
+
+    // The chunks are handed out again, from the start
+    ChunkedByteBufferOutputStream again = new ChunkedByteBufferOutputStream(pool, 16);
+    again.write(new byte[20], 0, 20);
+    assertEquals(32, pool.getAllocatedBytes());
+    assertEquals(32, pool.getReusedBytes());
+    List<ByteBuffer> chunks = again.getByteBuffers();
+    assertSame(first, chunks.get(0));
+    assertEquals(16, chunks.get(0).remaining());
+    assertEquals(4, chunks.get(1).remaining());
+  }
+}
@@ -0,0 +1,219 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.hadoop.hbase.SmallTests;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(SmallTests.class)
+public class TestStripedReadWriteLock {
+  private StripedReadWriteLock lock;
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    lock = new StripedReadWriteLock();
+    executor = Executors.newCachedThreadPool();
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  private Future<Boolean> tryLockInOtherThread(final boolean write, final long millis) {
+    return executor.submit(new Callable<Boolean>() {
+      @Override
+      public Boolean call() throws Exception {
+        if (write) {
+          if (lock.writeLock().tryLock(millis, TimeUnit.MILLISECONDS)) {
+            lock.writeLock().unlock();
+            return true;
+          }
+        } else if (lock.readLock().tryLock(millis, TimeUnit.MILLISECONDS)) {
+          lock.readLock().unlock();
+          return true;
+        }
+        return false;
+      }
+    });
+  }
+
+  @Test
+  public void testReadersShare() throws Exception {
+    lock.readLock().lock();
+    assertTrue(tryLockInOtherThread(false, 0).get());
+    assertEquals(1, lock.getReadLockCount());
+    lock.readLock().unlock();
+    assertEquals(0, lock.getReadLockCount());
+  }
+
+  @Test
+  public void testWriterExcludesReaders() throws Exception {
+    lock.writeLock().lock();
+    assertTrue(lock.writeLock().isHeldByCurrentThread());
+    assertFalse(tryLockInOtherThread(false, 0).get());
+    assertFalse(tryLockInOtherThread(false, 100).get());
+    assertFalse(tryLockInOtherThread(true, 100).get());
+    Future<Boolean> reader = tryLockInOtherThread(false, 10000);
+    Thread.sleep(100);
+    lock.writeLock().unlock();
+    assertTrue(reader.get());
+    assertFalse(lock.writeLock().isHeldByCurrentThread());
+    assertTrue(lock.getWaitTime() > 0);
+  }
+
+  @Test
+  public void testWriterWaitsForReaders() throws Exception {
+    lock.readLock().lock();
+    assertFalse(tryLockInOtherThread(true, 100).get());
+    // The reader that was in still is, and a new one gets in again
+    assertEquals(1, lock.getReadLockCount());
+    assertTrue(tryLockInOtherThread(false, 0).get());
+    Future<Boolean> writer = tryLockInOtherThread(true, 10000);
+    Thread.sleep(100);
+    lock.readLock().unlock();
+    assertTrue(writer.get());
+  }
+
+  @Test
+  public void testWaitingReadersStayParked() throws Exception {
+    lock.writeLock().lock();
+    Thread[] readers = new Thread[4];
+    for (int i = 0; i < readers.length; i++) {
+      readers[i] = new Thread() {
+        @Override
+        public void run() {
+          lock.readLock().lock();
+          lock.readLock().unlock();
+        }
+      };
+      readers[i].start();
+    }
+    for (Thread reader : readers) {
+      while (reader.getState() != Thread.State.WAITING) {
+        Thread.sleep(10);
+      }
+    }
+    Thread.sleep(100);
+    // Readers backing off while waiting do not wake each other up
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    long[] waited = new long[readers.length];
+    for (int i = 0; i < readers.length; i++) {
+      waited[i] = threads.getThreadInfo(readers[i].getId()).getWaitedCount();
+    }
+    Thread.sleep(500);
+    for (int i = 0; i < readers.length; i++) {
+      assertEquals(waited[i], threads.getThreadInfo(readers[i].getId()).getWaitedCount());
+      assertEquals(Thread.State.WAITING, readers[i].getState());
+    }
+    lock.writeLock().unlock();
+    for (Thread reader : readers) {
+      reader.join(10000);
+      assertFalse(reader.isAlive());
+    }
+    assertEquals(0, lock.getReadLockCount());
+  }
+
+  @Test
+  public void testReentrancy() throws Exception {
+    lock.readLock().lock();
+    lock.readLock().lock();
+    lock.readLock().unlock();
+    assertFalse(tryLockInOtherThread(true, 0).get());
+    lock.readLock().unlock();
+    assertTrue(tryLockInOtherThread(true, 0).get());
+
+    lock.writeLock().lock();
+    lock.writeLock().lock();
+    lock.writeLock().unlock();
+    assertTrue(lock.writeLock().isHeldByCurrentThread());
+    // The writer may read, and keeps reading once it stops writing
+    lock.readLock().lock();
+    lock.writeLock().unlock();
+    assertFalse(lock.writeLock().isHeldByCurrentThread());
+    assertTrue(tryLockInOtherThread(false, 0).get());
+    assertFalse(tryLockInOtherThread(true, 0).get());
+    lock.readLock().unlock();
+    assertTrue(tryLockInOtherThread(true, 0).get());
+  }
+
+  @Test(expected = IllegalMonitorStateException.class)
+  public void testUnlockNotHeld() {
+    lock.readLock().unlock();
+  }
+
+  @Test
+  public void testExclusion() throws Exception {
+    // Writers keep both values equal, readers check they are
+    final long[] values = new long[2];
+    final AtomicBoolean failed = new AtomicBoolean(false);
+    final int iterations = 20000;
+    Future<?>[] futures = new Future<?>[8];
+    for (int i = 0; i < futures.length; i++) {
+      final boolean writer = i % 4 == 0;
+      futures[i] = executor.submit(new Runnable() {
+        @Override
+        public void run() {
+          for (int j = 0; j < iterations; j++) {
+            if (writer) {
+              lock.writeLock().lock();
+              try {
+                values[0]++;
+                values[1]++;
+              } finally {
+                lock.writeLock().unlock();
+              }
+            } else {
+              lock.readLock().lock();
+              try {
+                if (values[0] != values[1]) {
+                  failed.set(true);
+                }
+              } finally {
+                lock.readLock().unlock();
+              }
+            }
+          }
+        }
+      });
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    assertFalse(failed.get());
+    assertEquals(2 * iterations, values[0]);
+    assertEquals(0, lock.getReadLockCount());
+  }
+}
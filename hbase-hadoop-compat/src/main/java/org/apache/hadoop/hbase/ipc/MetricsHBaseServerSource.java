@@ -40,6 +40,12 @@ public interface MetricsHBaseServerSource extends BaseSource {
   String RECEIVED_BYTES_DESC = "Number of bytes received.";
   String QUEUE_CALL_TIME_NAME = "queueCallTime";
   String QUEUE_CALL_TIME_DESC = "Queue Call Time.";
+  String GENERAL_QUEUE_CALL_TIME_NAME = "generalQueueCallTime";
+  String GENERAL_QUEUE_CALL_TIME_DESC = "Queue call time of the general queue.";
+  String READ_QUEUE_CALL_TIME_NAME = "readQueueCallTime";
+  String READ_QUEUE_CALL_TIME_DESC = "Queue call time of the read queue.";
+  String SCAN_QUEUE_CALL_TIME_NAME = "scanQueueCallTime";
+  String SCAN_QUEUE_CALL_TIME_DESC = "Queue call time of the scan queue.";
   String PROCESS_CALL_TIME_NAME = "processCallTime";
   String PROCESS_CALL_TIME_DESC = "Processing call time.";
   String QUEUE_SIZE_NAME = "queueSize";
@@ -51,6 +57,22 @@ public interface MetricsHBaseServerSource extends BaseSource {
   String REPLICATION_QUEUE_DESC =
       "Number of calls in the replication call queue.";
   String PRIORITY_QUEUE_DESC = "Number of calls in the priority call queue.";
+  String READ_QUEUE_NAME = "numCallsInReadQueue";
+  String READ_QUEUE_DESC = "Number of calls in the read call queue.";
+  String SCAN_QUEUE_NAME = "numCallsInScanQueue";
+  String SCAN_QUEUE_DESC = "Number of calls in the scan call queue.";
+  String ACTIVE_HANDLER_NAME = "numActiveHandler";
+  String ACTIVE_HANDLER_DESC = "Number of general handlers busy with a call.";
+  String ACTIVE_READ_HANDLER_NAME = "numActiveReadHandler";
+  String ACTIVE_READ_HANDLER_DESC = "Number of read handlers busy with a call.";
+  String ACTIVE_SCAN_HANDLER_NAME = "numActiveScanHandler";
+  String ACTIVE_SCAN_HANDLER_DESC = "Number of scan handlers busy with a call.";
+  String REQUEST_BUFFER_ALLOCATED_NAME = "requestBufferAllocatedBytes";
+  String REQUEST_BUFFER_ALLOCATED_DESC =
+      "Number of bytes allocated for buffers requests are read into.";
+  String REQUEST_BUFFER_REUSED_NAME = "requestBufferReusedBytes";
+  String REQUEST_BUFFER_REUSED_DESC =
+      "Number of bytes of pooled buffers reused to read requests into.";
   String NUM_OPEN_CONNECTIONS_NAME = "numOpenConnections";
   String NUM_OPEN_CONNECTIONS_DESC = "Number of open connections.";
 
@@ -68,5 +90,11 @@ public interface MetricsHBaseServerSource extends BaseSource {
 
   void dequeuedCall(int qTime);
 
+  void dequeuedGeneralCall(int qTime);
+
+  void dequeuedReadCall(int qTime);
+
+  void dequeuedScanCall(int qTime);
+
   void processedCall(int processingTime);
 }
@@ -24,5 +24,12 @@ public interface MetricsHBaseServerWrapper {
   int getGeneralQueueLength();
   int getReplicationQueueLength();
   int getPriorityQueueLength();
+  int getReadQueueLength();
+  int getScanQueueLength();
+  int getActiveHandlerCount();
+  int getActiveReadHandlerCount();
+  int getActiveScanHandlerCount();
   int getNumOpenConnections();
+  long getRequestBufferAllocatedBytes();
+  long getRequestBufferReusedBytes();
 }
@@ -87,6 +87,25 @@ public interface MetricsRegionServerSource extends BaseSource {
    */
   void updateReplay(long t);
 
+  /**
+   * Update the time histogram of reading scanner batches ahead.
+   *
+   * @param t time it took
+   */
+  void updateScanReadAhead(long t);
+
+  /**
+   * Increment the number of scan calls answered from rows read ahead.
+   */
+  void incrScanReadAheadHit();
+
+  /**
+   * Increment the number of rows read ahead that no scan call asked for.
+   *
+   * @param rows the number of rows discarded
+   */
+  void incrScanReadAheadWasted(long rows);
+
   /**
    * Increment the number of slow Puts that have happened.
    */
@@ -151,6 +170,14 @@ public interface MetricsRegionServerSource extends BaseSource {
   String DATA_SIZE_WITHOUT_WAL = "mutationsWithoutWALSize";
   String DATA_SIZE_WITHOUT_WAL_DESC =
       "Size of data that has been sent by clients with the write ahead logging turned off.";
+  String FLUSHED_OUTPUT_BYTES = "flushedOutputBytes";
+  String FLUSHED_OUTPUT_BYTES_DESC = "Total size of the files written by flushes.";
+  String FLUSH_TIME = "flushTime";
+  String FLUSH_TIME_DESC = "Total time in milliseconds spent writing flushed files.";
+  String COMPACTED_OUTPUT_BYTES = "compactedOutputBytes";
+  String COMPACTED_OUTPUT_BYTES_DESC = "Total size of the files written by compactions.";
+  String COMPACTION_TIME = "compactionTime";
+  String COMPACTION_TIME_DESC = "Total time in milliseconds spent writing compacted files.";
   String PERCENT_FILES_LOCAL = "percentFilesLocal";
   String PERCENT_FILES_LOCAL_DESC =
       "The percent of HFiles that are stored on the local hdfs data node.";
@@ -199,6 +226,7 @@ public interface MetricsRegionServerSource extends BaseSource {
   String APPEND_KEY = "append";
   String REPLAY_KEY = "replay";
   String SCAN_NEXT_KEY = "scanNext";
+  String SCAN_READ_AHEAD_KEY = "scanReadAhead";
   String SLOW_MUTATE_KEY = "slowPutCount";
   String SLOW_GET_KEY = "slowGetCount";
   String SLOW_DELETE_KEY = "slowDeleteCount";
@@ -213,6 +241,12 @@ public interface MetricsRegionServerSource extends BaseSource {
       "The number of Increments that took over 1000ms to complete";
   String SLOW_APPEND_DESC =
       "The number of Appends that took over 1000ms to complete";
+  String SCAN_READ_AHEAD_HIT_KEY = "scanReadAheadHitCount";
+  String SCAN_READ_AHEAD_HIT_DESC =
+      "The number of scan calls answered from rows read ahead";
+  String SCAN_READ_AHEAD_WASTED_KEY = "scanReadAheadWastedCount";
+  String SCAN_READ_AHEAD_WASTED_DESC =
+      "The number of rows read ahead and discarded without being asked for";
 
 
 }
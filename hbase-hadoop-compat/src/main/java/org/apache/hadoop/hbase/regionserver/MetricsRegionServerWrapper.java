@@ -138,6 +138,26 @@ public interface MetricsRegionServerWrapper {
    */
   long getDataInMemoryWithoutWAL();
 
+  /**
+   * Get the total size of the files written by flushes.
+   */
+  long getFlushedOutputBytes();
+
+  /**
+   * Get the total time spent writing flushed files, in milliseconds.
+   */
+  long getFlushTime();
+
+  /**
+   * Get the total size of the files written by compactions.
+   */
+  long getCompactedOutputBytes();
+
+  /**
+   * Get the total time spent writing compacted files, in milliseconds.
+   */
+  long getCompactionTime();
+
   /**
    * Get the percent of HFiles' that are local.
    */
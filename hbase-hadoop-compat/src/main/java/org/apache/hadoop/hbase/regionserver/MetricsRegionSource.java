@@ -35,6 +35,11 @@ public interface MetricsRegionSource extends Comparable<MetricsRegionSource> {
       "Sum of filesize on all files entering a finished, successful or aborted, compaction";
   String NUM_FILES_COMPACTED_DESC =
       "Number of files that were input for finished, successful or aborted, compactions";
+  String ROW_LOCK_WAIT_KEY = "rowLockWait";
+  String ROW_LOCK_TIMEOUT_KEY = "rowLockTimeout";
+  String UPDATES_LOCK_WAIT_TIME = "updatesLockWaitTime";
+  String UPDATES_LOCK_WAIT_TIME_DESC =
+      "Total time in milliseconds spent waiting for the lock blocking updates during flushes";
 
   /**
    * Close the region's metrics as this region is closing.
@@ -72,6 +77,17 @@ public interface MetricsRegionSource extends Comparable<MetricsRegionSource> {
    */
   void updateAppend();
 
+  /**
+   * Update the histogram of row lock waits.
+   * @param waitTime time in milliseconds spent waiting for a row lock
+   */
+  void updateRowLockWait(long waitTime);
+
+  /**
+   * Update the count of row lock waits that timed out.
+   */
+  void updateRowLockTimeout();
+
   /**
    * Get the aggregate source to which this reports.
    */
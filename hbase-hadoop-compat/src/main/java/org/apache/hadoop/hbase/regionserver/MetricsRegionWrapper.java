@@ -79,4 +79,10 @@ public interface MetricsRegionWrapper {
   long getNumBytesCompacted();
 
   long getNumCompactionsCompleted();
+
+  /**
+   * Get the total time in milliseconds spent waiting for the lock that flushes
+   * take to block the updates of this region.
+   */
+  long getUpdatesLockWaitTime();
 }
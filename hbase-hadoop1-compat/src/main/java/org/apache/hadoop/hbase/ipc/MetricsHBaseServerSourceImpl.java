@@ -36,6 +36,9 @@ public class MetricsHBaseServerSourceImpl extends BaseSourceImpl
   private final MetricMutableCounterLong sentBytes;
   private final MetricMutableCounterLong receivedBytes;
   private MetricMutableHistogram queueCallTime;
+  private MetricMutableHistogram generalQueueCallTime;
+  private MetricMutableHistogram readQueueCallTime;
+  private MetricMutableHistogram scanQueueCallTime;
   private MetricMutableHistogram processCallTime;
 
   public MetricsHBaseServerSourceImpl(String metricsName,
@@ -61,6 +64,12 @@ public class MetricsHBaseServerSourceImpl extends BaseSourceImpl
         RECEIVED_BYTES_DESC, 0l);
     this.queueCallTime = this.getMetricsRegistry().newHistogram(QUEUE_CALL_TIME_NAME,
         QUEUE_CALL_TIME_DESC);
+    this.generalQueueCallTime = this.getMetricsRegistry().newHistogram(
+        GENERAL_QUEUE_CALL_TIME_NAME, GENERAL_QUEUE_CALL_TIME_DESC);
+    this.readQueueCallTime = this.getMetricsRegistry().newHistogram(READ_QUEUE_CALL_TIME_NAME,
+        READ_QUEUE_CALL_TIME_DESC);
+    this.scanQueueCallTime = this.getMetricsRegistry().newHistogram(SCAN_QUEUE_CALL_TIME_NAME,
+        SCAN_QUEUE_CALL_TIME_DESC);
     this.processCallTime = this.getMetricsRegistry().newHistogram(PROCESS_CALL_TIME_NAME,
         PROCESS_CALL_TIME_DESC);
   }
@@ -100,6 +109,21 @@ public class MetricsHBaseServerSourceImpl extends BaseSourceImpl
     queueCallTime.add(qTime);
   }
 
+  @Override
+  public void dequeuedGeneralCall(int qTime) {
+    generalQueueCallTime.add(qTime);
+  }
+
+  @Override
+  public void dequeuedReadCall(int qTime) {
+    readQueueCallTime.add(qTime);
+  }
+
+  @Override
+  public void dequeuedScanCall(int qTime) {
+    scanQueueCallTime.add(qTime);
+  }
+
   @Override
   public void processedCall(int processingTime) {
     processCallTime.add(processingTime);
@@ -115,8 +139,19 @@ public class MetricsHBaseServerSourceImpl extends BaseSourceImpl
           .addGauge(REPLICATION_QUEUE_NAME,
               REPLICATION_QUEUE_DESC, wrapper.getReplicationQueueLength())
           .addGauge(PRIORITY_QUEUE_NAME, PRIORITY_QUEUE_DESC, wrapper.getPriorityQueueLength())
+          .addGauge(READ_QUEUE_NAME, READ_QUEUE_DESC, wrapper.getReadQueueLength())
+          .addGauge(SCAN_QUEUE_NAME, SCAN_QUEUE_DESC, wrapper.getScanQueueLength())
+          .addGauge(ACTIVE_HANDLER_NAME, ACTIVE_HANDLER_DESC, wrapper.getActiveHandlerCount())
+          .addGauge(ACTIVE_READ_HANDLER_NAME,
+              ACTIVE_READ_HANDLER_DESC, wrapper.getActiveReadHandlerCount())
+          .addGauge(ACTIVE_SCAN_HANDLER_NAME,
+              ACTIVE_SCAN_HANDLER_DESC, wrapper.getActiveScanHandlerCount())
           .addGauge(NUM_OPEN_CONNECTIONS_NAME,
-              NUM_OPEN_CONNECTIONS_DESC, wrapper.getNumOpenConnections());
+              NUM_OPEN_CONNECTIONS_DESC, wrapper.getNumOpenConnections())
+          .addCounter(REQUEST_BUFFER_ALLOCATED_NAME,
+              REQUEST_BUFFER_ALLOCATED_DESC, wrapper.getRequestBufferAllocatedBytes())
+          .addCounter(REQUEST_BUFFER_REUSED_NAME,
+              REQUEST_BUFFER_REUSED_DESC, wrapper.getRequestBufferReusedBytes());
     }
 
     metricsRegistry.snapshot(mrb, all);
@@ -39,11 +39,14 @@ public class MetricsRegionServerSourceImpl
   private final MetricHistogram incrementHisto;
   private final MetricHistogram appendHisto;
   private final MetricHistogram replayHisto;
+  private final MetricHistogram scanReadAheadHisto;
   private final MetricMutableCounterLong slowPut;
   private final MetricMutableCounterLong slowDelete;
   private final MetricMutableCounterLong slowGet;
   private final MetricMutableCounterLong slowIncrement;
   private final MetricMutableCounterLong slowAppend;
+  private final MetricMutableCounterLong scanReadAheadHit;
+  private final MetricMutableCounterLong scanReadAheadWasted;
 
   public MetricsRegionServerSourceImpl(MetricsRegionServerWrapper rsWrap) {
     this(METRICS_NAME, METRICS_DESCRIPTION, METRICS_CONTEXT, METRICS_JMX_CONTEXT, rsWrap);
@@ -73,6 +76,12 @@ public class MetricsRegionServerSourceImpl
     slowAppend = getMetricsRegistry().newCounter(SLOW_APPEND_KEY, SLOW_APPEND_DESC, 0l);
 
     replayHisto = getMetricsRegistry().newHistogram(REPLAY_KEY);
+
+    scanReadAheadHisto = getMetricsRegistry().newHistogram(SCAN_READ_AHEAD_KEY);
+    scanReadAheadHit = getMetricsRegistry().newCounter(SCAN_READ_AHEAD_HIT_KEY,
+        SCAN_READ_AHEAD_HIT_DESC, 0l);
+    scanReadAheadWasted = getMetricsRegistry().newCounter(SCAN_READ_AHEAD_WASTED_KEY,
+        SCAN_READ_AHEAD_WASTED_DESC, 0l);
   }
 
   @Override
@@ -105,6 +114,21 @@ public class MetricsRegionServerSourceImpl
     replayHisto.add(t);
   }
 
+  @Override
+  public void updateScanReadAhead(long t) {
+    scanReadAheadHisto.add(t);
+  }
+
+  @Override
+  public void incrScanReadAheadHit() {
+    scanReadAheadHit.incr();
+  }
+
+  @Override
+  public void incrScanReadAheadWasted(long rows) {
+    scanReadAheadWasted.incr(rows);
+  }
+
   @Override
   public void incrSlowPut() {
     slowPut.incr();
@@ -170,6 +194,14 @@ public class MetricsRegionServerSourceImpl
           .addGauge(DATA_SIZE_WITHOUT_WAL,
               DATA_SIZE_WITHOUT_WAL_DESC,
               rsWrap.getDataInMemoryWithoutWAL())
+          .addCounter(FLUSHED_OUTPUT_BYTES,
+              FLUSHED_OUTPUT_BYTES_DESC,
+              rsWrap.getFlushedOutputBytes())
+          .addCounter(FLUSH_TIME, FLUSH_TIME_DESC, rsWrap.getFlushTime())
+          .addCounter(COMPACTED_OUTPUT_BYTES,
+              COMPACTED_OUTPUT_BYTES_DESC,
+              rsWrap.getCompactedOutputBytes())
+          .addCounter(COMPACTION_TIME, COMPACTION_TIME_DESC, rsWrap.getCompactionTime())
           .addGauge(PERCENT_FILES_LOCAL, PERCENT_FILES_LOCAL_DESC, rsWrap.getPercentFileLocal())
           .addGauge(COMPACTION_QUEUE_LENGTH,
               COMPACTION_QUEUE_LENGTH_DESC,
@@ -41,6 +41,8 @@ public class MetricsRegionSourceImpl implements MetricsRegionSource {
   private String regionIncrementKey;
   private String regionAppendKey;
   private String regionScanNextKey;
+  private String regionRowLockWaitKey;
+  private String regionRowLockTimeoutKey;
   private MetricMutableCounterLong regionPut;
   private MetricMutableCounterLong regionDelete;
   private MetricMutableCounterLong regionIncrement;
@@ -48,6 +50,8 @@ public class MetricsRegionSourceImpl implements MetricsRegionSource {
 
   private MetricMutableHistogram regionGet;
   private MetricMutableHistogram regionScanNext;
+  private MetricMutableHistogram regionRowLockWait;
+  private MetricMutableCounterLong regionRowLockTimeout;
 
   public MetricsRegionSourceImpl(MetricsRegionWrapper regionWrapper,
                                  MetricsRegionAggregateSourceImpl aggregate) {
@@ -85,6 +89,12 @@ public class MetricsRegionSourceImpl implements MetricsRegionSource {
 
     regionScanNextKey = regionNamePrefix + MetricsRegionServerSource.SCAN_NEXT_KEY;
     regionScanNext = registry.newHistogram(regionScanNextKey);
+
+    regionRowLockWaitKey = regionNamePrefix + MetricsRegionSource.ROW_LOCK_WAIT_KEY;
+    regionRowLockWait = registry.newHistogram(regionRowLockWaitKey);
+
+    regionRowLockTimeoutKey = regionNamePrefix + MetricsRegionSource.ROW_LOCK_TIMEOUT_KEY + suffix;
+    regionRowLockTimeout = registry.getLongCounter(regionRowLockTimeoutKey, 0l);
   }
 
   @Override
@@ -101,6 +111,8 @@ public class MetricsRegionSourceImpl implements MetricsRegionSource {
 
     registry.removeMetric(regionGetKey);
     registry.removeMetric(regionScanNextKey);
+    registry.removeMetric(regionRowLockWaitKey);
+    registry.removeMetric(regionRowLockTimeoutKey);
 
     JmxCacheBuster.clearJmxCache();
   }
@@ -135,6 +147,16 @@ public class MetricsRegionSourceImpl implements MetricsRegionSource {
     regionAppend.incr();
   }
 
+  @Override
+  public void updateRowLockWait(long waitTime) {
+    regionRowLockWait.add(waitTime);
+  }
+
+  @Override
+  public void updateRowLockTimeout() {
+    regionRowLockTimeout.incr();
+  }
+
   @Override
   public MetricsRegionAggregateSource getAggregateSource() {
     return agg;
@@ -188,6 +210,9 @@ public class MetricsRegionSourceImpl implements MetricsRegionSource {
     mrb.addCounter(regionNamePrefix + MetricsRegionSource.NUM_FILES_COMPACTED_COUNT,
         MetricsRegionSource.NUM_FILES_COMPACTED_DESC,
         this.regionWrapper.getNumFilesCompacted());
+    mrb.addCounter(regionNamePrefix + MetricsRegionSource.UPDATES_LOCK_WAIT_TIME,
+        MetricsRegionSource.UPDATES_LOCK_WAIT_TIME_DESC,
+        this.regionWrapper.getUpdatesLockWaitTime());
 
 
   }
@@ -117,5 +117,10 @@ public class TestMetricsRegionSourceImpl {
     public long getNumCompactionsCompleted() {
       return 0;
     }
+
+    @Override
+    public long getUpdatesLockWaitTime() {
+      return 0;
+    }
   }
 }
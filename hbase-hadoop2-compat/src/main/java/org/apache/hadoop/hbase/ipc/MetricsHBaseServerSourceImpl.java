@@ -39,6 +39,9 @@ public class MetricsHBaseServerSourceImpl extends BaseSourceImpl
   private final MutableCounterLong sentBytes;
   private final MutableCounterLong receivedBytes;
   private MutableHistogram queueCallTime;
+  private MutableHistogram generalQueueCallTime;
+  private MutableHistogram readQueueCallTime;
+  private MutableHistogram scanQueueCallTime;
   private MutableHistogram processCallTime;
 
   public MetricsHBaseServerSourceImpl(String metricsName,
@@ -64,6 +67,12 @@ public class MetricsHBaseServerSourceImpl extends BaseSourceImpl
         RECEIVED_BYTES_DESC, 0l);
     this.queueCallTime = this.getMetricsRegistry().newHistogram(QUEUE_CALL_TIME_NAME,
         QUEUE_CALL_TIME_DESC);
+    this.generalQueueCallTime = this.getMetricsRegistry().newHistogram(
+        GENERAL_QUEUE_CALL_TIME_NAME, GENERAL_QUEUE_CALL_TIME_DESC);
+    this.readQueueCallTime = this.getMetricsRegistry().newHistogram(READ_QUEUE_CALL_TIME_NAME,
+        READ_QUEUE_CALL_TIME_DESC);
+    this.scanQueueCallTime = this.getMetricsRegistry().newHistogram(SCAN_QUEUE_CALL_TIME_NAME,
+        SCAN_QUEUE_CALL_TIME_DESC);
     this.processCallTime = this.getMetricsRegistry().newHistogram(PROCESS_CALL_TIME_NAME,
         PROCESS_CALL_TIME_DESC);
   }
@@ -103,6 +112,21 @@ public class MetricsHBaseServerSourceImpl extends BaseSourceImpl
     queueCallTime.add(qTime);
   }
 
+  @Override
+  public void dequeuedGeneralCall(int qTime) {
+    generalQueueCallTime.add(qTime);
+  }
+
+  @Override
+  public void dequeuedReadCall(int qTime) {
+    readQueueCallTime.add(qTime);
+  }
+
+  @Override
+  public void dequeuedScanCall(int qTime) {
+    scanQueueCallTime.add(qTime);
+  }
+
   @Override
   public void processedCall(int processingTime) {
     processCallTime.add(processingTime);
@@ -123,8 +147,22 @@ public class MetricsHBaseServerSourceImpl extends BaseSourceImpl
               REPLICATION_QUEUE_DESC), wrapper.getReplicationQueueLength())
           .addGauge(Interns.info(PRIORITY_QUEUE_NAME, PRIORITY_QUEUE_DESC),
               wrapper.getPriorityQueueLength())
+          .addGauge(Interns.info(READ_QUEUE_NAME, READ_QUEUE_DESC),
+              wrapper.getReadQueueLength())
+          .addGauge(Interns.info(SCAN_QUEUE_NAME, SCAN_QUEUE_DESC),
+              wrapper.getScanQueueLength())
+          .addGauge(Interns.info(ACTIVE_HANDLER_NAME, ACTIVE_HANDLER_DESC),
+              wrapper.getActiveHandlerCount())
+          .addGauge(Interns.info(ACTIVE_READ_HANDLER_NAME, ACTIVE_READ_HANDLER_DESC),
+              wrapper.getActiveReadHandlerCount())
+          .addGauge(Interns.info(ACTIVE_SCAN_HANDLER_NAME, ACTIVE_SCAN_HANDLER_DESC),
+              wrapper.getActiveScanHandlerCount())
           .addGauge(Interns.info(NUM_OPEN_CONNECTIONS_NAME,
-              NUM_OPEN_CONNECTIONS_DESC), wrapper.getNumOpenConnections());
+              NUM_OPEN_CONNECTIONS_DESC), wrapper.getNumOpenConnections())
+          .addCounter(Interns.info(REQUEST_BUFFER_ALLOCATED_NAME,
+              REQUEST_BUFFER_ALLOCATED_DESC), wrapper.getRequestBufferAllocatedBytes())
+          .addCounter(Interns.info(REQUEST_BUFFER_REUSED_NAME,
+              REQUEST_BUFFER_REUSED_DESC), wrapper.getRequestBufferReusedBytes());
     }
 
     metricsRegistry.snapshot(mrb, all);
@@ -44,12 +44,15 @@ public class MetricsRegionServerSourceImpl
   private final MetricHistogram incrementHisto;
   private final MetricHistogram appendHisto;
   private final MetricHistogram replayHisto;
+  private final MetricHistogram scanReadAheadHisto;
 
   private final MutableCounterLong slowPut;
   private final MutableCounterLong slowDelete;
   private final MutableCounterLong slowGet;
   private final MutableCounterLong slowIncrement;
   private final MutableCounterLong slowAppend;
+  private final MutableCounterLong scanReadAheadHit;
+  private final MutableCounterLong scanReadAheadWasted;
 
 
   public MetricsRegionServerSourceImpl(MetricsRegionServerWrapper rsWrap) {
@@ -80,6 +83,12 @@ public class MetricsRegionServerSourceImpl
     slowAppend = getMetricsRegistry().newCounter(SLOW_APPEND_KEY, SLOW_APPEND_DESC, 0l);
     
     replayHisto = getMetricsRegistry().newHistogram(REPLAY_KEY);
+
+    scanReadAheadHisto = getMetricsRegistry().newHistogram(SCAN_READ_AHEAD_KEY);
+    scanReadAheadHit = getMetricsRegistry().newCounter(SCAN_READ_AHEAD_HIT_KEY,
+        SCAN_READ_AHEAD_HIT_DESC, 0l);
+    scanReadAheadWasted = getMetricsRegistry().newCounter(SCAN_READ_AHEAD_WASTED_KEY,
+        SCAN_READ_AHEAD_WASTED_DESC, 0l);
   }
 
   @Override
@@ -112,6 +121,21 @@ public class MetricsRegionServerSourceImpl
     replayHisto.add(t);
   }
 
+  @Override
+  public void updateScanReadAhead(long t) {
+    scanReadAheadHisto.add(t);
+  }
+
+  @Override
+  public void incrScanReadAheadHit() {
+    scanReadAheadHit.incr();
+  }
+
+  @Override
+  public void incrScanReadAheadWasted(long rows) {
+    scanReadAheadWasted.incr(rows);
+  }
+
   @Override
   public void incrSlowPut() {
    slowPut.incr();
@@ -181,6 +205,13 @@ public class MetricsRegionServerSourceImpl
               rsWrap.getNumMutationsWithoutWAL())
           .addGauge(Interns.info(DATA_SIZE_WITHOUT_WAL, DATA_SIZE_WITHOUT_WAL_DESC),
               rsWrap.getDataInMemoryWithoutWAL())
+          .addCounter(Interns.info(FLUSHED_OUTPUT_BYTES, FLUSHED_OUTPUT_BYTES_DESC),
+              rsWrap.getFlushedOutputBytes())
+          .addCounter(Interns.info(FLUSH_TIME, FLUSH_TIME_DESC), rsWrap.getFlushTime())
+          .addCounter(Interns.info(COMPACTED_OUTPUT_BYTES, COMPACTED_OUTPUT_BYTES_DESC),
+              rsWrap.getCompactedOutputBytes())
+          .addCounter(Interns.info(COMPACTION_TIME, COMPACTION_TIME_DESC),
+              rsWrap.getCompactionTime())
           .addGauge(Interns.info(PERCENT_FILES_LOCAL, PERCENT_FILES_LOCAL_DESC),
               rsWrap.getPercentFileLocal())
           .addGauge(Interns.info(COMPACTION_QUEUE_LENGTH, COMPACTION_QUEUE_LENGTH_DESC),
@@ -46,6 +46,8 @@ public class MetricsRegionSourceImpl implements MetricsRegionSource {
   private String regionIncrementKey;
   private String regionAppendKey;
   private String regionScanNextKey;
+  private String regionRowLockWaitKey;
+  private String regionRowLockTimeoutKey;
   private MutableCounterLong regionPut;
   private MutableCounterLong regionDelete;
 
@@ -54,6 +56,8 @@ public class MetricsRegionSourceImpl implements MetricsRegionSource {
 
   private MutableHistogram regionGet;
   private MutableHistogram regionScanNext;
+  private MutableHistogram regionRowLockWait;
+  private MutableCounterLong regionRowLockTimeout;
 
   public MetricsRegionSourceImpl(MetricsRegionWrapper regionWrapper,
                                  MetricsRegionAggregateSourceImpl aggregate) {
@@ -90,6 +94,12 @@ public class MetricsRegionSourceImpl implements MetricsRegionSource {
 
     regionScanNextKey = regionNamePrefix + MetricsRegionServerSource.SCAN_NEXT_KEY;
     regionScanNext = registry.newHistogram(regionScanNextKey);
+
+    regionRowLockWaitKey = regionNamePrefix + MetricsRegionSource.ROW_LOCK_WAIT_KEY;
+    regionRowLockWait = registry.newHistogram(regionRowLockWaitKey);
+
+    regionRowLockTimeoutKey = regionNamePrefix + MetricsRegionSource.ROW_LOCK_TIMEOUT_KEY + suffix;
+    regionRowLockTimeout = registry.getLongCounter(regionRowLockTimeoutKey, 0l);
   }
 
   @Override
@@ -107,6 +117,8 @@ public class MetricsRegionSourceImpl implements MetricsRegionSource {
 
     registry.removeMetric(regionGetKey);
     registry.removeMetric(regionScanNextKey);
+    registry.removeMetric(regionRowLockWaitKey);
+    registry.removeMetric(regionRowLockTimeoutKey);
 
     JmxCacheBuster.clearJmxCache();
   }
@@ -141,6 +153,16 @@ public class MetricsRegionSourceImpl implements MetricsRegionSource {
     regionAppend.incr();
   }
 
+  @Override
+  public void updateRowLockWait(long waitTime) {
+    regionRowLockWait.add(waitTime);
+  }
+
+  @Override
+  public void updateRowLockTimeout() {
+    regionRowLockTimeout.incr();
+  }
+
   @Override
   public MetricsRegionAggregateSource getAggregateSource() {
     return agg;
@@ -189,6 +211,9 @@ public class MetricsRegionSourceImpl implements MetricsRegionSource {
     mrb.addCounter(Interns.info(regionNamePrefix + MetricsRegionSource.NUM_FILES_COMPACTED_COUNT,
         MetricsRegionSource.NUM_FILES_COMPACTED_DESC),
         this.regionWrapper.getNumFilesCompacted());
+    mrb.addCounter(Interns.info(regionNamePrefix + MetricsRegionSource.UPDATES_LOCK_WAIT_TIME,
+        MetricsRegionSource.UPDATES_LOCK_WAIT_TIME_DESC),
+        this.regionWrapper.getUpdatesLockWaitTime());
 
   }
 }
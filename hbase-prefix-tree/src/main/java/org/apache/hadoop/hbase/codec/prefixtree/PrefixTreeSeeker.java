@@ -46,25 +46,44 @@ public class PrefixTreeSeeker implements EncodedSeeker {
   protected boolean includeMvccVersion;
   protected PrefixTreeArraySearcher ptSearcher;
 
+  /**
+   * The prefix tree decoders address the block as an array, so blocks without a backing array are
+   * copied here once per block. The copy is reused for the following blocks.
+   */
+  private ByteBuffer heapCopy;
+
   public PrefixTreeSeeker(boolean includeMvccVersion) {
     this.includeMvccVersion = includeMvccVersion;
   }
 
   @Override
   public void setCurrentBuffer(ByteBuffer fullBlockBuffer) {
-    block = fullBlockBuffer;
+    block = fullBlockBuffer.hasArray() ? fullBlockBuffer : copyToHeap(fullBlockBuffer);
+    // the previous searcher belongs to this seeker only, hand it back before taking the next one
+    releaseCurrentSearcher();
     ptSearcher = DecoderFactory.checkOut(block, includeMvccVersion);
     rewind();
   }
 
+  private ByteBuffer copyToHeap(ByteBuffer directBlock) {
+    int length = directBlock.limit();
+    if (heapCopy == null || heapCopy.capacity() < length) {
+      heapCopy = ByteBuffer.allocate(length);
+    }
+    heapCopy.clear();
+    ByteBuffer source = directBlock.duplicate();
+    source.rewind();
+    heapCopy.put(source);
+    heapCopy.flip();
+    return heapCopy;
+  }
+
   /**
-   * Currently unused.
-   * <p/>
-   * TODO performance leak. should reuse the searchers. hbase does not currently have a hook where
-   * this can be called
+   * Returns the searcher to the pool. Called when the seeker moves to another block.
    */
   public void releaseCurrentSearcher(){
     DecoderFactory.checkIn(ptSearcher);
+    ptSearcher = null;
   }
 
 
@@ -99,8 +118,6 @@ public class PrefixTreeSeeker implements EncodedSeeker {
   }
 
   /**
-   * Currently unused.
-   * <p/>
    * A nice, lightweight reference, though the underlying cell is transient. This method may return
    * the same reference to the backing PrefixTreeCell repeatedly, while other implementations may
    * return a different reference for each Cell.
@@ -108,6 +125,7 @@ public class PrefixTreeSeeker implements EncodedSeeker {
    * The goal will be to transition the upper layers of HBase, like Filters and KeyValueHeap, to
    * use this method instead of the getKeyValue() methods above.
    */
+  @Override
   public Cell get() {
     return ptSearcher.current();
   }
@@ -26,18 +26,26 @@ public final class CellProtos {
      * <code>PUT = 4;</code>
      */
     PUT(1, 4),
+    /**
+     * <code>DELTA = 6;</code>
+     *
+     * <pre>
+     * An amount to add to the counter in the cell
+     * </pre>
+     */
+    DELTA(2, 6),
     /**
      * <code>DELETE = 8;</code>
      */
-    DELETE(2, 8),
+    DELETE(3, 8),
     /**
      * <code>DELETE_COLUMN = 12;</code>
      */
-    DELETE_COLUMN(3, 12),
+    DELETE_COLUMN(4, 12),
     /**
      * <code>DELETE_FAMILY = 14;</code>
      */
-    DELETE_FAMILY(4, 14),
+    DELETE_FAMILY(5, 14),
     /**
      * <code>MAXIMUM = 255;</code>
      *
@@ -45,7 +53,7 @@ public final class CellProtos {
      * MAXIMUM is used when searching; you look from maximum on down.
      * </pre>
      */
-    MAXIMUM(5, 255),
+    MAXIMUM(6, 255),
     ;
 
     /**
@@ -56,6 +64,14 @@ public final class CellProtos {
      * <code>PUT = 4;</code>
      */
     public static final int PUT_VALUE = 4;
+    /**
+     * <code>DELTA = 6;</code>
+     *
+     * <pre>
+     * An amount to add to the counter in the cell
+     * </pre>
+     */
+    public static final int DELTA_VALUE = 6;
     /**
      * <code>DELETE = 8;</code>
      */
@@ -84,6 +100,7 @@ public final class CellProtos {
       switch (value) {
         case 0: return MINIMUM;
         case 4: return PUT;
+        case 6: return DELTA;
         case 8: return DELETE;
         case 12: return DELETE_COLUMN;
         case 14: return DELETE_FAMILY;
@@ -2207,8 +2224,8 @@ public final class CellProtos {
       "\022\013\n\003row\030\001 \002(\014\022\016\n\006family\030\002 \002(\014\022\021\n\tqualifi" +
       "er\030\003 \002(\014\022\021\n\ttimestamp\030\004 \001(\004\022\033\n\010key_type\030" +
       "\005 \001(\0162\t.CellType\022\r\n\005value\030\006 \001(\014\022\014\n\004tags\030" +
-      "\007 \001(\014*`\n\010CellType\022\013\n\007MINIMUM\020\000\022\007\n\003PUT\020\004\022" +
-      "\n\n\006DELETE\020\010\022\021\n\rDELETE_COLUMN\020\014\022\021\n\rDELETE" +
+      "\007 \001(\014*k\n\010CellType\022\013\n\007MINIMUM\020\000\022\007\n\003PUT\020\004\022" +
+      "\t\n\005DELTA\020\006\022\n\n\006DELETE\020\010\022\021\n\rDELETE_COLUMN\020\014\022\021\n\rDELETE" +
       "_FAMILY\020\016\022\014\n\007MAXIMUM\020\377\001B=\n*org.apache.ha",
       "doop.hbase.protobuf.generatedB\nCellProto" +
       "sH\001\240\001\001"
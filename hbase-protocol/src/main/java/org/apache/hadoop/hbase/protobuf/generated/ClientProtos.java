@@ -13330,6 +13330,16 @@ public final class ClientProtos {
      * <code>optional bool small = 14;</code>
      */
     boolean getSmall();
+
+    // optional bool reversed = 15 [default = false];
+    /**
+     * <code>optional bool reversed = 15 [default = false];</code>
+     */
+    boolean hasReversed();
+    /**
+     * <code>optional bool reversed = 15 [default = false];</code>
+     */
+    boolean getReversed();
   }
   /**
    * Protobuf type {@code Scan}
@@ -13485,6 +13495,11 @@ public final class ClientProtos {
               small_ = input.readBool();
               break;
             }
+            case 120: {
+              bitField0_ |= 0x00001000;
+              reversed_ = input.readBool();
+              break;
+            }
           }
         }
       } catch (com.google.protobuf.InvalidProtocolBufferException e) {
@@ -13815,6 +13830,22 @@ public final class ClientProtos {
       return small_;
     }
 
+    // optional bool reversed = 15 [default = false];
+    public static final int REVERSED_FIELD_NUMBER = 15;
+    private boolean reversed_;
+    /**
+     * <code>optional bool reversed = 15 [default = false];</code>
+     */
+    public boolean hasReversed() {
+      return ((bitField0_ & 0x00001000) == 0x00001000);
+    }
+    /**
+     * <code>optional bool reversed = 15 [default = false];</code>
+     */
+    public boolean getReversed() {
+      return reversed_;
+    }
+
     private void initFields() {
       column_ = java.util.Collections.emptyList();
       attribute_ = java.util.Collections.emptyList();
@@ -13830,6 +13861,7 @@ public final class ClientProtos {
       storeOffset_ = 0;
       loadColumnFamiliesOnDemand_ = false;
       small_ = false;
+      reversed_ = false;
     }
     private byte memoizedIsInitialized = -1;
     public final boolean isInitialized() {
@@ -13903,6 +13935,9 @@ public final class ClientProtos {
       if (((bitField0_ & 0x00000800) == 0x00000800)) {
         output.writeBool(14, small_);
       }
+      if (((bitField0_ & 0x00001000) == 0x00001000)) {
+        output.writeBool(15, reversed_);
+      }
       getUnknownFields().writeTo(output);
     }
 
@@ -13968,6 +14003,10 @@ public final class ClientProtos {
         size += com.google.protobuf.CodedOutputStream
           .computeBoolSize(14, small_);
       }
+      if (((bitField0_ & 0x00001000) == 0x00001000)) {
+        size += com.google.protobuf.CodedOutputStream
+          .computeBoolSize(15, reversed_);
+      }
       size += getUnknownFields().getSerializedSize();
       memoizedSerializedSize = size;
       return size;
@@ -14055,6 +14094,11 @@ public final class ClientProtos {
         result = result && (getSmall()
             == other.getSmall());
       }
+      result = result && (hasReversed() == other.hasReversed());
+      if (hasReversed()) {
+        result = result && (getReversed()
+            == other.getReversed());
+      }
       result = result &&
           getUnknownFields().equals(other.getUnknownFields());
       return result;
@@ -14124,6 +14168,10 @@ public final class ClientProtos {
         hash = (37 * hash) + SMALL_FIELD_NUMBER;
         hash = (53 * hash) + hashBoolean(getSmall());
       }
+      if (hasReversed()) {
+        hash = (37 * hash) + REVERSED_FIELD_NUMBER;
+        hash = (53 * hash) + hashBoolean(getReversed());
+      }
       hash = (29 * hash) + getUnknownFields().hashCode();
       memoizedHashCode = hash;
       return hash;
@@ -14292,6 +14340,8 @@ public final class ClientProtos {
         bitField0_ = (bitField0_ & ~0x00001000);
         small_ = false;
         bitField0_ = (bitField0_ & ~0x00002000);
+        reversed_ = false;
+        bitField0_ = (bitField0_ & ~0x00004000);
         return this;
       }
 
@@ -14394,6 +14444,10 @@ public final class ClientProtos {
           to_bitField0_ |= 0x00000800;
         }
         result.small_ = small_;
+        if (((from_bitField0_ & 0x00004000) == 0x00004000)) {
+          to_bitField0_ |= 0x00001000;
+        }
+        result.reversed_ = reversed_;
         result.bitField0_ = to_bitField0_;
         onBuilt();
         return result;
@@ -14498,6 +14552,9 @@ public final class ClientProtos {
         if (other.hasSmall()) {
           setSmall(other.getSmall());
         }
+        if (other.hasReversed()) {
+          setReversed(other.getReversed());
+        }
         this.mergeUnknownFields(other.getUnknownFields());
         return this;
       }
@@ -15609,6 +15666,39 @@ public final class ClientProtos {
         return this;
       }
 
+      // optional bool reversed = 15 [default = false];
+      private boolean reversed_ ;
+      /**
+       * <code>optional bool reversed = 15 [default = false];</code>
+       */
+      public boolean hasReversed() {
+        return ((bitField0_ & 0x00004000) == 0x00004000);
+      }
+      /**
+       * <code>optional bool reversed = 15 [default = false];</code>
+       */
+      public boolean getReversed() {
+        return reversed_;
+      }
+      /**
+       * <code>optional bool reversed = 15 [default = false];</code>
+       */
+      public Builder setReversed(boolean value) {
+        bitField0_ |= 0x00004000;
+        reversed_ = value;
+        onChanged();
+        return this;
+      }
+      /**
+       * <code>optional bool reversed = 15 [default = false];</code>
+       */
+      public Builder clearReversed() {
+        bitField0_ = (bitField0_ & ~0x00004000);
+        reversed_ = false;
+        onChanged();
+        return this;
+      }
+
       // @@protoc_insertion_point(builder_scope:Scan)
     }
 
@@ -29006,7 +29096,7 @@ public final class ClientProtos {
       " \n\010mutation\030\002 \002(\0132\016.MutationProto\022\035\n\tcon" +
       "dition\030\003 \001(\0132\n.Condition\022\023\n\013nonce_group\030" +
       "\004 \001(\004\"<\n\016MutateResponse\022\027\n\006result\030\001 \001(\0132" +
-      "\007.Result\022\021\n\tprocessed\030\002 \001(\010\"\344\002\n\004Scan\022\027\n\006" +
+      "\007.Result\022\021\n\tprocessed\030\002 \001(\010\"\375\002\n\004Scan\022\027\n\006" +
       "column\030\001 \003(\0132\007.Column\022!\n\tattribute\030\002 \003(\013" +
       "2\016.NameBytesPair\022\021\n\tstart_row\030\003 \001(\014\022\020\n\010s" +
       "top_row\030\004 \001(\014\022\027\n\006filter\030\005 \001(\0132\007.Filter\022\036" +
@@ -29015,7 +29105,8 @@ public final class ClientProtos {
       "rue\022\022\n\nbatch_size\030\t \001(\r\022\027\n\017max_result_si" +
       "ze\030\n \001(\004\022\023\n\013store_limit\030\013 \001(\r\022\024\n\014store_o" +
       "ffset\030\014 \001(\r\022&\n\036load_column_families_on_d" +
-      "emand\030\r \001(\010\022\r\n\005small\030\016 \001(\010\"\236\001\n\013ScanReque" +
+      "emand\030\r \001(\010\022\r\n\005small\030\016 \001(\010\022\027\n\010reversed\030\017 \001(\010:\005fals" +
+      "e\"\236\001\n\013ScanReque" +
       "st\022 \n\006region\030\001 \001(\0132\020.RegionSpecifier\022\023\n\004" +
       "scan\030\002 \001(\0132\005.Scan\022\022\n\nscanner_id\030\003 \001(\004\022\026\n" +
       "\016number_of_rows\030\004 \001(\r\022\025\n\rclose_scanner\030\005" +
@@ -29147,7 +29238,7 @@ public final class ClientProtos {
           internal_static_Scan_fieldAccessorTable = new
             com.google.protobuf.GeneratedMessage.FieldAccessorTable(
               internal_static_Scan_descriptor,
-              new java.lang.String[] { "Column", "Attribute", "StartRow", "StopRow", "Filter", "TimeRange", "MaxVersions", "CacheBlocks", "BatchSize", "MaxResultSize", "StoreLimit", "StoreOffset", "LoadColumnFamiliesOnDemand", "Small", });
+              new java.lang.String[] { "Column", "Attribute", "StartRow", "StopRow", "Filter", "TimeRange", "MaxVersions", "CacheBlocks", "BatchSize", "MaxResultSize", "StoreLimit", "StoreOffset", "LoadColumnFamiliesOnDemand", "Small", "Reversed", });
           internal_static_ScanRequest_descriptor =
             getDescriptor().getMessageTypes().get(12);
           internal_static_ScanRequest_fieldAccessorTable = new
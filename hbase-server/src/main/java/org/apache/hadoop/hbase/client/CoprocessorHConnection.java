@@ -285,6 +285,11 @@ public class CoprocessorHConnection implements HConnection {
     return delegate.getMaster();
   }
 
+  public ClientService.Interface getAsyncClient(ServerName serverName) throws IOException {
+    // no short-circuit to the local regionserver, its calls are blocking ones
+    return delegate.getAsyncClient(serverName);
+  }
+
   public org.apache.hadoop.hbase.protobuf.generated.AdminProtos.AdminService.BlockingInterface
       getAdmin(ServerName serverName) throws IOException {
     return delegate.getAdmin(serverName);
@@ -134,6 +134,13 @@ public abstract class CoprocessorHost<E extends CoprocessorEnvironment> {
     return returnValue;
   }
 
+  /**
+   * @return true if at least one coprocessor is loaded on this host
+   */
+  public boolean hasCoprocessors() {
+    return !coprocessors.isEmpty();
+  }
+
   /**
    * Load system coprocessors. Read the class names from configuration.
    * Called by constructor.
@@ -24,7 +24,15 @@ import java.io.DataOutput;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.nio.ByteBuffer;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -680,6 +688,79 @@ public class HFileBlock implements Cacheable {
     /** Meta data that holds information about the hfileblock**/
     private HFileContext fileContext;
 
+    /**
+     * Encodes, compresses and checksums data blocks off the writing thread.
+     * Null if data blocks are finished synchronously.
+     */
+    private ExecutorService compressionPool;
+
+    /** The number of data blocks allowed to wait for their compression */
+    private int maxPendingBlocks;
+
+    /** Data blocks handed to {@link #compressionPool}, in file order */
+    private final LinkedList<PendingBlock> pendingBlocks = new LinkedList<PendingBlock>();
+
+    /**
+     * Data block encoding contexts not used by any compression task. An
+     * encoding context holds a compressor and is not thread-safe, so every
+     * running task takes its own.
+     */
+    private final Queue<HFileBlockEncodingContext> idleEncodingContexts =
+        new ConcurrentLinkedQueue<HFileBlockEncodingContext>();
+
+    /** Notified when a data block has been written to the stream. */
+    public interface BlockWrittenCallback {
+      /**
+       * Called on the writing thread, in the order the blocks were started.
+       * @param block the data block just written
+       */
+      void blockWritten(PendingBlock block) throws IOException;
+    }
+
+    /**
+     * A data block that is finished by the user but may not have been written
+     * to the stream yet. Its header is completed, and the checksum of the
+     * first chunk computed, only when the block's place in the file is known.
+     */
+    public final class PendingBlock {
+      private BlockType blockType;
+      private byte[] uncompressedBytesWithHeader;
+      private byte[] onDiskBytesWithHeader;
+      private byte[] onDiskChecksum;
+      private long prevOffset;
+      private long offset = -1;
+      private final BlockWrittenCallback callback;
+      private Future<?> compression;
+
+      private PendingBlock(byte[] uncompressedBytesWithHeader,
+          BlockWrittenCallback callback) {
+        this.blockType = BlockType.DATA;
+        this.uncompressedBytesWithHeader = uncompressedBytesWithHeader;
+        this.callback = callback;
+      }
+
+      /** @return the offset of the block in the file */
+      public long getOffset() {
+        return offset;
+      }
+
+      /** @return the on-disk size of the block, including header and checksums */
+      public int getOnDiskSizeWithHeader() {
+        return onDiskBytesWithHeader.length + onDiskChecksum.length;
+      }
+
+      /** @return the uncompressed size of the block, including header */
+      public int getUncompressedSizeWithHeader() {
+        return uncompressedBytesWithHeader.length;
+      }
+
+      /** @return the block as {@link Writer#getBlockForCaching()} builds it */
+      public HFileBlock getBlockForCaching() {
+        return createBlockForCaching(blockType, uncompressedBytesWithHeader,
+            getOnDiskSizeWithHeader(), prevOffset, offset);
+      }
+    }
+
     /**
      * @param dataBlockEncoder data block encoding algorithm to use
      */
@@ -706,6 +787,20 @@ public class HFileBlock implements Cacheable {
       this.fileContext = fileContext;
     }
 
+    /**
+     * Lets {@link #writeHeaderAndData(FSDataOutputStream, BlockWrittenCallback)}
+     * encode, compress and checksum data blocks in the given pool while the
+     * user fills the next block. The blocks are still written in order.
+     *
+     * @param pool the pool to run the compression in, may be shared
+     * @param maxPendingBlocks the number of finished data blocks to hold in
+     *          memory before waiting for the oldest of them to be compressed
+     */
+    public void setCompressionPool(ExecutorService pool, int maxPendingBlocks) {
+      this.compressionPool = pool;
+      this.maxPendingBlocks = Math.max(1, maxPendingBlocks);
+    }
+
     /**
      * Starts writing into the block. The previous block's data is discarded.
      *
@@ -790,11 +885,11 @@ public class HFileBlock implements Cacheable {
           fileContext.getBytesPerChecksum());
 
       // put the header for on disk bytes
-      putHeader(onDiskBytesWithHeader, 0,
+      putHeader(onDiskBytesWithHeader, 0, blockType, prevOffset,
           onDiskBytesWithHeader.length + numBytes,
           uncompressedBytesWithHeader.length, onDiskBytesWithHeader.length);
       // set the header for the uncompressed bytes (for cache-on-write)
-      putHeader(uncompressedBytesWithHeader, 0,
+      putHeader(uncompressedBytesWithHeader, 0, blockType, prevOffset,
           onDiskBytesWithHeader.length + numBytes,
           uncompressedBytesWithHeader.length, onDiskBytesWithHeader.length);
 
@@ -832,8 +927,8 @@ public class HFileBlock implements Cacheable {
      * @param onDiskDataSize size of the block on disk with header
      *        and data but not including the checksums
      */
-    private void putHeader(byte[] dest, int offset, int onDiskSize,
-        int uncompressedSize, int onDiskDataSize) {
+    private void putHeader(byte[] dest, int offset, BlockType blockType, long prevOffset,
+        int onDiskSize, int uncompressedSize, int onDiskDataSize) {
       offset = blockType.put(dest, offset);
       offset = Bytes.putInt(dest, offset, onDiskSize - HConstants.HFILEBLOCK_HEADER_SIZE);
       offset = Bytes.putInt(dest, offset, uncompressedSize - HConstants.HFILEBLOCK_HEADER_SIZE);
@@ -852,6 +947,8 @@ public class HFileBlock implements Cacheable {
      * @throws IOException
      */
     public void writeHeaderAndData(FSDataOutputStream out) throws IOException {
+      // blocks must land in the file in the order they were finished
+      writePendingBlocks(out);
       long offset = out.getPos();
       if (startOffset != -1 && offset != startOffset) {
         throw new IOException("A " + blockType + " block written to a "
@@ -863,6 +960,145 @@ public class HFileBlock implements Cacheable {
       finishBlockAndWriteHeaderAndData((DataOutputStream) out);
     }
 
+    /**
+     * Finishes the current block and writes it like
+     * {@link #writeHeaderAndData(FSDataOutputStream)}. If a compression pool
+     * is set and this is a data block, the block is encoded and compressed in
+     * the pool and written by a later call of this method,
+     * {@link #writePendingBlocks(FSDataOutputStream)} or
+     * {@link #writeHeaderAndData(FSDataOutputStream)}. The writer goes back to
+     * the "init" state in that case, so the block must not be accessed through
+     * the writer any more: the callback gets all there is to know about it.
+     *
+     * @param out the stream to write the blocks to
+     * @param callback notified when the block has been written
+     * @throws IOException
+     */
+    public void writeHeaderAndData(FSDataOutputStream out, BlockWrittenCallback callback)
+        throws IOException {
+      if (compressionPool == null || blockType != BlockType.DATA) {
+        writeHeaderAndData(out);
+        PendingBlock block = new PendingBlock(uncompressedBytesWithHeader, callback);
+        block.blockType = blockType;
+        block.onDiskBytesWithHeader = onDiskBytesWithHeader;
+        block.onDiskChecksum = onDiskChecksum;
+        block.prevOffset = prevOffset;
+        block.offset = startOffset;
+        callback.blockWritten(block);
+        return;
+      }
+
+      expectState(State.WRITING);
+      userDataStream.flush();
+      final PendingBlock block = new PendingBlock(baosInMemory.toByteArray(), callback);
+      // The block no longer belongs to the writer, so the next startWriting
+      // must not record its offset: that is done when it is written.
+      state = State.INIT;
+      block.compression = compressionPool.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws IOException {
+          compressBlock(block);
+          return null;
+        }
+      });
+      pendingBlocks.add(block);
+      writePendingBlocks(out, maxPendingBlocks);
+    }
+
+    /**
+     * Encodes, compresses and checksums a data block. Runs in the compression
+     * pool, so it must not touch the state of the writer but the idle
+     * encoding contexts.
+     */
+    private void compressBlock(PendingBlock block) throws IOException {
+      HFileBlockEncodingContext encodingCtx = idleEncodingContexts.poll();
+      if (encodingCtx == null) {
+        encodingCtx = dataBlockEncoder.newDataBlockEncodingContext(
+            HConstants.HFILEBLOCK_DUMMY_HEADER, fileContext);
+      }
+      try {
+        ByteBuffer rawKeyValues = ByteBuffer.wrap(block.uncompressedBytesWithHeader,
+            HConstants.HFILEBLOCK_HEADER_SIZE,
+            block.uncompressedBytesWithHeader.length - HConstants.HFILEBLOCK_HEADER_SIZE).slice();
+        dataBlockEncoder.beforeWriteToDisk(rawKeyValues, encodingCtx, block.blockType);
+        block.uncompressedBytesWithHeader = encodingCtx.getUncompressedBytesWithHeader();
+        block.onDiskBytesWithHeader = encodingCtx.getOnDiskBytesWithHeader();
+        block.blockType = encodingCtx.getBlockType();
+      } finally {
+        idleEncodingContexts.add(encodingCtx);
+      }
+
+      int bytesPerChecksum = fileContext.getBytesPerChecksum();
+      int onDiskDataSize = block.onDiskBytesWithHeader.length;
+      block.onDiskChecksum = new byte[(int) ChecksumUtil.numBytes(onDiskDataSize,
+          bytesPerChecksum)];
+      // The header is in the first chunk, its checksum waits for the header.
+      if (onDiskDataSize > bytesPerChecksum) {
+        ChecksumUtil.generateChecksums(block.onDiskBytesWithHeader, bytesPerChecksum,
+            onDiskDataSize, block.onDiskChecksum, HFileBlock.CHECKSUM_SIZE,
+            fileContext.getChecksumType(), bytesPerChecksum);
+      }
+    }
+
+    /**
+     * Waits for all the data blocks handed to the compression pool and writes
+     * them to the stream. Must be called before writing anything else to the
+     * stream, or reading its position, while data blocks may be pending.
+     *
+     * @param out the stream to write the blocks to
+     * @throws IOException
+     */
+    public void writePendingBlocks(FSDataOutputStream out) throws IOException {
+      writePendingBlocks(out, 0);
+    }
+
+    /**
+     * Writes the pending blocks that are compressed already, and waits for
+     * the oldest ones until no more than the given number of blocks remain.
+     */
+    private void writePendingBlocks(FSDataOutputStream out, int maxRemaining)
+        throws IOException {
+      while (!pendingBlocks.isEmpty() && (pendingBlocks.size() > maxRemaining
+          || pendingBlocks.getFirst().compression.isDone())) {
+        PendingBlock block = pendingBlocks.removeFirst();
+        try {
+          block.compression.get();
+        } catch (InterruptedException e) {
+          pendingBlocks.addFirst(block);
+          throw (InterruptedIOException) new InterruptedIOException(
+              "Interrupted waiting for a block to be compressed").initCause(e);
+        } catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          if (cause instanceof IOException) {
+            throw (IOException) cause;
+          }
+          throw new IOException("Failed to compress a data block", cause);
+        }
+
+        // The same bookkeeping as finishBlock and startWriting do for a
+        // synchronously written block.
+        block.prevOffset = prevOffsetByType[BlockType.DATA.getId()];
+        int onDiskSize = block.getOnDiskSizeWithHeader();
+        int onDiskDataSize = block.onDiskBytesWithHeader.length;
+        putHeader(block.onDiskBytesWithHeader, 0, block.blockType, block.prevOffset,
+            onDiskSize, block.uncompressedBytesWithHeader.length, onDiskDataSize);
+        if (block.uncompressedBytesWithHeader != block.onDiskBytesWithHeader) {
+          putHeader(block.uncompressedBytesWithHeader, 0, block.blockType, block.prevOffset,
+              onDiskSize, block.uncompressedBytesWithHeader.length, onDiskDataSize);
+        }
+        int bytesPerChecksum = fileContext.getBytesPerChecksum();
+        ChecksumUtil.generateChecksums(block.onDiskBytesWithHeader, 0,
+            Math.min(bytesPerChecksum, onDiskDataSize), block.onDiskChecksum, 0,
+            fileContext.getChecksumType(), bytesPerChecksum);
+
+        block.offset = out.getPos();
+        out.write(block.onDiskBytesWithHeader);
+        out.write(block.onDiskChecksum);
+        prevOffsetByType[block.blockType.getId()] = block.offset;
+        block.callback.blockWritten(block);
+      }
+    }
+
     /**
      * Writes the header and the compressed data of this block (or uncompressed
      * data when not using compression) into the given stream. Can be called in
@@ -907,6 +1143,10 @@ public class HFileBlock implements Cacheable {
      * Releases resources used by this writer.
      */
     public void release() {
+      HFileBlockEncodingContext encodingCtx;
+      while ((encodingCtx = idleEncodingContexts.poll()) != null) {
+        encodingCtx.close();
+      }
       if (dataBlockEncodingCtx != null) {
         dataBlockEncodingCtx.close();
         dataBlockEncodingCtx = null;
@@ -1020,6 +1260,13 @@ public class HFileBlock implements Cacheable {
      * 0 value in bytesPerChecksum.
      */
     public HFileBlock getBlockForCaching() {
+      return createBlockForCaching(blockType, uncompressedBytesWithHeader,
+          getOnDiskSizeWithHeader(), prevOffset, startOffset);
+    }
+
+    private HFileBlock createBlockForCaching(BlockType blockType,
+        byte[] uncompressedBytesWithHeader, int onDiskSizeWithHeader, long prevOffset,
+        long offset) {
       HFileContext newContext = new HFileContextBuilder()
                                 .withBlockSize(fileContext.getBlocksize())
                                 .withBytesPerCheckSum(0)
@@ -1031,10 +1278,11 @@ public class HFileBlock implements Cacheable {
                                 .withIncludesMvcc(fileContext.isIncludesMvcc())
                                 .withIncludesTags(fileContext.isIncludesTags())
                                 .build();
-      return new HFileBlock(blockType, getOnDiskSizeWithoutHeader(),
-          getUncompressedSizeWithoutHeader(), prevOffset, getUncompressedBufferWithHeader(),
-          DONT_FILL_HEADER, startOffset,
-          onDiskBytesWithHeader.length + onDiskChecksum.length, newContext);
+      return new HFileBlock(blockType,
+          onDiskSizeWithHeader - HConstants.HFILEBLOCK_HEADER_SIZE,
+          uncompressedBytesWithHeader.length - HConstants.HFILEBLOCK_HEADER_SIZE, prevOffset,
+          ByteBuffer.wrap(uncompressedBytesWithHeader), DONT_FILL_HEADER, offset,
+          onDiskSizeWithHeader, newContext);
     }
   }
 
@@ -1019,13 +1019,14 @@ public class HFileReaderV2 extends AbstractHFileReader {
     }
 
     private ByteBuffer getEncodedBuffer(HFileBlock newBlock) {
+      // slice without going through the backing array, the seekers accept
+      // direct buffers too
       ByteBuffer origBlock = newBlock.getBufferReadOnly();
-      ByteBuffer encodedBlock = ByteBuffer.wrap(origBlock.array(),
-          origBlock.arrayOffset() + newBlock.headerSize() +
-          DataBlockEncoding.ID_SIZE,
-          newBlock.getUncompressedSizeWithoutHeader() -
-          DataBlockEncoding.ID_SIZE).slice();
-      return encodedBlock;
+      int encodedOffset = newBlock.headerSize() + DataBlockEncoding.ID_SIZE;
+      origBlock.limit(encodedOffset + newBlock.getUncompressedSizeWithoutHeader() -
+          DataBlockEncoding.ID_SIZE);
+      origBlock.position(encodedOffset);
+      return origBlock.slice();
     }
 
     @Override
@@ -24,6 +24,10 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -34,10 +38,12 @@ import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.KeyValue.KVComparator;
+import org.apache.hadoop.hbase.io.compress.Compression;
 import org.apache.hadoop.hbase.io.hfile.HFile.Writer;
 import org.apache.hadoop.hbase.io.hfile.HFileBlock.BlockWritable;
 import org.apache.hadoop.hbase.util.BloomFilterWriter;
 import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.Threads;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.io.WritableUtils;
 
@@ -59,6 +65,24 @@ public class HFileWriterV2 extends AbstractHFileWriter {
   /** Version for KeyValue which includes memstore timestamp */
   public static final int KEY_VALUE_VER_WITH_MEMSTORE = 1;
 
+  /**
+   * The number of threads compressing data blocks for all the writers of the
+   * process. With 0, data blocks are compressed by the thread appending the
+   * cells. Has no effect on files written without compression.
+   */
+  public static final String BLOCK_COMPRESSION_THREADS_KEY =
+      "hfile.block.compression.threads";
+
+  /**
+   * The number of finished data blocks a writer may hold in memory while they
+   * are compressed. Defaults to twice the number of compression threads.
+   */
+  public static final String BLOCK_COMPRESSION_MAX_PENDING_KEY =
+      "hfile.block.compression.max.pending";
+
+  /** Compresses data blocks for all the writers, created on first use. */
+  private static ExecutorService blockCompressionPool;
+
   /** Inline block writers for multi-level block index and compound Blooms. */
   private List<InlineBlockWriter> inlineBlockWriters =
       new ArrayList<InlineBlockWriter>();
@@ -127,9 +151,27 @@ public class HFileWriterV2 extends AbstractHFileWriter {
 
     // Meta data block index writer
     metaBlockIndexWriter = new HFileBlockIndex.BlockIndexWriter();
+
+    int compressionThreads = conf.getInt(BLOCK_COMPRESSION_THREADS_KEY, 0);
+    if (compressionThreads > 0
+        && hFileContext.getCompression() != Compression.Algorithm.NONE) {
+      fsBlockWriter.setCompressionPool(getBlockCompressionPool(compressionThreads),
+          conf.getInt(BLOCK_COMPRESSION_MAX_PENDING_KEY, 2 * compressionThreads));
+    }
     if (LOG.isTraceEnabled()) LOG.trace("Initialized with " + cacheConf);
   }
 
+  private static synchronized ExecutorService getBlockCompressionPool(int threads) {
+    if (blockCompressionPool == null) {
+      ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+          new LinkedBlockingQueue<Runnable>(),
+          Threads.newDaemonThreadFactory("hfile-block-compression"));
+      pool.allowCoreThreadTimeOut(true);
+      blockCompressionPool = pool;
+    }
+    return blockCompressionPool;
+  }
+
   /**
    * At a block boundary, write all the inline blocks and opens new block.
    *
@@ -149,29 +191,35 @@ public class HFileWriterV2 extends AbstractHFileWriter {
     if (!fsBlockWriter.isWriting() || fsBlockWriter.blockSizeWritten() == 0)
       return;
 
-    long startTimeNs = System.nanoTime();
-    // Update the first data block offset for scanning.
-    if (firstDataBlockOffset == -1) {
-      firstDataBlockOffset = outputStream.getPos();
-    }
-    // Update the last data block offset
-    lastDataBlockOffset = outputStream.getPos();
-    fsBlockWriter.writeHeaderAndData(outputStream);
-    int onDiskSize = fsBlockWriter.getOnDiskSizeWithHeader();
-
-    byte[] indexKey = comparator.calcIndexKey(lastKeyOfPreviousBlock, firstKeyInBlock);
-    dataBlockIndexWriter.addEntry(indexKey, lastDataBlockOffset, onDiskSize);
-    totalUncompressedBytes += fsBlockWriter.getUncompressedSizeWithHeader();
-    HFile.offerWriteLatency(System.nanoTime() - startTimeNs);
-    if (cacheConf.shouldCacheDataOnWrite()) {
-      doCacheOnWrite(lastDataBlockOffset);
-    }
+    final long startTimeNs = System.nanoTime();
+    final byte[] indexKey = comparator.calcIndexKey(lastKeyOfPreviousBlock, firstKeyInBlock);
+    // The block may be compressed in the background, and only then its
+    // offset and size are known.
+    fsBlockWriter.writeHeaderAndData(outputStream, new HFileBlock.Writer.BlockWrittenCallback() {
+      @Override
+      public void blockWritten(HFileBlock.Writer.PendingBlock block) {
+        // Update the first data block offset for scanning.
+        if (firstDataBlockOffset == -1) {
+          firstDataBlockOffset = block.getOffset();
+        }
+        // Update the last data block offset
+        lastDataBlockOffset = block.getOffset();
+        dataBlockIndexWriter.addEntry(indexKey, lastDataBlockOffset,
+            block.getOnDiskSizeWithHeader());
+        totalUncompressedBytes += block.getUncompressedSizeWithHeader();
+        HFile.offerWriteLatency(System.nanoTime() - startTimeNs);
+        if (cacheConf.shouldCacheDataOnWrite()) {
+          doCacheOnWrite(lastDataBlockOffset, block.getBlockForCaching());
+        }
+      }
+    });
   }
 
   /** Gives inline block writers an opportunity to contribute blocks. */
   private void writeInlineBlocks(boolean closing) throws IOException {
     for (InlineBlockWriter ibw : inlineBlockWriters) {
       while (ibw.shouldWriteBlock(closing)) {
+        fsBlockWriter.writePendingBlocks(outputStream);
         long offset = outputStream.getPos();
         boolean cacheThisBlock = ibw.getCacheOnWrite();
         ibw.writeInlineBlock(fsBlockWriter.startWriting(
@@ -182,19 +230,19 @@ public class HFileWriterV2 extends AbstractHFileWriter {
         totalUncompressedBytes += fsBlockWriter.getUncompressedSizeWithHeader();
 
         if (cacheThisBlock) {
-          doCacheOnWrite(offset);
+          doCacheOnWrite(offset, fsBlockWriter.getBlockForCaching());
         }
       }
     }
   }
 
   /**
-   * Caches the last written HFile block.
+   * Caches a written HFile block.
    * @param offset the offset of the block we want to cache. Used to determine
    *          the cache key.
+   * @param cacheFormatBlock the block as it is to be cached
    */
-  private void doCacheOnWrite(long offset) {
-    HFileBlock cacheFormatBlock = fsBlockWriter.getBlockForCaching();
+  private void doCacheOnWrite(long offset, HFileBlock cacheFormatBlock) {
     cacheConf.getBlockCache().cacheBlock(
         new BlockCacheKey(name, offset, blockEncoder.getDataBlockEncoding(),
             cacheFormatBlock.getBlockType()), cacheFormatBlock);
@@ -335,6 +383,9 @@ public class HFileWriterV2 extends AbstractHFileWriter {
     // followed by fileinfo, data block index and meta block index.
 
     finishBlock();
+    // the index entries of the data blocks still being compressed go into
+    // the last inline index chunk
+    fsBlockWriter.writePendingBlocks(outputStream);
     writeInlineBlocks(true);
 
     FixedFileTrailer trailer = new FixedFileTrailer(getMajorVersion(), getMinorVersion());
@@ -0,0 +1,197 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.ipc;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+
+/**
+ * A call queue for overload. Calls are served first in, first out, until the queue fills past a
+ * threshold; then the newest calls are served first, as their clients are the likeliest to still
+ * be waiting for them.
+ * <p>
+ * As in the CoDel algorithm, the queue also tracks the smallest time a call waited in each
+ * interval. When even that exceeds the target delay, the queue is congested rather than seeing a
+ * burst, and calls that waited more than twice the target are answered with a
+ * {@link CallDroppedException}, which the client retries, instead of being run.
+ */
+@InterfaceAudience.Private
+public class AdaptiveLifoCoDelCallQueue extends AbstractQueue<CallRunner>
+    implements BlockingQueue<CallRunner> {
+
+  private final LinkedBlockingDeque<CallRunner> queue;
+  private final int maxCapacity;
+  private final long targetDelay;
+  private final long interval;
+  private final double lifoThreshold;
+
+  // The CoDel state, guarded by this
+  private long intervalStart = 0;
+  private long minDelay = Long.MAX_VALUE;
+  private boolean congested = false;
+
+  private final AtomicLong droppedCalls = new AtomicLong(0);
+
+  /**
+   * @param maxCapacity the number of calls the queue holds
+   * @param targetDelay the time in milliseconds a call may wait in a queue that is not congested
+   * @param interval the time in milliseconds over which the smallest wait is tracked
+   * @param lifoThreshold the share of the capacity past which the newest calls are served first
+   */
+  public AdaptiveLifoCoDelCallQueue(int maxCapacity, long targetDelay, long interval,
+      double lifoThreshold) {
+    this.queue = new LinkedBlockingDeque<CallRunner>(maxCapacity);
+    this.maxCapacity = maxCapacity;
+    this.targetDelay = targetDelay;
+    this.interval = interval;
+    this.lifoThreshold = lifoThreshold;
+  }
+
+  /**
+   * @return the number of calls dropped since the queue was created
+   */
+  public long getDroppedCallCount() {
+    return droppedCalls.get();
+  }
+
+  private boolean isLifo() {
+    return queue.size() > maxCapacity * lifoThreshold;
+  }
+
+  /**
+   * Updates the CoDel state with the wait of the given call.
+   * @return whether the call waited too long in a congested queue, so should be dropped
+   */
+  private synchronized boolean needToDrop(CallRunner task) {
+    long now = System.currentTimeMillis();
+    long delay = now - task.getCall().timestamp;
+    if (delay < minDelay) {
+      minDelay = delay;
+    }
+    if (now - intervalStart >= interval) {
+      congested = minDelay > targetDelay;
+      minDelay = Long.MAX_VALUE;
+      intervalStart = now;
+    }
+    return congested && delay > 2 * targetDelay;
+  }
+
+  /**
+   * @return the task if it should run, or null if it was dropped
+   */
+  private CallRunner checkDrop(CallRunner task) {
+    if (task == null || !needToDrop(task)) {
+      return task;
+    }
+    droppedCalls.incrementAndGet();
+    task.drop();
+    return null;
+  }
+
+  @Override
+  public CallRunner take() throws InterruptedException {
+    CallRunner task;
+    do {
+      task = checkDrop(isLifo() ? queue.takeLast() : queue.takeFirst());
+    } while (task == null);
+    return task;
+  }
+
+  @Override
+  public CallRunner poll(long timeout, TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    while (true) {
+      long left = deadline - System.nanoTime();
+      CallRunner polled = isLifo() ? queue.pollLast(left, TimeUnit.NANOSECONDS)
+          : queue.pollFirst(left, TimeUnit.NANOSECONDS);
+      if (polled == null) {
+        return null;
+      }
+      CallRunner task = checkDrop(polled);
+      if (task != null) {
+        return task;
+      }
+    }
+  }
+
+  @Override
+  public CallRunner poll() {
+    while (true) {
+      CallRunner polled = isLifo() ? queue.pollLast() : queue.pollFirst();
+      if (polled == null) {
+        return null;
+      }
+      CallRunner task = checkDrop(polled);
+      if (task != null) {
+        return task;
+      }
+    }
+  }
+
+  @Override
+  public CallRunner peek() {
+    return isLifo() ? queue.peekLast() : queue.peekFirst();
+  }
+
+  @Override
+  public boolean offer(CallRunner task) {
+    return queue.offer(task);
+  }
+
+  @Override
+  public boolean offer(CallRunner task, long timeout, TimeUnit unit) throws InterruptedException {
+    return queue.offer(task, timeout, unit);
+  }
+
+  @Override
+  public void put(CallRunner task) throws InterruptedException {
+    queue.put(task);
+  }
+
+  @Override
+  public int remainingCapacity() {
+    return queue.remainingCapacity();
+  }
+
+  @Override
+  public int drainTo(Collection<? super CallRunner> c) {
+    return queue.drainTo(c);
+  }
+
+  @Override
+  public int drainTo(Collection<? super CallRunner> c, int maxElements) {
+    return queue.drainTo(c, maxElements);
+  }
+
+  @Override
+  public Iterator<CallRunner> iterator() {
+    return queue.iterator();
+  }
+
+  @Override
+  public int size() {
+    return queue.size();
+  }
+}
@@ -57,8 +57,10 @@ class BufferChain {
     byte [] bytes = new byte [this.remaining];
     int offset = 0;
     for (ByteBuffer bb: this.buffers) {
-      System.arraycopy(bb.array(), bb.arrayOffset(), bytes, offset, bb.limit());
-      offset += bb.capacity();
+      // Read through a duplicate so as not to move the buffer; works for direct buffers too.
+      int length = bb.remaining();
+      bb.duplicate().get(bytes, offset, length);
+      offset += length;
     }
     return bytes;
   }
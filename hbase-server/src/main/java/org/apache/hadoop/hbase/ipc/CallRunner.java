@@ -67,6 +67,14 @@ public class CallRunner {
 
   public void run() {
     try {
+      if (call.isCallerDisconnected()) {
+        // Nobody is waiting for the result
+        RpcServer.LOG.debug(Thread.currentThread().getName() + ": skipped " +
+            call.toShortString() + ", the caller disconnected");
+        this.rpcServer.addCallSize(call.getSize() * -1);
+        call.done();
+        return;
+      }
       this.status.setStatus("Setting up call");
       this.status.setConnection(call.connection.getHostAddress(), call.connection.getRemotePort());
       if (RpcServer.LOG.isDebugEnabled()) {
@@ -105,6 +113,10 @@ public class CallRunner {
       }
       RpcServer.CurCall.set(null);
       this.rpcServer.addCallSize(call.getSize() * -1);
+      if (!call.isDelayed()) {
+        // The request, cells included, has been read; a delayed call may still read it
+        call.done();
+      }
       // Set the response for undelayed calls and delayed calls with
       // undelayed responses.
       if (!call.isDelayed() || !call.isReturnValueDelayed()) {
@@ -136,6 +148,26 @@ public class CallRunner {
     }
   }
 
+  /**
+   * Answers the call with a {@link CallDroppedException} instead of running it, for
+   * schedulers shedding load.
+   */
+  public void drop() {
+    try {
+      this.rpcServer.addCallSize(call.getSize() * -1);
+      call.done();
+      String msg = "Call dropped, the server is overloaded";
+      call.setResponse(null, null, new CallDroppedException(msg), msg);
+      call.sendResponseIfReady();
+    } catch (ClosedChannelException cce) {
+      RpcServer.LOG.warn(Thread.currentThread().getName() + ": caught a ClosedChannelException " +
+          "dropping a call, the client went away: " + cce.getMessage());
+    } catch (Exception e) {
+      RpcServer.LOG.warn(Thread.currentThread().getName()
+          + ": caught: " + StringUtils.stringifyException(e));
+    }
+  }
+
   MonitoredRPCHandler getStatus() {
     // It is ugly the way we park status up in RpcServer.  Let it be for now.  TODO.
     MonitoredRPCHandler status = RpcServer.MONITORED_RPC.get();
@@ -89,4 +89,29 @@ public class FifoRpcScheduler implements RpcScheduler {
   public int getReplicationQueueLength() {
     return 0;
   }
+
+  @Override
+  public int getReadQueueLength() {
+    return 0;
+  }
+
+  @Override
+  public int getScanQueueLength() {
+    return 0;
+  }
+
+  @Override
+  public int getActiveHandlerCount() {
+    return executor.getActiveCount();
+  }
+
+  @Override
+  public int getActiveReadHandlerCount() {
+    return 0;
+  }
+
+  @Override
+  public int getActiveScanHandlerCount() {
+    return 0;
+  }
 }
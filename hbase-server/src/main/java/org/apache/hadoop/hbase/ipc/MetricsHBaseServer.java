@@ -59,6 +59,18 @@ public class MetricsHBaseServer {
     source.dequeuedCall(qTime);
   }
 
+  void dequeuedGeneralCall(int qTime) {
+    source.dequeuedGeneralCall(qTime);
+  }
+
+  void dequeuedReadCall(int qTime) {
+    source.dequeuedReadCall(qTime);
+  }
+
+  void dequeuedScanCall(int qTime) {
+    source.dequeuedScanCall(qTime);
+  }
+
   void processedCall(int processingTime) {
     source.processedCall(processingTime);
   }
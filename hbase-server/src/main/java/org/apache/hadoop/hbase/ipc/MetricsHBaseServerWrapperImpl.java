@@ -62,6 +62,51 @@ public class MetricsHBaseServerWrapperImpl implements MetricsHBaseServerWrapper
     return server.getScheduler().getPriorityQueueLength();
   }
 
+  @Override
+  public int getReadQueueLength() {
+    if (this.server == null
+        || this.server.getScheduler() == null) {
+      return 0;
+    }
+    return server.getScheduler().getReadQueueLength();
+  }
+
+  @Override
+  public int getScanQueueLength() {
+    if (this.server == null
+        || this.server.getScheduler() == null) {
+      return 0;
+    }
+    return server.getScheduler().getScanQueueLength();
+  }
+
+  @Override
+  public int getActiveHandlerCount() {
+    if (this.server == null
+        || this.server.getScheduler() == null) {
+      return 0;
+    }
+    return server.getScheduler().getActiveHandlerCount();
+  }
+
+  @Override
+  public int getActiveReadHandlerCount() {
+    if (this.server == null
+        || this.server.getScheduler() == null) {
+      return 0;
+    }
+    return server.getScheduler().getActiveReadHandlerCount();
+  }
+
+  @Override
+  public int getActiveScanHandlerCount() {
+    if (this.server == null
+        || this.server.getScheduler() == null) {
+      return 0;
+    }
+    return server.getScheduler().getActiveScanHandlerCount();
+  }
+
   @Override
   public int getNumOpenConnections() {
     if (this.server == null || this.server.connectionList == null) {
@@ -69,4 +114,20 @@ public class MetricsHBaseServerWrapperImpl implements MetricsHBaseServerWrapper
     }
     return server.connectionList.size();
   }
+
+  @Override
+  public long getRequestBufferAllocatedBytes() {
+    if (this.server == null) {
+      return 0;
+    }
+    return server.requestBufferPool.getAllocatedBytes();
+  }
+
+  @Override
+  public long getRequestBufferReusedBytes() {
+    if (this.server == null) {
+      return 0;
+    }
+    return server.requestBufferPool.getReusedBytes();
+  }
 }
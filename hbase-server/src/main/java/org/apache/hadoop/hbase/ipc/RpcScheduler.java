@@ -33,6 +33,9 @@ public interface RpcScheduler {
   /** Exposes runtime information of a {@code RpcServer} that a {@code RpcScheduler} may need. */
   interface Context {
     InetSocketAddress getListenerAddress();
+
+    /** @return the metrics of the server, or null when there are none */
+    MetricsHBaseServer getMetrics();
   }
 
   /**
@@ -67,4 +70,19 @@ public interface RpcScheduler {
 
   /** Retrieves length of the replication queue for metrics. */
   int getReplicationQueueLength();
+
+  /** Retrieves length of the read queue for metrics. */
+  int getReadQueueLength();
+
+  /** Retrieves length of the scan queue for metrics. */
+  int getScanQueueLength();
+
+  /** Retrieves the number of general handlers busy with a call, for metrics. */
+  int getActiveHandlerCount();
+
+  /** Retrieves the number of read handlers busy with a call, for metrics. */
+  int getActiveReadHandlerCount();
+
+  /** Retrieves the number of scan handlers busy with a call, for metrics. */
+  int getActiveScanHandlerCount();
 }
@@ -73,6 +73,8 @@ import org.apache.hadoop.hbase.client.Operation;
 import org.apache.hadoop.hbase.codec.Codec;
 import org.apache.hadoop.hbase.exceptions.RegionMovedException;
 import org.apache.hadoop.hbase.io.ByteBufferOutputStream;
+import org.apache.hadoop.hbase.io.ByteBufferPool;
+import org.apache.hadoop.hbase.io.ChunkedByteBufferOutputStream;
 import org.apache.hadoop.hbase.monitoring.MonitoredRPCHandler;
 import org.apache.hadoop.hbase.protobuf.ProtobufUtil;
 import org.apache.hadoop.hbase.protobuf.generated.RPCProtos.CellBlockMeta;
@@ -175,6 +177,37 @@ public class RpcServer implements RpcServerInterface {
   private AtomicInteger delayedCalls;
   private final IPCUtil ipcUtil;
 
+  /** Size of the largest pooled buffer requests are read into; 0 disables the pool */
+  static final String REQUEST_BUFFER_POOL_MAX_SIZE = "hbase.ipc.server.buffer.pool.max.size";
+  private static final int DEFAULT_REQUEST_BUFFER_POOL_MAX_SIZE = 1024 * 1024;
+  /** How many buffers of each size the request buffer pool keeps */
+  static final String REQUEST_BUFFER_POOL_MAX_COUNT = "hbase.ipc.server.buffer.pool.max.count";
+  private static final int DEFAULT_REQUEST_BUFFER_POOL_MAX_COUNT = 64;
+  private static final int REQUEST_BUFFER_POOL_MIN_SIZE = 1024;
+
+  /**
+   * Buffers requests are read into. Protobuf and cell block decoding read the backing array, so
+   * these are heap buffers.
+   */
+  final ByteBufferPool requestBufferPool;
+
+  /** Size of the pooled chunks response cell blocks are encoded into, a power of two */
+  static final String RESPONSE_CHUNK_SIZE = "hbase.ipc.server.response.chunk.size";
+  private static final int DEFAULT_RESPONSE_CHUNK_SIZE = 64 * 1024;
+  /** How many chunks the response buffer pool keeps */
+  static final String RESPONSE_BUFFER_POOL_MAX_COUNT =
+      "hbase.ipc.server.response.buffer.pool.max.count";
+  private static final int DEFAULT_RESPONSE_BUFFER_POOL_MAX_COUNT = 256;
+  /** Whether the response chunks are direct buffers, which the socket writes without a copy */
+  static final String RESPONSE_BUFFER_POOL_DIRECT = "hbase.ipc.server.response.buffer.pool.direct";
+
+  /**
+   * Chunks response cell blocks are encoded into and sent from as they are, with a gathering
+   * write, rather than grown by copying into a single buffer.
+   */
+  final ByteBufferPool responseBufferPool;
+  private final int responseChunkSize;
+
   private static final String AUTH_FAILED_FOR = "Auth failed for ";
   private static final String AUTH_SUCCESSFUL_FOR = "Auth successful for ";
   private static final Log AUDITLOG = LogFactory.getLog("SecurityLogger." +
@@ -287,6 +320,10 @@ public class RpcServer implements RpcServerInterface {
     protected long size;                          // size of current call
     protected boolean isError;
     protected TraceInfo tinfo;
+    // The pooled buffer the request was read into, while the call may still read it
+    private ByteBuffer requestBuffer;
+    // The pooled chunks holding the cell block of the response, until it is sent
+    private ChunkedByteBufferOutputStream responseCellBlock;
 
     Call(int id, final BlockingService service, final MethodDescriptor md, RequestHeader header,
          Message param, CellScanner cellScanner, Connection connection, Responder responder,
@@ -351,6 +388,8 @@ public class RpcServer implements RpcServerInterface {
         Throwable t, String errorMsg) {
       if (this.isError) return;
       if (t != null) this.isError = true;
+      // A response set before, say by a delayed call, was never sent
+      releaseResponse();
       BufferChain bc = null;
       try {
         ResponseHeader.Builder headerBuilder = ResponseHeader.newBuilder();
@@ -374,12 +413,13 @@ public class RpcServer implements RpcServerInterface {
           // Set the exception as the result of the method invocation.
           headerBuilder.setException(exceptionBuilder.build());
         }
-        ByteBuffer cellBlock =
-          ipcUtil.buildCellBlock(this.connection.codec, this.connection.compressionCodec, cells);
-        if (cellBlock != null) {
+        this.responseCellBlock = ipcUtil.buildCellBlock(this.connection.codec,
+          this.connection.compressionCodec, cells, responseBufferPool, responseChunkSize);
+        int cellBlockSize = 0;
+        if (this.responseCellBlock != null) {
+          cellBlockSize = this.responseCellBlock.size();
           CellBlockMeta.Builder cellBlockBuilder = CellBlockMeta.newBuilder();
-          // Presumes the cellBlock bytebuffer has been flipped so limit has total size in it.
-          cellBlockBuilder.setLength(cellBlock.limit());
+          cellBlockBuilder.setLength(cellBlockSize);
           headerBuilder.setCellBlockMeta(cellBlockBuilder.build());
         }
         Message header = headerBuilder.build();
@@ -389,18 +429,41 @@ public class RpcServer implements RpcServerInterface {
         ByteBuffer bbHeader = IPCUtil.getDelimitedMessageAsByteBuffer(header);
         ByteBuffer bbResult = IPCUtil.getDelimitedMessageAsByteBuffer(result);
         int totalSize = bbHeader.capacity() + (bbResult == null? 0: bbResult.limit()) +
-          (cellBlock == null? 0: cellBlock.limit());
+          cellBlockSize;
         ByteBuffer bbTotalSize = ByteBuffer.wrap(Bytes.toBytes(totalSize));
-        bc = new BufferChain(bbTotalSize, bbHeader, bbResult, cellBlock);
+        // The cell block chunks go in the chain as they are; no copy into one big buffer.
+        List<ByteBuffer> buffers = new ArrayList<ByteBuffer>();
+        buffers.add(bbTotalSize);
+        buffers.add(bbHeader);
+        buffers.add(bbResult);
+        if (this.responseCellBlock != null) {
+          buffers.addAll(this.responseCellBlock.getByteBuffers());
+        }
+        bc = new BufferChain(buffers.toArray(new ByteBuffer[buffers.size()]));
         if (connection.useWrap) {
           bc = wrapWithSasl(bc);
+          // Wrapping copied the response out of the chunks
+          releaseResponse();
         }
       } catch (IOException e) {
         LOG.warn("Exception while creating response " + e);
+        releaseResponse();
       }
       this.response = bc;
     }
 
+    /**
+     * Gives back the pooled chunks the cell block of the response was encoded into. Called once
+     * the response has been sent, or will not be. Not synchronized, as the Responder calls it
+     * while holding the response queue lock; by then no handler touches the response anymore.
+     */
+    void releaseResponse() {
+      if (this.responseCellBlock != null) {
+        this.responseCellBlock.release();
+        this.responseCellBlock = null;
+      }
+    }
+
     private BufferChain wrapWithSasl(BufferChain bc)
         throws IOException {
       if (bc == null) return bc;
@@ -473,10 +536,35 @@ public class RpcServer implements RpcServerInterface {
       return this.connection != null && this.connection.codec != null;
     }
 
+    /**
+     * Keeps the pooled buffer the request was read into until {@link #done()}.
+     */
+    synchronized void setRequestBuffer(ByteBuffer requestBuffer) {
+      this.requestBuffer = requestBuffer;
+    }
+
+    /**
+     * Gives back the pooled buffer the request was read into. Called once the call, including
+     * the cells it was sent with, has been processed.
+     */
+    synchronized void done() {
+      if (this.requestBuffer != null) {
+        requestBufferPool.putBuffer(this.requestBuffer);
+        this.requestBuffer = null;
+      }
+    }
+
+    /**
+     * @return whether the client the call came from has closed its connection
+     */
+    boolean isCallerDisconnected() {
+      return !connection.channel.isOpen();
+    }
+
     @Override
     public void throwExceptionIfCallerDisconnected(String regionName)
         throws CallerDisconnectedException {
-      if (!connection.channel.isOpen()) {
+      if (isCallerDisconnected()) {
         long afterTime = System.currentTimeMillis() - timestamp;
         throw new CallerDisconnectedException(
             "Aborting on region " + regionName + ", call " +
@@ -1004,6 +1092,7 @@ public class RpcServer implements RpcServerInterface {
             return true;
           }
           if (!call.response.hasRemaining()) {
+            call.releaseResponse();
             call.connection.decRpcCount();
             //noinspection RedundantIfStatement
             if (numElements == 1) {    // last call fully processes.
@@ -1469,7 +1558,10 @@ public class RpcServer implements RpcServerInterface {
             throw new IllegalArgumentException("Unexpected data length "
                 + dataLength + "!! from " + getHostAddress());
           }
-          data = ByteBuffer.allocate(dataLength);
+          // The connection header and sasl tokens are few and are kept, requests are not
+          data = useSasl || !connectionHeaderRead
+              ? ByteBuffer.allocate(dataLength)
+              : requestBufferPool.getBuffer(dataLength);
           incRpcCount();  // Increment the rpc count
         }
         count = channelRead(channel, data);
@@ -1479,6 +1571,7 @@ public class RpcServer implements RpcServerInterface {
           dataLengthBuffer.clear();
           data.flip();
           if (skipInitialSaslHandshake) {
+            requestBufferPool.putBuffer(data);
             data = null;
             skipInitialSaslHandshake = false;
             continue;
@@ -1486,6 +1579,10 @@ public class RpcServer implements RpcServerInterface {
           boolean headerRead = connectionHeaderRead;
           if (useSasl) {
             saslReadAndProcess(data.array());
+          } else if (headerRead) {
+            ByteBuffer request = this.data;
+            this.data = null;
+            processRequest(request.array(), request.limit(), request);
           } else {
             processOneRpc(data.array());
           }
@@ -1647,11 +1744,24 @@ public class RpcServer implements RpcServerInterface {
      * @throws InterruptedException
      */
     protected void processRequest(byte[] buf) throws IOException, InterruptedException {
-      long totalRequestSize = buf.length;
+      processRequest(buf, buf.length, null);
+    }
+
+    /**
+     * @param buf Has the request header and the request param and optionally encoded data buffer
+     * in its first <code>length</code> bytes.
+     * @param pooledBuffer the pooled buffer backing <code>buf</code>, handed to the call to give
+     * back once done, or null
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    private void processRequest(byte[] buf, int length, ByteBuffer pooledBuffer)
+        throws IOException, InterruptedException {
+      long totalRequestSize = length;
       int offset = 0;
       // Here we read in the header.  We avoid having pb
       // do its default 4k allocation for CodedInputStream.  We force it to use backing array.
-      CodedInputStream cis = CodedInputStream.newInstance(buf, offset, buf.length);
+      CodedInputStream cis = CodedInputStream.newInstance(buf, offset, length);
       int headerSize = cis.readRawVarint32();
       offset = cis.getTotalBytesRead();
       RequestHeader header = RequestHeader.newBuilder().mergeFrom(buf, offset, headerSize).build();
@@ -1671,6 +1781,9 @@ public class RpcServer implements RpcServerInterface {
         setupResponse(responseBuffer, callTooBig, new CallQueueTooBigException(),
           "Call queue is full, is ipc.server.max.callqueue.size too small?");
         responder.doRespond(callTooBig);
+        if (pooledBuffer != null) {
+          requestBufferPool.putBuffer(pooledBuffer);
+        }
         return;
       }
       MethodDescriptor md = null;
@@ -1682,7 +1795,7 @@ public class RpcServer implements RpcServerInterface {
           if (md == null) throw new UnsupportedOperationException(header.getMethodName());
           Builder builder = this.service.getRequestPrototype(md).newBuilderForType();
           // To read the varint, I need an inputstream; might as well be a CIS.
-          cis = CodedInputStream.newInstance(buf, offset, buf.length);
+          cis = CodedInputStream.newInstance(buf, offset, length - offset);
           int paramSize = cis.readRawVarint32();
           offset += cis.getTotalBytesRead();
           if (builder != null) {
@@ -1692,7 +1805,7 @@ public class RpcServer implements RpcServerInterface {
         }
         if (header.hasCellBlockMeta()) {
           cellScanner = ipcUtil.createCellScanner(this.codec, this.compressionCodec,
-            buf, offset, buf.length);
+            buf, offset, length - offset);
         }
       } catch (Throwable t) {
         String msg = "Unable to read call parameter from client " + getHostAddress();
@@ -1704,6 +1817,9 @@ public class RpcServer implements RpcServerInterface {
         setupResponse(responseBuffer, readParamsFailedCall, t,
           msg + "; " + t.getMessage());
         responder.doRespond(readParamsFailedCall);
+        if (pooledBuffer != null) {
+          requestBufferPool.putBuffer(pooledBuffer);
+        }
         return;
       }
 
@@ -1713,7 +1829,17 @@ public class RpcServer implements RpcServerInterface {
       Call call = new Call(id, this.service, md, header, param, cellScanner, this, responder,
               totalRequestSize,
               traceInfo);
-      scheduler.dispatch(new CallRunner(RpcServer.this, call, userProvider));
+      // The cells are decoded from the buffer as the call runs, so the call gives it back
+      call.setRequestBuffer(pooledBuffer);
+      boolean dispatched = false;
+      try {
+        scheduler.dispatch(new CallRunner(RpcServer.this, call, userProvider));
+        dispatched = true;
+      } finally {
+        if (!dispatched) {
+          call.done();
+        }
+      }
     }
 
     private boolean authorizeConnection() throws IOException {
@@ -1846,6 +1972,16 @@ public class RpcServer implements RpcServerInterface {
     this.warnDelayedCalls = conf.getInt(WARN_DELAYED_CALLS, DEFAULT_WARN_DELAYED_CALLS);
     this.delayedCalls = new AtomicInteger(0);
     this.ipcUtil = new IPCUtil(conf);
+    this.requestBufferPool = new ByteBufferPool(REQUEST_BUFFER_POOL_MIN_SIZE,
+        conf.getInt(REQUEST_BUFFER_POOL_MAX_SIZE, DEFAULT_REQUEST_BUFFER_POOL_MAX_SIZE),
+        conf.getInt(REQUEST_BUFFER_POOL_MAX_COUNT, DEFAULT_REQUEST_BUFFER_POOL_MAX_COUNT), false);
+    // The pool hands out powers of two, so round up and use the chunks whole
+    int chunkSize = Math.max(1, conf.getInt(RESPONSE_CHUNK_SIZE, DEFAULT_RESPONSE_CHUNK_SIZE));
+    this.responseChunkSize = Integer.highestOneBit(chunkSize) == chunkSize ? chunkSize
+        : Integer.highestOneBit(chunkSize) << 1;
+    this.responseBufferPool = new ByteBufferPool(responseChunkSize, responseChunkSize,
+        conf.getInt(RESPONSE_BUFFER_POOL_MAX_COUNT, DEFAULT_RESPONSE_BUFFER_POOL_MAX_COUNT),
+        conf.getBoolean(RESPONSE_BUFFER_POOL_DIRECT, false));
 
 
     // Create the responder here
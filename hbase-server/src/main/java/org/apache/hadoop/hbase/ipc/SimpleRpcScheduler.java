@@ -20,31 +20,67 @@ package org.apache.hadoop.hbase.ipc;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.hadoop.classification.InterfaceAudience;
 import org.apache.hadoop.classification.InterfaceStability;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.protobuf.generated.ClientProtos.Action;
+import org.apache.hadoop.hbase.protobuf.generated.ClientProtos.GetRequest;
+import org.apache.hadoop.hbase.protobuf.generated.ClientProtos.MultiRequest;
+import org.apache.hadoop.hbase.protobuf.generated.ClientProtos.RegionAction;
+import org.apache.hadoop.hbase.protobuf.generated.ClientProtos.ScanRequest;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
+import com.google.protobuf.Message;
 
 /**
  * A scheduler that maintains isolated handler pools for general, high-priority and replication
- * requests.
+ * requests. Out of the general handlers, a share may be set aside for reads, and out of those a
+ * share for scans, so that a burst of long scans does not hold up gets, nor reads hold up writes.
  */
 @InterfaceAudience.Private
 @InterfaceStability.Evolving
 public class SimpleRpcScheduler implements RpcScheduler {
+  /** Share of the general handlers serving gets and scans in a queue of their own */
+  public static final String CALL_QUEUE_READ_SHARE_CONF_KEY =
+      "hbase.ipc.server.callqueue.read.share";
+  /** Share of the read handlers serving scans in a queue of their own */
+  public static final String CALL_QUEUE_SCAN_SHARE_CONF_KEY =
+      "hbase.ipc.server.callqueue.scan.share";
+
+  /** Type of the general, read and scan call queues: fifo, or codel for adaptive LIFO and CoDel */
+  public static final String CALL_QUEUE_TYPE_CONF_KEY = "hbase.ipc.server.callqueue.type";
+  public static final String CALL_QUEUE_TYPE_FIFO = "fifo";
+  public static final String CALL_QUEUE_TYPE_CODEL = "codel";
+  public static final String CALL_QUEUE_CODEL_TARGET_DELAY =
+      "hbase.ipc.server.callqueue.codel.target.delay";
+  public static final String CALL_QUEUE_CODEL_INTERVAL =
+      "hbase.ipc.server.callqueue.codel.interval";
+  public static final String CALL_QUEUE_CODEL_LIFO_THRESHOLD =
+      "hbase.ipc.server.callqueue.codel.lifo.threshold";
+  public static final int CALL_QUEUE_CODEL_DEFAULT_TARGET_DELAY = 100;
+  public static final int CALL_QUEUE_CODEL_DEFAULT_INTERVAL = 100;
+  public static final double CALL_QUEUE_CODEL_DEFAULT_LIFO_THRESHOLD = 0.8;
 
   private int port;
   private final int handlerCount;
+  private final int readHandlerCount;
+  private final int scanHandlerCount;
   private final int priorityHandlerCount;
   private final int replicationHandlerCount;
   private final PriorityFunction priority;
   final BlockingQueue<CallRunner> callQueue;
   final BlockingQueue<CallRunner> priorityCallQueue;
   final BlockingQueue<CallRunner> replicationQueue;
+  final BlockingQueue<CallRunner> readCallQueue;
+  final BlockingQueue<CallRunner> scanCallQueue;
+  private final AtomicInteger activeHandlerCount = new AtomicInteger(0);
+  private final AtomicInteger activeReadHandlerCount = new AtomicInteger(0);
+  private final AtomicInteger activeScanHandlerCount = new AtomicInteger(0);
+  private MetricsHBaseServer metrics;
   private volatile boolean running = false;
   private final List<Thread> handlers = Lists.newArrayList();
 
@@ -68,46 +104,86 @@ public class SimpleRpcScheduler implements RpcScheduler {
       int highPriorityLevel) {
     int maxQueueLength = conf.getInt("ipc.server.max.callqueue.length",
         handlerCount * RpcServer.DEFAULT_MAX_CALLQUEUE_LENGTH_PER_HANDLER);
-    this.handlerCount = handlerCount;
+    float readShare = conf.getFloat(CALL_QUEUE_READ_SHARE_CONF_KEY, 0);
+    float scanShare = conf.getFloat(CALL_QUEUE_SCAN_SHARE_CONF_KEY, 0);
+    // Writes keep at least one handler, and reads too when scans have their own
+    int readHandlers = readShare > 0
+        ? Math.min(handlerCount - 1, Math.max(1, (int) (handlerCount * readShare)))
+        : 0;
+    int scanHandlers = readHandlers > 1 && scanShare > 0
+        ? Math.min(readHandlers - 1, Math.max(1, (int) (readHandlers * scanShare)))
+        : 0;
+    this.readHandlerCount = readHandlers - scanHandlers;
+    this.scanHandlerCount = scanHandlers;
+    this.handlerCount = handlerCount - readHandlers;
     this.priorityHandlerCount = priorityHandlerCount;
     this.replicationHandlerCount = replicationHandlerCount;
     this.priority = priority;
     this.highPriorityLevel = highPriorityLevel;
-    this.callQueue = new LinkedBlockingQueue<CallRunner>(maxQueueLength);
+    this.callQueue = newCallQueue(conf, maxQueueLength);
     this.priorityCallQueue = priorityHandlerCount > 0
         ? new LinkedBlockingQueue<CallRunner>(maxQueueLength)
         : null;
     this.replicationQueue = replicationHandlerCount > 0
         ? new LinkedBlockingQueue<CallRunner>(maxQueueLength)
         : null;
+    this.readCallQueue = readHandlerCount > 0
+        ? newCallQueue(conf, maxQueueLength)
+        : null;
+    this.scanCallQueue = scanHandlerCount > 0
+        ? newCallQueue(conf, maxQueueLength)
+        : null;
+  }
+
+  /**
+   * @return a queue for the calls of normal priority, of the configured type
+   */
+  private static BlockingQueue<CallRunner> newCallQueue(Configuration conf, int maxQueueLength) {
+    String type = conf.get(CALL_QUEUE_TYPE_CONF_KEY, CALL_QUEUE_TYPE_FIFO);
+    if (CALL_QUEUE_TYPE_CODEL.equals(type)) {
+      return new AdaptiveLifoCoDelCallQueue(maxQueueLength,
+          conf.getInt(CALL_QUEUE_CODEL_TARGET_DELAY, CALL_QUEUE_CODEL_DEFAULT_TARGET_DELAY),
+          conf.getInt(CALL_QUEUE_CODEL_INTERVAL, CALL_QUEUE_CODEL_DEFAULT_INTERVAL),
+          conf.getFloat(CALL_QUEUE_CODEL_LIFO_THRESHOLD,
+              (float) CALL_QUEUE_CODEL_DEFAULT_LIFO_THRESHOLD));
+    }
+    return new LinkedBlockingQueue<CallRunner>(maxQueueLength);
   }
 
   @Override
   public void init(Context context) {
     this.port = context.getListenerAddress().getPort();
+    this.metrics = context.getMetrics();
   }
 
   @Override
   public void start() {
     running = true;
-    startHandlers(handlerCount, callQueue, null);
+    startHandlers(handlerCount, callQueue, null, CallQueue.GENERAL);
     if (priorityCallQueue != null) {
-      startHandlers(priorityHandlerCount, priorityCallQueue, "Priority.");
+      startHandlers(priorityHandlerCount, priorityCallQueue, "Priority.", null);
     }
     if (replicationQueue != null) {
-      startHandlers(replicationHandlerCount, replicationQueue, "Replication.");
+      startHandlers(replicationHandlerCount, replicationQueue, "Replication.", null);
+    }
+    if (readCallQueue != null) {
+      startHandlers(readHandlerCount, readCallQueue, "Read.", CallQueue.READ);
+    }
+    if (scanCallQueue != null) {
+      startHandlers(scanHandlerCount, scanCallQueue, "Scan.", CallQueue.SCAN);
     }
   }
 
   private void startHandlers(
       int handlerCount,
       final BlockingQueue<CallRunner> callQueue,
-      String threadNamePrefix) {
+      String threadNamePrefix,
+      final CallQueue queueType) {
     for (int i = 0; i < handlerCount; i++) {
       Thread t = new Thread(new Runnable() {
         @Override
         public void run() {
-          consumerLoop(callQueue);
+          consumerLoop(callQueue, queueType);
         }
       });
       t.setDaemon(true);
@@ -133,11 +209,36 @@ public class SimpleRpcScheduler implements RpcScheduler {
       priorityCallQueue.put(callTask);
     } else if (replicationQueue != null && level == HConstants.REPLICATION_QOS) {
       replicationQueue.put(callTask);
+    } else if (scanCallQueue != null && call.param instanceof ScanRequest) {
+      scanCallQueue.put(callTask);
+    } else if (readCallQueue != null && isReadRequest(call.param)) {
+      readCallQueue.put(callTask);
     } else {
       callQueue.put(callTask); // queue the call; maybe blocked here
     }
   }
 
+  /**
+   * @return whether the request only reads, so may go to the read queue: a get, a multi with
+   * gets only, or a scan when scans do not have a queue of their own
+   */
+  static boolean isReadRequest(Message param) {
+    if (param instanceof GetRequest || param instanceof ScanRequest) {
+      return true;
+    }
+    if (param instanceof MultiRequest) {
+      for (RegionAction regionAction : ((MultiRequest) param).getRegionActionList()) {
+        for (Action action : regionAction.getActionList()) {
+          if (action.hasMutation()) {
+            return false;
+          }
+        }
+      }
+      return true;
+    }
+    return false;
+  }
+
   @Override
   public int getGeneralQueueLength() {
     return callQueue.size();
@@ -153,15 +254,72 @@ public class SimpleRpcScheduler implements RpcScheduler {
     return replicationQueue == null ? 0 : replicationQueue.size();
   }
 
-  private void consumerLoop(BlockingQueue<CallRunner> myQueue) {
+  @Override
+  public int getReadQueueLength() {
+    return readCallQueue == null ? 0 : readCallQueue.size();
+  }
+
+  @Override
+  public int getScanQueueLength() {
+    return scanCallQueue == null ? 0 : scanCallQueue.size();
+  }
+
+  @Override
+  public int getActiveHandlerCount() {
+    return activeHandlerCount.get();
+  }
+
+  @Override
+  public int getActiveReadHandlerCount() {
+    return activeReadHandlerCount.get();
+  }
+
+  @Override
+  public int getActiveScanHandlerCount() {
+    return activeScanHandlerCount.get();
+  }
+
+  /**
+   * @param queueType the queue whose wait time and busy handlers are reported, or null
+   */
+  private void consumerLoop(BlockingQueue<CallRunner> myQueue, CallQueue queueType) {
     while (running) {
       try {
         CallRunner task = myQueue.take();
-        task.run();
+        if (queueType == null) {
+          task.run();
+          continue;
+        }
+        AtomicInteger active = queueType == CallQueue.READ ? activeReadHandlerCount
+            : queueType == CallQueue.SCAN ? activeScanHandlerCount : activeHandlerCount;
+        active.incrementAndGet();
+        try {
+          if (metrics != null) {
+            int qTime = (int) (System.currentTimeMillis() - task.getCall().timestamp);
+            switch (queueType) {
+              case READ:
+                metrics.dequeuedReadCall(qTime);
+                break;
+              case SCAN:
+                metrics.dequeuedScanCall(qTime);
+                break;
+              default:
+                metrics.dequeuedGeneralCall(qTime);
+            }
+          }
+          task.run();
+        } finally {
+          active.decrementAndGet();
+        }
       } catch (InterruptedException e) {
         Thread.interrupted();
       }
     }
   }
+
+  /** The queues whose wait time and handler use are reported */
+  private enum CallQueue {
+    GENERAL, READ, SCAN
+  }
 }
 
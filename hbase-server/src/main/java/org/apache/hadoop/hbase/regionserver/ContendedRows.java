@@ -0,0 +1,131 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.HashedBytes;
+
+/**
+ * The rows of a region whose lock was waited for most often, as far as a
+ * bounded number of counters can tell. This is the space-saving sketch: a row
+ * not counted yet takes over the counter of the least contended row, starting
+ * from its count, so the count of a row may be overestimated by at most its
+ * error, and a row contended more often than the least counted one is never
+ * missed.
+ */
+@InterfaceAudience.Private
+public class ContendedRows {
+  private final int capacity;
+  private final Map<HashedBytes, ContendedRow> rows;
+
+  /**
+   * @param capacity the number of rows counted; 0 counts none
+   */
+  public ContendedRows(int capacity) {
+    this.capacity = capacity;
+    this.rows = new HashMap<HashedBytes, ContendedRow>(capacity);
+  }
+
+  /**
+   * Counts a wait for the lock of the given row.
+   */
+  public synchronized void add(byte[] row) {
+    if (capacity <= 0) {
+      return;
+    }
+    HashedBytes key = new HashedBytes(row);
+    ContendedRow counted = rows.get(key);
+    if (counted != null) {
+      counted.count++;
+      return;
+    }
+    if (rows.size() < capacity) {
+      rows.put(key, new ContendedRow(row, 1, 0));
+      return;
+    }
+    ContendedRow least = null;
+    for (ContendedRow candidate : rows.values()) {
+      if (least == null || candidate.count < least.count) {
+        least = candidate;
+      }
+    }
+    rows.remove(new HashedBytes(least.row));
+    rows.put(key, new ContendedRow(row, least.count + 1, least.count));
+  }
+
+  /**
+   * @return the counted rows, the most contended first
+   */
+  public synchronized List<ContendedRow> getRows() {
+    List<ContendedRow> result = new ArrayList<ContendedRow>(rows.size());
+    for (ContendedRow row : rows.values()) {
+      result.add(new ContendedRow(row.row, row.count, row.error));
+    }
+    Collections.sort(result, new Comparator<ContendedRow>() {
+      @Override
+      public int compare(ContendedRow left, ContendedRow right) {
+        return left.count < right.count ? 1 : left.count > right.count ? -1 : 0;
+      }
+    });
+    return result;
+  }
+
+  /**
+   * A row and how often its lock was waited for.
+   */
+  public static class ContendedRow {
+    private final byte[] row;
+    private long count;
+    private final long error;
+
+    ContendedRow(byte[] row, long count, long error) {
+      this.row = row;
+      this.count = count;
+      this.error = error;
+    }
+
+    public byte[] getRow() {
+      return row;
+    }
+
+    /**
+     * @return the number of waits for the lock of the row, possibly
+     * overestimated by up to {@link #getError()}
+     */
+    public long getCount() {
+      return count;
+    }
+
+    public long getError() {
+      return error;
+    }
+
+    @Override
+    public String toString() {
+      return Bytes.toStringBinary(row) + "=" + count;
+    }
+  }
+}
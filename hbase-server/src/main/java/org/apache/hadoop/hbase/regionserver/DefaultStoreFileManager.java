@@ -52,9 +52,24 @@ class DefaultStoreFileManager implements StoreFileManager {
    */
   private volatile ImmutableList<StoreFile> storefiles = null;
 
+  /**
+   * Row ranges of {@link #storefiles}, replaced along with them. Null when
+   * the files are not indexed.
+   */
+  private volatile StoreFileKeyRangeIndex keyRangeIndex = null;
+
+  /**
+   * Whether Gets and Scans with a start or stop row only read the files whose
+   * row range overlaps theirs, instead of opening scanners on all the files.
+   */
+  public static final String KEY_RANGE_INDEX_ENABLED_KEY =
+      "hbase.hstore.key.range.index.enabled";
+  private final boolean keyRangeIndexEnabled;
+
   public DefaultStoreFileManager(KVComparator kvComparator, Configuration conf) {
     this.kvComparator = kvComparator;
     this.conf = conf;
+    this.keyRangeIndexEnabled = conf.getBoolean(KEY_RANGE_INDEX_ENABLED_KEY, true);
   }
 
   @Override
@@ -78,6 +93,7 @@ class DefaultStoreFileManager implements StoreFileManager {
   public ImmutableCollection<StoreFile> clearFiles() {
     ImmutableList<StoreFile> result = storefiles;
     storefiles = ImmutableList.of();
+    keyRangeIndex = null;
     return result;
   }
 
@@ -123,8 +139,12 @@ class DefaultStoreFileManager implements StoreFileManager {
   @Override
   public final Collection<StoreFile> getFilesForScanOrGet(boolean isGet,
       byte[] startRow, byte[] stopRow) {
-    // We cannot provide any useful input and already have the files sorted by seqNum.
-    return getStorefiles();
+    // The files are sorted by seqNum, the index keeps them in that order.
+    StoreFileKeyRangeIndex index = this.keyRangeIndex;
+    if (index == null) {
+      return getStorefiles();
+    }
+    return index.getFiles(startRow, stopRow);
   }
 
   @Override
@@ -137,7 +157,13 @@ class DefaultStoreFileManager implements StoreFileManager {
 
   private void sortAndSetStoreFiles(List<StoreFile> storeFiles) {
     Collections.sort(storeFiles, StoreFile.Comparators.SEQ_ID);
-    storefiles = ImmutableList.copyOf(storeFiles);
+    ImmutableList<StoreFile> sortedFiles = ImmutableList.copyOf(storeFiles);
+    // Clear the index first so that it never covers other files than storefiles.
+    keyRangeIndex = null;
+    storefiles = sortedFiles;
+    if (keyRangeIndexEnabled && sortedFiles.size() > 1) {
+      keyRangeIndex = new StoreFileKeyRangeIndex(sortedFiles, kvComparator);
+    }
   }
 
 }
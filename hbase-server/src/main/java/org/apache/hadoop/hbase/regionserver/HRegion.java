@@ -29,7 +29,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
@@ -56,7 +59,6 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -136,6 +138,7 @@ import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
 import org.apache.hadoop.hbase.util.FSUtils;
 import org.apache.hadoop.hbase.util.HashedBytes;
 import org.apache.hadoop.hbase.util.Pair;
+import org.apache.hadoop.hbase.util.StripedReadWriteLock;
 import org.apache.hadoop.hbase.util.Threads;
 import org.apache.hadoop.io.MultipleIOException;
 import org.apache.hadoop.util.StringUtils;
@@ -195,6 +198,18 @@ public class HRegion implements HeapSize { // , Writable{
   public static final String LOAD_CFS_ON_DEMAND_CONFIG_KEY =
       "hbase.hregion.scan.loadColumnFamiliesOnDemand";
 
+  /**
+   * Whether simple single-row Gets are answered by a {@link PointGetter}
+   * instead of a full region scanner.
+   */
+  public static final String GET_FAST_PATH_CONFIG_KEY = "hbase.hregion.get.fastpath";
+
+  /**
+   * Whether concurrent increments of a row are applied together, under one
+   * row lock and one WAL sync.
+   */
+  public static final String INCREMENT_COALESCE_CONFIG_KEY = "hbase.hregion.increment.coalesce";
+
   /**
    * This is the global default value for durability. All tables/mutations not
    * defining a durability or using USE_DEFAULT will default to this value.
@@ -241,6 +256,10 @@ public class HRegion implements HeapSize { // , Writable{
   private final ConcurrentHashMap<HashedBytes, RowLockContext> lockedRows =
       new ConcurrentHashMap<HashedBytes, RowLockContext>();
 
+  // The increments of each row waiting for the row lock, when coalescing them
+  private final ConcurrentHashMap<HashedBytes, IncrementBatch> pendingIncrements =
+      new ConcurrentHashMap<HashedBytes, IncrementBatch>();
+
   protected final Map<byte[], Store> stores = new ConcurrentSkipListMap<byte[], Store>(
       Bytes.BYTES_RAWCOMPARATOR);
 
@@ -297,7 +316,8 @@ public class HRegion implements HeapSize { // , Writable{
   static final long DEFAULT_ROW_PROCESSOR_TIMEOUT = 60 * 1000L;
   final ExecutorService rowProcessorExecutor = Executors.newCachedThreadPool();
 
-  private final ConcurrentHashMap<RegionScanner, Long> scannerReadPoints;
+  // Keyed by the open region scanners and by the point getters in progress
+  private final ConcurrentHashMap<Object, Long> scannerReadPoints;
 
   /**
    * The sequence ID that was encountered when this region was opened.
@@ -310,6 +330,16 @@ public class HRegion implements HeapSize { // , Writable{
    */
   private boolean isLoadingCfsOnDemandDefault = false;
 
+  /**
+   * Whether gets that qualify are served by a {@link PointGetter}.
+   */
+  private boolean isGetFastPathEnabled = true;
+
+  /**
+   * Whether concurrent increments of a row are coalesced.
+   */
+  private boolean isIncrementCoalescingEnabled = false;
+
   private final AtomicInteger majorInProgress = new AtomicInteger(0);
   private final AtomicInteger minorInProgress = new AtomicInteger(0);
 
@@ -401,12 +431,12 @@ public class HRegion implements HeapSize { // , Writable{
   private long blockingMemStoreSize;
   final long threadWakeFrequency;
   // Used to guard closes
-  final ReentrantReadWriteLock lock =
-    new ReentrantReadWriteLock();
+  final StripedReadWriteLock lock =
+    new StripedReadWriteLock();
 
-  // Stop updates lock
-  private final ReentrantReadWriteLock updatesLock =
-    new ReentrantReadWriteLock();
+  // Stop updates lock. Striped, since every write takes it for reading
+  private final StripedReadWriteLock updatesLock =
+    new StripedReadWriteLock();
   private boolean splitRequest;
   private byte[] explicitSplitPoint = null;
 
@@ -496,11 +526,13 @@ public class HRegion implements HeapSize { // , Writable{
                     DEFAULT_ROWLOCK_WAIT_DURATION);
 
     this.isLoadingCfsOnDemandDefault = conf.getBoolean(LOAD_CFS_ON_DEMAND_CONFIG_KEY, true);
+    this.isGetFastPathEnabled = conf.getBoolean(GET_FAST_PATH_CONFIG_KEY, true);
+    this.isIncrementCoalescingEnabled = conf.getBoolean(INCREMENT_COALESCE_CONFIG_KEY, false);
     this.htableDescriptor = htd;
     this.rsServices = rsServices;
     this.threadWakeFrequency = conf.getLong(HConstants.THREAD_WAKE_FREQUENCY, 10 * 1000);
     setHTableSpecificConf();
-    this.scannerReadPoints = new ConcurrentHashMap<RegionScanner, Long>();
+    this.scannerReadPoints = new ConcurrentHashMap<Object, Long>();
 
     this.busyWaitDuration = conf.getLong(
       "hbase.busy.wait.duration", DEFAULT_BUSY_WAIT_DURATION);
@@ -541,7 +573,7 @@ public class HRegion implements HeapSize { // , Writable{
       // TODO: revisit if coprocessors should load in other cases
       this.coprocessorHost = new RegionCoprocessorHost(this, rsServices, conf);
       this.metricsRegionWrapper = new MetricsRegionWrapperImpl(this);
-      this.metricsRegion = new MetricsRegion(this.metricsRegionWrapper);
+      this.metricsRegion = new MetricsRegion(this.metricsRegionWrapper, conf);
     } else {
       this.metricsRegionWrapper = null;
       this.metricsRegion = null;
@@ -1769,6 +1801,9 @@ public class HRegion implements HeapSize { // , Writable{
 
   protected RegionScanner instantiateRegionScanner(Scan scan,
       List<KeyValueScanner> additionalScanners) throws IOException {
+    if (scan.isReversed()) {
+      return new ReversedRegionScannerImpl(scan, additionalScanners, this);
+    }
     return new RegionScannerImpl(scan, additionalScanners, this);
   }
 
@@ -1920,6 +1955,8 @@ public class HRegion implements HeapSize { // , Writable{
     int nextIndexToProcess = 0;
     OperationStatus[] retCodeDetails;
     WALEdit[] walEditsFromCoprocessors;
+    // Where to leave the WAL sync of the mini-batches, if not done by each of them
+    GroupCommit groupCommit = null;
 
     public BatchOperationInProgress(T[] operations) {
       this.operations = operations;
@@ -2027,6 +2064,23 @@ public class HRegion implements HeapSize { // , Writable{
     return batchMutate(mutations, HConstants.NO_NONCE, HConstants.NO_NONCE);
   }
 
+  /**
+   * Perform a batch of mutations, leaving the WAL sync to the given group
+   * commit when possible. The mutations left to it are only done, and visible,
+   * once {@link GroupCommit#complete()} is called.
+   * @param mutations the list of mutations
+   * @param groupCommit the mini-batches waiting for a shared WAL sync
+   * @return an array of OperationStatus which internally contains the
+   *         OperationStatusCode and the exceptionMessage if any.
+   * @throws IOException
+   */
+  OperationStatus[] batchMutate(Mutation[] mutations, GroupCommit groupCommit)
+      throws IOException {
+    MutationBatch batchOp = new MutationBatch(mutations, HConstants.NO_NONCE, HConstants.NO_NONCE);
+    batchOp.groupCommit = groupCommit;
+    return batchMutate(batchOp);
+  }
+
   /**
    * Replay a batch of mutations.
    * @param mutations mutations to replay.
@@ -2197,7 +2251,17 @@ public class HRegion implements HeapSize { // , Writable{
         boolean shouldBlock = numReadyToWrite == 0;
         RowLock rowLock = null;
         try {
-          rowLock = getRowLock(mutation.getRow(), shouldBlock);
+          if (shouldBlock && batchOp.groupCommit != null && !batchOp.groupCommit.isEmpty()) {
+            // Do not wait for a row lock while holding back the mini-batches of
+            // the group: whoever holds it may be waiting for them
+            rowLock = getRowLock(mutation.getRow(), false);
+            if (rowLock == null) {
+              batchOp.groupCommit.complete();
+            }
+          }
+          if (rowLock == null) {
+            rowLock = getRowLock(mutation.getRow(), shouldBlock);
+          }
         } catch (IOException ioe) {
           LOG.warn("Failed getting lock in batch put, row="
             + Bytes.toStringBinary(mutation.getRow()), ioe);
@@ -2368,6 +2432,20 @@ public class HRegion implements HeapSize { // , Writable{
       // -------------------------
       // STEP 7. Sync wal.
       // -------------------------
+      if (hasWalAppends && batchOp.groupCommit != null && !batchOp.groupCommit.isFull()
+          && !isInReplay
+          && (coprocessorHost == null || !coprocessorHost.hasCoprocessors())
+          && !this.getRegionInfo().isMetaRegion()
+          && isSyncNeeded(durability)) {
+        // The group syncs once for the mini-batches of all its regions, then
+        // advances their mvcc
+        batchOp.groupCommit.add(new PendingMiniBatch(this, batchOp, familyMaps, firstIndex,
+            lastIndexExclusive, txid, w));
+        w = null;
+        walSyncSuccessful = true;
+        success = true;
+        return addedSize;
+      }
       if (hasWalAppends) {
         syncOrDefer(txid, durability);
       }
@@ -3289,6 +3367,7 @@ public class HRegion implements HeapSize { // , Writable{
     try {
       HashedBytes rowKey = new HashedBytes(row);
       RowLockContext rowLockContext = new RowLockContext(rowKey);
+      long waitStart = -1;
 
       // loop until we acquire the row lock (unless !waitForLock)
       while (true) {
@@ -3305,8 +3384,14 @@ public class HRegion implements HeapSize { // , Writable{
           if (!waitForLock) {
             return null;
           }
+          if (waitStart < 0) {
+            waitStart = EnvironmentEdgeManager.currentTimeMillis();
+          }
           try {
             if (!existingContext.latch.await(this.rowLockWaitDuration, TimeUnit.MILLISECONDS)) {
+              if (this.metricsRegion != null) {
+                this.metricsRegion.updateRowLockTimeout(row);
+              }
               throw new IOException("Timed out waiting for lock for row: " + rowKey);
             }
           } catch (InterruptedException ie) {
@@ -3318,6 +3403,11 @@ public class HRegion implements HeapSize { // , Writable{
         }
       }
 
+      if (waitStart >= 0 && this.metricsRegion != null) {
+        this.metricsRegion.updateRowLockWait(row,
+            EnvironmentEdgeManager.currentTimeMillis() - waitStart);
+      }
+
       // allocate new lock for this thread
       return rowLockContext.newLock();
     } finally {
@@ -3325,6 +3415,17 @@ public class HRegion implements HeapSize { // , Writable{
     }
   }
 
+  /**
+   * @return the rows of this region whose lock was waited for most often,
+   *   the most contended first; empty when the region has no metrics
+   */
+  public List<ContendedRows.ContendedRow> getContendedRows() {
+    if (this.metricsRegion == null) {
+      return Collections.emptyList();
+    }
+    return this.metricsRegion.getContendedRows();
+  }
+
   /**
    * Acqures a lock on the given row.
    * The same thread may acquire multiple locks on the same row.
@@ -3506,17 +3607,17 @@ public class HRegion implements HeapSize { // , Writable{
     /**
      * If the joined heap data gathering is interrupted due to scan limits, this will
      * contain the row for which we are populating the values.*/
-    private KeyValue joinedContinuationRow = null;
+    protected KeyValue joinedContinuationRow = null;
     // KeyValue indicating that limit is reached when scanning
     private final KeyValue KV_LIMIT = new KeyValue();
-    private final byte [] stopRow;
+    protected final byte [] stopRow;
     private Filter filter;
     private int batch;
-    private int isScan;
+    protected int isScan;
     private boolean filterClosed = false;
     private long readPt;
     private long maxResultSize;
-    private HRegion region;
+    protected HRegion region;
 
     @Override
     public HRegionInfo getRegionInfo() {
@@ -3564,23 +3665,31 @@ public class HRegion implements HeapSize { // , Writable{
           scan.getFamilyMap().entrySet()) {
         Store store = stores.get(entry.getKey());
         KeyValueScanner scanner = store.getScanner(scan, entry.getValue(), this.readPt);
-        if (this.filter == null || !scan.doLoadColumnFamiliesOnDemand()
+        // A reversed scan cannot seek the joined heap to the current row, so
+        // it reads all the families along with the essential ones.
+        if (this.filter == null || !scan.doLoadColumnFamiliesOnDemand() || scan.isReversed()
           || this.filter.isFamilyEssential(entry.getKey())) {
           scanners.add(scanner);
         } else {
           joinedScanners.add(scanner);
         }
       }
-      this.storeHeap = new KeyValueHeap(scanners, comparator);
-      if (!joinedScanners.isEmpty()) {
-        this.joinedHeap = new KeyValueHeap(joinedScanners, comparator);
-      }
+      initializeKVHeap(scanners, joinedScanners, region);
     }
 
     RegionScannerImpl(Scan scan, HRegion region) throws IOException {
       this(scan, null, region);
     }
 
+    protected void initializeKVHeap(List<KeyValueScanner> scanners,
+        List<KeyValueScanner> joinedScanners, HRegion region)
+        throws IOException {
+      this.storeHeap = new KeyValueHeap(scanners, region.comparator);
+      if (!joinedScanners.isEmpty()) {
+        this.joinedHeap = new KeyValueHeap(joinedScanners, region.comparator);
+      }
+    }
+
     @Override
     public long getMaxResultSize() {
       return maxResultSize;
@@ -3852,7 +3961,7 @@ public class HRegion implements HeapSize { // , Writable{
                                                                    currentRow);
     }
 
-    private boolean isStopRow(byte [] currentRow, int offset, short length) {
+    protected boolean isStopRow(byte [] currentRow, int offset, short length) {
       return currentRow == null ||
           (stopRow != null &&
           comparator.compareRows(stopRow, 0, stopRow.length,
@@ -4512,6 +4621,76 @@ public class HRegion implements HeapSize { // , Writable{
    * @throws IOException read exceptions
    */
   public Result get(final Get get) throws IOException {
+    prepareGet(get);
+    List<Cell> results = get(get, true);
+    return Result.create(results, get.isCheckExistenceOnly() ? !results.isEmpty() : null);
+  }
+
+  /**
+   * Do a batch of gets. The gets with no filter that ask for the same
+   * columns, versions and time range share one region scanner. It visits
+   * their rows in ascending order and reseeks forward from one row to the
+   * next, so the positions in the store files and the blocks already read
+   * carry over from one get to the next, instead of every get setting up its
+   * own scanners and seeking from the top of the files.
+   * @param gets the gets, on rows of this region
+   * @return the results, in the order of the gets
+   * @throws IOException read exceptions; the whole batch fails with any of its gets
+   */
+  public Result[] get(final List<Get> gets) throws IOException {
+    Result[] results = new Result[gets.size()];
+    if (coprocessorHost != null && coprocessorHost.hasCoprocessors()) {
+      // Coprocessors see every get on its own
+      for (int i = 0; i < gets.size(); i++) {
+        results[i] = get(gets.get(i));
+      }
+      return results;
+    }
+
+    // Indexes of the gets that can share a scanner with the first one of
+    // their group
+    List<List<Integer>> groups = new ArrayList<List<Integer>>();
+    for (int i = 0; i < gets.size(); i++) {
+      Get get = gets.get(i);
+      prepareGet(get);
+      List<Integer> group = null;
+      if (get.getFilter() == null) {
+        for (List<Integer> g : groups) {
+          if (canShareScanner(gets.get(g.get(0)), get)) {
+            group = g;
+            break;
+          }
+        }
+        if (group == null) {
+          group = new ArrayList<Integer>();
+          groups.add(group);
+        }
+      }
+      if (group != null) {
+        group.add(i);
+      } else {
+        List<Cell> cells = get(get, false);
+        results[i] = Result.create(cells, get.isCheckExistenceOnly() ? !cells.isEmpty() : null);
+      }
+    }
+    for (List<Integer> group : groups) {
+      if (group.size() == 1) {
+        Get get = gets.get(group.get(0));
+        List<Cell> cells = get(get, false);
+        results[group.get(0)] =
+            Result.create(cells, get.isCheckExistenceOnly() ? !cells.isEmpty() : null);
+      } else {
+        getWithSharedScanner(gets, group, results);
+      }
+    }
+    return results;
+  }
+
+  /*
+   * Checks the row and the families of the get, and makes it ask for all the
+   * families if it names none.
+   */
+  private void prepareGet(final Get get) throws IOException {
     checkRow(get.getRow(), "Get");
     // Verify families are all valid
     if (get.hasFamilies()) {
@@ -4523,8 +4702,119 @@ public class HRegion implements HeapSize { // , Writable{
         get.addFamily(family);
       }
     }
-    List<Cell> results = get(get, true);
-    return Result.create(results, get.isCheckExistenceOnly() ? !results.isEmpty() : null);
+  }
+
+  /*
+   * @return True if the two gets, with no filter, return the same cells of any
+   * given row, so that one scanner can serve both of them.
+   */
+  private static boolean canShareScanner(final Get a, final Get b) {
+    if (a.getMaxVersions() != b.getMaxVersions()
+        || a.getCacheBlocks() != b.getCacheBlocks()
+        || a.getMaxResultsPerColumnFamily() != b.getMaxResultsPerColumnFamily()
+        || a.getRowOffsetPerColumnFamily() != b.getRowOffsetPerColumnFamily()
+        || a.getTimeRange().getMin() != b.getTimeRange().getMin()
+        || a.getTimeRange().getMax() != b.getTimeRange().getMax()) {
+      return false;
+    }
+    Map<String, byte[]> attributes = a.getAttributesMap();
+    if (attributes.size() != b.getAttributesMap().size()) {
+      return false;
+    }
+    for (Map.Entry<String, byte[]> attribute : attributes.entrySet()) {
+      if (!Bytes.equals(attribute.getValue(), b.getAttribute(attribute.getKey()))) {
+        return false;
+      }
+    }
+    Map<byte[], NavigableSet<byte[]>> families = a.getFamilyMap();
+    if (families.size() != b.getFamilyMap().size()) {
+      return false;
+    }
+    Iterator<Map.Entry<byte[], NavigableSet<byte[]>>> others =
+        b.getFamilyMap().entrySet().iterator();
+    for (Map.Entry<byte[], NavigableSet<byte[]>> family : families.entrySet()) {
+      Map.Entry<byte[], NavigableSet<byte[]>> other = others.next();
+      if (!Bytes.equals(family.getKey(), other.getKey())) {
+        return false;
+      }
+      NavigableSet<byte[]> columns = family.getValue();
+      NavigableSet<byte[]> otherColumns = other.getValue();
+      if (columns == null || otherColumns == null) {
+        if (columns != otherColumns) {
+          return false;
+        }
+      } else if (columns.size() != otherColumns.size()) {
+        return false;
+      } else {
+        Iterator<byte[]> otherColumn = otherColumns.iterator();
+        for (byte[] column : columns) {
+          if (!Bytes.equals(column, otherColumn.next())) {
+            return false;
+          }
+        }
+      }
+    }
+    return true;
+  }
+
+  /*
+   * Serves the given gets, which can share a scanner, with a single scanner
+   * over the range of their rows. Rows in between with no get are stepped
+   * over by reseeks, apart from the first row with data after a row with no
+   * data, which is read to find out where the scanner stands.
+   */
+  private void getWithSharedScanner(final List<Get> gets, List<Integer> group,
+      final Result[] results) throws IOException {
+    Collections.sort(group, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer left, Integer right) {
+        return Bytes.compareTo(gets.get(left).getRow(), gets.get(right).getRow());
+      }
+    });
+    Get first = gets.get(group.get(0));
+    Get last = gets.get(group.get(group.size() - 1));
+    // Not a get scan: the scanner should not pick the store files by the
+    // Bloom filters of the first row alone.
+    Scan scan = new Scan(first.getRow(), Bytes.add(last.getRow(), new byte[] { 0 }));
+    scan.setFamilyMap(first.getFamilyMap());
+    scan.setMaxVersions(first.getMaxVersions());
+    scan.setTimeRange(first.getTimeRange().getMin(), first.getTimeRange().getMax());
+    scan.setCacheBlocks(first.getCacheBlocks());
+    scan.setMaxResultsPerColumnFamily(first.getMaxResultsPerColumnFamily());
+    scan.setRowOffsetPerColumnFamily(first.getRowOffsetPerColumnFamily());
+    for (Map.Entry<String, byte[]> attribute : first.getAttributesMap().entrySet()) {
+      scan.setAttribute(attribute.getKey(), attribute.getValue());
+    }
+
+    RegionScanner scanner = getScanner(scan);
+    try {
+      // The cells of the row the scanner read last
+      List<Cell> cells = Collections.emptyList();
+      boolean moreRows = true;
+      boolean atStart = true;
+      for (int index : group) {
+        Get get = gets.get(index);
+        byte[] row = get.getRow();
+        if (moreRows && (cells.isEmpty() || Bytes.compareTo(cells.get(0).getRowArray(),
+            cells.get(0).getRowOffset(), cells.get(0).getRowLength(), row, 0, row.length) < 0)) {
+          if (!atStart) {
+            scanner.reseek(row);
+          }
+          atStart = false;
+          cells = new ArrayList<Cell>();
+          moreRows = scanner.next(cells);
+        }
+        List<Cell> rowCells = Collections.emptyList();
+        if (!cells.isEmpty() && CellUtil.matchingRow(cells.get(0), row)) {
+          rowCells = cells;
+        }
+        results[index] =
+            Result.create(rowCells, get.isCheckExistenceOnly() ? !rowCells.isEmpty() : null);
+        updateGetMetrics(rowCells);
+      }
+    } finally {
+      scanner.close();
+    }
   }
 
   /*
@@ -4546,13 +4836,17 @@ public class HRegion implements HeapSize { // , Writable{
 
     Scan scan = new Scan(get);
 
-    RegionScanner scanner = null;
-    try {
-      scanner = getScanner(scan);
-      scanner.next(results);
-    } finally {
-      if (scanner != null)
-        scanner.close();
+    if (isPointGet(get)) {
+      pointGet(scan, results);
+    } else {
+      RegionScanner scanner = null;
+      try {
+        scanner = getScanner(scan);
+        scanner.next(results);
+      } finally {
+        if (scanner != null)
+          scanner.close();
+      }
     }
 
     // post-get CP hook
@@ -4561,6 +4855,12 @@ public class HRegion implements HeapSize { // , Writable{
     }
 
     // do after lock
+    updateGetMetrics(results);
+
+    return results;
+  }
+
+  private void updateGetMetrics(List<Cell> results) {
     if (this.metricsRegion != null) {
       long totalSize = 0l;
       if (results != null) {
@@ -4570,8 +4870,63 @@ public class HRegion implements HeapSize { // , Writable{
       }
       this.metricsRegion.updateGet(totalSize);
     }
+  }
 
-    return results;
+  /*
+   * A get can skip the region and store scanners when it asks for the latest
+   * version of explicit columns, over all time, with no filter and no per
+   * family limits. Stores that keep deleted cells or a minimum number of
+   * versions, and regions with coprocessors that may hook into the scanners,
+   * still go through the scanners.
+   */
+  private boolean isPointGet(Get get) {
+    if (!this.isGetFastPathEnabled || get.getFilter() != null
+        || get.getMaxVersions() != 1 || !get.getTimeRange().isAllTime()
+        || get.getMaxResultsPerColumnFamily() >= 0
+        || get.getRowOffsetPerColumnFamily() > 0) {
+      return false;
+    }
+    if (coprocessorHost != null && coprocessorHost.hasCoprocessors()) {
+      return false;
+    }
+    for (Map.Entry<byte[], NavigableSet<byte[]>> entry : get.getFamilyMap().entrySet()) {
+      if (entry.getValue() == null || entry.getValue().isEmpty()) {
+        return false;
+      }
+      ScanInfo scanInfo = this.stores.get(entry.getKey()).getScanInfo();
+      if (scanInfo.getMinVersions() > 0 || scanInfo.getKeepDeletedCells()
+          || scanInfo.isDeltaCounters()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /*
+   * Answers a get accepted by isPointGet family by family, with the point
+   * getter of the calling handler, at a single read point.
+   */
+  private void pointGet(Scan scan, List<Cell> results) throws IOException {
+    startRegionOperation(Operation.GET);
+    try {
+      PointGetter getter = PointGetter.get();
+      long readPt;
+      // synchronize on scannerReadPoints so that nobody calculates
+      // getSmallestReadPoint, before scannerReadPoints is updated.
+      synchronized(scannerReadPoints) {
+        readPt = getReadpoint(scan.getIsolationLevel());
+        scannerReadPoints.put(getter, readPt);
+      }
+      try {
+        for (Map.Entry<byte[], NavigableSet<byte[]>> entry : scan.getFamilyMap().entrySet()) {
+          getter.get(this.stores.get(entry.getKey()), scan, entry.getValue(), readPt, results);
+        }
+      } finally {
+        scannerReadPoints.remove(getter);
+      }
+    } finally {
+      closeRegionOperation();
+    }
   }
 
   public void mutateRow(RowMutations rm) throws IOException {
@@ -5006,6 +5361,16 @@ public class HRegion implements HeapSize { // , Writable{
 
   /**
    * Perform one or more increment operations on a row.
+   * <p>
+   * In a family keeping delta counters, the amounts are written as delta
+   * cells without reading the current values; when the increment only has
+   * such families, it does not take the row lock either. The values returned
+   * for them are read after the increment, so they may include concurrent
+   * increments.
+   * <p>
+   * When {@link #INCREMENT_COALESCE_CONFIG_KEY} is set, the increments of a
+   * row arriving while it is locked are applied together by the first of
+   * them; see {@link #coalescedIncrement(Increment, long, long)}.
    * @param increment
    * @return new keyvalues after increment
    * @throws IOException
@@ -5021,10 +5386,24 @@ public class HRegion implements HeapSize { // , Writable{
     WALEdit walEdits = null;
     List<Cell> allKVs = new ArrayList<Cell>(increment.size());
     Map<Store, List<Cell>> tempMemstore = new HashMap<Store, List<Cell>>();
+    // The delta counters to read back for the results
+    Get deltaGet = null;
 
     long size = 0;
     long txid = 0;
 
+    boolean deltasOnly = true;
+    for (byte [] family : increment.getFamilyCellMap().keySet()) {
+      Store store = stores.get(family);
+      if (store == null || !store.getFamily().isDeltaCounters()) {
+        deltasOnly = false;
+      }
+    }
+
+    if (this.isIncrementCoalescingEnabled && canCoalesce(increment)) {
+      return coalescedIncrement(increment, nonceGroup, nonce);
+    }
+
     checkReadOnly();
     checkResources();
     // Lock row
@@ -5032,12 +5411,15 @@ public class HRegion implements HeapSize { // , Writable{
     this.writeRequestsCount.increment();
     WriteEntry w = null;
     try {
-      RowLock rowLock = getRowLock(row);
+      // Deltas need neither the row lock nor the latest state
+      RowLock rowLock = deltasOnly ? null : getRowLock(row);
       try {
         lock(this.updatesLock.readLock());
-        // wait for all prior MVCC transactions to finish - while we hold the row lock
-        // (so that we are guaranteed to see the latest state)
-        mvcc.completeMemstoreInsert(mvcc.beginMemstoreInsert());
+        if (!deltasOnly) {
+          // wait for all prior MVCC transactions to finish - while we hold the row lock
+          // (so that we are guaranteed to see the latest state)
+          mvcc.completeMemstoreInsert(mvcc.beginMemstoreInsert());
+        }
         // now start my own transaction
         w = mvcc.beginMemstoreInsert();
         try {
@@ -5047,21 +5429,40 @@ public class HRegion implements HeapSize { // , Writable{
               increment.getFamilyCellMap().entrySet()) {
 
             Store store = stores.get(family.getKey());
+            boolean deltaCounters = store.getFamily().isDeltaCounters();
             List<Cell> kvs = new ArrayList<Cell>(family.getValue().size());
 
-            // Get previous values for all columns in this family
-            Get get = new Get(row);
-            for (Cell cell: family.getValue()) {
-              KeyValue kv = KeyValueUtil.ensureKeyValue(cell);
-              get.addColumn(family.getKey(), kv.getQualifier());
+            List<Cell> results;
+            if (deltaCounters) {
+              // The amounts are written as they are, and added up by reads
+              results = Collections.emptyList();
+              if (increment.isReturnResults()) {
+                if (deltaGet == null) {
+                  deltaGet = new Get(row);
+                }
+                for (Cell cell: family.getValue()) {
+                  deltaGet.addColumn(family.getKey(), CellUtil.cloneQualifier(cell));
+                }
+              }
+            } else {
+              // Get previous values for all columns in this family
+              Get get = new Get(row);
+              for (Cell cell: family.getValue()) {
+                KeyValue kv = KeyValueUtil.ensureKeyValue(cell);
+                get.addColumn(family.getKey(), kv.getQualifier());
+              }
+              get.setTimeRange(tr.getMin(), tr.getMax());
+              results = get(get, false);
             }
-            get.setTimeRange(tr.getMin(), tr.getMax());
-            List<Cell> results = get(get, false);
 
             // Iterate the input columns and update existing values if they were
             // found, otherwise add new column initialized to the increment amount
             int idx = 0;
             for (Cell kv: family.getValue()) {
+              if (deltaCounters && kv.getValueLength() != Bytes.SIZEOF_LONG) {
+                throw new org.apache.hadoop.hbase.DoNotRetryIOException(
+                    "Attempted to increment by an amount that isn't 64 bits wide");
+              }
               long amount = Bytes.toLong(CellUtil.cloneValue(kv));
               Cell c = null;
               if (idx < results.size() && CellUtil.matchingQualifier(results.get(idx), kv)) {
@@ -5082,7 +5483,8 @@ public class HRegion implements HeapSize { // , Writable{
               int oldCellTagsLen = (c == null) ? 0 : c.getTagsLength();
               int incCellTagsLen = kv.getTagsLength();
               KeyValue newKV = new KeyValue(row.length, family.getKey().length, q.length, now,
-                  KeyValue.Type.Put, val.length, oldCellTagsLen + incCellTagsLen);
+                  deltaCounters ? KeyValue.Type.Delta : KeyValue.Type.Put, val.length,
+                  oldCellTagsLen + incCellTagsLen);
               System.arraycopy(row, 0, newKV.getBuffer(), newKV.getRowOffset(), row.length);
               System.arraycopy(family.getKey(), 0, newKV.getBuffer(), newKV.getFamilyOffset(),
                   family.getKey().length);
@@ -5134,17 +5536,20 @@ public class HRegion implements HeapSize { // , Writable{
           //Actually write to Memstore now
           for (Map.Entry<Store, List<Cell>> entry : tempMemstore.entrySet()) {
             Store store = entry.getKey();
-            if (store.getFamily().getMaxVersions() == 1) {
+            boolean deltaCounters = store.getFamily().isDeltaCounters();
+            if (store.getFamily().getMaxVersions() == 1 && !deltaCounters) {
               // upsert if VERSIONS for this CF == 1
               size += store.upsert(entry.getValue(), getSmallestReadPoint());
             } else {
-              // otherwise keep older versions around
+              // otherwise keep older versions around, or the other deltas
               for (Cell cell : entry.getValue()) {
                 KeyValue kv = KeyValueUtil.ensureKeyValue(cell);
                 size += store.add(kv);
               }
             }
-            allKVs.addAll(entry.getValue());
+            if (!deltaCounters) {
+              allKVs.addAll(entry.getValue());
+            }
           }
           size = this.addAndGetGlobalMemstoreSize(size);
           flush = isFlushSize(size);
@@ -5152,7 +5557,9 @@ public class HRegion implements HeapSize { // , Writable{
           this.updatesLock.readLock().unlock();
         }
       } finally {
-        rowLock.release();
+        if (rowLock != null) {
+          rowLock.release();
+        }
       }
       if (writeToWAL) {
         // sync the transaction log outside the rowlock
@@ -5173,9 +5580,277 @@ public class HRegion implements HeapSize { // , Writable{
       requestFlush();
     }
 
+    if (!increment.isReturnResults()) {
+      return null;
+    }
+    if (deltaGet != null) {
+      // Now that the deltas are visible, read the counters they were added to
+      allKVs.addAll(get(deltaGet, false));
+      Collections.sort(allKVs, KeyValue.COMPARATOR);
+    }
     return Result.create(allKVs);
   }
 
+  /**
+   * @return whether the increment can be applied together with others of its
+   * row: it reads the latest values of plain counters, and nothing needs to
+   * see it alone
+   */
+  boolean canCoalesce(Increment increment) {
+    // Regions of a region server always have a coprocessor host, mostly empty
+    if ((this.coprocessorHost != null && this.coprocessorHost.hasCoprocessors())
+        || !increment.getTimeRange().isAllTime()) {
+      return false;
+    }
+    for (Map.Entry<byte [], List<Cell>> family : increment.getFamilyCellMap().entrySet()) {
+      Store store = stores.get(family.getKey());
+      if (store == null || store.getFamily().isDeltaCounters()) {
+        return false;
+      }
+      for (Cell cell : family.getValue()) {
+        if (cell.getTagsLength() > 0 || cell.getValueLength() != Bytes.SIZEOF_LONG) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Applies the increment together with the other increments of its row
+   * arriving while the row is locked. The first of them waits for the row
+   * lock, then reads the current values once and applies all the increments
+   * of the batch in turn, each seeing the values left by the previous one,
+   * and returning them to its caller. Each increment is still written to the
+   * WAL as an edit of its own, with its nonce, so that replaying the WAL
+   * keeps the increments idempotent; the edits are synced once. The memstore
+   * only gets the final values.
+   */
+  private Result coalescedIncrement(Increment increment, long nonceGroup, long nonce)
+      throws IOException {
+    checkReadOnly();
+    checkResources();
+    this.writeRequestsCount.increment();
+    HashedBytes rowKey = new HashedBytes(increment.getRow());
+    PendingIncrement pending = new PendingIncrement(increment, nonceGroup, nonce);
+    IncrementBatch batch;
+    while (true) {
+      batch = pendingIncrements.get(rowKey);
+      if (batch == null) {
+        IncrementBatch newBatch = new IncrementBatch();
+        batch = pendingIncrements.putIfAbsent(rowKey, newBatch);
+        if (batch == null) {
+          batch = newBatch;
+        }
+      }
+      if (batch.add(pending)) {
+        break;
+      }
+      // The batch is being applied already
+      pendingIncrements.remove(rowKey, batch);
+    }
+
+    if (pending.leader) {
+      IOException error = null;
+      boolean applied = false;
+      try {
+        applyIncrementBatch(rowKey, batch);
+        applied = true;
+      } catch (IOException e) {
+        error = e;
+      } finally {
+        pendingIncrements.remove(rowKey, batch);
+        if (!applied && error == null) {
+          error = new IOException("Failed applying the increments of row " + rowKey);
+        }
+        batch.complete(error);
+      }
+    } else {
+      batch.await();
+    }
+    if (this.metricsRegion != null) {
+      this.metricsRegion.updateIncrement();
+    }
+    if (pending.error != null) {
+      throw pending.error;
+    }
+    return pending.result;
+  }
+
+  private void applyIncrementBatch(HashedBytes rowKey, IncrementBatch batch)
+      throws IOException {
+    byte [] row = rowKey.getBytes();
+    boolean flush = false;
+    long size = 0;
+    long txid = 0;
+    // The strongest durability asked for by the increments writing to the WAL
+    Durability durability = null;
+
+    startRegionOperation(Operation.INCREMENT);
+    WriteEntry w = null;
+    try {
+      RowLock rowLock = getRowLock(row);
+      try {
+        // Increments arriving from now on start a batch of their own
+        pendingIncrements.remove(rowKey, batch);
+        List<PendingIncrement> increments = batch.close();
+        lock(this.updatesLock.readLock());
+        // wait for all prior MVCC transactions to finish - while we hold the row lock
+        // (so that we are guaranteed to see the latest state)
+        mvcc.completeMemstoreInsert(mvcc.beginMemstoreInsert());
+        // now start my own transaction
+        w = mvcc.beginMemstoreInsert();
+        try {
+          long now = EnvironmentEdgeManager.currentTimeMillis();
+          // Get the previous values of all the columns of the batch at once
+          Get get = new Get(row);
+          for (PendingIncrement pending : increments) {
+            for (Map.Entry<byte [], List<Cell>> family :
+                pending.increment.getFamilyCellMap().entrySet()) {
+              for (Cell cell : family.getValue()) {
+                get.addColumn(family.getKey(), CellUtil.cloneQualifier(cell));
+              }
+            }
+          }
+          Map<byte [], NavigableMap<byte [], Cell>> values =
+              new TreeMap<byte [], NavigableMap<byte [], Cell>>(Bytes.BYTES_COMPARATOR);
+          for (Cell cell : get(get, false)) {
+            columnsOf(values, CellUtil.cloneFamily(cell)).put(CellUtil.cloneQualifier(cell), cell);
+          }
+          // The new cells to write to the memstore
+          Map<byte [], NavigableMap<byte [], Cell>> updates =
+              new TreeMap<byte [], NavigableMap<byte [], Cell>>(Bytes.BYTES_COMPARATOR);
+
+          for (PendingIncrement pending : increments) {
+            if (!checkCounters(pending, values)) {
+              continue;
+            }
+            List<Cell> kvs = new ArrayList<Cell>(pending.increment.size());
+            for (Map.Entry<byte [], List<Cell>> family :
+                pending.increment.getFamilyCellMap().entrySet()) {
+              NavigableMap<byte [], Cell> columns = columnsOf(values, family.getKey());
+              for (Cell cell : family.getValue()) {
+                byte [] q = CellUtil.cloneQualifier(cell);
+                Cell c = columns.get(q);
+                long amount = Bytes.toLong(cell.getValueArray(), cell.getValueOffset(),
+                    Bytes.SIZEOF_LONG);
+                if (c != null) {
+                  amount += Bytes.toLong(c.getValueArray(), c.getValueOffset(), Bytes.SIZEOF_LONG);
+                }
+                byte [] val = Bytes.toBytes(amount);
+                int oldCellTagsLen = (c == null) ? 0 : c.getTagsLength();
+                KeyValue newKV = new KeyValue(row.length, family.getKey().length, q.length, now,
+                    KeyValue.Type.Put, val.length, oldCellTagsLen);
+                System.arraycopy(row, 0, newKV.getBuffer(), newKV.getRowOffset(), row.length);
+                System.arraycopy(family.getKey(), 0, newKV.getBuffer(), newKV.getFamilyOffset(),
+                    family.getKey().length);
+                System.arraycopy(q, 0, newKV.getBuffer(), newKV.getQualifierOffset(), q.length);
+                System.arraycopy(val, 0, newKV.getBuffer(), newKV.getValueOffset(), val.length);
+                if (oldCellTagsLen > 0) {
+                  System.arraycopy(c.getTagsArray(), c.getTagsOffset(), newKV.getBuffer(),
+                      newKV.getTagsOffset(), oldCellTagsLen);
+                }
+                newKV.setMvccVersion(w.getWriteNumber());
+                columns.put(q, newKV);
+                columnsOf(updates, family.getKey()).put(q, newKV);
+                kvs.add(newKV);
+              }
+            }
+
+            Durability d = getEffectiveDurability(pending.increment.getDurability());
+            if (d != Durability.SKIP_WAL) {
+              WALEdit walEdits = new WALEdit();
+              for (Cell kv : kvs) {
+                walEdits.add(KeyValueUtil.ensureKeyValue(kv));
+              }
+              txid = this.log.appendNoSync(this.getRegionInfo(),
+                this.htableDescriptor.getTableName(), walEdits, new ArrayList<UUID>(),
+                EnvironmentEdgeManager.currentTimeMillis(), this.htableDescriptor,
+                this.sequenceId, true, pending.nonceGroup, pending.nonce);
+              if (durability == null || d.ordinal() > durability.ordinal()) {
+                durability = d;
+              }
+            } else {
+              recordMutationWithoutWal(pending.increment.getFamilyCellMap());
+            }
+            if (pending.increment.isReturnResults()) {
+              pending.result = Result.create(kvs);
+            }
+          }
+
+          //Actually write to Memstore now
+          for (Map.Entry<byte [], NavigableMap<byte [], Cell>> family : updates.entrySet()) {
+            Store store = stores.get(family.getKey());
+            List<Cell> kvs = new ArrayList<Cell>(family.getValue().values());
+            if (store.getFamily().getMaxVersions() == 1) {
+              // upsert if VERSIONS for this CF == 1
+              size += store.upsert(kvs, getSmallestReadPoint());
+            } else {
+              // otherwise keep older versions around
+              for (Cell cell : kvs) {
+                size += store.add(KeyValueUtil.ensureKeyValue(cell));
+              }
+            }
+          }
+          size = this.addAndGetGlobalMemstoreSize(size);
+          flush = isFlushSize(size);
+        } finally {
+          this.updatesLock.readLock().unlock();
+        }
+      } finally {
+        rowLock.release();
+      }
+      if (durability != null) {
+        // sync the transaction log outside the rowlock
+        syncOrDefer(txid, durability);
+      }
+    } finally {
+      if (w != null) {
+        mvcc.completeMemstoreInsert(w);
+      }
+      closeRegionOperation();
+    }
+
+    if (flush) {
+      // Request a cache flush.  Do it outside update lock.
+      requestFlush();
+    }
+  }
+
+  /**
+   * @return whether all the columns the increment adds to hold counters; when
+   * not, the increment fails alone
+   */
+  private static boolean checkCounters(PendingIncrement pending,
+      Map<byte [], NavigableMap<byte [], Cell>> values) {
+    for (Map.Entry<byte [], List<Cell>> family :
+        pending.increment.getFamilyCellMap().entrySet()) {
+      NavigableMap<byte [], Cell> columns = values.get(family.getKey());
+      if (columns == null) {
+        continue;
+      }
+      for (Cell cell : family.getValue()) {
+        Cell c = columns.get(CellUtil.cloneQualifier(cell));
+        if (c != null && c.getValueLength() != Bytes.SIZEOF_LONG) {
+          pending.error = new DoNotRetryIOException(
+              "Attempted to increment field that isn't 64 bits wide");
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static NavigableMap<byte [], Cell> columnsOf(
+      Map<byte [], NavigableMap<byte [], Cell>> cells, byte [] family) {
+    NavigableMap<byte [], Cell> columns = cells.get(family);
+    if (columns == null) {
+      columns = new TreeMap<byte [], Cell>(Bytes.BYTES_COMPARATOR);
+      cells.put(family, columns);
+    }
+    return columns;
+  }
+
   //
   // New HBASE-880 Helpers
   //
@@ -5192,9 +5867,9 @@ public class HRegion implements HeapSize { // , Writable{
   public static final long FIXED_OVERHEAD = ClassSize.align(
       ClassSize.OBJECT +
       ClassSize.ARRAY +
-      41 * ClassSize.REFERENCE + 2 * Bytes.SIZEOF_INT +
+      42 * ClassSize.REFERENCE + 2 * Bytes.SIZEOF_INT +
       (11 * Bytes.SIZEOF_LONG) +
-      5 * Bytes.SIZEOF_BOOLEAN);
+      7 * Bytes.SIZEOF_BOOLEAN);
 
   // woefully out of date - currently missing:
   // 1 x HashMap - coprocessorServiceHandlers
@@ -5210,10 +5885,10 @@ public class HRegion implements HeapSize { // , Writable{
       ClassSize.OBJECT + // closeLock
       (2 * ClassSize.ATOMIC_BOOLEAN) + // closed, closing
       (3 * ClassSize.ATOMIC_LONG) + // memStoreSize, numPutsWithoutWAL, dataInMemoryWithoutWAL
-      (2 * ClassSize.CONCURRENT_HASHMAP) +  // lockedRows, scannerReadPoints
+      (3 * ClassSize.CONCURRENT_HASHMAP) +  // lockedRows, pendingIncrements, scannerReadPoints
       WriteState.HEAP_SIZE + // writestate
       ClassSize.CONCURRENT_SKIPLISTMAP + ClassSize.CONCURRENT_SKIPLISTMAP_ENTRY + // stores
-      (2 * ClassSize.REENTRANT_LOCK) + // lock, updatesLock
+      (2 * StripedReadWriteLock.DEEP_OVERHEAD) + // lock, updatesLock
       ClassSize.ARRAYLIST + // recentFlushes
       MultiVersionConsistencyControl.FIXED_SIZE // mvcc
       + ClassSize.TREEMAP // maxSeqIdInStores
@@ -5479,6 +6154,11 @@ public class HRegion implements HeapSize { // , Writable{
     this.coprocessorHost = coprocessorHost;
   }
 
+  /** @return the comparator of the keys of this region */
+  public KeyValue.KVComparator getComparator() {
+    return this.comparator;
+  }
+
   /**
    * This method needs to be called before any public call that reads or
    * modifies data. It has to be called just before a try.
@@ -5637,34 +6317,48 @@ public class HRegion implements HeapSize { // , Writable{
    * @throws IOException If anything goes wrong with DFS
    */
   private void syncOrDefer(long txid, Durability durability) throws IOException {
-    if (this.getRegionInfo().isMetaRegion()) {
+    if (isSyncNeeded(durability)) {
       this.log.sync(txid);
-    } else {
-      switch(durability) {
-      case USE_DEFAULT:
-        // do what table defaults to
-        if (shouldSyncLog()) {
-          this.log.sync(txid);
-        }
-        break;
-      case SKIP_WAL:
-        // nothing do to
-        break;
-      case ASYNC_WAL:
-        // defer the sync, unless we globally can't
-        if (this.deferredLogSyncDisabled) {
-          this.log.sync(txid);
-        }
-        break;
-      case SYNC_WAL:
-      case FSYNC_WAL:
-        // sync the WAL edit (SYNC and FSYNC treated the same for now)
-        this.log.sync(txid);
-        break;
-      }
     }
   }
 
+  /**
+   * @return whether edits of the given durability are synced right away
+   */
+  private boolean isSyncNeeded(Durability durability) {
+    if (this.getRegionInfo().isMetaRegion()) {
+      return true;
+    }
+    switch(durability) {
+    case USE_DEFAULT:
+      // do what table defaults to
+      return shouldSyncLog();
+    case SKIP_WAL:
+      // nothing do to
+      return false;
+    case ASYNC_WAL:
+      // defer the sync, unless we globally can't
+      return this.deferredLogSyncDisabled;
+    case SYNC_WAL:
+    case FSYNC_WAL:
+    default:
+      // sync the WAL edit (SYNC and FSYNC treated the same for now)
+      return true;
+    }
+  }
+
+  /**
+   * Makes a mini-batch left to a group commit visible once the WAL is synced,
+   * or removes it from the memstore if the sync failed.
+   */
+  private void completeMiniBatch(PendingMiniBatch miniBatch, boolean synced) {
+    if (!synced) {
+      rollbackMemstore(miniBatch.batchOp, miniBatch.familyMaps, miniBatch.firstIndex,
+          miniBatch.lastIndexExclusive);
+    }
+    mvcc.completeMemstoreInsert(miniBatch.w);
+  }
+
   /**
    * Check whether we should sync the log from the table's durability settings
    */
@@ -5888,6 +6582,202 @@ public class HRegion implements HeapSize { // , Writable{
     }
   }
 
+  /**
+   * Mini-batches of mutations, possibly of several regions, appended to the
+   * WAL and waiting for one shared sync before they are made visible. Used by
+   * the region server to sync a multi call once instead of once per region.
+   * Not thread safe: a group belongs to the call filling it.
+   */
+  static class GroupCommit {
+    // Each pending mini-batch holds back the mvcc of its region, which only
+    // has room for so many writes in progress
+    private static final int MAX_PENDING = 64;
+
+    private final List<PendingMiniBatch> pending = new ArrayList<PendingMiniBatch>();
+
+    void add(PendingMiniBatch miniBatch) {
+      pending.add(miniBatch);
+    }
+
+    boolean isEmpty() {
+      return pending.isEmpty();
+    }
+
+    boolean isFull() {
+      return pending.size() >= MAX_PENDING;
+    }
+
+    /**
+     * Syncs the WAL up to the last edit of the pending mini-batches, then makes
+     * them visible. If the sync fails, they are rolled back, and each of their
+     * mutations reported done is passed to {@link #rolledBack(Mutation, IOException)}.
+     */
+    void complete() {
+      if (pending.isEmpty()) {
+        return;
+      }
+      // The regions of a server usually share their WAL
+      Map<HLog, Long> txids = new IdentityHashMap<HLog, Long>();
+      for (PendingMiniBatch miniBatch : pending) {
+        Long txid = txids.get(miniBatch.region.log);
+        if (txid == null || txid < miniBatch.txid) {
+          txids.put(miniBatch.region.log, miniBatch.txid);
+        }
+      }
+      IOException failure = null;
+      try {
+        for (Map.Entry<HLog, Long> entry : txids.entrySet()) {
+          entry.getKey().sync(entry.getValue());
+        }
+      } catch (IOException e) {
+        LOG.warn("Failed syncing the WAL for " + pending.size() + " mini-batches", e);
+        failure = e;
+      } finally {
+        List<PendingMiniBatch> completed = new ArrayList<PendingMiniBatch>(pending);
+        pending.clear();
+        for (PendingMiniBatch miniBatch : completed) {
+          miniBatch.region.completeMiniBatch(miniBatch, failure == null);
+        }
+        if (failure != null) {
+          for (PendingMiniBatch miniBatch : completed) {
+            for (int i = miniBatch.firstIndex; i < miniBatch.lastIndexExclusive; i++) {
+              if (miniBatch.batchOp.retCodeDetails[i].getOperationStatusCode()
+                  == OperationStatusCode.SUCCESS) {
+                rolledBack(miniBatch.batchOp.getMutation(i), failure);
+              }
+            }
+          }
+        }
+      }
+    }
+
+    /**
+     * Called for each mutation its mini-batch reported done, once rolled back
+     * because the WAL sync of the group failed.
+     * @param mutation the mutation rolled back
+     * @param e the failure of the sync
+     */
+    protected void rolledBack(Mutation mutation, IOException e) {
+    }
+  }
+
+  /**
+   * A mini-batch appended to the WAL and waiting in a {@link GroupCommit}.
+   */
+  private static class PendingMiniBatch {
+    final HRegion region;
+    final BatchOperationInProgress<?> batchOp;
+    final Map<byte[], List<Cell>>[] familyMaps;
+    final int firstIndex;
+    final int lastIndexExclusive;
+    final long txid;
+    final WriteEntry w;
+
+    PendingMiniBatch(HRegion region, BatchOperationInProgress<?> batchOp,
+        Map<byte[], List<Cell>>[] familyMaps, int firstIndex, int lastIndexExclusive, long txid,
+        WriteEntry w) {
+      this.region = region;
+      this.batchOp = batchOp;
+      this.familyMaps = familyMaps;
+      this.firstIndex = firstIndex;
+      this.lastIndexExclusive = lastIndexExclusive;
+      this.txid = txid;
+      this.w = w;
+    }
+  }
+
+  /**
+   * An increment waiting in an {@link IncrementBatch}, and its outcome.
+   */
+  private static class PendingIncrement {
+    final Increment increment;
+    final long nonceGroup;
+    final long nonce;
+    // Whether this increment applies its batch
+    boolean leader = false;
+    Result result = null;
+    IOException error = null;
+
+    PendingIncrement(Increment increment, long nonceGroup, long nonce) {
+      this.increment = increment;
+      this.nonceGroup = nonceGroup;
+      this.nonce = nonce;
+    }
+  }
+
+  /**
+   * The increments of a row applied together by the first of them.
+   */
+  private static class IncrementBatch {
+    private final List<PendingIncrement> increments = new ArrayList<PendingIncrement>();
+    private boolean closed = false;
+    private boolean done = false;
+
+    /**
+     * @return false if the batch does not take increments anymore
+     */
+    synchronized boolean add(PendingIncrement pending) {
+      if (closed) {
+        return false;
+      }
+      pending.leader = increments.isEmpty();
+      increments.add(pending);
+      return true;
+    }
+
+    /**
+     * Stops taking increments.
+     * @return the increments of the batch
+     */
+    synchronized List<PendingIncrement> close() {
+      closed = true;
+      return increments;
+    }
+
+    /**
+     * Wakes up the increments waiting for the batch to be applied.
+     * @param error the failure of the whole batch, if any
+     */
+    synchronized void complete(IOException error) {
+      closed = true;
+      done = true;
+      if (error != null) {
+        for (PendingIncrement pending : increments) {
+          if (pending.error == null) {
+            pending.error = error;
+          }
+        }
+      }
+      notifyAll();
+    }
+
+    /**
+     * Waits for the batch to be applied. The increment may be applied already,
+     * so this does not give up when interrupted.
+     */
+    synchronized void await() {
+      boolean interrupted = false;
+      while (!done) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * @return the total time in milliseconds threads waited for the lock that
+   * flushes take to block updates
+   */
+  long getUpdatesLockWaitTime() {
+    return updatesLock.getWaitTime();
+  }
+
   /**
    * Lock the updates' readLock first, so that we could safely append logs in coprocessors.
    * @throws RegionTooBusyException
@@ -34,7 +34,9 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -46,6 +48,7 @@ import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import javax.management.ObjectName;
@@ -98,6 +101,8 @@ import org.apache.hadoop.hbase.exceptions.OperationConflictException;
 import org.apache.hadoop.hbase.exceptions.OutOfOrderScannerNextException;
 import org.apache.hadoop.hbase.exceptions.RegionMovedException;
 import org.apache.hadoop.hbase.exceptions.RegionOpeningException;
+import org.apache.hadoop.hbase.executor.EventHandler;
+import org.apache.hadoop.hbase.executor.EventType;
 import org.apache.hadoop.hbase.executor.ExecutorService;
 import org.apache.hadoop.hbase.executor.ExecutorType;
 import org.apache.hadoop.hbase.filter.ByteArrayComparable;
@@ -271,6 +276,32 @@ public class HRegionServer implements ClientProtos.ClientService.BlockingInterfa
 
   protected long maxScannerResultSize;
 
+  /**
+   * Whether to read the next batch of a scanner in the background once a scan
+   * call returned, so that the next call can be answered right away.
+   */
+  public static final String SCANNER_READ_AHEAD_KEY = "hbase.regionserver.scanner.readahead";
+  /** The number of threads reading scanner batches ahead */
+  public static final String SCANNER_READ_AHEAD_THREADS_KEY =
+      "hbase.regionserver.scanner.readahead.threads";
+  /** The most memory the batches read ahead take, for all the scanners */
+  public static final String SCANNER_READ_AHEAD_MAX_SIZE_KEY =
+      "hbase.regionserver.scanner.readahead.max.size";
+
+  /**
+   * Whether the puts and deletes of a multi call are synced to the WAL once
+   * for all the regions of the call, rather than once per region.
+   */
+  public static final String MULTI_GROUP_COMMIT_KEY = "hbase.regionserver.multi.groupcommit";
+
+  private final boolean multiGroupCommit;
+
+  private final boolean scannerReadAhead;
+  private final int scannerReadAheadThreads;
+  private final long scannerReadAheadMaxSize;
+  // Memory taken by, or set aside for, the batches read ahead
+  private final AtomicLong scannerReadAheadSize = new AtomicLong(0);
+
   // Cache flushing
   protected MemStoreFlusher cacheFlusher;
 
@@ -560,6 +591,11 @@ public class HRegionServer implements ClientProtos.ClientService.BlockingInterfa
     this.maxScannerResultSize = conf.getLong(
       HConstants.HBASE_CLIENT_SCANNER_MAX_RESULT_SIZE_KEY,
       HConstants.DEFAULT_HBASE_CLIENT_SCANNER_MAX_RESULT_SIZE);
+    this.multiGroupCommit = conf.getBoolean(MULTI_GROUP_COMMIT_KEY, false);
+    this.scannerReadAhead = conf.getBoolean(SCANNER_READ_AHEAD_KEY, false);
+    this.scannerReadAheadThreads = conf.getInt(SCANNER_READ_AHEAD_THREADS_KEY, 10);
+    this.scannerReadAheadMaxSize = conf.getLong(SCANNER_READ_AHEAD_MAX_SIZE_KEY,
+      64 * 1024 * 1024);
 
     this.numRegionsToReport = conf.getInt(
       "hbase.regionserver.numregionstoreport", 10);
@@ -1583,6 +1619,10 @@ public class HRegionServer implements ClientProtos.ClientService.BlockingInterfa
       this.service.startExecutorService(ExecutorType.RS_PARALLEL_SEEK,
         conf.getInt("hbase.storescanner.parallel.seek.threads", 10));
     }
+    if (this.scannerReadAhead) {
+      this.service.startExecutorService(ExecutorType.RS_SCANNER_READ_AHEAD,
+        this.scannerReadAheadThreads);
+    }
 
     Threads.setDaemonThreadRunning(this.hlogRoller.getThread(), n + ".logRoller",
         uncaughtExceptionHandler);
@@ -2435,6 +2475,7 @@ public class HRegionServer implements ClientProtos.ClientService.BlockingInterfa
     public void leaseExpired() {
       RegionScannerHolder rsh = scanners.remove(this.scannerName);
       if (rsh != null) {
+        releaseReadAhead(rsh);
         RegionScanner s = rsh.s;
         LOG.info("Scanner " + this.scannerName + " lease expired on region "
             + s.getRegionInfo().getRegionNameAsString());
@@ -3026,6 +3067,8 @@ public class HRegionServer implements ClientProtos.ClientService.BlockingInterfa
       RegionScanner scanner = null;
       RegionScannerHolder rsh = null;
       boolean moreResults = true;
+      boolean readAhead = false;
+      long maxResultSize = 0;
       boolean closeScanner = false;
       ScanResponse.Builder builder = ScanResponse.newBuilder();
       if (request.hasCloseScanner()) {
@@ -3120,19 +3163,34 @@ public class HRegionServer implements ClientProtos.ClientService.BlockingInterfa
           }
 
           if (!done) {
-            long maxResultSize = scanner.getMaxResultSize();
+            maxResultSize = scanner.getMaxResultSize();
             if (maxResultSize <= 0) {
               maxResultSize = maxScannerResultSize;
             }
+            if (rsh == null) {
+              rsh = scanners.get(scannerName);
+            }
+            // Rows read ahead come first, being the next ones of the scanner
+            int wanted = rows;
+            boolean moreRows = true;
+            if (rsh != null) {
+              int taken = results.size();
+              currentScanResultSize += takeReadAhead(rsh, results, rows);
+              wanted -= results.size() - taken;
+              synchronized (rsh) {
+                // The read ahead may have reached the end of the scanner
+                moreRows = !rsh.readAheadDone;
+              }
+            }
             List<Cell> values = new ArrayList<Cell>();
             region.startRegionOperation(Operation.SCAN);
             try {
               int i = 0;
               synchronized(scanner) {
-                for (; i < rows
+                for (; moreRows && i < wanted
                     && currentScanResultSize < maxResultSize; i++) {
                   // Collect values to be returned here
-                  boolean moreRows = scanner.nextRaw(values);
+                  moreRows = scanner.nextRaw(values);
                   if (!values.isEmpty()) {
                     if (maxScannerResultSize < Long.MAX_VALUE){
                       for (Cell kv : values) {
@@ -3156,6 +3214,11 @@ public class HRegionServer implements ClientProtos.ClientService.BlockingInterfa
             if (region != null && region.getCoprocessorHost() != null) {
               region.getCoprocessorHost().postScannerNext(scanner, results, rows, true);
             }
+            // Coprocessors see every batch as the client asks for it, so their
+            // scanners are not read ahead
+            readAhead = scannerReadAhead && rsh != null && moreRows && !closeScanner
+                && (region.getCoprocessorHost() == null
+                    || !region.getCoprocessorHost().hasCoprocessors());
           }
 
           // If the scanner's filter - if any - is done with the scan
@@ -3175,6 +3238,9 @@ public class HRegionServer implements ClientProtos.ClientService.BlockingInterfa
             ttl = this.scannerLeaseTimeoutPeriod;
           }
         }
+        if (readAhead && moreResults) {
+          scheduleReadAhead(rsh, rows, maxResultSize);
+        }
       }
 
       if (!moreResults || closeScanner) {
@@ -3187,6 +3253,7 @@ public class HRegionServer implements ClientProtos.ClientService.BlockingInterfa
         }
         rsh = scanners.remove(scannerName);
         if (rsh != null) {
+          releaseReadAhead(rsh);
           scanner = rsh.s;
           scanner.close();
           leases.cancelLease(scannerName);
@@ -3204,7 +3271,10 @@ public class HRegionServer implements ClientProtos.ClientService.BlockingInterfa
       return builder.build();
     } catch (IOException ie) {
       if (scannerName != null && ie instanceof NotServingRegionException) {
-        scanners.remove(scannerName);
+        RegionScannerHolder rsh = scanners.remove(scannerName);
+        if (rsh != null) {
+          releaseReadAhead(rsh);
+        }
       }
       throw new ServiceException(ie);
     }
@@ -3227,6 +3297,170 @@ public class HRegionServer implements ClientProtos.ClientService.BlockingInterfa
     }
   }
 
+  /*
+   * Sets aside part of the read ahead memory for the next batch of the
+   * scanner and reads it on the read ahead executor. Every thread gets an
+   * equal share of the memory. Does nothing when there is not enough left.
+   */
+  private void scheduleReadAhead(final RegionScannerHolder rsh, final int rows,
+      long maxResultSize) {
+    long share = scannerReadAheadMaxSize / scannerReadAheadThreads;
+    long reserved;
+    while (true) {
+      long used = scannerReadAheadSize.get();
+      reserved = Math.min(Math.min(maxResultSize, share), scannerReadAheadMaxSize - used);
+      if (reserved <= 0) {
+        return;
+      }
+      if (scannerReadAheadSize.compareAndSet(used, used + reserved)) {
+        break;
+      }
+    }
+    synchronized (rsh) {
+      if (rsh.released || rsh.readingAhead || rsh.readAhead != null
+          || rsh.readAheadError != null) {
+        scannerReadAheadSize.addAndGet(-reserved);
+        return;
+      }
+      rsh.readingAhead = true;
+      rsh.readAheadReserved = reserved;
+    }
+    final long limit = reserved;
+    this.service.submit(new EventHandler(this, EventType.RS_SCANNER_READ_AHEAD) {
+      @Override
+      public void process() {
+        readAhead(rsh, rows, limit);
+      }
+    });
+  }
+
+  /*
+   * Reads the next batch of the scanner, as the next scan call would, and
+   * keeps it in the holder for that call.
+   */
+  private void readAhead(final RegionScannerHolder rsh, final int rows, final long limit) {
+    long before = EnvironmentEdgeManager.currentTimeMillis();
+    RegionScanner scanner = rsh.s;
+    HRegion region = rsh.r;
+    LinkedList<Result> results = new LinkedList<Result>();
+    long size = 0;
+    boolean moreRows = true;
+    IOException error = null;
+    try {
+      List<Cell> values = new ArrayList<Cell>();
+      region.startRegionOperation(Operation.SCAN);
+      try {
+        int i = 0;
+        synchronized(scanner) {
+          for (; i < rows && size < limit; i++) {
+            moreRows = scanner.nextRaw(values);
+            if (!values.isEmpty()) {
+              for (Cell kv : values) {
+                size += KeyValueUtil.ensureKeyValue(kv).heapSize();
+              }
+              results.add(Result.create(values));
+            }
+            if (!moreRows) {
+              break;
+            }
+            values.clear();
+          }
+        }
+        region.readRequestsCount.add(i);
+      } finally {
+        region.closeRegionOperation();
+      }
+    } catch (IOException e) {
+      // Thrown to the next call, whose client reopens the scanner after the
+      // last row it got, so the rows read here are not lost
+      error = e;
+    } catch (RuntimeException e) {
+      LOG.warn("Failed reading ahead a scanner of "
+          + region.getRegionNameAsString(), e);
+      error = new DoNotRetryIOException(e);
+    }
+    metricsRegionServer.updateScanReadAhead(
+        EnvironmentEdgeManager.currentTimeMillis() - before);
+    synchronized (rsh) {
+      scannerReadAheadSize.addAndGet(size - rsh.readAheadReserved);
+      rsh.readAheadReserved = 0;
+      rsh.readingAhead = false;
+      if (rsh.released) {
+        scannerReadAheadSize.addAndGet(-size);
+        metricsRegionServer.incrScanReadAheadWasted(results.size());
+      } else {
+        rsh.readAhead = results;
+        rsh.readAheadSize = size;
+        rsh.readAheadError = error;
+        rsh.readAheadDone = error == null && !moreRows;
+      }
+      rsh.notifyAll();
+    }
+  }
+
+  /*
+   * Moves up to the given number of rows read ahead of the scanner into the
+   * results, once the read ahead running is done. Throws the error of the
+   * read ahead, if any.
+   * @return the size of the rows moved
+   */
+  private long takeReadAhead(final RegionScannerHolder rsh, final List<Result> results,
+      final int rows) throws IOException {
+    synchronized (rsh) {
+      while (rsh.readingAhead) {
+        try {
+          rsh.wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("Interrupted waiting for the read ahead of a scanner");
+        }
+      }
+      if (rsh.readAheadError != null) {
+        IOException e = rsh.readAheadError;
+        rsh.readAheadError = null;
+        throw e;
+      }
+      if (rsh.readAhead == null) {
+        return 0;
+      }
+      long size = 0;
+      int taken = 0;
+      for (; taken < rows && !rsh.readAhead.isEmpty(); taken++) {
+        Result r = rsh.readAhead.removeFirst();
+        for (Cell kv : r.rawCells()) {
+          size += KeyValueUtil.ensureKeyValue(kv).heapSize();
+        }
+        results.add(r);
+      }
+      rsh.readAheadSize -= size;
+      scannerReadAheadSize.addAndGet(-size);
+      if (rsh.readAhead.isEmpty()) {
+        rsh.readAhead = null;
+        rsh.readAheadSize = 0;
+      }
+      if (taken > 0) {
+        metricsRegionServer.incrScanReadAheadHit();
+      }
+      return size;
+    }
+  }
+
+  /*
+   * Gives back the memory of the rows read ahead of a scanner being closed.
+   * A read ahead still running gives back its own when done.
+   */
+  private void releaseReadAhead(final RegionScannerHolder rsh) {
+    synchronized (rsh) {
+      rsh.released = true;
+      if (rsh.readAhead != null) {
+        scannerReadAheadSize.addAndGet(-rsh.readAheadSize);
+        metricsRegionServer.incrScanReadAheadWasted(rsh.readAhead.size());
+        rsh.readAhead = null;
+        rsh.readAheadSize = 0;
+      }
+    }
+  }
+
   /**
    * Atomically bulk load several HFiles into an open region
    * @return true if successful, false is failed but recoverably (no action)
@@ -3309,23 +3543,27 @@ public class HRegionServer implements ClientProtos.ClientService.BlockingInterfa
     // this will contain all the cells that we need to return. It's created later, if needed.
     List<CellScannable> cellsToReturn = null;
     MultiResponse.Builder responseBuilder = MultiResponse.newBuilder();
-    RegionActionResult.Builder regionActionResultBuilder = RegionActionResult.newBuilder();
+    // The puts and deletes of the regions waiting for one WAL sync
+    MultiGroupCommit groupCommit = this.multiGroupCommit
+        && request.getRegionActionCount() > 1 ? new MultiGroupCommit() : null;
 
     for (RegionAction regionAction : request.getRegionActionList()) {
       this.requestCount.add(regionAction.getActionCount());
       HRegion region;
-      regionActionResultBuilder.clear();
+      // Built with the response, so that the group commit can still fail its puts and deletes
+      RegionActionResult.Builder regionActionResultBuilder =
+          responseBuilder.addRegionActionResultBuilder();
       try {
         region = getRegion(regionAction.getRegion());
       } catch (IOException e) {
         regionActionResultBuilder.setException(ResponseConverter.buildException(e));
-        responseBuilder.addRegionActionResult(regionActionResultBuilder.build());
         continue;  // For this region it's a failure.
       }
 
       if (regionAction.hasAtomic() && regionAction.getAtomic()) {
         // How does this call happen?  It may need some work to play well w/ the surroundings.
         // Need to return an item per Action along w/ Action index.  TODO.
+        completeGroupCommit(groupCommit);
         try {
           mutateRows(region, regionAction.getActionList(), cellScanner);
         } catch (IOException e) {
@@ -3335,10 +3573,10 @@ public class HRegionServer implements ClientProtos.ClientService.BlockingInterfa
       } else {
         // doNonAtomicRegionMutation manages the exception internally
         cellsToReturn = doNonAtomicRegionMutation(region, regionAction, cellScanner,
-            regionActionResultBuilder, cellsToReturn, nonceGroup);
+            regionActionResultBuilder, cellsToReturn, nonceGroup, groupCommit);
       }
-      responseBuilder.addRegionActionResult(regionActionResultBuilder.build());
     }
+    completeGroupCommit(groupCommit);
     // Load the controller with the Cells to return.
     if (cellsToReturn != null && !cellsToReturn.isEmpty() && controller != null) {
       controller.setCellScanner(CellUtil.createCellScanner(cellsToReturn));
@@ -3355,30 +3593,46 @@ public class HRegionServer implements ClientProtos.ClientService.BlockingInterfa
    * @param builder
    * @param cellsToReturn  Could be null. May be allocated in this method.  This is what this
    * method returns as a 'result'.
+   * @param groupCommit where to leave the WAL sync of the puts and deletes; may be null
    * @return Return the <code>cellScanner</code> passed
    */
   private List<CellScannable> doNonAtomicRegionMutation(final HRegion region,
       final RegionAction actions, final CellScanner cellScanner,
-      final RegionActionResult.Builder builder, List<CellScannable> cellsToReturn, long nonceGroup) {
+      final RegionActionResult.Builder builder, List<CellScannable> cellsToReturn, long nonceGroup,
+      final MultiGroupCommit groupCommit) {
     // Gather up CONTIGUOUS Puts and Deletes in this mutations List.  Idea is that rather than do
     // one at a time, we instead pass them in batch.  Be aware that the corresponding
     // ResultOrException instance that matches each Put or Delete is then added down in the
     // doBatchOp call.  We should be staying aligned though the Put and Delete are deferred/batched
     List<ClientProtos.Action> mutations = null;
+    // Gets are gathered the same way and done together in doBatchGet, before anything else
+    // that is done in the place of the collected gets.
+    List<ClientProtos.Action> gets = null;
     for (ClientProtos.Action action: actions.getActionList()) {
       ClientProtos.ResultOrException.Builder resultOrExceptionBuilder = null;
       try {
         Result r = null;
         if (action.hasGet()) {
-          Get get = ProtobufUtil.toGet(action.getGet());
-          r = region.get(get);
+          // Collect the gets and do them in a batch
+          if (gets == null) {
+            gets = new ArrayList<ClientProtos.Action>(actions.getActionCount());
+          }
+          gets.add(action);
         } else if (action.hasMutation()) {
           MutationType type = action.getMutation().getMutateType();
-          if (type != MutationType.PUT && type != MutationType.DELETE && mutations != null &&
-              !mutations.isEmpty()) {
-            // Flush out any Puts or Deletes already collected.
-            doBatchOp(builder, region, mutations, cellScanner);
-            mutations.clear();
+          if (type != MutationType.PUT && type != MutationType.DELETE) {
+            // Gets and the other mutations see the puts and deletes before them
+            completeGroupCommit(groupCommit);
+            if (gets != null && !gets.isEmpty()) {
+              // Flush out any Gets already collected.
+              cellsToReturn = doBatchGet(builder, region, gets, cellsToReturn);
+              gets.clear();
+            }
+            if (mutations != null && !mutations.isEmpty()) {
+              // Flush out any Puts or Deletes already collected.
+              doBatchOp(builder, region, mutations, cellScanner);
+              mutations.clear();
+            }
           }
           switch (type) {
           case APPEND:
@@ -3428,9 +3682,98 @@ public class HRegionServer implements ClientProtos.ClientService.BlockingInterfa
         builder.addResultOrException(resultOrExceptionBuilder.build());
       }
     }
-    // Finish up any outstanding mutations
+    // Finish up any outstanding gets, then mutations
+    if (gets != null && !gets.isEmpty()) {
+      completeGroupCommit(groupCommit);
+      cellsToReturn = doBatchGet(builder, region, gets, cellsToReturn);
+    }
     if (mutations != null && !mutations.isEmpty()) {
-      doBatchOp(builder, region, mutations, cellScanner);
+      doBatchOp(builder, region, mutations, cellScanner, groupCommit);
+    }
+    return cellsToReturn;
+  }
+
+  /**
+   * Makes the puts and deletes left to the group commit visible, before
+   * anything that may read or wait for them.
+   */
+  private static void completeGroupCommit(final MultiGroupCommit groupCommit) {
+    if (groupCommit != null) {
+      groupCommit.complete();
+    }
+  }
+
+  /**
+   * The group commit of a multi call. Keeps the results of the puts and
+   * deletes left to it, to report them failed if the WAL sync of the group
+   * rolls them back.
+   */
+  private static class MultiGroupCommit extends HRegion.GroupCommit {
+    private final Map<Mutation, ResultOrException.Builder> results =
+        new IdentityHashMap<Mutation, ResultOrException.Builder>();
+
+    void addResult(Mutation mutation, ResultOrException.Builder result) {
+      results.put(mutation, result);
+    }
+
+    @Override
+    protected void rolledBack(Mutation mutation, IOException e) {
+      ResultOrException.Builder result = results.get(mutation);
+      if (result != null) {
+        int index = result.getIndex();
+        result.clear().mergeFrom(getResultOrException(e, index));
+      }
+    }
+  }
+
+  /**
+   * Do the gets of a batch together, then add a {@link ResultOrException} for each of them.
+   * If the batch fails, the gets are done one by one so that an exception is reported only
+   * for the gets that fail.
+   * @param builder
+   * @param region
+   * @param actions the get actions
+   * @param cellsToReturn Could be null. May be allocated in this method.
+   * @return Return the <code>cellsToReturn</code> passed, or the one allocated
+   */
+  private List<CellScannable> doBatchGet(final RegionActionResult.Builder builder,
+      final HRegion region, final List<ClientProtos.Action> actions,
+      List<CellScannable> cellsToReturn) {
+    Result[] results = null;
+    if (actions.size() > 1) {
+      try {
+        List<Get> gets = new ArrayList<Get>(actions.size());
+        for (ClientProtos.Action action : actions) {
+          gets.add(ProtobufUtil.toGet(action.getGet()));
+        }
+        results = region.get(gets);
+      } catch (IOException ie) {
+        LOG.debug("Batch of " + actions.size() + " gets failed, doing them one by one", ie);
+      }
+    }
+    for (int i = 0; i < actions.size(); i++) {
+      ClientProtos.Action action = actions.get(i);
+      ClientProtos.ResultOrException.Builder resultOrExceptionBuilder;
+      try {
+        Result r = results != null ? results[i] : region.get(ProtobufUtil.toGet(action.getGet()));
+        ClientProtos.Result pbResult = null;
+        if (isClientCellBlockSupport()) {
+          pbResult = ProtobufUtil.toResultNoData(r);
+          //  Hard to guess the size here.  Just make a rough guess.
+          if (cellsToReturn == null) cellsToReturn = new ArrayList<CellScannable>();
+          cellsToReturn.add(r);
+        } else {
+          pbResult = ProtobufUtil.toResult(r);
+        }
+        resultOrExceptionBuilder =
+          ClientProtos.ResultOrException.newBuilder().setResult(pbResult);
+      } catch (IOException ie) {
+        resultOrExceptionBuilder = ResultOrException.newBuilder().
+          setException(ResponseConverter.buildException(ie));
+      }
+      // Propagate index.
+      resultOrExceptionBuilder.setIndex(action.getIndex());
+      builder.addResultOrException(resultOrExceptionBuilder.build());
     }
     return cellsToReturn;
   }
@@ -4158,6 +4501,17 @@ public class HRegionServer implements ClientProtos.ClientService.BlockingInterfa
    */
   protected void doBatchOp(final RegionActionResult.Builder builder, final HRegion region,
       final List<ClientProtos.Action> mutations, final CellScanner cells) {
+    doBatchOp(builder, region, mutations, cells, null);
+  }
+
+  /**
+   * Execute a list of Put/Delete mutations, leaving the WAL sync to the given
+   * group commit when there is one. The group turns the results of the
+   * mutations left to it into failures if its sync fails.
+   */
+  private void doBatchOp(final RegionActionResult.Builder builder, final HRegion region,
+      final List<ClientProtos.Action> mutations, final CellScanner cells,
+      final MultiGroupCommit groupCommit) {
     Mutation[] mArray = new Mutation[mutations.size()];
     long before = EnvironmentEdgeManager.currentTimeMillis();
     boolean batchContainsPuts = false, batchContainsDelete = false;
@@ -4178,10 +4532,15 @@ public class HRegionServer implements ClientProtos.ClientService.BlockingInterfa
 
       requestCount.add(mutations.size());
       if (!region.getRegionInfo().isMetaTable()) {
+        if (groupCommit != null && cacheFlusher.isAboveHighWaterMark()) {
+          // The flushes blocking updates wait for the pending puts and deletes
+          groupCommit.complete();
+        }
         cacheFlusher.reclaimMemStoreMemory();
       }
 
-      OperationStatus codes[] = region.batchMutate(mArray);
+      OperationStatus codes[] = groupCommit != null ?
+          region.batchMutate(mArray, groupCommit) : region.batchMutate(mArray);
       for (i = 0; i < codes.length; i++) {
         int index = mutations.get(i).getIndex();
         Exception e = null;
@@ -4202,7 +4561,13 @@ public class HRegionServer implements ClientProtos.ClientService.BlockingInterfa
             break;
 
           case SUCCESS:
-            builder.addResultOrException(getResultOrException(ClientProtos.Result.getDefaultInstance(), index));
+            if (groupCommit != null) {
+              groupCommit.addResult(mArray[i], builder.addResultOrExceptionBuilder().mergeFrom(
+                  getResultOrException(ClientProtos.Result.getDefaultInstance(), index)));
+            } else {
+              builder.addResultOrException(
+                  getResultOrException(ClientProtos.Result.getDefaultInstance(), index));
+            }
             break;
         }
       }
@@ -4440,6 +4805,16 @@ public class HRegionServer implements ClientProtos.ClientService.BlockingInterfa
     private RegionScanner s;
     private long nextCallSeq = 0L;
     private HRegion r;
+    // The rows read ahead of the next call and their size, what the read
+    // ahead running sets aside, and its error. Guarded by the holder.
+    private LinkedList<Result> readAhead;
+    private long readAheadSize = 0;
+    private long readAheadReserved = 0;
+    private boolean readingAhead = false;
+    private IOException readAheadError;
+    // Whether the read ahead reached the end of the scanner
+    private boolean readAheadDone = false;
+    private boolean released = false;
 
     public RegionScannerHolder(RegionScanner s, HRegion r) {
       this.s = s;
@@ -132,6 +132,12 @@ public class HStore implements Store {
   private volatile long storeSize = 0L;
   private volatile long totalUncompressedBytes = 0L;
 
+  // Output of the flushes and compactions, for their throughput metrics.
+  private final AtomicLong flushedOutputFileSize = new AtomicLong();
+  private final AtomicLong flushTime = new AtomicLong();
+  private final AtomicLong compactedOutputFileSize = new AtomicLong();
+  private final AtomicLong compactionTime = new AtomicLong();
+
   /**
    * RWLock for store operations.
    * Locked in shared mode when the list of component stores is looked at:
@@ -716,8 +722,10 @@ public class HStore implements Store {
     IOException lastException = null;
     for (int i = 0; i < flushRetriesNumber; i++) {
       try {
+        long flushStartTime = EnvironmentEdgeManager.currentTimeMillis();
         List<Path> pathNames = flusher.flushSnapshot(
             snapshot, logCacheFlushId, snapshotTimeRangeTracker, flushedSize, status);
+        flushTime.addAndGet(EnvironmentEdgeManager.currentTimeMillis() - flushStartTime);
         Path lastPathName = null;
         try {
           for (Path pathName : pathNames) {
@@ -771,6 +779,7 @@ public class HStore implements Store {
     StoreFile.Reader r = sf.getReader();
     this.storeSize += r.length();
     this.totalUncompressedBytes += r.getTotalUncompressedBytes();
+    this.flushedOutputFileSize.addAndGet(r.length());
 
     if (LOG.isInfoEnabled()) {
       LOG.info("Added " + sf + ", entries=" + r.getEntries() +
@@ -1003,6 +1012,7 @@ public class HStore implements Store {
     try {
       // Commence the compaction.
       List<Path> newFiles = compaction.compact();
+      long compactionEndTime = EnvironmentEdgeManager.currentTimeMillis();
 
       // TODO: get rid of this!
       if (!this.conf.getBoolean("hbase.hstore.compaction.complete", true)) {
@@ -1018,6 +1028,10 @@ public class HStore implements Store {
       }
       // Do the steps necessary to complete the compaction.
       sfs = moveCompatedFilesIntoPlace(cr, newFiles);
+      compactionTime.addAndGet(compactionEndTime - compactionStartTime);
+      for (StoreFile sf : sfs) {
+        compactedOutputFileSize.addAndGet(sf.getReader().length());
+      }
       writeCompactionWalRecord(filesToCompact, sfs);
       replaceStoreFiles(filesToCompact, sfs);
       // At this point the store will use new files for all new scanners.
@@ -1683,7 +1697,9 @@ public class HStore implements Store {
         scanner = this.getCoprocessorHost().preStoreScannerOpen(this, scan, targetCols);
       }
       if (scanner == null) {
-        scanner = new StoreScanner(this, getScanInfo(), scan, targetCols, readPt);
+        scanner = scan.isReversed() ? new ReversedStoreScanner(this,
+            getScanInfo(), scan, targetCols, readPt) : new StoreScanner(this,
+            getScanInfo(), scan, targetCols, readPt);
       }
       return scanner;
     } finally {
@@ -1754,6 +1770,26 @@ public class HStore implements Store {
     return size;
   }
 
+  @Override
+  public long getFlushedOutputFileSize() {
+    return flushedOutputFileSize.get();
+  }
+
+  @Override
+  public long getFlushTime() {
+    return flushTime.get();
+  }
+
+  @Override
+  public long getCompactedOutputFileSize() {
+    return compactedOutputFileSize.get();
+  }
+
+  @Override
+  public long getCompactionTime() {
+    return compactionTime.get();
+  }
+
   @Override
   public long getMemStoreSize() {
     return this.memstore.heapSize();
@@ -1916,14 +1952,14 @@ public class HStore implements Store {
   }
 
   public static final long FIXED_OVERHEAD =
-      ClassSize.align(ClassSize.OBJECT + (15 * ClassSize.REFERENCE) + (4 * Bytes.SIZEOF_LONG)
+      ClassSize.align(ClassSize.OBJECT + (19 * ClassSize.REFERENCE) + (4 * Bytes.SIZEOF_LONG)
               + (5 * Bytes.SIZEOF_INT) + (2 * Bytes.SIZEOF_BOOLEAN));
 
   public static final long DEEP_OVERHEAD = ClassSize.align(FIXED_OVERHEAD
       + ClassSize.OBJECT + ClassSize.REENTRANT_LOCK
       + ClassSize.CONCURRENT_SKIPLISTMAP
       + ClassSize.CONCURRENT_SKIPLISTMAP_ENTRY + ClassSize.OBJECT
-      + ScanInfo.FIXED_OVERHEAD);
+      + ScanInfo.FIXED_OVERHEAD + (4 * ClassSize.ATOMIC_LONG));
 
   @Override
   public long heapSize() {
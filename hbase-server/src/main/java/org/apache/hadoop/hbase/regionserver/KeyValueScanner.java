@@ -123,4 +123,37 @@ public interface KeyValueScanner {
    *         assumed.
    */
   boolean isFileScanner();
+
+  // Support for "Reversed Scanner"
+  /**
+   * Seek the scanner at or before the row of specified KeyValue, it firstly
+   * tries to seek the scanner at or after the specified KeyValue, return if
+   * peek KeyValue of scanner has the same row with specified KeyValue,
+   * otherwise seek the scanner at the first KeyValue of the row which is the
+   * previous row of specified KeyValue
+   *
+   * @param key seek KeyValue
+   * @return true if the scanner is at the valid KeyValue, false if such
+   *         KeyValue does not exist
+   *
+   */
+  boolean backwardSeek(KeyValue key) throws IOException;
+
+  /**
+   * Seek the scanner at the first KeyValue of the row which is the previous row
+   * of specified key
+   * @param key seek value
+   * @return true if the scanner at the first valid KeyValue of previous row,
+   *         false if not existing such KeyValue
+   */
+  boolean seekToPreviousRow(KeyValue key) throws IOException;
+
+  /**
+   * Seek the scanner at the first KeyValue of last row
+   *
+   * @return true if scanner has values left, false if the underlying data is
+   *         empty
+   * @throws IOException
+   */
+  boolean seekToLastRow() throws IOException;
 }
@@ -0,0 +1,297 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hbase.regionserver;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.KeyValue.KVComparator;
+
+/**
+ * A {@link KeyValueHeap} that merges its scanners with a tournament tree of
+ * losers instead of a binary heap.
+ * <p>
+ * Every internal node of the tree holds the scanner that lost the match
+ * played at that node, and the overall winner is kept on the side. When the
+ * key of the winner changes, only the matches on the path from its leaf to the
+ * root are replayed, which takes one comparison per level. The binary heap
+ * needs up to two comparisons per level to remove its top and some more to
+ * add it back, so the tree pays off when many scanners take turns, e.g. when
+ * a store with many files is scanned. Closed scanners stay in the tree as
+ * leaves that lose every match.
+ * <p>
+ * Like the heap, this only ever moves the winner. All the invariants on the
+ * current scanner and on lazy seeks described in {@link KeyValueHeap} hold.
+ */
+@InterfaceAudience.Private
+public class LoserTreeKeyValueHeap extends KeyValueHeap {
+  /** The scanner of each leaf, null once the scanner is closed. */
+  private final KeyValueScanner[] scanners;
+
+  /**
+   * The leaf of the loser of the match at each internal node. The internal
+   * nodes are numbered from 1 with the children of node i at 2i and 2i + 1,
+   * leaf j being node j + scanners.length. Element 0 is the leaf of the
+   * overall winner.
+   */
+  private final int[] tree;
+
+  /** The number of scanners that are not closed yet. */
+  private int numOpen;
+
+  /**
+   * Constructor. This heap will handle closing of passed in KeyValueScanners.
+   * @param scanners
+   * @param comparator
+   */
+  public LoserTreeKeyValueHeap(List<? extends KeyValueScanner> scanners,
+      KVComparator comparator) throws IOException {
+    super(comparator);
+    int numLeaves = Math.max(1, scanners.size());
+    this.scanners = new KeyValueScanner[numLeaves];
+    this.tree = new int[numLeaves];
+    for (int i = 0; i < scanners.size(); ++i) {
+      KeyValueScanner scanner = scanners.get(i);
+      if (scanner.peek() != null) {
+        this.scanners[i] = scanner;
+        numOpen++;
+      } else {
+        scanner.close();
+      }
+    }
+    this.tree[0] = build(1);
+    this.current = pollRealKV();
+  }
+
+  /**
+   * Plays all the matches of the subtree rooted at the given node.
+   * @return the leaf of the winner of the subtree
+   */
+  private int build(int node) {
+    if (node >= scanners.length) {
+      return node - scanners.length;
+    }
+    int left = build(2 * node);
+    int right = build(2 * node + 1);
+    if (wins(left, right)) {
+      tree[node] = right;
+      return left;
+    }
+    tree[node] = left;
+    return right;
+  }
+
+  /**
+   * @return whether the scanner of the first leaf goes before the scanner of
+   *         the second one. A closed scanner never wins, and ties go to the
+   *         lower leaf so that the order is always the same.
+   */
+  private boolean wins(int leaf, int otherLeaf) {
+    KeyValueScanner scanner = scanners[leaf];
+    KeyValueScanner other = scanners[otherLeaf];
+    if (scanner == null || other == null) {
+      return other == null && (scanner != null || leaf < otherLeaf);
+    }
+    int comparison = comparator.compare(scanner, other);
+    return comparison < 0 || (comparison == 0 && leaf < otherLeaf);
+  }
+
+  /**
+   * Replays the matches from the leaf of the winner to the root, after the
+   * key of the winner changed or its scanner was closed.
+   */
+  private void replay() {
+    int winner = tree[0];
+    for (int node = (winner + scanners.length) >>> 1; node > 0; node >>>= 1) {
+      int loser = tree[node];
+      if (wins(loser, winner)) {
+        tree[node] = winner;
+        winner = loser;
+      }
+    }
+    tree[0] = winner;
+  }
+
+  /**
+   * Closes the scanner of the winner and lets the other ones play again.
+   */
+  private void closeWinner() {
+    int winner = tree[0];
+    scanners[winner].close();
+    scanners[winner] = null;
+    numOpen--;
+    replay();
+  }
+
+  @Override
+  public KeyValue peek() {
+    if (this.current == null) {
+      return null;
+    }
+    return this.current.peek();
+  }
+
+  @Override
+  public KeyValue next() throws IOException {
+    if (this.current == null) {
+      return null;
+    }
+    KeyValue kvReturn = this.current.next();
+    if (this.current.peek() == null) {
+      closeWinner();
+    } else {
+      replay();
+    }
+    this.current = pollRealKV();
+    return kvReturn;
+  }
+
+  @Override
+  public boolean next(List<Cell> result, int limit) throws IOException {
+    if (this.current == null) {
+      return false;
+    }
+    InternalScanner currentAsInternal = (InternalScanner)this.current;
+    boolean mayContainMoreRows = currentAsInternal.next(result, limit);
+    if (this.current.peek() == null || !mayContainMoreRows) {
+      closeWinner();
+    } else {
+      replay();
+    }
+    this.current = pollRealKV();
+    return (this.current != null);
+  }
+
+  @Override
+  public void close() {
+    for (int i = 0; i < scanners.length; ++i) {
+      if (scanners[i] != null) {
+        scanners[i].close();
+        scanners[i] = null;
+      }
+    }
+    numOpen = 0;
+    current = null;
+  }
+
+  @Override
+  public boolean seek(KeyValue seekKey) throws IOException {
+    return generalizedSeek(false, seekKey, false, false);
+  }
+
+  @Override
+  public boolean reseek(KeyValue seekKey) throws IOException {
+    return generalizedSeek(false, seekKey, true, false);
+  }
+
+  @Override
+  public boolean requestSeek(KeyValue key, boolean forward,
+      boolean useBloom) throws IOException {
+    return generalizedSeek(true, key, forward, useBloom);
+  }
+
+  /**
+   * Same as the seek of {@link KeyValueHeap}: seeks the winner until it is at
+   * or after the seek key, so all the scanners are.
+   */
+  private boolean generalizedSeek(boolean isLazy, KeyValue seekKey,
+      boolean forward, boolean useBloom) throws IOException {
+    if (!isLazy && useBloom) {
+      throw new IllegalArgumentException("Multi-column Bloom filter " +
+          "optimization requires a lazy seek");
+    }
+
+    if (current == null) {
+      return false;
+    }
+    current = null;
+
+    KeyValueScanner scanner;
+    while ((scanner = scanners[tree[0]]) != null) {
+      KeyValue topKey = scanner.peek();
+      if (comparator.getComparator().compare(seekKey, topKey) <= 0) {
+        current = pollRealKV();
+        return current != null;
+      }
+
+      boolean seekResult;
+      if (isLazy && numOpen > 1) {
+        // If there is only one scanner left, we don't do lazy seek.
+        seekResult = scanner.requestSeek(seekKey, forward, useBloom);
+      } else {
+        seekResult = NonLazyKeyValueScanner.doRealSeek(
+            scanner, seekKey, forward);
+      }
+
+      if (!seekResult) {
+        closeWinner();
+      } else {
+        replay();
+      }
+    }
+
+    // All the scanners are closed
+    return false;
+  }
+
+  /**
+   * Makes the winner of the tree do a real seek, replaying its matches, until
+   * the winner has done one. See {@link KeyValueHeap} for why this yields the
+   * scanner with the next real key.
+   * @return the winner, null if all the scanners are closed
+   */
+  @Override
+  protected KeyValueScanner pollRealKV() throws IOException {
+    KeyValueScanner scanner;
+    while ((scanner = scanners[tree[0]]) != null && !scanner.realSeekDone()) {
+      if (scanner.peek() != null) {
+        scanner.enforceSeek();
+        if (scanner.peek() != null) {
+          replay();
+          continue;
+        }
+      }
+      // Close the scanner because it has run out of KVs.
+      closeWinner();
+    }
+    return scanner;
+  }
+
+  /**
+   * @return a heap of the open scanners but the current one. It is a copy,
+   *         changing it does not affect this heap.
+   */
+  @Override
+  public PriorityQueue<KeyValueScanner> getHeap() {
+    PriorityQueue<KeyValueScanner> heap =
+        new PriorityQueue<KeyValueScanner>(scanners.length, this.comparator);
+    for (KeyValueScanner scanner : scanners) {
+      if (scanner != null && scanner != current) {
+        heap.add(scanner);
+      }
+    }
+    return heap;
+  }
+
+}
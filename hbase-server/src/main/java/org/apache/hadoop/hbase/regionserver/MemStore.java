@@ -684,6 +684,14 @@ public class MemStore implements HeapSize {
     
     private long readPoint;
 
+    /**
+     * When not null, skipping the KVs that are not visible to the read point
+     * stops at the first KV of a row after the row of this KV. Used when
+     * seeking to a previous row, so the seek does not go over all the newer
+     * rows when none of the KVs of the previous row is visible.
+     */
+    private KeyValue stopSkippingKVsAfterRow = null;
+
     /*
     Some notes...
 
@@ -729,6 +737,10 @@ public class MemStore implements HeapSize {
           if (v.getMvccVersion() <= this.readPoint) {
             return v;
           }
+          if (stopSkippingKVsAfterRow != null
+              && comparator.compareRows(v, stopSkippingKVsAfterRow) > 0) {
+            return null;
+          }
         }
 
         return null;
@@ -907,6 +919,73 @@ public class MemStore implements HeapSize {
         long oldestUnexpiredTS) {
       return shouldSeek(scan, oldestUnexpiredTS);
     }
+
+    /**
+     * Seek scanner to the given key first. If it returns false(means
+     * peek()==null) or scanner's peek row is bigger than row of given key, seek
+     * the scanner to the previous row of given key
+     */
+    @Override
+    public synchronized boolean backwardSeek(KeyValue key) {
+      seek(key);
+      if (peek() == null || comparator.compareRows(peek(), key) > 0) {
+        return seekToPreviousRow(key);
+      }
+      return true;
+    }
+
+    /**
+     * Separately get the KeyValue before the specified key from kvset and
+     * snapshotset, and use the row of higher one as the previous row of
+     * specified key, then seek to the first KeyValue of previous row
+     */
+    @Override
+    public synchronized boolean seekToPreviousRow(KeyValue key) {
+      KeyValue firstKeyOnRow = KeyValue.createFirstOnRow(key.getRow());
+      SortedSet<KeyValue> kvHead = kvsetAtCreation.headSet(firstKeyOnRow);
+      KeyValue kvsetBeforeRow = kvHead.isEmpty() ? null : kvHead.last();
+      SortedSet<KeyValue> snapshotHead = snapshotAtCreation
+          .headSet(firstKeyOnRow);
+      KeyValue snapshotBeforeRow = snapshotHead.isEmpty() ? null : snapshotHead
+          .last();
+      KeyValue lastKVBeforeRow = getHighest(kvsetBeforeRow, snapshotBeforeRow);
+      if (lastKVBeforeRow == null) {
+        theNext = null;
+        return false;
+      }
+      KeyValue firstKeyOnPreviousRow = KeyValue
+          .createFirstOnRow(lastKVBeforeRow.getRow());
+      this.stopSkippingKVsAfterRow = firstKeyOnPreviousRow;
+      try {
+        seek(firstKeyOnPreviousRow);
+      } finally {
+        this.stopSkippingKVsAfterRow = null;
+      }
+      if (peek() == null
+          || comparator.compareRows(peek(), firstKeyOnPreviousRow) > 0) {
+        // None of the KVs of the previous row is visible, go on backwards.
+        return seekToPreviousRow(lastKVBeforeRow);
+      }
+      return true;
+    }
+
+    @Override
+    public synchronized boolean seekToLastRow() {
+      KeyValue first = kvsetAtCreation.isEmpty() ? null : kvsetAtCreation
+          .last();
+      KeyValue second = snapshotAtCreation.isEmpty() ? null
+          : snapshotAtCreation.last();
+      KeyValue higherKv = getHighest(first, second);
+      if (higherKv == null) {
+        return false;
+      }
+      KeyValue firstKvOnLastRow = KeyValue.createFirstOnRow(higherKv.getRow());
+      if (seek(firstKvOnLastRow)) {
+        return true;
+      } else {
+        return seekToPreviousRow(higherKv);
+      }
+    }
   }
 
   public final static long FIXED_OVERHEAD = ClassSize.align(
@@ -303,7 +303,7 @@ class MemStoreFlusher implements FlushRequester {
   /**
    * Return true if global memory usage is above the high watermark
    */
-  private boolean isAboveHighWaterMark() {
+  boolean isAboveHighWaterMark() {
     return server.getRegionServerAccounting().
       getGlobalMemstoreSize() >= globalMemStoreLimit;
   }
@@ -18,7 +18,10 @@
  */
 package org.apache.hadoop.hbase.regionserver;
 
+import java.util.List;
+
 import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.CompatibilityFactory;
 import org.apache.hadoop.hbase.CompatibilitySingletonFactory;
 
@@ -30,11 +33,25 @@ import org.apache.hadoop.hbase.CompatibilitySingletonFactory;
 @InterfaceAudience.Private
 public class MetricsRegion {
 
+  /** Number of the most contended rows tracked per region */
+  public static final String CONTENDED_ROWS_SIZE_KEY = "hbase.region.contended.rows.size";
+  public static final int DEFAULT_CONTENDED_ROWS_SIZE = 10;
+
   private final MetricsRegionSource source;
+  private final ContendedRows contendedRows;
 
   public MetricsRegion(final MetricsRegionWrapper wrapper) {
+    this(wrapper, DEFAULT_CONTENDED_ROWS_SIZE);
+  }
+
+  public MetricsRegion(final MetricsRegionWrapper wrapper, final Configuration conf) {
+    this(wrapper, conf.getInt(CONTENDED_ROWS_SIZE_KEY, DEFAULT_CONTENDED_ROWS_SIZE));
+  }
+
+  private MetricsRegion(final MetricsRegionWrapper wrapper, final int contendedRowsSize) {
     source = CompatibilitySingletonFactory.getInstance(MetricsRegionServerSourceFactory.class)
                                              .createRegion(wrapper);
+    contendedRows = new ContendedRows(contendedRowsSize);
   }
 
   public void close() {
@@ -65,6 +82,23 @@ public class MetricsRegion {
     source.updateIncrement();
   }
 
+  public void updateRowLockWait(final byte[] row, final long waitTime) {
+    source.updateRowLockWait(waitTime);
+    contendedRows.add(row);
+  }
+
+  public void updateRowLockTimeout(final byte[] row) {
+    source.updateRowLockTimeout();
+    contendedRows.add(row);
+  }
+
+  /**
+   * @return the rows whose lock was waited for most often, the most contended first
+   */
+  public List<ContendedRows.ContendedRow> getContendedRows() {
+    return contendedRows.getRows();
+  }
+
   MetricsRegionSource getSource() {
     return source;
   }
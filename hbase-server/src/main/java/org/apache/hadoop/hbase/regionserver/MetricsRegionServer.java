@@ -94,4 +94,16 @@ public class MetricsRegionServer {
   public void updateReplay(long t){
     serverSource.updateReplay(t);
   }
+
+  public void updateScanReadAhead(long t) {
+    serverSource.updateScanReadAhead(t);
+  }
+
+  public void incrScanReadAheadHit() {
+    serverSource.incrScanReadAheadHit();
+  }
+
+  public void incrScanReadAheadWasted(long rows) {
+    serverSource.incrScanReadAheadWasted(rows);
+  }
 }
@@ -63,6 +63,10 @@ class MetricsRegionServerWrapperImpl
   private volatile long totalStaticBloomSize = 0;
   private volatile long numMutationsWithoutWAL = 0;
   private volatile long dataInMemoryWithoutWAL = 0;
+  private volatile long flushedOutputBytes = 0;
+  private volatile long flushTime = 0;
+  private volatile long compactedOutputBytes = 0;
+  private volatile long compactionTime = 0;
   private volatile int percentFileLocal = 0;
 
   private CacheStats cacheStats;
@@ -328,6 +332,26 @@ class MetricsRegionServerWrapperImpl
     return dataInMemoryWithoutWAL;
   }
 
+  @Override
+  public long getFlushedOutputBytes() {
+    return flushedOutputBytes;
+  }
+
+  @Override
+  public long getFlushTime() {
+    return flushTime;
+  }
+
+  @Override
+  public long getCompactedOutputBytes() {
+    return compactedOutputBytes;
+  }
+
+  @Override
+  public long getCompactionTime() {
+    return compactionTime;
+  }
+
   @Override
   public int getPercentFileLocal() {
     return percentFileLocal;
@@ -373,6 +397,10 @@ class MetricsRegionServerWrapperImpl
       long tempTotalStaticBloomSize = 0;
       long tempNumMutationsWithoutWAL = 0;
       long tempDataInMemoryWithoutWAL = 0;
+      long tempFlushedOutputBytes = 0;
+      long tempFlushTime = 0;
+      long tempCompactedOutputBytes = 0;
+      long tempCompactionTime = 0;
       int tempPercentFileLocal = 0;
 
 
@@ -391,6 +419,10 @@ class MetricsRegionServerWrapperImpl
           tempStorefileIndexSize += store.getStorefilesIndexSize();
           tempTotalStaticBloomSize += store.getTotalStaticBloomSize();
           tempTotalStaticIndexSize += store.getTotalStaticIndexSize();
+          tempFlushedOutputBytes += store.getFlushedOutputFileSize();
+          tempFlushTime += store.getFlushTime();
+          tempCompactedOutputBytes += store.getCompactedOutputFileSize();
+          tempCompactionTime += store.getCompactionTime();
         }
 
         hdfsBlocksDistribution.add(r.getHDFSBlocksDistribution());
@@ -433,6 +465,10 @@ class MetricsRegionServerWrapperImpl
       totalStaticBloomSize = tempTotalStaticBloomSize;
       numMutationsWithoutWAL = tempNumMutationsWithoutWAL;
       dataInMemoryWithoutWAL = tempDataInMemoryWithoutWAL;
+      flushedOutputBytes = tempFlushedOutputBytes;
+      flushTime = tempFlushTime;
+      compactedOutputBytes = tempCompactedOutputBytes;
+      compactionTime = tempCompactionTime;
       percentFileLocal = tempPercentFileLocal;
     }
   }
@@ -129,6 +129,11 @@ public class MetricsRegionWrapperImpl implements MetricsRegionWrapper, Closeable
     return this.region.compactionsFinished.get();
   }
 
+  @Override
+  public long getUpdatesLockWaitTime() {
+    return this.region.getUpdatesLockWaitTime();
+  }
+
   public class HRegionMetricsWrapperRunnable implements Runnable {
 
     @Override
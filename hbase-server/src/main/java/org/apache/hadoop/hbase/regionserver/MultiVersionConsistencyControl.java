@@ -18,7 +18,12 @@
  */
 package org.apache.hadoop.hbase.regionserver;
 
-import java.util.LinkedList;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import org.apache.hadoop.classification.InterfaceAudience;
 import org.apache.hadoop.hbase.util.Bytes;
@@ -29,23 +34,49 @@ import org.apache.hadoop.hbase.util.ClassSize;
  * an interface for readers to determine what entries to ignore, and
  * a mechanism for writers to obtain new write numbers, then "commit"
  * the new writes for readers to read (thus forming atomic transactions).
+ * <p>
+ * Writers do not share a lock: write numbers are handed out by an atomic
+ * counter, a completed write number is recorded in a ring of slots indexed by
+ * the write number, and whichever writer finds the write number following the
+ * read point completed moves the read point past it with a compare-and-set.
+ * A write completing while its slot is still needed by an older one, when
+ * more writes than there are slots are in progress, is recorded in a set
+ * instead. Beginning a write never waits, since a writer may hold several
+ * write entries open at once.
  */
 @InterfaceAudience.Private
 public class MultiVersionConsistencyControl {
-  private volatile long memstoreRead = 0;
-  private volatile long memstoreWrite = 0;
+  /** The default number of slots for the writes in progress */
+  static final int DEFAULT_CAPACITY = 1024;
 
-  private final Object readWaiters = new Object();
+  private final AtomicLong memstoreRead = new AtomicLong(0);
+  private final AtomicLong memstoreWrite = new AtomicLong(0);
+
+  // Slot writeNumber % capacity holds writeNumber once that write is complete
+  private final AtomicLongArray completed;
+  private final int capacity;
+  // The completed writes whose slot was still needed by an older write
+  private final Set<Long> overflow =
+      Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
 
-  // This is the pending queue of writes.
-  private final LinkedList<WriteEntry> writeQueue =
-      new LinkedList<WriteEntry>();
+  private final Object readWaiters = new Object();
+  // The number of threads waiting on readWaiters, which advancing the read
+  // point has to wake up
+  private final AtomicInteger numReadWaiters = new AtomicInteger(0);
 
   /**
    * Default constructor. Initializes the memstoreRead/Write points to 0.
    */
   public MultiVersionConsistencyControl() {
-    this.memstoreRead = this.memstoreWrite = 0;
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * @param capacity the number of slots for the writes in progress
+   */
+  MultiVersionConsistencyControl(int capacity) {
+    this.capacity = capacity;
+    this.completed = new AtomicLongArray(capacity);
   }
 
   /**
@@ -53,12 +84,17 @@ public class MultiVersionConsistencyControl {
    * @param startPoint
    */
   public void initialize(long startPoint) {
-    synchronized (writeQueue) {
-      if (this.memstoreWrite != this.memstoreRead) {
+    synchronized (readWaiters) {
+      if (this.memstoreWrite.get() != this.memstoreRead.get()) {
         throw new RuntimeException("Already used this mvcc. Too late to initialize");
       }
-
-      this.memstoreRead = this.memstoreWrite = startPoint;
+      // Forget the writes completed before, which may follow the new start point
+      for (int i = 0; i < capacity; i++) {
+        this.completed.set(i, 0);
+      }
+      this.overflow.clear();
+      this.memstoreWrite.set(startPoint);
+      this.memstoreRead.set(startPoint);
     }
   }
 
@@ -68,12 +104,8 @@ public class MultiVersionConsistencyControl {
    * call {@link #completeMemstoreInsert(WriteEntry)}.
    */
   public WriteEntry beginMemstoreInsert() {
-    synchronized (writeQueue) {
-      long nextWriteNumber = ++memstoreWrite;
-      WriteEntry e = new WriteEntry(nextWriteNumber);
-      writeQueue.add(e);
-      return e;
-    }
+    long nextWriteNumber = memstoreWrite.incrementAndGet();
+    return new WriteEntry(nextWriteNumber);
   }
 
   /**
@@ -99,45 +131,43 @@ public class MultiVersionConsistencyControl {
    * @return true if e is visible to MVCC readers (that is, readpoint >= e.writeNumber)
    */
   boolean advanceMemstore(WriteEntry e) {
-    synchronized (writeQueue) {
-      e.markCompleted();
-
-      long nextReadValue = -1;
-      boolean ranOnce=false;
-      while (!writeQueue.isEmpty()) {
-        ranOnce=true;
-        WriteEntry queueFirst = writeQueue.getFirst();
-
-        if (nextReadValue > 0) {
-          if (nextReadValue+1 != queueFirst.getWriteNumber()) {
-            throw new RuntimeException("invariant in completeMemstoreInsert violated, prev: "
-                + nextReadValue + " next: " + queueFirst.getWriteNumber());
-          }
-        }
+    e.markCompleted();
+    long writeNumber = e.getWriteNumber();
+    if (writeNumber - capacity <= memstoreRead.get()) {
+      // The older writes of the slot are all visible already
+      completed.set(slot(writeNumber), writeNumber);
+    } else {
+      overflow.add(writeNumber);
+    }
 
-        if (queueFirst.isCompleted()) {
-          nextReadValue = queueFirst.getWriteNumber();
-          writeQueue.removeFirst();
-        } else {
+    // Whoever completed the write following the read point may have seen the
+    // read point before it got there, so keep going as long as the next write
+    // is complete
+    boolean advanced = false;
+    while (true) {
+      long readPoint = memstoreRead.get();
+      long next = readPoint + 1;
+      boolean overflowed = false;
+      if (completed.get(slot(next)) != next) {
+        if (overflow.isEmpty() || !overflow.contains(next)) {
           break;
         }
+        overflowed = true;
       }
-
-      if (!ranOnce) {
-        throw new RuntimeException("never was a first");
-      }
-
-      if (nextReadValue > 0) {
-        synchronized (readWaiters) {
-          memstoreRead = nextReadValue;
-          readWaiters.notifyAll();
+      if (memstoreRead.compareAndSet(readPoint, next)) {
+        advanced = true;
+        if (overflowed) {
+          overflow.remove(next);
         }
       }
-      if (memstoreRead >= e.getWriteNumber()) {
-        return true;
+    }
+
+    if (advanced && numReadWaiters.get() > 0) {
+      synchronized (readWaiters) {
+        readWaiters.notifyAll();
       }
-      return false;
     }
+    return memstoreRead.get() >= e.getWriteNumber();
   }
 
   /**
@@ -145,29 +175,45 @@ public class MultiVersionConsistencyControl {
    * the specified transaction number.
    */
   public void waitForRead(WriteEntry e) {
+    waitForReadPoint(e.getWriteNumber());
+  }
+
+  private void waitForReadPoint(long writeNumber) {
+    if (memstoreRead.get() >= writeNumber) {
+      return;
+    }
     boolean interrupted = false;
-    synchronized (readWaiters) {
-      while (memstoreRead < e.getWriteNumber()) {
-        try {
-          readWaiters.wait(0);
-        } catch (InterruptedException ie) {
-          // We were interrupted... finish the loop -- i.e. cleanup --and then
-          // on our way out, reset the interrupt flag.
-          interrupted = true;
+    numReadWaiters.incrementAndGet();
+    try {
+      synchronized (readWaiters) {
+        while (memstoreRead.get() < writeNumber) {
+          try {
+            readWaiters.wait(0);
+          } catch (InterruptedException ie) {
+            // We were interrupted... finish the loop -- i.e. cleanup --and then
+            // on our way out, reset the interrupt flag.
+            interrupted = true;
+          }
         }
       }
+    } finally {
+      numReadWaiters.decrementAndGet();
     }
     if (interrupted) Thread.currentThread().interrupt();
   }
 
+  private int slot(long writeNumber) {
+    return (int) (writeNumber % capacity);
+  }
+
   public long memstoreReadPoint() {
-    return memstoreRead;
+    return memstoreRead.get();
   }
 
 
   public static class WriteEntry {
     private long writeNumber;
-    private boolean completed = false;
+    private volatile boolean completed = false;
     WriteEntry(long writeNumber) {
       this.writeNumber = writeNumber;
     }
@@ -184,7 +230,7 @@ public class MultiVersionConsistencyControl {
 
   public static final long FIXED_SIZE = ClassSize.align(
       ClassSize.OBJECT +
-      2 * Bytes.SIZEOF_LONG +
-      2 * ClassSize.REFERENCE);
+      Bytes.SIZEOF_INT +
+      6 * ClassSize.REFERENCE);
 
 }
@@ -0,0 +1,236 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hbase.regionserver;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Set;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
+
+/**
+ * Answers a single row get for the latest version of explicit columns by
+ * seeking the memstore and store file scanners of a store directly, without
+ * building a {@link StoreScanner}, a {@link ScanQueryMatcher} and its trackers.
+ * <p>
+ * The cells returned are the ones a StoreScanner would return for the same
+ * get, as long as the get has no filter, a single version, the whole time
+ * range and no per family limits, and the store neither keeps deleted cells
+ * nor a minimum number of versions. The caller checks these conditions.
+ * <p>
+ * A getter is not thread safe; every handler thread reuses its own one, see
+ * {@link #get()}. While it reads a store it is registered as an observer of
+ * the store's readers, so that a compaction does not close the files under
+ * it until the read is done.
+ */
+@InterfaceAudience.Private
+class PointGetter implements ChangedReadersObserver {
+
+  private static final ThreadLocal<PointGetter> GETTERS = new ThreadLocal<PointGetter>() {
+    @Override
+    protected PointGetter initialValue() {
+      return new PointGetter();
+    }
+  };
+
+  // Scratch state, reused from one get to the next
+  private final List<KeyValueScanner> scanners = new ArrayList<KeyValueScanner>();
+  private final Set<Long> familyVersionStamps = new HashSet<Long>();
+
+  PointGetter() {
+  }
+
+  /**
+   * @return the getter of the calling thread
+   */
+  static PointGetter get() {
+    return GETTERS.get();
+  }
+
+  /**
+   * Adds the latest visible version of each of the given columns of the get's
+   * row in the store to the results.
+   * @param store the store of the family
+   * @param scan the get, as a scan
+   * @param columns the qualifiers wanted from this family, not empty
+   * @param readPt the read point of the get
+   * @param results where to add the cells found
+   * @throws IOException
+   */
+  synchronized void get(Store store, Scan scan, NavigableSet<byte[]> columns,
+      long readPt, List<Cell> results) throws IOException {
+    ScanInfo scanInfo = store.getScanInfo();
+    long oldestUnexpiredTS = EnvironmentEdgeManager.currentTimeMillis() - scanInfo.getTtl();
+    byte[] row = scan.getStartRow();
+    byte[] family = scanInfo.getFamily();
+    boolean lazySeek = StoreScanner.lazySeekEnabledGlobally;
+    // Same as a StoreScanner doing a get: the row-column Bloom filter only
+    // pays off once there are several columns to look for.
+    boolean useRowColBloom = columns.size() > 1;
+
+    KeyValueHeap heap = null;
+    store.addChangedReaderObserver(this);
+    try {
+      for (KeyValueScanner scanner : store.getScanners(scan.getCacheBlocks(), true, true,
+          false, null, row, row, readPt)) {
+        if (scanner.shouldUseScanner(scan, columns, oldestUnexpiredTS)) {
+          scanners.add(scanner);
+        } else {
+          scanner.close();
+        }
+      }
+      KeyValue startKey = KeyValue.createFirstDeleteFamilyOnRow(row, family);
+      for (KeyValueScanner scanner : scanners) {
+        if (lazySeek) {
+          scanner.requestSeek(startKey, false, true);
+        } else {
+          scanner.seek(startKey);
+        }
+      }
+      heap = new KeyValueHeap(scanners, store.getComparator());
+      scanners.clear();
+      collect(heap, row, family, columns, oldestUnexpiredTS, lazySeek, useRowColBloom, results);
+    } finally {
+      if (heap != null) {
+        heap.close();
+      } else {
+        for (KeyValueScanner scanner : scanners) {
+          scanner.close();
+        }
+      }
+      scanners.clear();
+      familyVersionStamps.clear();
+      store.deleteChangedReaderObserver(this);
+    }
+  }
+
+  /*
+   * Walks the row in the heap column by column. This applies the rules of
+   * ScanQueryMatcher with an ExplicitColumnTracker of one version and a
+   * ScanDeleteTracker: expired cells end their column, family delete markers
+   * come first in the family, and the delete markers of a column come before
+   * the puts of the same timestamp.
+   */
+  private void collect(KeyValueHeap heap, byte[] row, byte[] family,
+      NavigableSet<byte[]> columns, long oldestUnexpiredTS, boolean lazySeek,
+      boolean useRowColBloom, List<Cell> results) throws IOException {
+    boolean hasFamilyStamp = false;
+    long familyStamp = 0;
+    Iterator<byte[]> columnIterator = columns.iterator();
+    byte[] column = columnIterator.next();
+    boolean hasVersionDelete = false;
+    long versionDeleteTs = 0;
+
+    KeyValue kv;
+    while ((kv = heap.peek()) != null && kv.matchingRow(row)) {
+      byte type = kv.getTypeByte();
+      long timestamp = kv.getTimestamp();
+      if (type == KeyValue.Type.DeleteFamily.getCode()
+          || type == KeyValue.Type.DeleteFamilyVersion.getCode()) {
+        if (timestamp >= oldestUnexpiredTS) {
+          if (type == KeyValue.Type.DeleteFamilyVersion.getCode()) {
+            familyVersionStamps.add(timestamp);
+          } else if (!hasFamilyStamp || timestamp > familyStamp) {
+            hasFamilyStamp = true;
+            familyStamp = timestamp;
+          }
+        }
+        heap.next();
+        continue;
+      }
+
+      int cmp = Bytes.compareTo(kv.getBuffer(), kv.getQualifierOffset(),
+          kv.getQualifierLength(), column, 0, column.length);
+      if (cmp > 0) {
+        // Past the wanted column, which is not in this row
+        while (cmp > 0 && columnIterator.hasNext()) {
+          column = columnIterator.next();
+          cmp = Bytes.compareTo(kv.getBuffer(), kv.getQualifierOffset(),
+              kv.getQualifierLength(), column, 0, column.length);
+        }
+        if (cmp > 0) {
+          return;
+        }
+        hasVersionDelete = false;
+      }
+      if (cmp < 0) {
+        seekToColumn(heap, row, family, column, lazySeek, useRowColBloom);
+        continue;
+      }
+
+      boolean columnDone;
+      if (timestamp < oldestUnexpiredTS) {
+        // Older versions are expired as well
+        columnDone = true;
+      } else if (type == KeyValue.Type.DeleteColumn.getCode()) {
+        columnDone = true;
+      } else if (type == KeyValue.Type.Delete.getCode()) {
+        hasVersionDelete = true;
+        versionDeleteTs = timestamp;
+        columnDone = false;
+      } else if (hasFamilyStamp && timestamp <= familyStamp) {
+        columnDone = true;
+      } else if (familyVersionStamps.contains(timestamp)
+          || (hasVersionDelete && timestamp == versionDeleteTs)) {
+        columnDone = false;
+      } else {
+        results.add(kv);
+        columnDone = true;
+      }
+
+      if (!columnDone) {
+        heap.next();
+      } else if (columnIterator.hasNext()) {
+        column = columnIterator.next();
+        hasVersionDelete = false;
+        seekToColumn(heap, row, family, column, lazySeek, useRowColBloom);
+      } else {
+        return;
+      }
+    }
+  }
+
+  private static void seekToColumn(KeyValueHeap heap, byte[] row, byte[] family,
+      byte[] qualifier, boolean lazySeek, boolean useRowColBloom) throws IOException {
+    KeyValue seekKey = KeyValue.createFirstOnRow(row, family, qualifier);
+    if (lazySeek) {
+      heap.requestSeek(seekKey, true, useRowColBloom);
+    } else {
+      heap.reseek(seekKey);
+    }
+  }
+
+  /**
+   * Does nothing but wait for the store being read to be done with, so that
+   * the readers replaced by a flush or a compaction are not closed before.
+   */
+  @Override
+  public synchronized void updateReaders() throws IOException {
+  }
+}
@@ -36,10 +36,11 @@ public class ScanInfo {
   private boolean keepDeletedCells;
   private long timeToPurgeDeletes;
   private KVComparator comparator;
+  private boolean deltaCounters;
 
   public static final long FIXED_OVERHEAD = ClassSize.align(ClassSize.OBJECT
       + (2 * ClassSize.REFERENCE) + (2 * Bytes.SIZEOF_INT)
-      + (2 * Bytes.SIZEOF_LONG) + Bytes.SIZEOF_BOOLEAN);
+      + (2 * Bytes.SIZEOF_LONG) + (2 * Bytes.SIZEOF_BOOLEAN));
 
   /**
    * @param family {@link HColumnDescriptor} describing the column family
@@ -51,7 +52,7 @@ public class ScanInfo {
   public ScanInfo(final HColumnDescriptor family, final long ttl, final long timeToPurgeDeletes,
       final KVComparator comparator) {
     this(family.getName(), family.getMinVersions(), family.getMaxVersions(), ttl, family
-        .getKeepDeletedCells(), timeToPurgeDeletes, comparator);
+        .getKeepDeletedCells(), timeToPurgeDeletes, comparator, family.isDeltaCounters());
   }
 
   /**
@@ -67,6 +68,24 @@ public class ScanInfo {
   public ScanInfo(final byte[] family, final int minVersions, final int maxVersions,
       final long ttl, final boolean keepDeletedCells, final long timeToPurgeDeletes,
       final KVComparator comparator) {
+    this(family, minVersions, maxVersions, ttl, keepDeletedCells, timeToPurgeDeletes, comparator,
+        false);
+  }
+
+  /**
+   * @param family Name of this store's column family
+   * @param minVersions Store's MIN_VERSIONS setting
+   * @param maxVersions Store's VERSIONS setting
+   * @param ttl Store's TTL (in ms)
+   * @param timeToPurgeDeletes duration in ms after which a delete marker can
+   *        be purged during a major compaction.
+   * @param keepDeletedCells Store's keepDeletedCells setting
+   * @param comparator The store's comparator
+   * @param deltaCounters Store's DELTA_COUNTERS setting
+   */
+  public ScanInfo(final byte[] family, final int minVersions, final int maxVersions,
+      final long ttl, final boolean keepDeletedCells, final long timeToPurgeDeletes,
+      final KVComparator comparator, final boolean deltaCounters) {
     this.family = family;
     this.minVersions = minVersions;
     this.maxVersions = maxVersions;
@@ -74,6 +93,7 @@ public class ScanInfo {
     this.keepDeletedCells = keepDeletedCells;
     this.timeToPurgeDeletes = timeToPurgeDeletes;
     this.comparator = comparator;
+    this.deltaCounters = deltaCounters;
   }
 
   public byte[] getFamily() {
@@ -103,4 +123,8 @@ public class ScanInfo {
   public KVComparator getComparator() {
     return comparator;
   }
+
+  public boolean isDeltaCounters() {
+    return deltaCounters;
+  }
 }
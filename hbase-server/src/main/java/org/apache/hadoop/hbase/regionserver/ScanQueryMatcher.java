@@ -132,6 +132,12 @@ public class ScanQueryMatcher {
   
   private final boolean isUserScan;
 
+  /** Whether the rows are scanned in descending order */
+  private final boolean isReversed;
+
+  /** Whether delta cells are added up rather than counted as versions */
+  private final boolean mergeDeltas;
+
   /**
    * Construct a QueryMatcher for a scan
    * @param scan
@@ -155,6 +161,8 @@ public class ScanQueryMatcher {
     this.earliestPutTs = earliestPutTs;
     this.maxReadPointToTrackVersions = readPointToUse;
     this.timeToPurgeDeletes = scanInfo.getTimeToPurgeDeletes();
+    this.isReversed = scan.isReversed();
+    this.mergeDeltas = scanInfo.isDeltaCounters() && !scan.isRaw();
 
     /* how to deal with deletes */
     this.isUserScan = scanType == ScanType.USER_SCAN;
@@ -258,6 +266,10 @@ public class ScanQueryMatcher {
 
     int ret = this.rowComparator.compareRows(row, this.rowOffset, this.rowLength,
         bytes, offset, rowLength);
+    if (isReversed) {
+      // The next row of a reversed scan is a smaller one.
+      ret = -ret;
+    }
     if (ret <= -1) {
       return MatchCode.DONE;
     } else if (ret >= 1) {
@@ -412,9 +424,12 @@ public class ScanQueryMatcher {
        * In all the above scenarios, we return the column checker return value except for
        * FilterResponse (INCLUDE_AND_SEEK_NEXT_COL) and ColumnChecker(INCLUDE)
        */
+      // The deltas of a counter are all included, for the scanner to add
+      // them up, down to the newest value put in the column
       colChecker =
           columns.checkVersions(bytes, offset, qualLength, timestamp, type,
-            kv.getMvccVersion() > maxReadPointToTrackVersions);
+            kv.getMvccVersion() > maxReadPointToTrackVersions
+            || (mergeDeltas && type == KeyValue.Type.Delta.getCode()));
       //Optimize with stickyNextRow
       stickyNextRow = colChecker == MatchCode.INCLUDE_AND_SEEK_NEXT_ROW ? true : stickyNextRow;
       return (filterResponse == ReturnCode.INCLUDE_AND_NEXT_COL &&
@@ -454,6 +469,12 @@ public class ScanQueryMatcher {
   }
 
   public boolean moreRowsMayExistAfter(KeyValue kv) {
+    if (this.isReversed) {
+      // KV <= STOPROW, then NO there is nothing left.
+      return Bytes.equals(stopRow, HConstants.EMPTY_END_ROW)
+          || rowComparator.compareRows(kv.getBuffer(), kv.getRowOffset(),
+              kv.getRowLength(), stopRow, 0, stopRow.length) > 0;
+    }
     if (!Bytes.equals(stopRow , HConstants.EMPTY_END_ROW) &&
         rowComparator.compareRows(kv.getBuffer(),kv.getRowOffset(),
             kv.getRowLength(), stopRow, 0, stopRow.length) >= 0) {
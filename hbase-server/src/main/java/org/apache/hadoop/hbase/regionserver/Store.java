@@ -307,6 +307,26 @@ public interface Store extends HeapSize, StoreConfigInformation {
    */
   long getTotalStaticBloomSize();
 
+  /**
+   * @return the total size of the files written by flushes of this store, in bytes
+   */
+  long getFlushedOutputFileSize();
+
+  /**
+   * @return the total time spent writing flushed files of this store, in milliseconds
+   */
+  long getFlushTime();
+
+  /**
+   * @return the total size of the files written by compactions of this store, in bytes
+   */
+  long getCompactedOutputFileSize();
+
+  /**
+   * @return the total time spent writing compacted files of this store, in milliseconds
+   */
+  long getCompactionTime();
+
   // Test-helper methods
 
   /**
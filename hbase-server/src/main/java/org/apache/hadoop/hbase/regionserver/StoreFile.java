@@ -805,7 +805,7 @@ public class StoreFile {
      * @param kv
      */
     public void trackTimestamps(final KeyValue kv) {
-      if (KeyValue.Type.Put.getCode() == kv.getTypeByte()) {
+      if (KeyValue.Type.Put.getCode() == kv.getTypeByte() || kv.isDelta()) {
         earliestPutTs = Math.min(earliestPutTs, kv.getTimestamp());
       }
       if (!isTimeRangeTrackerSet) {
@@ -1310,15 +1310,19 @@ public class StoreFile {
         // the file is empty
         return false;
       }
-      if (Bytes.equals(scan.getStartRow(), HConstants.EMPTY_START_ROW)
-          && Bytes.equals(scan.getStopRow(), HConstants.EMPTY_END_ROW)) {
+      // A reversed scan goes from its start row down to its stop row.
+      byte[] smallestScanRow = scan.isReversed() ? scan.getStopRow() : scan.getStartRow();
+      byte[] largestScanRow = scan.isReversed() ? scan.getStartRow() : scan.getStopRow();
+      if (Bytes.equals(smallestScanRow, HConstants.EMPTY_START_ROW)
+          && Bytes.equals(largestScanRow, HConstants.EMPTY_END_ROW)) {
         return true;
       }
-      KeyValue startKeyValue = KeyValue.createFirstOnRow(scan.getStartRow());
-      KeyValue stopKeyValue = KeyValue.createLastOnRow(scan.getStopRow());
+      KeyValue smallestScanKeyValue = KeyValue.createFirstOnRow(smallestScanRow);
+      KeyValue largestScanKeyValue = KeyValue.createLastOnRow(largestScanRow);
       boolean nonOverLapping = (getComparator().compareFlatKey(this.getFirstKey(),
-        stopKeyValue.getKey()) > 0 && !Bytes.equals(scan.getStopRow(), HConstants.EMPTY_END_ROW))
-          || getComparator().compareFlatKey(this.getLastKey(), startKeyValue.getKey()) < 0;
+        largestScanKeyValue.getKey()) > 0 && !Bytes.equals(largestScanRow, HConstants.EMPTY_END_ROW))
+          || getComparator().compareFlatKey(this.getLastKey(),
+            smallestScanKeyValue.getKey()) < 0;
       return !nonOverLapping;
     }
 
@@ -1425,6 +1429,17 @@ public class StoreFile {
       return reader.getLastKey();
     }
 
+    /**
+     * @return the row of the last key, null if the file is empty
+     */
+    public byte[] getLastRowKey() {
+      byte[] lastKey = getLastKey();
+      if (lastKey == null) {
+        return null;
+      }
+      return KeyValue.createKeyValueFromKey(lastKey, 0, lastKey.length).getRow();
+    }
+
     public byte[] midkey() throws IOException {
       return reader.midkey();
     }
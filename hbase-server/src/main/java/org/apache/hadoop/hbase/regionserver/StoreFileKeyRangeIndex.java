@@ -0,0 +1,197 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.hadoop.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.KeyValue.KVComparator;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * An interval tree over the row ranges of a list of store files, to find the
+ * files that a Get or a Scan with a start or stop row has to read without
+ * opening a scanner on each of them.
+ * <p>
+ * The files are sorted by their first row and laid out as an implicit
+ * balanced binary search tree, every node of which also knows the greatest
+ * last row in its subtree. A query skips the subtrees that end before its
+ * start row and the ones that begin after its stop row, so it only visits
+ * the overlapping files and O(log n) others. The stop row is inclusive, the
+ * same as in {@link StoreFile.Reader#passesKeyRangeFilter}.
+ * <p>
+ * Immutable. Files whose row range is not known (references, files without
+ * a reader or without a first or last key) are always returned.
+ */
+@InterfaceAudience.Private
+class StoreFileKeyRangeIndex {
+  private final KVComparator comparator;
+
+  /** The indexed files, in the order they are returned in. */
+  private final ImmutableList<StoreFile> files;
+
+  /** The position in {@link #files} of each tree node. */
+  private final int[] positions;
+  private final byte[][] firstRows;
+  private final byte[][] lastRows;
+
+  /** The greatest last row in the subtree rooted at each tree node. */
+  private final byte[][] maxLastRows;
+
+  /** The positions of the files whose row range is not known. */
+  private final int[] unknownRange;
+
+  StoreFileKeyRangeIndex(ImmutableList<StoreFile> files, final KVComparator comparator) {
+    this.comparator = comparator;
+    this.files = files;
+
+    List<Integer> known = new ArrayList<Integer>(files.size());
+    List<Integer> unknown = new ArrayList<Integer>();
+    final byte[][] fileFirstRows = new byte[files.size()][];
+    byte[][] fileLastRows = new byte[files.size()][];
+    for (int i = 0; i < files.size(); ++i) {
+      StoreFile file = files.get(i);
+      // The keys of half files are found by seeking, and they may be read anyway.
+      StoreFile.Reader reader = file.isReference() ? null : file.getReader();
+      byte[] firstKey = reader == null ? null : reader.getFirstKey();
+      byte[] lastKey = reader == null ? null : reader.getLastKey();
+      if (firstKey == null || lastKey == null) {
+        unknown.add(i);
+        continue;
+      }
+      fileFirstRows[i] = KeyValue.createKeyValueFromKey(firstKey, 0, firstKey.length).getRow();
+      fileLastRows[i] = KeyValue.createKeyValueFromKey(lastKey, 0, lastKey.length).getRow();
+      known.add(i);
+    }
+    Integer[] sorted = known.toArray(new Integer[known.size()]);
+    Arrays.sort(sorted, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer left, Integer right) {
+        return compareRows(fileFirstRows[left], fileFirstRows[right]);
+      }
+    });
+
+    this.positions = new int[sorted.length];
+    this.firstRows = new byte[sorted.length][];
+    this.lastRows = new byte[sorted.length][];
+    this.maxLastRows = new byte[sorted.length][];
+    for (int i = 0; i < sorted.length; ++i) {
+      positions[i] = sorted[i];
+      firstRows[i] = fileFirstRows[sorted[i]];
+      lastRows[i] = fileLastRows[sorted[i]];
+    }
+    buildMaxLastRows(0, sorted.length - 1);
+
+    this.unknownRange = new int[unknown.size()];
+    for (int i = 0; i < unknownRange.length; ++i) {
+      unknownRange[i] = unknown.get(i);
+    }
+  }
+
+  private int compareRows(byte[] left, byte[] right) {
+    return comparator.compareRows(left, 0, left.length, right, 0, right.length);
+  }
+
+  /**
+   * Fills {@link #maxLastRows} for the subtree of the nodes from low to high,
+   * rooted at their middle.
+   * @return the greatest last row of the subtree, null if it is empty
+   */
+  private byte[] buildMaxLastRows(int low, int high) {
+    if (low > high) {
+      return null;
+    }
+    int mid = (low + high) >>> 1;
+    byte[] max = lastRows[mid];
+    byte[] left = buildMaxLastRows(low, mid - 1);
+    if (left != null && compareRows(left, max) > 0) {
+      max = left;
+    }
+    byte[] right = buildMaxLastRows(mid + 1, high);
+    if (right != null && compareRows(right, max) > 0) {
+      max = right;
+    }
+    maxLastRows[mid] = max;
+    return max;
+  }
+
+  /**
+   * Gets the files that may have rows from startRow to stopRow, both
+   * inclusive, in the order of the indexed list.
+   * @param startRow the first row, or an empty array to start at the first
+   *          row of the store
+   * @param stopRow the last row, or an empty array to stop at the last row of
+   *          the store
+   */
+  Collection<StoreFile> getFiles(byte[] startRow, byte[] stopRow) {
+    boolean fromStart = Bytes.equals(startRow, HConstants.EMPTY_START_ROW);
+    boolean toEnd = Bytes.equals(stopRow, HConstants.EMPTY_END_ROW);
+    if (fromStart && toEnd) {
+      return files;
+    }
+    int[] selected = new int[files.size()];
+    int numSelected = collect(0, positions.length - 1, fromStart ? null : startRow,
+        toEnd ? null : stopRow, selected, 0);
+    if (numSelected + unknownRange.length == files.size()) {
+      return files;
+    }
+    System.arraycopy(unknownRange, 0, selected, numSelected, unknownRange.length);
+    numSelected += unknownRange.length;
+    Arrays.sort(selected, 0, numSelected);
+    List<StoreFile> result = new ArrayList<StoreFile>(numSelected);
+    for (int i = 0; i < numSelected; ++i) {
+      result.add(files.get(selected[i]));
+    }
+    return result;
+  }
+
+  /**
+   * Adds to selected the positions of the files in the subtree of the nodes
+   * from low to high that overlap the given rows, null meaning unbounded.
+   * @return the new number of selected files
+   */
+  private int collect(int low, int high, byte[] startRow, byte[] stopRow,
+      int[] selected, int numSelected) {
+    if (low > high) {
+      return numSelected;
+    }
+    int mid = (low + high) >>> 1;
+    if (startRow != null && compareRows(maxLastRows[mid], startRow) < 0) {
+      // all the files of the subtree end before the start row
+      return numSelected;
+    }
+    numSelected = collect(low, mid - 1, startRow, stopRow, selected, numSelected);
+    if (stopRow != null && compareRows(firstRows[mid], stopRow) > 0) {
+      // this file and the ones to its right begin after the stop row
+      return numSelected;
+    }
+    if (startRow == null || compareRows(lastRows[mid], startRow) >= 0) {
+      selected[numSelected++] = positions[mid];
+    }
+    return collect(mid + 1, high, startRow, stopRow, selected, numSelected);
+  }
+}
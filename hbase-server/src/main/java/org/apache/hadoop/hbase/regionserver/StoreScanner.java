@@ -33,6 +33,7 @@ import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.DoNotRetryIOException;
 import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.KeyValue.KVComparator;
 import org.apache.hadoop.hbase.KeyValueUtil;
 import org.apache.hadoop.hbase.client.IsolationLevel;
 import org.apache.hadoop.hbase.client.Scan;
@@ -47,7 +48,7 @@ import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
  * into List<KeyValue> for a single row.
  */
 @InterfaceAudience.Private
-public class StoreScanner extends NonLazyKeyValueScanner
+public class StoreScanner extends NonReversedNonLazyKeyValueScanner
     implements KeyValueScanner, InternalScanner, ChangedReadersObserver {
   static final Log LOG = LogFactory.getLog(StoreScanner.class);
   protected Store store;
@@ -91,6 +92,16 @@ public class StoreScanner extends NonLazyKeyValueScanner
   protected static boolean lazySeekEnabledGlobally =
       LAZY_SEEK_ENABLED_BY_DEFAULT;
 
+  /**
+   * From this many scanners on, they are merged with a
+   * {@link LoserTreeKeyValueHeap}, which needs fewer comparisons per key than
+   * the binary heap once there are many store files to merge.
+   */
+  static final int LOSER_TREE_MIN_SCANNERS_DEFAULT = 8;
+
+  /** Used during unit testing to merge any number of scanners with a loser tree */
+  protected static int loserTreeMinScanners = LOSER_TREE_MIN_SCANNERS_DEFAULT;
+
   // if heap == null and lastTop != null, you need to reseek given the key below
   protected KeyValue lastTop = null;
 
@@ -99,6 +110,20 @@ public class StoreScanner extends NonLazyKeyValueScanner
   
   private final long readPt;
 
+  // Whether the deltas of the counters of the family are added up, and whether
+  // the sum is a delta again, as in flushes and compactions
+  private boolean mergeDeltas = false;
+  private boolean keepDeltas = false;
+  // The newest delta of the column being added up, if any, the sum so far, the
+  // highest memstore timestamp of the cells added, and whether the newest
+  // value put in the column was reached
+  private KeyValue deltaKV = null;
+  private long deltaSum;
+  private long deltaMvcc;
+  private boolean deltaBaseReached;
+  // The newest value put in the last column, older cells of which are skipped
+  private KeyValue baseKV = null;
+
   // used by the injection framework to test race between StoreScanner construction and compaction
   enum StoreScannerCompactionRace {
     BEFORE_SEEK,
@@ -160,6 +185,7 @@ public class StoreScanner extends NonLazyKeyValueScanner
     matcher = new ScanQueryMatcher(scan, scanInfo, columns,
         ScanType.USER_SCAN, Long.MAX_VALUE, HConstants.LATEST_TIMESTAMP,
         oldestUnexpiredTS);
+    initDeltaMerge(scanInfo, ScanType.USER_SCAN);
 
     this.store.addChangedReaderObserver(this);
 
@@ -170,19 +196,8 @@ public class StoreScanner extends NonLazyKeyValueScanner
     // key does not exist, then to the start of the next matching Row).
     // Always check bloom filter to optimize the top row seek for delete
     // family marker.
-    if (explicitColumnQuery && lazySeekEnabledGlobally) {
-      for (KeyValueScanner scanner : scanners) {
-        scanner.requestSeek(matcher.getStartKey(), false, true);
-      }
-    } else {
-      if (!isParallelSeekEnabled) {
-        for (KeyValueScanner scanner : scanners) {
-          scanner.seek(matcher.getStartKey());
-        }
-      } else {
-        parallelSeek(scanners, matcher.getStartKey());
-      }
-    }
+    seekScanners(scanners, matcher.getStartKey(), explicitColumnQuery
+        && lazySeekEnabledGlobally, isParallelSeekEnabled);
 
     // set storeLimit
     this.storeLimit = scan.getMaxResultsPerColumnFamily();
@@ -191,7 +206,7 @@ public class StoreScanner extends NonLazyKeyValueScanner
     this.storeOffset = scan.getRowOffsetPerColumnFamily();
 
     // Combine all seeked scanners with a heap
-    heap = new KeyValueHeap(scanners, store.getComparator());
+    resetKVHeap(scanners, store.getComparator());
   }
 
   /**
@@ -240,6 +255,7 @@ public class StoreScanner extends NonLazyKeyValueScanner
       matcher = new ScanQueryMatcher(scan, scanInfo, null, smallestReadPoint,
           earliestPutTs, oldestUnexpiredTS, dropDeletesFromRow, dropDeletesToRow);
     }
+    initDeltaMerge(scanInfo, scanType);
 
     this.store.addChangedReaderObserver(this);
 
@@ -256,7 +272,7 @@ public class StoreScanner extends NonLazyKeyValueScanner
     }
 
     // Combine all seeked scanners with a heap
-    heap = new KeyValueHeap(scanners, store.getComparator());
+    heap = newKeyValueHeap(scanners, store.getComparator());
   }
 
   /** Constructor for testing. */
@@ -287,20 +303,57 @@ public class StoreScanner extends NonLazyKeyValueScanner
         scanInfo.getMinVersions(), readPt);
     this.matcher = new ScanQueryMatcher(scan, scanInfo, columns, scanType,
         Long.MAX_VALUE, earliestPutTs, oldestUnexpiredTS);
+    initDeltaMerge(scanInfo, scanType);
 
     // In unit tests, the store could be null
     if (this.store != null) {
       this.store.addChangedReaderObserver(this);
     }
     // Seek all scanners to the initial key
-    if (!isParallelSeekEnabled) {
+    seekScanners(scanners, matcher.getStartKey(), false, isParallelSeekEnabled);
+    resetKVHeap(scanners, scanInfo.getComparator());
+  }
+
+  private void initDeltaMerge(ScanInfo scanInfo, ScanType scanType) {
+    this.mergeDeltas = scanInfo.isDeltaCounters() && !scan.isRaw();
+    this.keepDeltas = scanType != ScanType.USER_SCAN;
+  }
+
+  /**
+   * Seek the specified scanners with the given key
+   * @param scanners
+   * @param seekKey
+   * @param isLazy true if using lazy seek
+   * @param isParallelSeek true if using parallel seek
+   * @throws IOException
+   */
+  protected void seekScanners(List<? extends KeyValueScanner> scanners,
+      KeyValue seekKey, boolean isLazy, boolean isParallelSeek)
+      throws IOException {
+    if (isLazy) {
       for (KeyValueScanner scanner : scanners) {
-        scanner.seek(matcher.getStartKey());
+        scanner.requestSeek(seekKey, false, true);
       }
     } else {
-      parallelSeek(scanners, matcher.getStartKey());
+      if (!isParallelSeek) {
+        for (KeyValueScanner scanner : scanners) {
+          scanner.seek(seekKey);
+        }
+      } else {
+        parallelSeek(scanners, seekKey);
+      }
     }
-    heap = new KeyValueHeap(scanners, scanInfo.getComparator());
+  }
+
+  /**
+   * Combines the seeked scanners into {@link #heap}.
+   * @param scanners
+   * @param comparator
+   * @throws IOException
+   */
+  protected void resetKVHeap(List<? extends KeyValueScanner> scanners,
+      KVComparator comparator) throws IOException {
+    heap = newKeyValueHeap(scanners, comparator);
   }
 
   /**
@@ -310,8 +363,12 @@ public class StoreScanner extends NonLazyKeyValueScanner
   protected List<KeyValueScanner> getScannersNoCompaction() throws IOException {
     final boolean isCompaction = false;
     boolean usePread = isGet || scanUsePread;
+    // The files are selected by the smallest and largest rows, a reversed
+    // scan starts at the largest one.
+    byte[] smallestRow = scan.isReversed() ? scan.getStopRow() : scan.getStartRow();
+    byte[] largestRow = scan.isReversed() ? scan.getStartRow() : scan.getStopRow();
     return selectScannersFrom(store.getScanners(cacheBlocks, isGet, usePread,
-        isCompaction, matcher, scan.getStartRow(), scan.getStopRow(), this.readPt));
+        isCompaction, matcher, smallestRow, largestRow, this.readPt));
   }
 
   /**
@@ -432,53 +489,83 @@ public class StoreScanner extends NonLazyKeyValueScanner
     int count = 0;
     LOOP: while((kv = this.heap.peek()) != null) {
       if (prevKV != kv) ++kvsScanned; // Do object compare - we set prevKV from the same heap.
-      // Check that the heap gives us KVs in an increasing order.
-      assert prevKV == null || comparator == null || comparator.compare(prevKV, kv) <= 0 :
-        "Key " + prevKV + " followed by a " + "smaller key " + kv + " in cf " + store;
+      checkScanOrder(prevKV, kv, comparator);
       prevKV = kv;
 
+      if (deltaKV != null && !KeyValue.COMPARATOR.matchingRowColumn(deltaKV, kv)) {
+        // Done with the column being added up
+        if (addMergedDelta(outResult)) {
+          count++;
+          if (limit > 0 && count >= limit) {
+            break LOOP;
+          }
+        }
+      }
+      if (baseKV != null) {
+        if (KeyValue.COMPARATOR.matchingRowColumn(baseKV, kv)) {
+          // Older than the value put the counter was read down to
+          this.heap.next();
+          continue;
+        }
+        baseKV = null;
+      }
+
       ScanQueryMatcher.MatchCode qcode = matcher.match(kv);
       switch(qcode) {
         case INCLUDE:
         case INCLUDE_AND_SEEK_NEXT_ROW:
         case INCLUDE_AND_SEEK_NEXT_COL:
 
-          Filter f = matcher.getFilter();
-          if (f != null) {
-            // TODO convert Scan Query Matcher to be Cell instead of KV based ?
-            kv = KeyValueUtil.ensureKeyValue(f.transformCell(kv));
-          }
+          if (isMergeable(kv)) {
+            if (mergeDelta(kv) && addMergedDelta(outResult)) {
+              count++;
+            }
+          } else {
+            if (deltaKV != null && addMergedDelta(outResult)) {
+              count++;
+            }
+            if (isBase(kv)) {
+              baseKV = kv;
+            }
 
-          this.countPerRow++;
-          if (storeLimit > -1 &&
-              this.countPerRow > (storeLimit + storeOffset)) {
-            // do what SEEK_NEXT_ROW does.
-            if (!matcher.moreRowsMayExistAfter(kv)) {
-              return false;
+            Filter f = matcher.getFilter();
+            if (f != null) {
+              // TODO convert Scan Query Matcher to be Cell instead of KV based ?
+              kv = KeyValueUtil.ensureKeyValue(f.transformCell(kv));
             }
-            reseek(matcher.getKeyForNextRow(kv));
-            break LOOP;
-          }
 
-          // add to results only if we have skipped #storeOffset kvs
-          // also update metric accordingly
-          if (this.countPerRow > storeOffset) {
-            outResult.add(kv);
-            count++;
+            this.countPerRow++;
+            if (storeLimit > -1 &&
+                this.countPerRow > (storeLimit + storeOffset)) {
+              // do what SEEK_NEXT_ROW does.
+              if (!matcher.moreRowsMayExistAfter(kv)) {
+                return false;
+              }
+              seekToNextRow(kv);
+              break LOOP;
+            }
+
+            // add to results only if we have skipped #storeOffset kvs
+            // also update metric accordingly
+            if (this.countPerRow > storeOffset) {
+              outResult.add(kv);
+              count++;
+            }
           }
 
           if (qcode == ScanQueryMatcher.MatchCode.INCLUDE_AND_SEEK_NEXT_ROW) {
             if (!matcher.moreRowsMayExistAfter(kv)) {
+              addMergedDelta(outResult);
               return false;
             }
-            reseek(matcher.getKeyForNextRow(kv));
+            seekToNextRow(kv);
           } else if (qcode == ScanQueryMatcher.MatchCode.INCLUDE_AND_SEEK_NEXT_COL) {
-            reseek(matcher.getKeyForNextColumn(kv));
+            seekAsDirection(matcher.getKeyForNextColumn(kv));
           } else {
             this.heap.next();
           }
 
-          if (limit > 0 && (count == limit)) {
+          if (limit > 0 && count >= limit) {
             break LOOP;
           }
           continue;
@@ -487,6 +574,7 @@ public class StoreScanner extends NonLazyKeyValueScanner
           return true;
 
         case DONE_SCAN:
+          addMergedDelta(outResult);
           close();
           return false;
 
@@ -494,14 +582,15 @@ public class StoreScanner extends NonLazyKeyValueScanner
           // This is just a relatively simple end of scan fix, to short-cut end
           // us if there is an endKey in the scan.
           if (!matcher.moreRowsMayExistAfter(kv)) {
+            addMergedDelta(outResult);
             return false;
           }
 
-          reseek(matcher.getKeyForNextRow(kv));
+          seekToNextRow(kv);
           break;
 
         case SEEK_NEXT_COL:
-          reseek(matcher.getKeyForNextColumn(kv));
+          seekAsDirection(matcher.getKeyForNextColumn(kv));
           break;
 
         case SKIP:
@@ -512,7 +601,7 @@ public class StoreScanner extends NonLazyKeyValueScanner
           // TODO convert resee to Cell?
           KeyValue nextKV = KeyValueUtil.ensureKeyValue(matcher.getNextKeyHint(kv));
           if (nextKV != null) {
-            reseek(nextKV);
+            seekAsDirection(nextKV);
           } else {
             heap.next();
           }
@@ -523,6 +612,10 @@ public class StoreScanner extends NonLazyKeyValueScanner
       }
     }
 
+    if (deltaKV != null && addMergedDelta(outResult)) {
+      count++;
+    }
+
     if (count > 0) {
       return true;
     }
@@ -537,6 +630,80 @@ public class StoreScanner extends NonLazyKeyValueScanner
     return next(outResult, -1);
   }
 
+  /*
+   * @return true if the included cell is added to the deltas of its column:
+   * a delta, or the value put the deltas being added up started from. Cells
+   * newer than the read point of some scanner are left as they are by flushes
+   * and compactions.
+   */
+  private boolean isMergeable(KeyValue kv) {
+    if (!mergeDeltas || kv.getMvccVersion() > matcher.maxReadPointToTrackVersions) {
+      return false;
+    }
+    return kv.isDelta() || (deltaKV != null && isBase(kv));
+  }
+
+  /*
+   * @return true if the included cell is a value put that hides the older
+   * cells of its column from the sum of the deltas
+   */
+  private boolean isBase(KeyValue kv) {
+    return mergeDeltas && kv.getTypeByte() == KeyValue.Type.Put.getCode()
+        && kv.getMvccVersion() <= matcher.maxReadPointToTrackVersions;
+  }
+
+  /*
+   * @return true if the deltas of the column are all added up, the cell
+   * being the value put they were added to
+   */
+  private boolean mergeDelta(KeyValue kv) {
+    if (deltaKV == null) {
+      deltaKV = kv;
+      deltaSum = 0;
+      deltaMvcc = 0;
+      deltaBaseReached = false;
+    }
+    // A value put that is not a counter counts as zero
+    if (kv.getValueLength() == Bytes.SIZEOF_LONG) {
+      deltaSum += Bytes.toLong(kv.getBuffer(), kv.getValueOffset(), Bytes.SIZEOF_LONG);
+    }
+    deltaMvcc = Math.max(deltaMvcc, kv.getMvccVersion());
+    if (!kv.isDelta()) {
+      deltaBaseReached = true;
+      baseKV = kv;
+    }
+    return deltaBaseReached;
+  }
+
+  /*
+   * Adds the sum of the deltas of the column to the results, as a delta
+   * again in flushes and compactions unless the value the deltas were added
+   * to was reached, at the timestamp of the newest delta.
+   * @return true if a cell was added to the results
+   */
+  private boolean addMergedDelta(List<Cell> outResult) {
+    if (deltaKV == null) {
+      return false;
+    }
+    KeyValue kv = deltaKV;
+    deltaKV = null;
+    KeyValue.Type type = keepDeltas && !deltaBaseReached ? KeyValue.Type.Delta
+        : KeyValue.Type.Put;
+    byte[] value = Bytes.toBytes(deltaSum);
+    KeyValue merged = new KeyValue(kv.getBuffer(), kv.getRowOffset(), kv.getRowLength(),
+        kv.getBuffer(), kv.getFamilyOffset(), kv.getFamilyLength(),
+        kv.getBuffer(), kv.getQualifierOffset(), kv.getQualifierLength(),
+        kv.getTimestamp(), type, value, 0, value.length, kv.getTags());
+    merged.setMvccVersion(deltaMvcc);
+    this.countPerRow++;
+    if (this.countPerRow <= storeOffset
+        || (storeLimit > -1 && this.countPerRow > (storeLimit + storeOffset))) {
+      return false;
+    }
+    outResult.add(merged);
+    return true;
+  }
+
   // Implementation of ChangedReadersObserver
   @Override
   public synchronized void updateReaders() throws IOException {
@@ -592,16 +759,11 @@ public class StoreScanner extends NonLazyKeyValueScanner
      * could have done it now by storing the scan object from the constructor */
     List<KeyValueScanner> scanners = getScannersNoCompaction();
 
-    if (!isParallelSeekEnabled) {
-      for (KeyValueScanner scanner : scanners) {
-        scanner.seek(lastTopKey);
-      }
-    } else {
-      parallelSeek(scanners, lastTopKey);
-    }
+    // Seek all scanners to the initial key
+    seekScanners(scanners, lastTopKey, false, isParallelSeekEnabled);
 
     // Combine all seeked scanners with a heap
-    heap = new KeyValueHeap(scanners, store.getComparator());
+    resetKVHeap(scanners, store.getComparator());
 
     // Reset the state of the Query Matcher and set to top row.
     // Only reset and call setRow if the row changes; avoids confusing the
@@ -621,6 +783,36 @@ public class StoreScanner extends NonLazyKeyValueScanner
     }
   }
 
+  /**
+   * Check whether scan as expected order
+   * @param prevKV
+   * @param kv
+   * @param comparator
+   * @throws IOException
+   */
+  protected void checkScanOrder(KeyValue prevKV, KeyValue kv,
+      KeyValue.KVComparator comparator) throws IOException {
+    // Check that the heap gives us KVs in an increasing order.
+    assert prevKV == null || comparator == null
+        || comparator.compare(prevKV, kv) <= 0 : "Key " + prevKV
+        + " followed by a " + "smaller key " + kv + " in cf " + store;
+  }
+
+  protected boolean seekToNextRow(KeyValue kv) throws IOException {
+    return reseek(matcher.getKeyForNextRow(kv));
+  }
+
+  /**
+   * Do a reseek in a normal StoreScanner(scan forward)
+   * @param kv
+   * @return true if scanner has values left, false if end of scanner
+   * @throws IOException
+   */
+  protected boolean seekAsDirection(KeyValue kv)
+      throws IOException {
+    return reseek(kv);
+  }
+
   @Override
   public synchronized boolean reseek(KeyValue kv) throws IOException {
     //Heap will not be null, if this is called from next() which.
@@ -694,6 +886,22 @@ public class StoreScanner extends NonLazyKeyValueScanner
     lazySeekEnabledGlobally = enable;
   }
 
+  static void setLoserTreeMinScanners(int minScanners) {
+    loserTreeMinScanners = minScanners;
+  }
+
+  /**
+   * Combines the seeked scanners with a heap, or with a loser tree if there
+   * are many of them.
+   */
+  protected static KeyValueHeap newKeyValueHeap(List<? extends KeyValueScanner> scanners,
+      KVComparator comparator) throws IOException {
+    if (scanners.size() >= loserTreeMinScanners) {
+      return new LoserTreeKeyValueHeap(scanners, comparator);
+    }
+    return new KeyValueHeap(scanners, comparator);
+  }
+
   /**
    * @return The estimated number of KVs seen by this scanner (includes some skipped KVs).
    */
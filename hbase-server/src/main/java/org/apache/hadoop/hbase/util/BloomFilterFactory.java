@@ -81,6 +81,14 @@ public final class BloomFilterFactory {
   public static final String IO_STOREFILE_BLOOM_BLOCK_SIZE =
       "io.storefile.bloom.block.size";
 
+  /**
+   * Whether to write blocked Bloom filters, which check a key with a single
+   * cache line access. Can be set per column family through
+   * {@link org.apache.hadoop.hbase.HColumnDescriptor#setConfiguration(String, String)}.
+   */
+  public static final String IO_STOREFILE_BLOOM_BLOCKED =
+      "io.storefile.bloom.blocked";
+
   /** Maximum number of times a Bloom filter can be "folded" if oversized */
   private static final int MAX_ALLOWED_FOLD_FACTOR = 7;
 
@@ -109,6 +117,9 @@ public final class BloomFilterFactory {
       case CompoundBloomFilterBase.VERSION:
         return new CompoundBloomFilter(meta, reader);
 
+      case CompoundBloomFilterBase.BLOCKED_VERSION:
+        return new CompoundBloomFilter(meta, reader, true);
+
       default:
         throw new IllegalArgumentException(
           "Bad bloom filter format version " + version
@@ -145,6 +156,13 @@ public final class BloomFilterFactory {
     return conf.getInt(IO_STOREFILE_BLOOM_MAX_FOLD, MAX_ALLOWED_FOLD_FACTOR);
   }
 
+  /**
+   * @return true if new Bloom filters are blocked in the given configuration
+   */
+  public static boolean isBloomBlocked(Configuration conf) {
+    return conf.getBoolean(IO_STOREFILE_BLOOM_BLOCKED, false);
+  }
+
   /** @return the compound Bloom filter block size from the configuration */
   public static int getBloomBlockSize(Configuration conf) {
     return conf.getInt(IO_STOREFILE_BLOOM_BLOCK_SIZE, 128 * 1024);
@@ -200,7 +218,8 @@ public final class BloomFilterFactory {
     // In case of compound Bloom filters we ignore the maxKeys hint.
     CompoundBloomFilterWriter bloomWriter = new CompoundBloomFilterWriter(getBloomBlockSize(conf),
         err, Hash.getHashType(conf), maxFold, cacheConf.shouldCacheBloomsOnWrite(),
-        bloomType == BloomType.ROWCOL ? KeyValue.COMPARATOR : KeyValue.RAW_COMPARATOR);
+        bloomType == BloomType.ROWCOL ? KeyValue.COMPARATOR : KeyValue.RAW_COMPARATOR,
+        isBloomBlocked(conf));
     writer.addInlineBlockWriter(bloomWriter);
     return bloomWriter;
   }
@@ -231,7 +250,7 @@ public final class BloomFilterFactory {
     // In case of compound Bloom filters we ignore the maxKeys hint.
     CompoundBloomFilterWriter bloomWriter = new CompoundBloomFilterWriter(getBloomBlockSize(conf),
         err, Hash.getHashType(conf), maxFold, cacheConf.shouldCacheBloomsOnWrite(),
-        KeyValue.RAW_COMPARATOR);
+        KeyValue.RAW_COMPARATOR, isBloomBlocked(conf));
     writer.addInlineBlockWriter(bloomWriter);
     return bloomWriter;
   }
@@ -72,6 +72,14 @@ import java.util.Random;
  *
  * The probability of false positives is minimized when k = m/n ln(2).
  *
+ * <p>
+ * A <i>blocked</i> Bloom filter sets all the bits of a key in one block of
+ * {@link #BLOOM_BLOCK_BYTES} bytes, the size of a cache line, chosen by the
+ * first hash. A lookup then touches a single cache line instead of k random
+ * ones, for a slightly higher false positive rate at the same size. See
+ * "Cache-, Hash- and Space-Efficient Bloom Filters" by Putze, Sanders and
+ * Singler.
+ *
  * @see BloomFilter The general behavior of a filter
  *
  * @see <a
@@ -99,6 +107,21 @@ public class ByteBloomFilter implements BloomFilter, BloomFilterWriter {
   /** Bloom bits */
   protected ByteBuffer bloom;
 
+  /** Whether all the bits of a key are in one block, see {@link #BLOOM_BLOCK_BYTES} */
+  protected boolean blocked;
+
+  /**
+   * The size of a block of a blocked Bloom filter in bytes. This is the cache
+   * line size of current processors.
+   */
+  public static final int BLOOM_BLOCK_BYTES = 64;
+
+  /** Log base 2 of {@link #BLOOM_BLOCK_BYTES} */
+  private static final int BLOOM_BLOCK_BYTES_LOG = 6;
+
+  /** The number of bits in a block of a blocked Bloom filter */
+  private static final int BLOOM_BLOCK_BITS = BLOOM_BLOCK_BYTES * 8;
+
   /** Record separator for the Bloom filter statistics human-readable string */
   public static final String STATS_RECORD_SEP = "; ";
 
@@ -223,6 +246,56 @@ public class ByteBloomFilter implements BloomFilter, BloomFilterWriter {
         / bitSize)) * functionCount);
   }
 
+  /**
+   * Computes the error rate of a blocked Bloom filter. The number of keys in
+   * a block follows a Poisson distribution, and a block holding i keys has
+   * the error rate of a one block Bloom filter with i keys.
+   *
+   * @param maxKeys
+   * @param bitSize a multiple of the block size in bits
+   * @param functionCount
+   * @return the actual error rate
+   */
+  public static double actualBlockedErrorRate(long maxKeys, long bitSize,
+      int functionCount) {
+    double keysPerBlock = maxKeys * 1.0 / (bitSize / BLOOM_BLOCK_BITS);
+    int maxKeysInBlock = (int) Math.ceil(keysPerBlock + 10 * Math.sqrt(keysPerBlock) + 10);
+    double probability = Math.exp(-keysPerBlock);
+    double errorRate = 0;
+    for (int i = 1; i <= maxKeysInBlock; ++i) {
+      probability *= keysPerBlock / i;
+      errorRate += probability * actualErrorRate(i, BLOOM_BLOCK_BITS, functionCount);
+    }
+    return errorRate;
+  }
+
+  /**
+   * The maximum number of keys we can put into a blocked Bloom filter of a
+   * certain size to get the given error rate, with the given number of hash
+   * functions.
+   *
+   * @param bitSize a multiple of the block size in bits
+   * @param errorRate
+   * @param hashCount
+   * @return the maximum number of keys that can be inserted in a blocked
+   *         Bloom filter to maintain the target error rate
+   */
+  public static long computeBlockedMaxKeys(long bitSize, double errorRate,
+      int hashCount) {
+    // A blocked filter never holds more keys than a classic one.
+    long low = 0;
+    long high = Math.max(1, computeMaxKeys(bitSize, errorRate, hashCount));
+    while (low < high) {
+      long mid = (low + high + 1) >>> 1;
+      if (actualBlockedErrorRate(mid, bitSize, hashCount) <= errorRate) {
+        low = mid;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return low;
+  }
+
   /**
    * Increases the given byte size of a Bloom filter until it can be folded by
    * the given factor.
@@ -302,9 +375,30 @@ public class ByteBloomFilter implements BloomFilter, BloomFilterWriter {
    */
   public static ByteBloomFilter createBySize(int byteSizeHint,
       double errorRate, int hashType, int foldFactor) {
+    return createBySize(byteSizeHint, errorRate, hashType, foldFactor, false);
+  }
+
+  /**
+   * Creates a Bloom filter of the given size.
+   *
+   * @param byteSizeHint the desired number of bytes for the Bloom filter bit
+   *          array. Will be increased so that folding is possible.
+   * @param errorRate target false positive rate of the Bloom filter
+   * @param hashType Bloom filter hash function type
+   * @param foldFactor
+   * @param blocked whether to set all the bits of a key in one block of
+   *          {@link #BLOOM_BLOCK_BYTES}
+   * @return the new Bloom filter of the desired size
+   */
+  public static ByteBloomFilter createBySize(int byteSizeHint,
+      double errorRate, int hashType, int foldFactor, boolean blocked) {
     ByteBloomFilter bbf = new ByteBloomFilter(hashType);
+    bbf.blocked = blocked;
 
-    bbf.byteSize = computeFoldableByteSize(byteSizeHint * 8L, foldFactor);
+    // A blocked filter is made of whole blocks, also when folded as far as
+    // its size allows.
+    bbf.byteSize = computeFoldableByteSize(byteSizeHint * 8L,
+        blocked ? Math.max(foldFactor, BLOOM_BLOCK_BYTES_LOG) : foldFactor);
     long bitSize = bbf.byteSize * 8;
     bbf.maxKeys = (int) idealMaxKeys(bitSize, errorRate);
     bbf.hashCount = optimalFunctionCount(bbf.maxKeys, bitSize);
@@ -312,7 +406,11 @@ public class ByteBloomFilter implements BloomFilter, BloomFilterWriter {
     // Adjust max keys to bring error rate closer to what was requested,
     // because byteSize was adjusted to allow for folding, and hashCount was
     // rounded.
-    bbf.maxKeys = (int) computeMaxKeys(bitSize, errorRate, bbf.hashCount);
+    if (blocked) {
+      bbf.maxKeys = (int) computeBlockedMaxKeys(bitSize, errorRate, bbf.hashCount);
+    } else {
+      bbf.maxKeys = (int) computeMaxKeys(bitSize, errorRate, bbf.hashCount);
+    }
 
     return bbf;
   }
@@ -325,6 +423,7 @@ public class ByteBloomFilter implements BloomFilter, BloomFilterWriter {
    */
   public ByteBloomFilter createAnother() {
     ByteBloomFilter bbf = new ByteBloomFilter(hashType);
+    bbf.blocked = blocked;
     bbf.byteSize = byteSize;
     bbf.hashCount = hashCount;
     bbf.maxKeys = maxKeys;
@@ -378,9 +477,17 @@ public class ByteBloomFilter implements BloomFilter, BloomFilterWriter {
     int hash1 = this.hash.hash(buf, offset, len, 0);
     int hash2 = this.hash.hash(buf, offset, len, hash1);
 
-    for (int i = 0; i < this.hashCount; i++) {
-      long hashLoc = Math.abs((hash1 + i * hash2) % (this.byteSize * 8));
-      set(hashLoc);
+    if (blocked) {
+      long blockStart = (long) getBlock(hash1, (int) byteSize) * BLOOM_BLOCK_BITS;
+      int step = getBlockProbeStep(hash1);
+      for (int i = 0; i < this.hashCount; i++) {
+        set(blockStart + ((hash2 + i * step) & (BLOOM_BLOCK_BITS - 1)));
+      }
+    } else {
+      for (int i = 0; i < this.hashCount; i++) {
+        long hashLoc = Math.abs((hash1 + i * hash2) % (this.byteSize * 8));
+        set(hashLoc);
+      }
     }
 
     ++this.keyCount;
@@ -416,10 +523,67 @@ public class ByteBloomFilter implements BloomFilter, BloomFilterWriter {
           + " theBloom.limit()=" + theBloom.limit() + ", byteSize=" + byteSize);
     }
 
+    if (blocked) {
+      return containsBlocked(buf, offset, length, theBloom.array(),
+          theBloom.arrayOffset(), (int) byteSize, hash, hashCount);
+    }
     return contains(buf, offset, length, theBloom.array(),
         theBloom.arrayOffset(), (int) byteSize, hash, hashCount);
   }
 
+  /**
+   * Checks a key against a blocked Bloom filter, see
+   * {@link #contains(byte[], int, int, byte[], int, int, Hash, int)}.
+   */
+  public static boolean containsBlocked(byte[] buf, int offset, int length,
+      byte[] bloomArray, int bloomOffset, int bloomSize, Hash hash,
+      int hashCount) {
+
+    int hash1 = hash.hash(buf, offset, length, 0);
+    int hash2 = hash.hash(buf, offset, length, hash1);
+
+    if (randomGeneratorForTest == null) {
+      // Production mode.
+      int blockOffset = bloomOffset + getBlock(hash1, bloomSize) * BLOOM_BLOCK_BYTES;
+      int step = getBlockProbeStep(hash1);
+      int compositeHash = hash2;
+      for (int i = 0; i < hashCount; i++) {
+        if (!get(compositeHash & (BLOOM_BLOCK_BITS - 1), bloomArray, blockOffset)) {
+          return false;
+        }
+        compositeHash += step;
+      }
+    } else {
+      // Test mode with "fake lookups" to estimate "ideal false positive rate".
+      int blockOffset = bloomOffset
+          + randomGeneratorForTest.nextInt(bloomSize / BLOOM_BLOCK_BYTES) * BLOOM_BLOCK_BYTES;
+      for (int i = 0; i < hashCount; i++) {
+        if (!get(randomGeneratorForTest.nextInt(BLOOM_BLOCK_BITS), bloomArray, blockOffset)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @return the block of a blocked Bloom filter the key with the given first
+   *         hash belongs to. Folding the filter in half moves the block to
+   *         the one this returns for the half size.
+   */
+  private static int getBlock(int hash1, int bloomSize) {
+    return (hash1 & Integer.MAX_VALUE) % (bloomSize / BLOOM_BLOCK_BYTES);
+  }
+
+  /**
+   * @return the distance between the bits of a key in its block. The step is
+   *         odd, so the bits of a key are all different as long as there are
+   *         fewer hash functions than bits in a block.
+   */
+  private static int getBlockProbeStep(int hash1) {
+    return (hash1 >>> 16) | 1;
+  }
+
   public static boolean contains(byte[] buf, int offset, int length,
       byte[] bloomArray, int bloomOffset, int bloomSize, Hash hash,
       int hashCount) {
@@ -507,8 +671,11 @@ public class ByteBloomFilter implements BloomFilter, BloomFilterWriter {
       int newByteSize = (int)this.byteSize;
       int newMaxKeys = this.maxKeys;
 
+      // a blocked filter is folded in whole blocks
+      int foldUnit = blocked ? BLOOM_BLOCK_BYTES : 1;
+
       // while exponentially smaller & folding is lossless
-      while ( (newByteSize & 1) == 0 && newMaxKeys > (this.keyCount<<1) ) {
+      while ( newByteSize % (foldUnit << 1) == 0 && newMaxKeys > (this.keyCount<<1) ) {
         pieces <<= 1;
         newByteSize >>= 1;
         newMaxKeys >>= 1;
@@ -594,6 +761,11 @@ public class ByteBloomFilter implements BloomFilter, BloomFilterWriter {
     return hashCount;
   }
 
+  /** @return true if all the bits of a key are set in one block */
+  public boolean isBlocked() {
+    return blocked;
+  }
+
   @Override
   public boolean supportsAutoLoading() {
     return bloom != null;
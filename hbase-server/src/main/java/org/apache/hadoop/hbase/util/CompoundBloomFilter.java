@@ -50,6 +50,9 @@ public class CompoundBloomFilter extends CompoundBloomFilterBase
   private int hashCount;
   private Hash hash;
 
+  /** Whether the chunks are blocked Bloom filters */
+  private final boolean blocked;
+
   private long[] numQueriesPerChunk;
   private long[] numPositivesPerChunk;
 
@@ -62,7 +65,22 @@ public class CompoundBloomFilter extends CompoundBloomFilterBase
    */
   public CompoundBloomFilter(DataInput meta, HFile.Reader reader)
       throws IOException {
+    this(meta, reader, false);
+  }
+
+  /**
+   * De-serialization for compound Bloom filter metadata. Must be consistent
+   * with what {@link CompoundBloomFilterWriter} does.
+   *
+   * @param meta serialized Bloom filter metadata without any magic blocks
+   * @param blocked whether the chunks are blocked Bloom filters, as told by
+   *          the version in the metadata
+   * @throws IOException
+   */
+  public CompoundBloomFilter(DataInput meta, HFile.Reader reader, boolean blocked)
+      throws IOException {
     this.reader = reader;
+    this.blocked = blocked;
 
     totalByteSize = meta.readLong();
     hashCount = meta.readInt();
@@ -107,9 +125,15 @@ public class CompoundBloomFilter extends CompoundBloomFilterBase
       }
 
       ByteBuffer bloomBuf = bloomBlock.getBufferReadOnly();
-      result = ByteBloomFilter.contains(key, keyOffset, keyLength,
-          bloomBuf.array(), bloomBuf.arrayOffset() + bloomBlock.headerSize(),
-          bloomBlock.getUncompressedSizeWithoutHeader(), hash, hashCount);
+      if (blocked) {
+        result = ByteBloomFilter.containsBlocked(key, keyOffset, keyLength,
+            bloomBuf.array(), bloomBuf.arrayOffset() + bloomBlock.headerSize(),
+            bloomBlock.getUncompressedSizeWithoutHeader(), hash, hashCount);
+      } else {
+        result = ByteBloomFilter.contains(key, keyOffset, keyLength,
+            bloomBuf.array(), bloomBuf.arrayOffset() + bloomBlock.headerSize(),
+            bloomBlock.getUncompressedSizeWithoutHeader(), hash, hashCount);
+      }
     }
 
     if (numQueriesPerChunk != null && block >= 0) {
@@ -130,6 +154,11 @@ public class CompoundBloomFilter extends CompoundBloomFilterBase
     return numChunks;
   }
 
+  /** @return true if the chunks are blocked Bloom filters */
+  public boolean isBlocked() {
+    return blocked;
+  }
+
   @Override
   public KVComparator getComparator() {
     return comparator;
@@ -172,6 +201,8 @@ public class CompoundBloomFilter extends CompoundBloomFilterBase
         "Number of chunks: " + numChunks);
     sb.append(ByteBloomFilter.STATS_RECORD_SEP + 
         "Comparator: " + comparator.getClass().getSimpleName());
+    sb.append(ByteBloomFilter.STATS_RECORD_SEP +
+        "Blocked: " + blocked);
     return sb.toString();
   }
 
@@ -76,6 +76,9 @@ public class CompoundBloomFilterWriter extends CompoundBloomFilterBase
   /** Whether to cache-on-write compound Bloom filter chunks */
   private boolean cacheOnWrite;
 
+  /** Whether the chunks are blocked Bloom filters */
+  private final boolean blocked;
+
   /**
    * @param chunkByteSizeHint
    *          each chunk's size in bytes. The real chunk size might be different
@@ -90,6 +93,27 @@ public class CompoundBloomFilterWriter extends CompoundBloomFilterBase
   public CompoundBloomFilterWriter(int chunkByteSizeHint, float errorRate,
       int hashType, int maxFold, boolean cacheOnWrite,
       KVComparator comparator) {
+    this(chunkByteSizeHint, errorRate, hashType, maxFold, cacheOnWrite,
+        comparator, false);
+  }
+
+  /**
+   * @param chunkByteSizeHint
+   *          each chunk's size in bytes. The real chunk size might be different
+   *          as required by the fold factor.
+   * @param errorRate
+   *          target false positive rate
+   * @param hashType
+   *          hash function type to use
+   * @param maxFold
+   *          maximum degree of folding allowed
+   * @param blocked
+   *          whether to write blocked Bloom filter chunks
+   */
+  public CompoundBloomFilterWriter(int chunkByteSizeHint, float errorRate,
+      int hashType, int maxFold, boolean cacheOnWrite,
+      KVComparator comparator, boolean blocked) {
+    this.blocked = blocked;
     chunkByteSize = ByteBloomFilter.computeFoldableByteSize(
         chunkByteSizeHint * 8L, maxFold);
 
@@ -175,7 +199,7 @@ public class CompoundBloomFilterWriter extends CompoundBloomFilterBase
       if (prevChunk == null) {
         // First chunk
         chunk = ByteBloomFilter.createBySize(chunkByteSize, errorRate,
-            hashType, maxFold);
+            hashType, maxFold, blocked);
       } else {
         // Use the same parameters as the last chunk, but a new array and
         // a zero key count.
@@ -233,7 +257,7 @@ public class CompoundBloomFilterWriter extends CompoundBloomFilterBase
      */
     @Override
     public void write(DataOutput out) throws IOException {
-      out.writeInt(VERSION);
+      out.writeInt(blocked ? BLOCKED_VERSION : VERSION);
 
       out.writeLong(getByteSize());
       out.writeInt(prevChunk.getHashCount());
@@ -77,7 +77,7 @@ public class ScanPerformanceEvaluation extends AbstractHBaseTool {
 
   @Override
   protected void addOptions() {
-    this.addRequiredOptWithArg("t", "type", "the type of the test. One of the following: streaming|scan|snapshotscan|scanmapreduce|snapshotscanmapreduce");
+    this.addRequiredOptWithArg("t", "type", "the type of the test. One of the following: streaming|scan|reversescan|scancompare|snapshotscan|scanmapreduce|snapshotscanmapreduce");
     this.addOptWithArg("f", "file", "the filename to read from");
     this.addOptWithArg("tn", "table", "the tablename to read from");
     this.addOptWithArg("sn", "snapshot", "the snapshot name to read from");
@@ -141,6 +141,28 @@ public class ScanPerformanceEvaluation extends AbstractHBaseTool {
   }
 
   public void testScan() throws IOException {
+    testScan(false);
+  }
+
+  public void testReverseScan() throws IOException {
+    testScan(true);
+  }
+
+  /**
+   * Scans the table forward then backward, and compares the throughputs.
+   */
+  public void testScanCompare() throws IOException {
+    double forwardRows = testScan(false);
+    double reverseRows = testScan(true);
+    System.out.println("reverse / forward rows/s: "
+        + String.format("%.3f", reverseRows / forwardRows));
+  }
+
+  /**
+   * @param reversed whether to scan the table from its last row to its first
+   * @return the number of rows scanned per second
+   */
+  protected double testScan(boolean reversed) throws IOException {
     Stopwatch tableOpenTimer = new Stopwatch();
     Stopwatch scanOpenTimer = new Stopwatch();
     Stopwatch scanTimer = new Stopwatch();
@@ -150,6 +172,7 @@ public class ScanPerformanceEvaluation extends AbstractHBaseTool {
     tableOpenTimer.stop();
 
     Scan scan = getScan();
+    scan.setReversed(reversed);
     scanOpenTimer.start();
     ResultScanner scanner = table.getScanner(scan);
     scanOpenTimer.stop();
@@ -176,7 +199,7 @@ public class ScanPerformanceEvaluation extends AbstractHBaseTool {
     double throughputRows = (double)numRows / scanTimer.elapsedTime(TimeUnit.SECONDS);
     double throughputCells = (double)numCells / scanTimer.elapsedTime(TimeUnit.SECONDS);
 
-    System.out.println("HBase scan: ");
+    System.out.println(reversed ? "HBase reverse scan: " : "HBase scan: ");
     System.out.println("total time to open table: " + tableOpenTimer.elapsedMillis() + " ms");
     System.out.println("total time to open scanner: " + scanOpenTimer.elapsedMillis() + " ms");
     System.out.println("total time to scan: " + scanTimer.elapsedMillis() + " ms");
@@ -190,6 +213,7 @@ public class ScanPerformanceEvaluation extends AbstractHBaseTool {
     System.out.println("throughput  : " + StringUtils.humanReadableInt((long)throughputRows) + " rows/s");
     System.out.println("total cells : " + numCells);
     System.out.println("throughput  : " + StringUtils.humanReadableInt((long)throughputCells) + " cells/s");
+    return throughputRows;
   }
 
 
@@ -376,6 +400,10 @@ public class ScanPerformanceEvaluation extends AbstractHBaseTool {
       testHdfsStreaming(new Path(file));
     } else if (type.equals("scan")){
       testScan();
+    } else if (type.equals("reversescan")) {
+      testReverseScan();
+    } else if (type.equals("scancompare")) {
+      testScanCompare();
     } else if (type.equals("snapshotscan")) {
       testSnapshotScan();
     } else if (type.equals("scanmapreduce")) {
@@ -0,0 +1,237 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.MediumTests;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.ipc.RpcClient;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+
+@Category(MediumTests.class)
+public class TestAsyncHTable {
+  private final static HBaseTestingUtility TEST_UTIL = new HBaseTestingUtility();
+  private static final TableName TABLE = TableName.valueOf("testAsyncHTable");
+  private static final byte[] FAMILY = Bytes.toBytes("testFamily");
+  private static final byte[] QUALIFIER = Bytes.toBytes("testQualifier");
+  private static final byte[] VALUE = Bytes.toBytes("testValue");
+  private static final int NUM_REGIONS = 10;
+
+  private static HConnection connection;
+  private static AsyncTable table;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    // Read the responses on shared threads
+    TEST_UTIL.getConfiguration().setInt(RpcClient.READER_COUNT_KEY, 2);
+    TEST_UTIL.startMiniCluster();
+    TEST_UTIL.createTable(TABLE, new byte[][] { FAMILY }, 3,
+        Bytes.toBytes("aaaaa"), Bytes.toBytes("zzzzz"), NUM_REGIONS).close();
+    TEST_UTIL.waitUntilAllRegionsAssigned(TABLE);
+    connection = HConnectionManager.createConnection(TEST_UTIL.getConfiguration());
+    table = new AsyncHTable(TABLE, connection);
+  }
+
+  @AfterClass
+  public static void tearDownAfterClass() throws Exception {
+    table.close();
+    connection.close();
+    TEST_UTIL.shutdownMiniCluster();
+  }
+
+  /**
+   * @return row keys spread over the regions of the table
+   */
+  private static byte[] row(String prefix, int i) {
+    return Bytes.toBytes((char) ('a' + i % 26) + prefix + i);
+  }
+
+  @Test
+  public void testPutGetDelete() throws Exception {
+    byte[] row = row("putGetDelete", 0);
+    Put put = new Put(row);
+    put.add(FAMILY, QUALIFIER, VALUE);
+    table.put(put).get();
+
+    Result result = table.get(new Get(row)).get();
+    assertArrayEquals(VALUE, result.getValue(FAMILY, QUALIFIER));
+
+    table.delete(new Delete(row)).get();
+    assertTrue(table.get(new Get(row)).get().isEmpty());
+  }
+
+  @Test
+  public void testInvalidArguments() throws Exception {
+    // No columns
+    assertFailsWith(IllegalArgumentException.class, table.put(new Put(row("invalid", 0))));
+    assertFailsWith(IOException.class, table.increment(new Increment(row("invalid", 0))));
+    Scan scan = new Scan();
+    scan.setReversed(true);
+    assertFailsWith(IllegalArgumentException.class, table.scan(scan));
+  }
+
+  private static void assertFailsWith(Class<? extends Throwable> expected,
+      ListenableFuture<?> future) throws InterruptedException {
+    try {
+      future.get();
+      fail("Should have failed with " + expected.getSimpleName());
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause().toString(), expected.isInstance(e.getCause()));
+    }
+  }
+
+  @Test
+  public void testManyInFlight() throws Exception {
+    int count = 1000;
+    List<ListenableFuture<Void>> puts = new ArrayList<ListenableFuture<Void>>(count);
+    for (int i = 0; i < count; i++) {
+      Put put = new Put(row("inFlight", i));
+      put.add(FAMILY, QUALIFIER, Bytes.toBytes(i));
+      puts.add(table.put(put));
+    }
+    Futures.allAsList(puts).get();
+
+    List<ListenableFuture<Result>> gets = new ArrayList<ListenableFuture<Result>>(count);
+    for (int i = 0; i < count; i++) {
+      gets.add(table.get(new Get(row("inFlight", i))));
+    }
+    List<Result> results = Futures.allAsList(gets).get();
+    for (int i = 0; i < count; i++) {
+      assertEquals(i, Bytes.toInt(results.get(i).getValue(FAMILY, QUALIFIER)));
+    }
+  }
+
+  @Test
+  public void testIncrement() throws Exception {
+    byte[] row = row("increment", 0);
+    Increment increment = new Increment(row);
+    increment.addColumn(FAMILY, QUALIFIER, 5);
+    table.increment(increment).get();
+    Result result = table.increment(increment).get();
+    assertEquals(10, Bytes.toLong(result.getValue(FAMILY, QUALIFIER)));
+  }
+
+  @Test
+  public void testCheckAndMutate() throws Exception {
+    byte[] row = row("checkAndMutate", 0);
+    byte[] other = Bytes.toBytes("otherValue");
+    Put put = new Put(row);
+    put.add(FAMILY, QUALIFIER, VALUE);
+    // The column is not there yet
+    assertTrue(table.checkAndPut(row, FAMILY, QUALIFIER, null, put).get());
+    assertFalse(table.checkAndPut(row, FAMILY, QUALIFIER, other, put).get());
+
+    Delete delete = new Delete(row);
+    assertFalse(table.checkAndDelete(row, FAMILY, QUALIFIER, other, delete).get());
+    assertTrue(table.checkAndDelete(row, FAMILY, QUALIFIER, VALUE, delete).get());
+    assertTrue(table.get(new Get(row)).get().isEmpty());
+  }
+
+  @Test
+  public void testBatch() throws Exception {
+    List<Row> actions = new ArrayList<Row>();
+    for (int i = 0; i < 50; i++) {
+      Put put = new Put(row("batch", i));
+      put.add(FAMILY, QUALIFIER, VALUE);
+      actions.add(put);
+    }
+    Object[] results = table.batch(actions).get();
+    assertEquals(actions.size(), results.length);
+
+    List<Row> gets = new ArrayList<Row>();
+    for (int i = 0; i < 50; i++) {
+      gets.add(new Get(row("batch", i)));
+    }
+    results = table.batch(gets).get();
+    for (Object result : results) {
+      assertArrayEquals(VALUE, ((Result) result).getValue(FAMILY, QUALIFIER));
+    }
+
+    List<Row> failing = new ArrayList<Row>();
+    Put put = new Put(row("batch", 0));
+    put.add(Bytes.toBytes("noSuchFamily"), QUALIFIER, VALUE);
+    failing.add(put);
+    try {
+      table.batch(failing).get();
+      fail("The put to a family that does not exist should have failed");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof RetriesExhaustedWithDetailsException);
+    }
+  }
+
+  @Test
+  public void testScan() throws Exception {
+    int count = 100;
+    List<ListenableFuture<Void>> puts = new ArrayList<ListenableFuture<Void>>(count);
+    for (int i = 0; i < count; i++) {
+      Put put = new Put(Bytes.toBytes(String.format("scan%03d", i)));
+      put.add(FAMILY, QUALIFIER, Bytes.toBytes(i));
+      puts.add(table.put(put));
+    }
+    for (int i = 0; i < count; i++) {
+      Put put = new Put(row("scan", i));
+      put.add(FAMILY, QUALIFIER, Bytes.toBytes(i));
+      puts.add(table.put(put));
+    }
+    Futures.allAsList(puts).get();
+
+    // Small caching, so that regions are read in several steps
+    Scan scan = new Scan(Bytes.toBytes("scan000"), Bytes.toBytes("scan050"));
+    scan.setCaching(7);
+    List<Result> results = table.scan(scan).get();
+    assertEquals(50, results.size());
+    for (int i = 0; i < 50; i++) {
+      assertEquals(i, Bytes.toInt(results.get(i).getValue(FAMILY, QUALIFIER)));
+    }
+
+    // Across all the regions
+    scan = new Scan();
+    scan.setCaching(3);
+    results = table.scan(scan).get();
+    int found = 0;
+    byte[] previous = null;
+    for (Result result : results) {
+      if (previous != null) {
+        assertTrue(Bytes.compareTo(previous, result.getRow()) < 0);
+      }
+      previous = result.getRow();
+      if (Bytes.toString(result.getRow()).contains("scan")) {
+        found++;
+      }
+    }
+    assertEquals(2 * count, found);
+  }
+}
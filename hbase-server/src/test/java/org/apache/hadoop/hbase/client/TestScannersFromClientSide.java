@@ -19,19 +19,25 @@ package org.apache.hadoop.hbase.client;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.HRegionInfo;
 import org.apache.hadoop.hbase.HRegionLocation;
 import org.apache.hadoop.hbase.HTestConst;
 import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.MediumTests;
 import org.apache.hadoop.hbase.MiniHBaseCluster;
+import org.apache.hadoop.hbase.ServerName;
+import org.apache.hadoop.hbase.Waiter;
+import org.apache.hadoop.hbase.client.metrics.ScanMetrics;
 import org.apache.hadoop.hbase.filter.ColumnPrefixFilter;
 import org.apache.hadoop.hbase.filter.ColumnRangeFilter;
 import org.apache.hadoop.hbase.master.HMaster;
@@ -514,6 +520,136 @@ public class TestScannersFromClientSide {
     verifyResult(result, kvListExp, toLog, "Testing scan on re-opened region");
   }
 
+  /**
+   * Test a scan of several regions at the same time, in key order or not,
+   * against the same scan done region after region.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testParallelScan() throws Exception {
+    byte [] TABLE = Bytes.toBytes("testParallelScan");
+    byte [][] splitRows = { Bytes.toBytes("d"), Bytes.toBytes("h"), Bytes.toBytes("m"),
+        Bytes.toBytes("q"), Bytes.toBytes("u") };
+    HTable ht = TEST_UTIL.createTable(TABLE, FAMILY, splitRows);
+    TEST_UTIL.loadTable(ht, FAMILY);
+
+    Scan scan = new Scan(Bytes.toBytes("c"), Bytes.toBytes("r"));
+    scan.setCaching(50);
+    List<String> expected = scanRows(ht, scan);
+
+    scan = new Scan(Bytes.toBytes("c"), Bytes.toBytes("r"));
+    scan.setCaching(50);
+    scan.setParallelism(3);
+    scan.setAttribute(Scan.SCAN_ATTRIBUTES_METRICS_ENABLE, Bytes.toBytes(Boolean.TRUE));
+    ResultScanner scanner = ht.getScanner(scan);
+    assertTrue(scanner instanceof ParallelClientScanner);
+    List<String> rows = new ArrayList<String>();
+    for (Result result : scanner) {
+      rows.add(Bytes.toString(result.getRow()));
+    }
+    assertEquals(expected, rows);
+    ScanMetrics scanMetrics = ((ParallelClientScanner) scanner).getScanMetrics();
+    scanner.close();
+    assertEquals(5, scanMetrics.countOfRegionsCompleted.get());
+    assertEquals(5, scanMetrics.countOfRegions.get());
+
+    // the whole table, with rows in any order and small buffers
+    scan = new Scan();
+    expected = scanRows(ht, scan);
+    scan = new Scan();
+    scan.setCaching(10);
+    scan.setMaxResultSize(1024);
+    scan.setParallelism(4);
+    scan.setParallelOrdered(false);
+    rows = scanRows(ht, scan);
+    assertEquals(expected.size(), rows.size());
+    Collections.sort(rows);
+    assertEquals(expected, rows);
+
+    // the default caching, as for a ClientScanner
+    scan = new Scan();
+    scan.setParallelism(3);
+    scanner = ht.getScanner(scan);
+    assertEquals(TEST_UTIL.getConfiguration().getInt(HConstants.HBASE_CLIENT_SCANNER_CACHING,
+        HConstants.DEFAULT_HBASE_CLIENT_SCANNER_CACHING),
+        ((ParallelClientScanner) scanner).getMaxBufferedRows());
+    rows = new ArrayList<String>();
+    for (Result result : scanner) {
+      rows.add(Bytes.toString(result.getRow()));
+    }
+    scanner.close();
+    assertEquals(expected, rows);
+    ht.close();
+  }
+
+  /**
+   * Test a scan prefetching its rows, with a region moving in the middle of
+   * it, against the same scan done synchronously.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testAsyncPrefetchScan() throws Exception {
+    byte [] TABLE = Bytes.toBytes("testAsyncPrefetchScan");
+    byte [][] splitRows = { Bytes.toBytes("h"), Bytes.toBytes("q") };
+    HTable ht = TEST_UTIL.createTable(TABLE, FAMILY, splitRows);
+    TEST_UTIL.loadTable(ht, FAMILY);
+
+    Scan scan = new Scan();
+    scan.setCaching(100);
+    List<String> expected = scanRows(ht, scan);
+
+    scan = new Scan();
+    scan.setCaching(100);
+    scan.setMaxResultSize(4096);
+    scan.setAsyncPrefetch(true);
+    ResultScanner scanner = ht.getScanner(scan);
+    assertTrue(scanner instanceof ClientAsyncPrefetchScanner);
+    List<String> rows = new ArrayList<String>();
+    Result result;
+    while (rows.size() < 1000 && (result = scanner.next()) != null) {
+      rows.add(Bytes.toString(result.getRow()));
+    }
+
+    // move the region being scanned to another server
+    final HRegionInfo hri = ht.getRegionLocation(Bytes.toBytes("b")).getRegionInfo();
+    MiniHBaseCluster cluster = TEST_UTIL.getMiniHBaseCluster();
+    int i = cluster.getServerWith(hri.getRegionName());
+    final HRegionServer dest = cluster.getRegionServer((i + 1) % 3);
+    TEST_UTIL.getHBaseAdmin().move(hri.getEncodedNameAsBytes(),
+        Bytes.toBytes(dest.getServerName().getServerName()));
+    final RegionStates states =
+        cluster.getMaster().getAssignmentManager().getRegionStates();
+    TEST_UTIL.waitFor(45000, 200, new Waiter.Predicate<Exception>() {
+      @Override
+      public boolean evaluate() throws Exception {
+        ServerName sn = states.getRegionServerOfRegion(hri);
+        return sn != null && sn.equals(dest.getServerName());
+      }
+    });
+
+    while ((result = scanner.next()) != null) {
+      rows.add(Bytes.toString(result.getRow()));
+    }
+    scanner.close();
+    assertEquals(expected, rows);
+    ht.close();
+  }
+
+  private static List<String> scanRows(HTable ht, Scan scan) throws IOException {
+    List<String> rows = new ArrayList<String>();
+    ResultScanner scanner = ht.getScanner(scan);
+    try {
+      for (Result result : scanner) {
+        rows.add(Bytes.toString(result.getRow()));
+      }
+    } finally {
+      scanner.close();
+    }
+    return rows;
+  }
+
   static void verifyResult(Result result, List<Cell> expKvList, boolean toLog,
       String msg) {
 
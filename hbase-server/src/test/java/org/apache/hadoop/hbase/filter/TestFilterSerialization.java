@@ -21,7 +21,9 @@ package org.apache.hadoop.hbase.filter;
 
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.TreeSet;
 
 import org.apache.hadoop.hbase.SmallTests;
@@ -158,6 +160,17 @@ public class TestFilterSerialization {
       ProtobufUtil.toFilter(ProtobufUtil.toFilter(fuzzyRowFilter))));
   }
 
+  @Test
+  public void testMultiRowRangeFilter() throws Exception {
+    List<MultiRowRangeFilter.RowRange> ranges = new ArrayList<MultiRowRangeFilter.RowRange>();
+    ranges.add(new MultiRowRangeFilter.RowRange("30", true, "40", false));
+    ranges.add(new MultiRowRangeFilter.RowRange("10", false, "20", true));
+    ranges.add(new MultiRowRangeFilter.RowRange("50", true, null, false));
+    MultiRowRangeFilter multiRowRangeFilter = new MultiRowRangeFilter(ranges);
+    assertTrue(multiRowRangeFilter.areSerializedFieldsEqual(
+      ProtobufUtil.toFilter(ProtobufUtil.toFilter(multiRowRangeFilter))));
+  }
+
   @Test
   public void testInclusiveStopFilter() throws Exception {
     // InclusveStopFilter with null stopRowKey
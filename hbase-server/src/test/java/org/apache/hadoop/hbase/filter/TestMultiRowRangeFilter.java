@@ -0,0 +1,165 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.MediumTests;
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.filter.MultiRowRangeFilter.RowRange;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(MediumTests.class)
+public class TestMultiRowRangeFilter {
+  private final static HBaseTestingUtility TEST_UTIL = new HBaseTestingUtility();
+  private static final byte[] FAMILY = Bytes.toBytes("f");
+  private static HTable table;
+  private static List<byte[]> allRows = new ArrayList<byte[]>();
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    TEST_UTIL.startMiniCluster();
+    table = TEST_UTIL.createTable(Bytes.toBytes("TestMultiRowRangeFilter"), FAMILY,
+        new byte[][] { Bytes.toBytes("h"), Bytes.toBytes("q") });
+    TEST_UTIL.loadTable(table, FAMILY);
+    ResultScanner scanner = table.getScanner(new Scan());
+    for (Result result : scanner) {
+      allRows.add(result.getRow());
+    }
+    scanner.close();
+  }
+
+  @AfterClass
+  public static void tearDownAfterClass() throws Exception {
+    table.close();
+    TEST_UTIL.shutdownMiniCluster();
+  }
+
+  @Test
+  public void testRanges() throws IOException {
+    List<RowRange> ranges = new ArrayList<RowRange>();
+    ranges.add(new RowRange("ppp", true, "qab", false));
+    ranges.add(new RowRange("bbb", false, "bcc", true));
+    ranges.add(new RowRange("bca", true, "bdd", false));
+    ranges.add(new RowRange("yyz", false, null, false));
+    assertRows(ranges, scan(new MultiRowRangeFilter(ranges), new Scan()));
+  }
+
+  @Test
+  public void testFromStartOfTable() throws IOException {
+    List<RowRange> ranges = new ArrayList<RowRange>();
+    ranges.add(new RowRange(null, false, "abc", true));
+    ranges.add(new RowRange("zza", true, "zzb", true));
+    assertRows(ranges, scan(new MultiRowRangeFilter(ranges), new Scan()));
+  }
+
+  @Test
+  public void testNoRowInRanges() throws IOException {
+    List<RowRange> ranges = new ArrayList<RowRange>();
+    ranges.add(new RowRange("0", true, "1", false));
+    ranges.add(new RowRange("zzz", false, null, false));
+    assertEquals(0, scan(new MultiRowRangeFilter(ranges), new Scan()).size());
+  }
+
+  @Test
+  public void testScansByRegion() throws IOException {
+    List<RowRange> ranges = new ArrayList<RowRange>();
+    ranges.add(new RowRange("abc", true, "abz", false));
+    ranges.add(new RowRange("ggg", false, "iii", true));
+    ranges.add(new RowRange("mmm", true, "qqq", true));
+    List<Scan> scans = MultiRowRangeFilter.createScansByRegion(table, new Scan(), ranges);
+    // The last two ranges span two regions each
+    assertEquals(3, scans.size());
+    List<byte[]> rows = new ArrayList<byte[]>();
+    for (Scan scan : scans) {
+      rows.addAll(scan(null, scan));
+    }
+    assertRows(ranges, rows);
+
+    // The filter of the scan still applies
+    Scan scan = new Scan();
+    scan.setFilter(new PrefixFilter(Bytes.toBytes("ab")));
+    rows.clear();
+    for (Scan regionScan : MultiRowRangeFilter.createScansByRegion(table, scan, ranges)) {
+      rows.addAll(scan(null, regionScan));
+    }
+    // abc to aby
+    assertEquals(23, rows.size());
+    for (byte[] row : rows) {
+      assertTrue(Bytes.startsWith(row, Bytes.toBytes("ab")));
+    }
+  }
+
+  @Test
+  public void testScansByRegionToEndOfTable() throws IOException {
+    List<RowRange> ranges = new ArrayList<RowRange>();
+    ranges.add(new RowRange("ccc", true, "ddd", false));
+    // Open ended, and spanning the last region
+    ranges.add(new RowRange("ppp", true, null, true));
+    List<Scan> scans = MultiRowRangeFilter.createScansByRegion(table, new Scan(), ranges);
+    assertEquals(3, scans.size());
+    List<byte[]> rows = new ArrayList<byte[]>();
+    for (Scan scan : scans) {
+      rows.addAll(scan(null, scan));
+    }
+    assertRows(ranges, rows);
+  }
+
+  private List<byte[]> scan(Filter filter, Scan scan) throws IOException {
+    if (filter != null) {
+      scan.setFilter(filter);
+    }
+    List<byte[]> rows = new ArrayList<byte[]>();
+    ResultScanner scanner = table.getScanner(scan);
+    for (Result result : scanner) {
+      rows.add(result.getRow());
+    }
+    scanner.close();
+    return rows;
+  }
+
+  private void assertRows(List<RowRange> ranges, List<byte[]> rows) {
+    List<byte[]> expected = new ArrayList<byte[]>();
+    for (byte[] row : allRows) {
+      for (RowRange range : ranges) {
+        if (range.contains(row, 0, row.length)) {
+          expected.add(row);
+          break;
+        }
+      }
+    }
+    assertTrue(expected.size() > 0);
+    assertEquals(expected.size(), rows.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertTrue(Bytes.toStringBinary(rows.get(i)), Bytes.equals(expected.get(i), rows.get(i)));
+    }
+  }
+}
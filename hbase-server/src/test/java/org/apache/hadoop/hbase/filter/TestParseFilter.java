@@ -304,6 +304,17 @@ public class TestParseFilter {
     assertFalse(columnRangeFilter.isMaxColumnInclusive());
   }
 
+  @Test
+  public void testMultiRowRangeFilter() throws IOException {
+    String filterString = "MultiRowRangeFilter('m', false, 'p', true, 'a', true, 'c', false)";
+    MultiRowRangeFilter multiRowRangeFilter =
+      doTestFilter(filterString, MultiRowRangeFilter.class);
+    List<MultiRowRangeFilter.RowRange> ranges = multiRowRangeFilter.getRowRanges();
+    assertEquals(2, ranges.size());
+    assertEquals(new MultiRowRangeFilter.RowRange("a", true, "c", false), ranges.get(0));
+    assertEquals(new MultiRowRangeFilter.RowRange("m", false, "p", true), ranges.get(1));
+  }
+
   @Test
   public void testDependentColumnFilter() throws IOException {
     String filterString = "DependentColumnFilter('family', 'qualifier', true, =, 'binary:abc')";
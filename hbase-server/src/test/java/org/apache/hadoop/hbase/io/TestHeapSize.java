@@ -50,6 +50,7 @@ import org.apache.hadoop.hbase.regionserver.KeyValueSkipListSet;
 import org.apache.hadoop.hbase.regionserver.MemStore;
 import org.apache.hadoop.hbase.regionserver.TimeRangeTracker;
 import org.apache.hadoop.hbase.util.ClassSize;
+import org.apache.hadoop.hbase.util.StripedReadWriteLock;
 import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
@@ -337,6 +338,15 @@ public class TestHeapSize  {
       assertEquals(expected, actual);
     }
 
+    // Striped lock overhead
+    cl = StripedReadWriteLock.class;
+    actual = StripedReadWriteLock.FIXED_OVERHEAD;
+    expected = ClassSize.estimateBase(cl, false);
+    if (expected != actual) {
+      ClassSize.estimateBase(cl, true);
+      assertEquals(expected, actual);
+    }
+
     // Block cache key overhead
     cl = BlockCacheKey.class;
     // Passing zero length file name, because estimateBase does not handle
@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hadoop.hbase.io.encoding;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.io.compress.Compression;
+import org.apache.hadoop.hbase.io.hfile.HFileContext;
+import org.apache.hadoop.hbase.io.hfile.HFileContextBuilder;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.test.RedundantKVGenerator;
+
+/**
+ * Measures point lookups inside encoded data blocks, the way a Get uses them:
+ * seek to the first cell of a random row and read all the cells of the row.
+ * Compares the encodings that are useful for Get heavy workloads.
+ */
+public class EncodedGetPerformanceTest {
+  private static final double NANOSEC_IN_SEC = 1000.0 * 1000.0 * 1000.0;
+  private static final int BLOCK_SIZE = 64 * 1024;
+  private static final byte[] FAMILY = Bytes.toBytes("family");
+
+  private static final DataBlockEncoding[] ENCODINGS = {
+    DataBlockEncoding.PREFIX,
+    DataBlockEncoding.FAST_DIFF,
+    DataBlockEncoding.PREFIX_TREE,
+    DataBlockEncoding.ROW_HASH_INDEX
+  };
+
+  private final int numRows;
+  private final int numColumns;
+  private final int numGets;
+  private final HFileContext meta = new HFileContextBuilder()
+      .withHBaseCheckSum(false)
+      .withIncludesMvcc(true)
+      .withIncludesTags(false)
+      .withCompression(Compression.Algorithm.NONE)
+      .build();
+
+  /** Cells of each block, and the first row of each block for the index. */
+  private final List<List<KeyValue>> blocks = new ArrayList<List<KeyValue>>();
+  private final List<byte[]> blockFirstRows = new ArrayList<byte[]>();
+  private final List<byte[]> rows = new ArrayList<byte[]>();
+
+  public EncodedGetPerformanceTest(int numRows, int numColumns, int numGets) {
+    this.numRows = numRows;
+    this.numColumns = numColumns;
+    this.numGets = numGets;
+  }
+
+  private void prepareBlocks() {
+    Random random = new Random(42L);
+    List<KeyValue> block = new ArrayList<KeyValue>();
+    int blockSize = 0;
+    for (int i = 0; i < numRows; ++i) {
+      byte[] row = Bytes.toBytes(String.format("user%012d", i));
+      rows.add(row);
+      for (int j = 0; j < numColumns; ++j) {
+        byte[] value = new byte[16 + random.nextInt(32)];
+        random.nextBytes(value);
+        KeyValue kv = new KeyValue(row, FAMILY, Bytes.toBytes("field" + j), 1L, value);
+        if (blockSize >= BLOCK_SIZE) {
+          blocks.add(block);
+          block = new ArrayList<KeyValue>();
+          blockSize = 0;
+        }
+        if (block.isEmpty()) {
+          blockFirstRows.add(kv.getRow());
+        }
+        block.add(kv);
+        blockSize += kv.getLength();
+      }
+    }
+    blocks.add(block);
+  }
+
+  private ByteBuffer encode(DataBlockEncoding encoding, List<KeyValue> kvs)
+      throws IOException {
+    DataBlockEncoder encoder = encoding.getEncoder();
+    HFileBlockEncodingContext encodingCtx = encoder.newDataBlockEncodingContext(
+        encoding, HConstants.HFILEBLOCK_DUMMY_HEADER, meta);
+    encoder.encodeKeyValues(RedundantKVGenerator.convertKvToByteBuffer(kvs, true),
+        encodingCtx);
+    byte[] withHeader = encodingCtx.getUncompressedBytesWithHeader();
+    int offset = HConstants.HFILEBLOCK_HEADER_SIZE + DataBlockEncoding.ID_SIZE;
+    return ByteBuffer.wrap(withHeader, offset, withHeader.length - offset).slice();
+  }
+
+  private int findBlock(byte[] row) {
+    int low = 0;
+    int high = blockFirstRows.size() - 1;
+    while (low < high) {
+      int mid = (low + high + 1) >>> 1;
+      if (Bytes.compareTo(blockFirstRows.get(mid), row) <= 0) {
+        low = mid;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return low;
+  }
+
+  private void runTest(DataBlockEncoding encoding) throws IOException {
+    DataBlockEncoder encoder = encoding.getEncoder();
+    List<ByteBuffer> encodedBlocks = new ArrayList<ByteBuffer>();
+    long encodedSize = 0;
+    for (List<KeyValue> block : blocks) {
+      ByteBuffer encoded = encode(encoding, block);
+      encodedBlocks.add(encoded);
+      encodedSize += encoded.limit();
+    }
+
+    DataBlockEncoder.EncodedSeeker seeker = encoder.createSeeker(KeyValue.COMPARATOR,
+        encoder.newDataBlockDecodingContext(meta));
+    Random random = new Random(17L);
+    long cellsRead = 0;
+    long startTime = System.nanoTime();
+    for (int i = 0; i < numGets; ++i) {
+      byte[] row = rows.get(random.nextInt(rows.size()));
+      // a Get moves to the block from the block index, as the HFile reader does
+      seeker.setCurrentBuffer(encodedBlocks.get(findBlock(row)).duplicate());
+      KeyValue firstOnRow = KeyValue.createFirstOnRow(row);
+      int result = seeker.seekToKeyInBlock(firstOnRow.getBuffer(),
+          firstOnRow.getKeyOffset(), firstOnRow.getKeyLength(), false);
+      if (result != HConstants.INDEX_KEY_MAGIC && !seeker.next()) {
+        throw new AssertionError("Row " + Bytes.toStringBinary(row) + " not found");
+      }
+      do {
+        KeyValue kv = seeker.getKeyValue();
+        if (!Bytes.equals(kv.getRow(), row)) {
+          break;
+        }
+        cellsRead++;
+      } while (seeker.next());
+    }
+    long elapsed = System.nanoTime() - startTime;
+
+    if (cellsRead < (long) numGets * numColumns) {
+      throw new AssertionError(encoding + " read " + cellsRead + " cells, expected "
+          + (long) numGets * numColumns);
+    }
+    System.out.println(encoding);
+    System.out.printf("  Gets per second:  %10.2f (#/s)\n", numGets * NANOSEC_IN_SEC / elapsed);
+    System.out.printf("  Encoded size:     %10d (bytes)\n", encodedSize);
+  }
+
+  public void runTests() throws IOException {
+    prepareBlocks();
+    // the first pass warms up the JIT
+    for (int pass = 0; pass < 2; ++pass) {
+      System.out.println(pass == 0 ? "Warm up" : "Measurement");
+      for (DataBlockEncoding encoding : ENCODINGS) {
+        runTest(encoding);
+      }
+    }
+  }
+
+  /**
+   * Command line interface.
+   * @param args optional number of rows, columns per row and gets
+   */
+  public static void main(final String[] args) throws IOException {
+    int numRows = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+    int numColumns = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+    int numGets = args.length > 2 ? Integer.parseInt(args[2]) : 1000000;
+    new EncodedGetPerformanceTest(numRows, numColumns, numGets).runTests();
+  }
+}
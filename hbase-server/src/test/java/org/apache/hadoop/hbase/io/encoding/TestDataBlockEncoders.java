@@ -17,6 +17,7 @@
 package org.apache.hadoop.hbase.io.encoding;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
@@ -28,6 +29,9 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Random;
 
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellComparator;
+import org.apache.hadoop.hbase.CellUtil;
 import org.apache.hadoop.hbase.HBaseTestingUtility;
 import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.KeyValue;
@@ -315,6 +319,51 @@ public class TestDataBlockEncoders {
     }
   }
 
+  /**
+   * Test that the seekers decode blocks held in direct buffers, both through
+   * the copying and the non-copying accessors.
+   */
+  @Test
+  public void testNextOnDirectBuffer() throws IOException {
+    List<KeyValue> sampleKv = generator.generateTestKeyValues(NUMBER_OF_KV, includesTags);
+    ByteBuffer originalBuffer = RedundantKVGenerator.convertKvToByteBuffer(sampleKv,
+        includesMemstoreTS);
+
+    for (DataBlockEncoding encoding : DataBlockEncoding.values()) {
+      if (encoding.getEncoder() == null) {
+        continue;
+      }
+      DataBlockEncoder encoder = encoding.getEncoder();
+      byte[] encodedBytes = encodeBytes(encoding, originalBuffer);
+      ByteBuffer directBuffer = ByteBuffer.allocateDirect(encodedBytes.length);
+      directBuffer.put(encodedBytes);
+      directBuffer.rewind();
+
+      HFileContext meta = new HFileContextBuilder()
+                          .withHBaseCheckSum(false)
+                          .withIncludesMvcc(includesMemstoreTS)
+                          .withIncludesTags(includesTags)
+                          .withCompression(Compression.Algorithm.NONE)
+                          .build();
+      DataBlockEncoder.EncodedSeeker seeker = encoder.createSeeker(KeyValue.COMPARATOR,
+          encoder.newDataBlockDecodingContext(meta));
+      seeker.setCurrentBuffer(directBuffer);
+      int i = 0;
+      do {
+        KeyValue expected = sampleKv.get(i);
+        Cell cell = seeker.get();
+        assertTrue(encoding + " cell " + i, CellComparator.equals(expected, cell));
+        assertTrue(encoding + " value " + i, Bytes.equals(expected.getValue(),
+            CellUtil.cloneValue(cell)));
+        assertEquals(encoding + " getKeyValue " + i, expected, seeker.getKeyValue());
+        assertEquals(encoding + " value copy " + i,
+            ByteBuffer.wrap(expected.getValue()), seeker.getValueShallowCopy());
+        i++;
+      } while (seeker.next());
+      assertEquals(sampleKv.size(), i);
+    }
+  }
+
   /**
    * Test whether the decompression of first key is implemented correctly.
    */
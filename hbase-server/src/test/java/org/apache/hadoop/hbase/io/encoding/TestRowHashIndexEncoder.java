@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hadoop.hbase.io.encoding;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.SmallTests;
+import org.apache.hadoop.hbase.io.compress.Compression;
+import org.apache.hadoop.hbase.io.hfile.HFileContext;
+import org.apache.hadoop.hbase.io.hfile.HFileContextBuilder;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.test.RedundantKVGenerator;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Tests the row lookups of {@link RowHashIndexEncoder} against a plain linear
+ * seek over the same cells.
+ */
+@Category(SmallTests.class)
+public class TestRowHashIndexEncoder {
+
+  private static final int NUM_ROWS = 300;
+  private static final int NUM_COLUMNS = 5;
+  private static final byte[] FAMILY = Bytes.toBytes("f");
+
+  private final DataBlockEncoder encoder = DataBlockEncoding.ROW_HASH_INDEX.getEncoder();
+  private final HFileContext meta = new HFileContextBuilder()
+      .withHBaseCheckSum(false)
+      .withIncludesMvcc(true)
+      .withIncludesTags(false)
+      .withCompression(Compression.Algorithm.NONE)
+      .build();
+
+  private List<KeyValue> kvs;
+  private ByteBuffer encodedBuffer;
+
+  @Before
+  public void setUp() throws IOException {
+    kvs = new ArrayList<KeyValue>();
+    for (int i = 0; i < NUM_ROWS; ++i) {
+      byte[] row = Bytes.toBytes(String.format("row%05d", i * 2));
+      for (int j = 0; j < NUM_COLUMNS; ++j) {
+        kvs.add(new KeyValue(row, FAMILY, Bytes.toBytes("q" + j), 1L,
+            Bytes.toBytes("value" + i + "_" + j)));
+      }
+    }
+    HFileBlockEncodingContext encodingCtx = encoder.newDataBlockEncodingContext(
+        DataBlockEncoding.ROW_HASH_INDEX, HConstants.HFILEBLOCK_DUMMY_HEADER, meta);
+    encoder.encodeKeyValues(RedundantKVGenerator.convertKvToByteBuffer(kvs, true), encodingCtx);
+    byte[] withHeader = encodingCtx.getUncompressedBytesWithHeader();
+    int encodedOffset = HConstants.HFILEBLOCK_HEADER_SIZE + DataBlockEncoding.ID_SIZE;
+    byte[] encoded = new byte[withHeader.length - encodedOffset];
+    System.arraycopy(withHeader, encodedOffset, encoded, 0, encoded.length);
+    encodedBuffer = ByteBuffer.wrap(encoded);
+  }
+
+  private DataBlockEncoder.EncodedSeeker createSeeker() {
+    DataBlockEncoder.EncodedSeeker seeker = encoder.createSeeker(KeyValue.COMPARATOR,
+        encoder.newDataBlockDecodingContext(meta));
+    seeker.setCurrentBuffer(encodedBuffer.duplicate());
+    return seeker;
+  }
+
+  @Test
+  public void testSeekToFirstOnRow() {
+    DataBlockEncoder.EncodedSeeker seeker = createSeeker();
+    for (int i = NUM_ROWS - 1; i >= 0; --i) {
+      KeyValue expected = kvs.get(i * NUM_COLUMNS);
+      KeyValue firstOnRow = KeyValue.createFirstOnRow(expected.getRow());
+      seeker.rewind();
+      int result = seeker.seekToKeyInBlock(firstOnRow.getBuffer(), firstOnRow.getKeyOffset(),
+          firstOnRow.getKeyLength(), false);
+      if (result != HConstants.INDEX_KEY_MAGIC) {
+        assertEquals(1, result);
+        assertTrue(seeker.next());
+      }
+      assertEquals(expected, seeker.getKeyValue());
+    }
+  }
+
+  @Test
+  public void testExactSeekAndReseek() {
+    DataBlockEncoder.EncodedSeeker seeker = createSeeker();
+    // going forward without rewinding behaves like a reseek
+    for (int i = 0; i < kvs.size(); i += 7) {
+      KeyValue expected = kvs.get(i);
+      assertEquals(0, seeker.seekToKeyInBlock(expected.getBuffer(), expected.getKeyOffset(),
+          expected.getKeyLength(), false));
+      assertEquals(expected, seeker.getKeyValue());
+    }
+  }
+
+  @Test
+  public void testSeekToMissingRow() {
+    DataBlockEncoder.EncodedSeeker seeker = createSeeker();
+    // odd rows are not in the block, the seek must stop on the previous cell
+    for (int i = 1; i < NUM_ROWS; ++i) {
+      KeyValue missing = KeyValue.createFirstOnRow(
+          Bytes.toBytes(String.format("row%05d", i * 2 - 1)));
+      seeker.rewind();
+      assertEquals(1, seeker.seekToKeyInBlock(missing.getBuffer(), missing.getKeyOffset(),
+          missing.getKeyLength(), false));
+      assertEquals(kvs.get(i * NUM_COLUMNS - 1), seeker.getKeyValue());
+    }
+  }
+
+  @Test
+  public void testSeekBefore() {
+    DataBlockEncoder.EncodedSeeker seeker = createSeeker();
+    for (int i = NUM_COLUMNS; i < kvs.size(); i += NUM_COLUMNS) {
+      KeyValue kv = kvs.get(i);
+      seeker.rewind();
+      assertEquals(1, seeker.seekToKeyInBlock(kv.getBuffer(), kv.getKeyOffset(),
+          kv.getKeyLength(), true));
+      assertEquals(kvs.get(i - 1), seeker.getKeyValue());
+    }
+  }
+}
@@ -81,6 +81,15 @@ public class TestHFileWriterV2 {
     writeDataAndReadFromHFile(hfilePath, compressAlgo, entryCount, false);
   }
 
+  @Test
+  public void testHFileFormatV2WithParallelCompression() throws IOException {
+    Path hfilePath = new Path(TEST_UTIL.getDataTestDir(),
+        "testHFileFormatV2WithParallelCompression");
+    conf = new Configuration(conf);
+    conf.setInt(HFileWriterV2.BLOCK_COMPRESSION_THREADS_KEY, 4);
+    writeDataAndReadFromHFile(hfilePath, Compression.Algorithm.GZ, 10000, true);
+  }
+
   @Test
   public void testMidKeyInHFile() throws IOException{
     Path hfilePath = new Path(TEST_UTIL.getDataTestDir(),
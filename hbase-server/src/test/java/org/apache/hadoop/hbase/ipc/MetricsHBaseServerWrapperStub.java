@@ -43,4 +43,39 @@ public class MetricsHBaseServerWrapperStub implements MetricsHBaseServerWrapper{
   public int getNumOpenConnections() {
     return 105;
   }
+
+  @Override
+  public int getReadQueueLength() {
+    return 106;
+  }
+
+  @Override
+  public int getScanQueueLength() {
+    return 107;
+  }
+
+  @Override
+  public int getActiveHandlerCount() {
+    return 108;
+  }
+
+  @Override
+  public int getActiveReadHandlerCount() {
+    return 109;
+  }
+
+  @Override
+  public int getActiveScanHandlerCount() {
+    return 110;
+  }
+
+  @Override
+  public long getRequestBufferAllocatedBytes() {
+    return 111;
+  }
+
+  @Override
+  public long getRequestBufferReusedBytes() {
+    return 112;
+  }
 }
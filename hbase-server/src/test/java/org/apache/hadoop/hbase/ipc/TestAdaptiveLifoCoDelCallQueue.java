@@ -0,0 +1,93 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.ipc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.apache.hadoop.hbase.SmallTests;
+import org.apache.hadoop.hbase.ipc.RpcServer.Call;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(SmallTests.class)
+public class TestAdaptiveLifoCoDelCallQueue {
+
+  private static CallRunner createMockTask(long age) {
+    Call call = mock(Call.class);
+    call.timestamp = System.currentTimeMillis() - age;
+    CallRunner task = mock(CallRunner.class);
+    when(task.getCall()).thenReturn(call);
+    return task;
+  }
+
+  @Test
+  public void testFifoUnlessFilling() throws Exception {
+    AdaptiveLifoCoDelCallQueue queue = new AdaptiveLifoCoDelCallQueue(10, 60000, 100, 0.5);
+    CallRunner first = createMockTask(0);
+    CallRunner second = createMockTask(0);
+    queue.put(first);
+    queue.put(second);
+    assertSame(first, queue.take());
+    assertSame(second, queue.take());
+
+    CallRunner[] tasks = new CallRunner[6];
+    for (int i = 0; i < tasks.length; i++) {
+      tasks[i] = createMockTask(0);
+      queue.put(tasks[i]);
+    }
+    // Past half full, the newest call goes first
+    assertSame(tasks[5], queue.take());
+    // Back to half full, the oldest call goes first again
+    assertSame(tasks[0], queue.take());
+    assertEquals(0, queue.getDroppedCallCount());
+  }
+
+  @Test
+  public void testDropsStaleCallsWhenCongested() throws Exception {
+    // With no interval, each call tells by itself whether the queue is congested
+    AdaptiveLifoCoDelCallQueue queue = new AdaptiveLifoCoDelCallQueue(10, 100, 0, 1);
+    CallRunner stale = createMockTask(10000);
+    CallRunner fresh = createMockTask(0);
+    queue.put(stale);
+    queue.put(fresh);
+    assertSame(fresh, queue.take());
+    verify(stale).drop();
+    verify(fresh, never()).drop();
+    assertEquals(1, queue.getDroppedCallCount());
+    assertNull(queue.poll());
+  }
+
+  @Test
+  public void testKeepsSlowCallsOfBurst() throws Exception {
+    // A call that waited, right after one that did not, is not dropped
+    AdaptiveLifoCoDelCallQueue queue = new AdaptiveLifoCoDelCallQueue(10, 100, 60000, 1);
+    CallRunner fresh = createMockTask(0);
+    CallRunner slow = createMockTask(10000);
+    queue.put(fresh);
+    queue.put(slow);
+    assertSame(fresh, queue.take());
+    assertSame(slow, queue.take());
+    verify(slow, never()).drop();
+  }
+}
@@ -63,6 +63,15 @@ public class TestBufferChain {
     assertTrue(Bytes.equals(Bytes.toBytes("hello world"), chain.getBytes()));
   }
 
+  @Test
+  public void testGetBytesOfSlicesAndDirectBuffers() {
+    ByteBuffer direct = ByteBuffer.allocateDirect(16);
+    direct.put(" world".getBytes(Charsets.UTF_8));
+    direct.flip();
+    BufferChain chain = new BufferChain(stringBuf("XXXhelloYYY", 3, 5), direct);
+    assertTrue(Bytes.equals(Bytes.toBytes("hello world"), chain.getBytes()));
+  }
+
   @Test
   public void testChainChunkBiggerThanWholeArray() throws IOException {
     ByteBuffer[] bufs = wrapArrays(HELLO_WORLD_CHUNKS);
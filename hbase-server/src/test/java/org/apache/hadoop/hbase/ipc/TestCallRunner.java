@@ -37,4 +37,19 @@ public class TestCallRunner {
     CallRunner cr = new CallRunner(mockRpcServer, mockCall, new UserProvider());
     cr.run();
   }
+
+  /**
+   * The call of a client that went away is not run.
+   */
+  @Test
+  public void testCallerDisconnected() throws Exception {
+    RpcServerInterface mockRpcServer = Mockito.mock(RpcServerInterface.class);
+    Mockito.when(mockRpcServer.isStarted()).thenReturn(true);
+    RpcServer.Call mockCall = Mockito.mock(RpcServer.Call.class);
+    mockCall.connection = Mockito.mock(RpcServer.Connection.class);
+    Mockito.when(mockCall.isCallerDisconnected()).thenReturn(true);
+    CallRunner cr = new CallRunner(mockRpcServer, mockCall, new UserProvider());
+    cr.run();
+    Mockito.verify(mockCall, Mockito.never()).sendResponseIfReady();
+  }
 }
\ No newline at end of file
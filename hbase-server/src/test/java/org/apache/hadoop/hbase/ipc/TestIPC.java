@@ -19,6 +19,8 @@
 package org.apache.hadoop.hbase.ipc;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.anyInt;
@@ -33,6 +35,9 @@ import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.net.SocketFactory;
 
@@ -48,6 +53,7 @@ import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.HRegionInfo;
 import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.KeyValueUtil;
+import org.apache.hadoop.hbase.ServerName;
 import org.apache.hadoop.hbase.SmallTests;
 import org.apache.hadoop.hbase.client.Put;
 import org.apache.hadoop.hbase.client.RowMutations;
@@ -82,6 +88,7 @@ import com.google.protobuf.BlockingService;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.Descriptors.MethodDescriptor;
 import com.google.protobuf.Message;
+import com.google.protobuf.RpcCallback;
 import com.google.protobuf.RpcController;
 import com.google.protobuf.ServiceException;
 
@@ -297,6 +304,112 @@ public class TestIPC {
     }
   }
 
+  /**
+   * Tests calls, blocking and not, through connections whose responses are read by the
+   * client's shared readers.
+   */
+  @Test
+  public void testSharedReaders() throws Exception {
+    Configuration conf = new Configuration(HBaseConfiguration.create());
+    conf.setInt(RpcClient.READER_COUNT_KEY, 1);
+    RpcClient client = new RpcClient(conf, HConstants.CLUSTER_ID_DEFAULT);
+    TestRpcServer rpcServer = new TestRpcServer();
+    try {
+      rpcServer.start();
+      InetSocketAddress address = rpcServer.getListenerAddress();
+      MethodDescriptor md = SERVICE.getDescriptorForType().findMethodByName("echo");
+      EchoRequestProto param = EchoRequestProto.newBuilder().setMessage("hello").build();
+      for (int i = 0; i < 10; i++) {
+        Pair<Message, CellScanner> r = client.call(md, param,
+          CellUtil.createCellScanner(ImmutableList.of(CELL, BIG_CELL)),
+          md.getOutputType().toProto(), User.getCurrent(), address, 0);
+        assertTrue(r.getFirst().toString().contains("hello"));
+        assertTrue(r.getSecond().advance());
+        assertTrue(CELL.equals(r.getSecond().current()));
+        assertTrue(r.getSecond().advance());
+        assertTrue(BIG_CELL.equals(r.getSecond().current()));
+        assertFalse(r.getSecond().advance());
+      }
+
+      // Many calls in flight at once, none of them waited for by a thread
+      ServerName sn = new ServerName(address.getHostName(), address.getPort(),
+        System.currentTimeMillis());
+      TestRpcServiceProtos.TestProtobufRpcProto.Interface stub =
+        TestRpcServiceProtos.TestProtobufRpcProto.newStub(
+          client.createRpcChannel(sn, User.getCurrent(), 0));
+      int count = 100;
+      final CountDownLatch latch = new CountDownLatch(count);
+      final AtomicReference<String> failure = new AtomicReference<String>();
+      for (int i = 0; i < count; i++) {
+        final String message = "hello " + i;
+        final PayloadCarryingRpcController controller = new PayloadCarryingRpcController(
+          CellUtil.createCellScanner(ImmutableList.of(CELL)));
+        stub.echo(controller, EchoRequestProto.newBuilder().setMessage(message).build(),
+          new RpcCallback<EchoResponseProto>() {
+            @Override
+            public void run(EchoResponseProto response) {
+              try {
+                if (response == null || !message.equals(response.getMessage())) {
+                  failure.set("Wrong response " + response + " to " + message + ": " +
+                    controller.errorText());
+                } else if (!controller.cellScanner().advance() ||
+                    !CELL.equals(controller.cellScanner().current())) {
+                  failure.set("Wrong cells in the response to " + message);
+                }
+              } catch (IOException e) {
+                failure.set(StringUtils.stringifyException(e));
+              } finally {
+                latch.countDown();
+              }
+            }
+          });
+      }
+      assertTrue(latch.await(60, TimeUnit.SECONDS));
+      assertNull(failure.get(), failure.get());
+    } finally {
+      client.stop();
+      rpcServer.stop();
+    }
+  }
+
+  /**
+   * Tests a non-blocking call fails through its callback when the server is not there.
+   */
+  @Test
+  public void testRpcChannelConnectFailure() throws Exception {
+    Configuration conf = new Configuration(HBaseConfiguration.create());
+    conf.setInt(RpcClient.READER_COUNT_KEY, 1);
+    RpcClient client = new RpcClient(conf, HConstants.CLUSTER_ID_DEFAULT);
+    TestRpcServer rpcServer = new TestRpcServer();
+    rpcServer.start();
+    InetSocketAddress address = rpcServer.getListenerAddress();
+    rpcServer.stop();
+    try {
+      ServerName sn = new ServerName(address.getHostName(), address.getPort(),
+        System.currentTimeMillis());
+      TestRpcServiceProtos.TestProtobufRpcProto.Interface stub =
+        TestRpcServiceProtos.TestProtobufRpcProto.newStub(
+          client.createRpcChannel(sn, User.getCurrent(), 0));
+      final CountDownLatch latch = new CountDownLatch(1);
+      final AtomicReference<EchoResponseProto> result = new AtomicReference<EchoResponseProto>();
+      PayloadCarryingRpcController controller = new PayloadCarryingRpcController();
+      stub.echo(controller, EchoRequestProto.newBuilder().setMessage("hello").build(),
+        new RpcCallback<EchoResponseProto>() {
+          @Override
+          public void run(EchoResponseProto response) {
+            result.set(response);
+            latch.countDown();
+          }
+        });
+      assertTrue(latch.await(60, TimeUnit.SECONDS));
+      assertNull(result.get());
+      assertTrue(controller.failed());
+      assertTrue(controller.getFailedOn() != null);
+    } finally {
+      client.stop();
+    }
+  }
+
   public static void main(String[] args)
   throws IOException, SecurityException, NoSuchMethodException, InterruptedException {
     if (args.length != 2) {
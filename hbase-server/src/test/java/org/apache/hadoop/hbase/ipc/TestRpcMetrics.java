@@ -64,6 +64,13 @@ public class TestRpcMetrics {
     HELPER.assertGauge("numCallsInReplicationQueue", 103, serverSource);
     HELPER.assertGauge("numCallsInPriorityQueue", 104, serverSource);
     HELPER.assertGauge("numOpenConnections", 105, serverSource);
+    HELPER.assertGauge("numCallsInReadQueue", 106, serverSource);
+    HELPER.assertGauge("numCallsInScanQueue", 107, serverSource);
+    HELPER.assertGauge("numActiveHandler", 108, serverSource);
+    HELPER.assertGauge("numActiveReadHandler", 109, serverSource);
+    HELPER.assertGauge("numActiveScanHandler", 110, serverSource);
+    HELPER.assertCounter("requestBufferAllocatedBytes", 111, serverSource);
+    HELPER.assertCounter("requestBufferReusedBytes", 112, serverSource);
   }
 
   /**
@@ -100,6 +107,14 @@ public class TestRpcMetrics {
     HELPER.assertCounter("queueCallTime_NumOps", 1, serverSource);
     HELPER.assertCounter("processCallTime_NumOps", 1, serverSource);
 
+    mrpc.dequeuedGeneralCall(10);
+    mrpc.dequeuedReadCall(11);
+    mrpc.dequeuedReadCall(12);
+    mrpc.dequeuedScanCall(13);
+    HELPER.assertCounter("generalQueueCallTime_NumOps", 1, serverSource);
+    HELPER.assertCounter("readQueueCallTime_NumOps", 2, serverSource);
+    HELPER.assertCounter("scanQueueCallTime_NumOps", 1, serverSource);
+
     mrpc.sentBytes(103);
     mrpc.sentBytes(103);
     mrpc.sentBytes(103);
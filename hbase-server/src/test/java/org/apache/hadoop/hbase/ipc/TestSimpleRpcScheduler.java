@@ -27,6 +27,13 @@ import org.apache.hadoop.hbase.HBaseConfiguration;
 import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.SmallTests;
 import org.apache.hadoop.hbase.ipc.RpcServer.Call;
+import org.apache.hadoop.hbase.protobuf.generated.ClientProtos.Action;
+import org.apache.hadoop.hbase.protobuf.generated.ClientProtos.GetRequest;
+import org.apache.hadoop.hbase.protobuf.generated.ClientProtos.MultiRequest;
+import org.apache.hadoop.hbase.protobuf.generated.ClientProtos.MutateRequest;
+import org.apache.hadoop.hbase.protobuf.generated.ClientProtos.MutationProto;
+import org.apache.hadoop.hbase.protobuf.generated.ClientProtos.RegionAction;
+import org.apache.hadoop.hbase.protobuf.generated.ClientProtos.ScanRequest;
 import org.apache.hadoop.hbase.protobuf.generated.RPCProtos;
 import org.junit.Before;
 import org.junit.Test;
@@ -41,6 +48,8 @@ import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.anyObject;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
@@ -56,6 +65,11 @@ public class TestSimpleRpcScheduler {
     public InetSocketAddress getListenerAddress() {
       return InetSocketAddress.createUnresolved("127.0.0.1", 1000);
     }
+
+    @Override
+    public MetricsHBaseServer getMetrics() {
+      return null;
+    }
   };
   private Configuration conf;
 
@@ -128,6 +142,77 @@ public class TestSimpleRpcScheduler {
     assertEquals(3, ImmutableSet.copyOf(handlerThreads.values()).size());
   }
 
+  @Test
+  public void testReadWriteScanIsolation() throws IOException, InterruptedException {
+    CallRunner writeTask = createMockTask(MutateRequest.getDefaultInstance());
+    CallRunner readTask = createMockTask(GetRequest.getDefaultInstance());
+    CallRunner scanTask = createMockTask(ScanRequest.getDefaultInstance());
+    List<CallRunner> tasks = ImmutableList.of(writeTask, readTask, scanTask);
+    final Map<CallRunner, Thread> handlerThreads = Maps.newHashMap();
+    final CountDownLatch countDownLatch = new CountDownLatch(tasks.size());
+    Answer<Void> answerToRun = new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocationOnMock) throws Throwable {
+        synchronized (handlerThreads) {
+          handlerThreads.put(
+              (CallRunner) invocationOnMock.getMock(),
+              Thread.currentThread());
+        }
+        countDownLatch.countDown();
+        return null;
+      }
+    };
+    for (CallRunner task : tasks) {
+      doAnswer(answerToRun).when(task).run();
+    }
+
+    // Of 4 handlers, 2 serve reads, 1 of which serves scans
+    conf.setFloat(SimpleRpcScheduler.CALL_QUEUE_READ_SHARE_CONF_KEY, 0.5f);
+    conf.setFloat(SimpleRpcScheduler.CALL_QUEUE_SCAN_SHARE_CONF_KEY, 0.5f);
+    SimpleRpcScheduler scheduler = new SimpleRpcScheduler(
+        conf, 4, 0, 0, mock(PriorityFunction.class), HConstants.HIGH_QOS);
+    assertTrue(scheduler.readCallQueue != null);
+    assertTrue(scheduler.scanCallQueue != null);
+    scheduler.init(CONTEXT);
+    scheduler.start();
+    for (CallRunner task : tasks) {
+      scheduler.dispatch(task);
+    }
+    for (CallRunner task : tasks) {
+      verify(task, timeout(1000)).run();
+    }
+    scheduler.stop();
+
+    // Tests that these requests are handled by three distinct threads.
+    countDownLatch.await();
+    assertEquals(3, ImmutableSet.copyOf(handlerThreads.values()).size());
+    assertTrue(handlerThreads.get(readTask).getName().startsWith("Read."));
+    assertTrue(handlerThreads.get(scanTask).getName().startsWith("Scan."));
+  }
+
+  @Test
+  public void testIsReadRequest() {
+    assertTrue(SimpleRpcScheduler.isReadRequest(GetRequest.getDefaultInstance()));
+    assertTrue(SimpleRpcScheduler.isReadRequest(ScanRequest.getDefaultInstance()));
+    assertFalse(SimpleRpcScheduler.isReadRequest(MutateRequest.getDefaultInstance()));
+
+    RegionAction.Builder regionAction = RegionAction.newBuilder()
+        .addAction(Action.getDefaultInstance());
+    MultiRequest gets = MultiRequest.newBuilder()
+        .addRegionAction(regionAction.buildPartial()).build();
+    assertTrue(SimpleRpcScheduler.isReadRequest(gets));
+    regionAction.addAction(Action.newBuilder().setMutation(MutationProto.getDefaultInstance()));
+    MultiRequest mutations = MultiRequest.newBuilder()
+        .addRegionAction(regionAction.buildPartial()).build();
+    assertFalse(SimpleRpcScheduler.isReadRequest(mutations));
+  }
+
+  private CallRunner createMockTask(Message param) {
+    CallRunner task = createMockTask();
+    task.getCall().param = param;
+    return task;
+  }
+
   private CallRunner createMockTask() {
     Call call = mock(Call.class);
     CallRunner task = mock(CallRunner.class);
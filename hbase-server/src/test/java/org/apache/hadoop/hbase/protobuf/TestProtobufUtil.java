@@ -23,6 +23,7 @@ import static org.junit.Assert.assertEquals;
 import java.io.IOException;
 
 import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.SmallTests;
 import org.apache.hadoop.hbase.client.Append;
 import org.apache.hadoop.hbase.client.Delete;
@@ -30,6 +31,7 @@ import org.apache.hadoop.hbase.client.Get;
 import org.apache.hadoop.hbase.client.Increment;
 import org.apache.hadoop.hbase.client.Put;
 import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.protobuf.generated.CellProtos;
 import org.apache.hadoop.hbase.protobuf.generated.ClientProtos;
 import org.apache.hadoop.hbase.protobuf.generated.ClientProtos.Column;
 import org.apache.hadoop.hbase.protobuf.generated.ClientProtos.MutationProto;
@@ -306,4 +308,19 @@ public class TestProtobufUtil {
     Scan scan = ProtobufUtil.toScan(proto);
     assertEquals(scanBuilder.build(), ProtobufUtil.toScan(scan));
   }
+
+  /**
+   * Test that the cells of every key type, deltas included, convert both ways.
+   */
+  @Test
+  public void testCell() {
+    for (KeyValue.Type type : new KeyValue.Type[] { KeyValue.Type.Put, KeyValue.Type.Delta,
+        KeyValue.Type.Delete, KeyValue.Type.DeleteColumn, KeyValue.Type.DeleteFamily }) {
+      KeyValue kv = new KeyValue(Bytes.toBytes("row"), Bytes.toBytes("f"),
+          Bytes.toBytes("q"), 1L, type, Bytes.toBytes(1L));
+      CellProtos.Cell proto = ProtobufUtil.toCell(kv);
+      assertEquals(type.getCode(), (byte) proto.getCellType().getNumber());
+      assertEquals(kv, ProtobufUtil.toCell(proto));
+    }
+  }
 }
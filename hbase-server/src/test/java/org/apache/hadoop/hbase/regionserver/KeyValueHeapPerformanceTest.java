@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.KeyValue.KVComparator;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.CollectionBackedScanner;
+
+/**
+ * Compares the number of key comparisons and the time it takes to merge
+ * scanners with the binary heap of {@link KeyValueHeap} and with the loser
+ * tree of {@link LoserTreeKeyValueHeap}, for 2 to 64 scanners. The rows are
+ * spread randomly over the scanners, as they are over the files of a store
+ * that is flushed often and compacted rarely.
+ */
+public class KeyValueHeapPerformanceTest {
+  private static final double NANOSEC_IN_SEC = 1000.0 * 1000.0 * 1000.0;
+  private static final int[] NUM_SCANNERS = { 2, 4, 8, 16, 32, 64 };
+  private static final byte[] FAMILY = Bytes.toBytes("family");
+  private static final byte[] QUALIFIER = Bytes.toBytes("qualifier");
+
+  /** Counts the comparisons of the keys at the top of the scanners. */
+  private static class CountingComparator extends KVComparator {
+    private long count = 0;
+
+    @Override
+    public int compare(final Cell left, final Cell right) {
+      count++;
+      return super.compare(left, right);
+    }
+  }
+
+  private final int numKvs;
+  private final int numRepeats;
+
+  public KeyValueHeapPerformanceTest(int numKvs, int numRepeats) {
+    this.numKvs = numKvs;
+    this.numRepeats = numRepeats;
+  }
+
+  private List<List<KeyValue>> createInputs(int numScanners) {
+    Random random = new Random(42L);
+    List<List<KeyValue>> inputs = new ArrayList<List<KeyValue>>();
+    for (int i = 0; i < numScanners; ++i) {
+      inputs.add(new ArrayList<KeyValue>());
+    }
+    byte[] value = new byte[16];
+    for (int i = 0; i < numKvs; ++i) {
+      byte[] row = Bytes.toBytes(String.format("row%010d", i));
+      inputs.get(random.nextInt(numScanners)).add(
+          new KeyValue(row, FAMILY, QUALIFIER, 1L, value));
+    }
+    return inputs;
+  }
+
+  private void runTest(List<List<KeyValue>> inputs, boolean loserTree) throws IOException {
+    CountingComparator comparator = new CountingComparator();
+    long elapsed = 0;
+    for (int repeat = 0; repeat < numRepeats; ++repeat) {
+      List<KeyValueScanner> scanners = new ArrayList<KeyValueScanner>();
+      for (List<KeyValue> input : inputs) {
+        scanners.add(new CollectionBackedScanner(input, KeyValue.COMPARATOR));
+      }
+      long startTime = System.nanoTime();
+      KeyValueHeap heap = loserTree
+          ? new LoserTreeKeyValueHeap(scanners, comparator)
+          : new KeyValueHeap(scanners, comparator);
+      int read = 0;
+      while (heap.next() != null) {
+        read++;
+      }
+      heap.close();
+      elapsed += System.nanoTime() - startTime;
+      if (read != numKvs) {
+        throw new AssertionError("Merged " + read + " cells, expected " + numKvs);
+      }
+    }
+
+    long merged = (long) numKvs * numRepeats;
+    System.out.printf("  %-12s %10.2f comparisons/cell %10.2f (ns/cell) %12.2f (cells/s)\n",
+        loserTree ? "Loser tree" : "Binary heap", comparator.count * 1.0 / merged,
+        elapsed * 1.0 / merged, merged * NANOSEC_IN_SEC / elapsed);
+  }
+
+  public void runTests() throws IOException {
+    // the first pass warms up the JIT
+    for (int pass = 0; pass < 2; ++pass) {
+      System.out.println(pass == 0 ? "Warm up" : "Measurement");
+      for (int numScanners : NUM_SCANNERS) {
+        List<List<KeyValue>> inputs = createInputs(numScanners);
+        System.out.println("Scanners: " + numScanners);
+        runTest(inputs, false);
+        runTest(inputs, true);
+      }
+    }
+  }
+
+  /**
+   * Command line interface.
+   * @param args optional number of cells to merge and number of repeats
+   */
+  public static void main(final String[] args) throws IOException {
+    int numKvs = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+    int numRepeats = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+    new KeyValueHeapPerformanceTest(numKvs, numRepeats).runTests();
+  }
+}
@@ -125,6 +125,26 @@ public class MetricsRegionServerWrapperStub implements MetricsRegionServerWrappe
     return 410;
   }
 
+  @Override
+  public long getFlushedOutputBytes() {
+    return 420;
+  }
+
+  @Override
+  public long getFlushTime() {
+    return 421;
+  }
+
+  @Override
+  public long getCompactedOutputBytes() {
+    return 422;
+  }
+
+  @Override
+  public long getCompactionTime() {
+    return 423;
+  }
+
   @Override
   public int getPercentFileLocal() {
     return 99;
@@ -79,4 +79,9 @@ public class MetricsRegionWrapperStub implements MetricsRegionWrapper {
   public long getNumCompactionsCompleted() {
     return 0;
   }
+
+  @Override
+  public long getUpdatesLockWaitTime() {
+    return 0;
+  }
 }
@@ -36,6 +36,8 @@ public class MockStoreFile extends StoreFile {
   long sequenceid;
   private Map<byte[], byte[]> metadata = new TreeMap<byte[], byte[]>(Bytes.BYTES_COMPARATOR);
   byte[] splitPoint = null;
+  byte[] firstKey = null;
+  byte[] lastKey = null;
 
   MockStoreFile(HBaseTestingUtility testUtil, Path testPath,
       long length, long ageInDisk, boolean isRef, long sequenceid) throws IOException {
@@ -51,6 +53,11 @@ public class MockStoreFile extends StoreFile {
     this.length = newLen;
   }
 
+  void setKeyRange(byte[] firstKey, byte[] lastKey) {
+    this.firstKey = firstKey;
+    this.lastKey = lastKey;
+  }
+
   @Override
   byte[] getFileSplitPoint(KVComparator comparator) throws IOException {
     return this.splitPoint;
@@ -88,11 +95,23 @@ public class MockStoreFile extends StoreFile {
   @Override
   public StoreFile.Reader getReader() {
     final long len = this.length;
+    final byte[] fk = this.firstKey;
+    final byte[] lk = this.lastKey;
     return new StoreFile.Reader() {
       @Override
       public long length() {
         return len;
       }
+
+      @Override
+      public byte[] getFirstKey() {
+        return fk;
+      }
+
+      @Override
+      public byte[] getLastKey() {
+        return lk;
+      }
     };
   }
 }
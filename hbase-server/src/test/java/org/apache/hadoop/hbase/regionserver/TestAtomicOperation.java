@@ -19,14 +19,19 @@ package org.apache.hadoop.hbase.regionserver;
 import static org.apache.hadoop.hbase.HBaseTestingUtility.fam1;
 import static org.apache.hadoop.hbase.HBaseTestingUtility.fam2;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -38,6 +43,7 @@ import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.DoNotRetryIOException;
 import org.apache.hadoop.hbase.HBaseTestingUtility;
 import org.apache.hadoop.hbase.HColumnDescriptor;
 import org.apache.hadoop.hbase.HConstants;
@@ -63,6 +69,8 @@ import org.apache.hadoop.hbase.filter.CompareFilter.CompareOp;
 import org.apache.hadoop.hbase.io.HeapSize;
 import org.apache.hadoop.hbase.regionserver.wal.HLog;
 import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.EnvironmentEdgeManagerTestHelper;
+import org.apache.hadoop.hbase.util.IncrementingEnvironmentEdge;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -168,6 +176,225 @@ public class TestAtomicOperation {
   }
 
 
+  /**
+   * Test multi-threaded increments of a region coalescing them: each caller
+   * gets the values left by its own increment.
+   */
+  @Test
+  public void testCoalescedIncrementMultiThreads() throws Exception {
+    initCoalescingHRegion();
+    checkCoalescedIncrements();
+  }
+
+  /**
+   * Test that the increments of a region server region, which always has a
+   * coprocessor host, are coalesced as long as no coprocessor is loaded.
+   */
+  @Test
+  public void testCoalescedIncrementWithCoprocessorHost() throws Exception {
+    Configuration conf = initCoalescingHRegion();
+    RegionCoprocessorHost host = new RegionCoprocessorHost(region, null, conf);
+    assertFalse(host.hasCoprocessors());
+    region.setCoprocessorHost(host);
+    Increment inc = new Increment(row);
+    inc.addColumn(fam1, qual1, 1);
+    assertTrue(region.canCoalesce(inc));
+    checkCoalescedIncrements();
+  }
+
+  /**
+   * Creates a region coalescing increments, without changing the shared
+   * configuration.
+   * @return the configuration of the region
+   */
+  private Configuration initCoalescingHRegion() throws IOException {
+    Configuration conf = new Configuration(TEST_UTIL.getConfiguration());
+    conf.setBoolean(HRegion.INCREMENT_COALESCE_CONFIG_KEY, true);
+    initHRegion(tableName, name.getMethodName(), conf, new int[] {1,3}, false, fam1, fam2);
+    return conf;
+  }
+
+  private void checkCoalescedIncrements() throws Exception {
+    int numThreads = 20;
+    final int incrementsPerThread = 500;
+    final Set<Long> seen = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+    final AtomicInteger failures = new AtomicInteger(0);
+    Thread[] all = new Thread[numThreads];
+    long expectedTotal = 0;
+    for (int i = 0; i < numThreads; i++) {
+      final int amount = i + 1;
+      expectedTotal += amount * incrementsPerThread;
+      all[i] = new Thread() {
+        @Override
+        public void run() {
+          for (int j = 0; j < incrementsPerThread; j++) {
+            try {
+              Increment inc = new Increment(row);
+              inc.addColumn(fam1, qual1, amount);
+              inc.addColumn(fam1, qual2, amount*2);
+              inc.addColumn(fam2, qual3, amount*3);
+              Result result = region.increment(inc);
+              long value = Bytes.toLong(result.getValue(fam1, qual1));
+              // Every increment leaves a total of its own
+              if (!seen.add(value)
+                  || value * 2 != Bytes.toLong(result.getValue(fam1, qual2))
+                  || value * 3 != Bytes.toLong(result.getValue(fam2, qual3))) {
+                failures.incrementAndGet();
+              }
+            } catch (IOException e) {
+              LOG.error("Increment failed", e);
+              failures.incrementAndGet();
+            }
+          }
+        }
+      };
+    }
+    for (Thread t : all) {
+      t.start();
+    }
+    for (Thread t : all) {
+      t.join();
+    }
+    assertEquals(0, failures.get());
+    assertEquals(numThreads * incrementsPerThread, seen.size());
+    assertTrue(seen.contains(expectedTotal));
+    assertICV(row, fam1, qual1, expectedTotal);
+    assertICV(row, fam1, qual2, expectedTotal*2);
+    assertICV(row, fam2, qual3, expectedTotal*3);
+
+    // An increment of a column that is not a counter fails alone
+    Put put = new Put(row2);
+    put.add(fam1, qual1, value1);
+    region.put(put);
+    Increment inc = new Increment(row2);
+    inc.addColumn(fam1, qual1, 1);
+    try {
+      region.increment(inc);
+      fail("Incremented a column that is not a counter");
+    } catch (DoNotRetryIOException e) {
+      // expected
+    }
+    inc = new Increment(row2);
+    inc.addColumn(fam1, qual2, 1);
+    inc.setReturnResults(false);
+    assertNull(region.increment(inc));
+    assertICV(row2, fam1, qual2, 1);
+  }
+
+
+  /**
+   * Test increments of a family keeping delta counters, across flushes and
+   * compactions.
+   */
+  @Test
+  public void testDeltaCounters() throws IOException {
+    initHRegion(tableName, name.getMethodName(), new int[] {3}, true, fam1);
+    // A value put in the same millisecond as a delta is taken as older
+    EnvironmentEdgeManagerTestHelper.injectEdge(new IncrementingEnvironmentEdge());
+    try {
+      checkDeltaCounters();
+    } finally {
+      EnvironmentEdgeManagerTestHelper.reset();
+    }
+  }
+
+  private void checkDeltaCounters() throws IOException {
+    Increment inc = new Increment(row);
+    inc.addColumn(fam1, qual1, 5);
+    Result result = region.increment(inc);
+    assertEquals(5, Bytes.toLong(result.getValue(fam1, qual1)));
+    inc = new Increment(row);
+    inc.addColumn(fam1, qual1, 2);
+    inc.addColumn(fam1, qual2, 1);
+    result = region.increment(inc);
+    assertEquals(7, Bytes.toLong(result.getValue(fam1, qual1)));
+    assertEquals(1, Bytes.toLong(result.getValue(fam1, qual2)));
+    region.flushcache();
+
+    inc = new Increment(row);
+    inc.addColumn(fam1, qual1, -3);
+    inc.setReturnResults(false);
+    assertNull(region.increment(inc));
+    assertICV(row, fam1, qual1, 4);
+
+    // A value put resets the counter
+    Put put = new Put(row);
+    put.add(fam1, qual2, Bytes.toBytes(100L));
+    region.put(put);
+    inc = new Increment(row);
+    inc.addColumn(fam1, qual2, 10);
+    region.increment(inc);
+    region.flushcache();
+    assertICV(row, fam1, qual1, 4);
+    assertICV(row, fam1, qual2, 110);
+
+    // The flushed deltas are merged into one cell per counter
+    region.compactStores(false);
+    assertICV(row, fam1, qual1, 4);
+    assertICV(row, fam1, qual2, 110);
+    inc = new Increment(row);
+    inc.addColumn(fam1, qual1, 6);
+    region.increment(inc);
+    region.flushcache();
+    region.compactStores(true);
+    assertICV(row, fam1, qual1, 10);
+    assertICV(row, fam1, qual2, 110);
+    Scan scan = new Scan();
+    scan.setRaw(true);
+    scan.setMaxVersions();
+    List<Cell> cells = new ArrayList<Cell>();
+    RegionScanner scanner = region.getScanner(scan);
+    scanner.next(cells);
+    scanner.close();
+    assertEquals(2, cells.size());
+
+    // A delete removes all the deltas of the counter
+    Delete delete = new Delete(row);
+    delete.deleteColumns(fam1, qual1);
+    region.delete(delete);
+    inc = new Increment(row);
+    inc.addColumn(fam1, qual1, 1);
+    region.increment(inc);
+    assertICV(row, fam1, qual1, 1);
+  }
+
+  /**
+   * Test multi-threaded increments of families keeping delta counters, with
+   * flushes and compactions going on.
+   */
+  @Test
+  public void testDeltaCounterIncrementMultiThreads() throws Exception {
+    initHRegion(tableName, name.getMethodName(), new int[] {1,3}, true, fam1, fam2);
+
+    int numThreads = 20;
+    int incrementsPerThread = 500;
+    Incrementer[] all = new Incrementer[numThreads];
+    int expectedTotal = 0;
+    for (int i = 0; i < numThreads; i++) {
+      all[i] = new Incrementer(region, i, i, incrementsPerThread);
+      expectedTotal += (i * incrementsPerThread);
+    }
+    for (int i = 0; i < numThreads; i++) {
+      all[i].start();
+    }
+    for (int i = 0; i < 5; i++) {
+      Thread.sleep(100);
+      region.flushcache();
+      region.compactStores(i % 2 == 0);
+    }
+    for (int i = 0; i < numThreads; i++) {
+      all[i].join();
+    }
+    assertICV(row, fam1, qual1, expectedTotal);
+    assertICV(row, fam1, qual2, expectedTotal*2);
+    assertICV(row, fam2, qual3, expectedTotal*3);
+    region.flushcache();
+    region.compactStores(true);
+    assertICV(row, fam1, qual1, expectedTotal);
+    assertICV(row, fam1, qual2, expectedTotal*2);
+    assertICV(row, fam2, qual3, expectedTotal*3);
+  }
+
   private void assertICV(byte [] row,
                          byte [] familiy,
                          byte[] qualifier,
@@ -191,16 +418,30 @@ public class TestAtomicOperation {
 
   private void initHRegion (byte [] tableName, String callingMethod, int [] maxVersions,
     byte[] ... families)
+  throws IOException {
+    initHRegion(tableName, callingMethod, maxVersions, false, families);
+  }
+
+  private void initHRegion (byte [] tableName, String callingMethod, int [] maxVersions,
+    boolean deltaCounters, byte[] ... families)
+  throws IOException {
+    initHRegion(tableName, callingMethod, TEST_UTIL.getConfiguration(), maxVersions,
+        deltaCounters, families);
+  }
+
+  private void initHRegion (byte [] tableName, String callingMethod, Configuration conf,
+    int [] maxVersions, boolean deltaCounters, byte[] ... families)
   throws IOException {
     HTableDescriptor htd = new HTableDescriptor(TableName.valueOf(tableName));
     int i=0;
     for(byte [] family : families) {
       HColumnDescriptor hcd = new HColumnDescriptor(family);
       hcd.setMaxVersions(maxVersions != null ? maxVersions[i++] : 1);
+      hcd.setDeltaCounters(deltaCounters);
       htd.addFamily(hcd);
     }
     HRegionInfo info = new HRegionInfo(htd.getTableName(), null, null, false);
-    region = TEST_UTIL.createLocalHRegion(info, htd);
+    region = HRegion.createHRegion(info, TEST_UTIL.getDataTestDir(), conf, htd);
   }
 
   /**
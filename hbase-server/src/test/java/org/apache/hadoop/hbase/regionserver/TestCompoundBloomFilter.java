@@ -147,7 +147,27 @@ public class TestCompoundBloomFilter {
   @Test
   public void testCompoundBloomFilter() throws IOException {
     conf.setBoolean(BloomFilterFactory.IO_STOREFILE_BLOOM_ENABLED, true);
+    runCompoundBloomFilterTests(false);
+  }
+
+  @Test
+  public void testBlockedCompoundBloomFilter() throws IOException {
+    conf.setBoolean(BloomFilterFactory.IO_STOREFILE_BLOOM_ENABLED, true);
+    conf.setBoolean(BloomFilterFactory.IO_STOREFILE_BLOOM_BLOCKED, true);
+    try {
+      runCompoundBloomFilterTests(true);
+    } finally {
+      conf.setBoolean(BloomFilterFactory.IO_STOREFILE_BLOOM_BLOCKED, false);
+    }
+  }
+
+  private void runCompoundBloomFilterTests(boolean blocked) throws IOException {
     for (int t = 0; t < NUM_TESTS; ++t) {
+      if (blocked && BLOOM_BLOCK_SIZES[t] < 16 * ByteBloomFilter.BLOOM_BLOCK_BYTES) {
+        // Too few blocks per chunk for the keys to spread over them the way
+        // the false positive rate estimate assumes.
+        continue;
+      }
       conf.setFloat(BloomFilterFactory.IO_STOREFILE_BLOOM_ERROR_RATE,
           (float) TARGET_ERROR_RATES[t]);
 
@@ -199,6 +219,8 @@ public class TestCompoundBloomFilter {
     StoreFile.Reader r = sf.createReader();
     final boolean pread = true; // does not really matter
     StoreFileScanner scanner = r.getStoreFileScanner(true, pread);
+    assertEquals(BloomFilterFactory.isBloomBlocked(conf),
+        ((CompoundBloomFilter) r.getGeneralBloomFilter()).isBlocked());
 
     {
       // Test for false negatives (not allowed).
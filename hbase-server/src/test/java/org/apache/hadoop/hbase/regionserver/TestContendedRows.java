@@ -0,0 +1,81 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.apache.hadoop.hbase.SmallTests;
+import org.apache.hadoop.hbase.regionserver.ContendedRows.ContendedRow;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category(SmallTests.class)
+public class TestContendedRows {
+
+  private static void add(ContendedRows rows, String row, int times) {
+    for (int i = 0; i < times; i++) {
+      rows.add(Bytes.toBytes(row));
+    }
+  }
+
+  @Test
+  public void testCountsRows() {
+    ContendedRows rows = new ContendedRows(3);
+    add(rows, "a", 1);
+    add(rows, "b", 5);
+    add(rows, "c", 3);
+    List<ContendedRow> top = rows.getRows();
+    assertEquals(3, top.size());
+    assertEquals("b", Bytes.toString(top.get(0).getRow()));
+    assertEquals(5, top.get(0).getCount());
+    assertEquals("c", Bytes.toString(top.get(1).getRow()));
+    assertEquals("a", Bytes.toString(top.get(2).getRow()));
+    assertEquals(0, top.get(2).getError());
+  }
+
+  @Test
+  public void testKeepsMostContended() {
+    ContendedRows rows = new ContendedRows(2);
+    add(rows, "hot", 200);
+    // Many cold rows only ever compete for the one remaining counter
+    for (int i = 0; i < 50; i++) {
+      add(rows, "cold" + i, 1);
+    }
+    add(rows, "warm", 60);
+    List<ContendedRow> top = rows.getRows();
+    assertEquals(2, top.size());
+    assertEquals("hot", Bytes.toString(top.get(0).getRow()));
+    assertEquals(200, top.get(0).getCount());
+    assertEquals("warm", Bytes.toString(top.get(1).getRow()));
+    // The count of the row that took a counter over is overestimated by at most its error
+    ContendedRow warm = top.get(1);
+    assertTrue(warm.getCount() - warm.getError() <= 60);
+    assertTrue(warm.getCount() >= 60);
+  }
+
+  @Test
+  public void testDisabled() {
+    ContendedRows rows = new ContendedRows(0);
+    add(rows, "a", 10);
+    assertTrue(rows.getRows().isEmpty());
+  }
+}
@@ -0,0 +1,167 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.SmallTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Tests the selection of the files to read for Gets and Scans by their row
+ * ranges in {@link DefaultStoreFileManager}.
+ */
+@Category(SmallTests.class)
+public class TestDefaultStoreFileManager {
+  private static final HBaseTestingUtility TEST_UTIL = new HBaseTestingUtility();
+  private static final Path BASEDIR =
+      TEST_UTIL.getDataTestDir(TestDefaultStoreFileManager.class.getSimpleName());
+  private static final Path CFDIR = HStore.getStoreHomedir(BASEDIR, "region", Bytes.toBytes("cf"));
+  private static final byte[] FAMILY = Bytes.toBytes("cf");
+  private static final byte[] QUALIFIER = Bytes.toBytes("q");
+
+  private long seqNum = 0;
+
+  @Before
+  public void setUp() throws Exception {
+    FileSystem fs = TEST_UTIL.getTestFileSystem();
+    if (!fs.mkdirs(CFDIR)) {
+      throw new IOException("Cannot create test directory " + CFDIR);
+    }
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    FileSystem fs = TEST_UTIL.getTestFileSystem();
+    if (fs.exists(CFDIR) && !fs.delete(CFDIR, true)) {
+      throw new IOException("Cannot delete test directory " + CFDIR);
+    }
+  }
+
+  private MockStoreFile createFile(String firstRow, String lastRow) throws Exception {
+    FileSystem fs = TEST_UTIL.getTestFileSystem();
+    Path testFilePath = StoreFile.getUniqueFile(fs, CFDIR);
+    fs.create(testFilePath);
+    MockStoreFile sf = new MockStoreFile(TEST_UTIL, testFilePath, 0, 0, false, ++seqNum);
+    if (firstRow != null) {
+      sf.setKeyRange(KeyValue.createFirstOnRow(Bytes.toBytes(firstRow)).getKey(),
+          new KeyValue(Bytes.toBytes(lastRow), FAMILY, QUALIFIER, 1L, (byte[]) null).getKey());
+    }
+    return sf;
+  }
+
+  private static DefaultStoreFileManager createManager(List<StoreFile> sfs, Configuration conf) {
+    DefaultStoreFileManager manager = new DefaultStoreFileManager(KeyValue.COMPARATOR, conf);
+    manager.loadFiles(new ArrayList<StoreFile>(sfs));
+    return manager;
+  }
+
+  private static void verifyFiles(DefaultStoreFileManager manager, String startRow,
+      String stopRow, StoreFile... expected) {
+    byte[] start = startRow == null ? HConstants.EMPTY_START_ROW : Bytes.toBytes(startRow);
+    byte[] stop = stopRow == null ? HConstants.EMPTY_END_ROW : Bytes.toBytes(stopRow);
+    boolean isGet = startRow != null && startRow.equals(stopRow);
+    assertEquals(Arrays.asList(expected),
+        new ArrayList<StoreFile>(manager.getFilesForScanOrGet(isGet, start, stop)));
+  }
+
+  @Test
+  public void testFilesForScanOrGet() throws Exception {
+    MockStoreFile sfAC = createFile("a", "c");
+    MockStoreFile sfDF = createFile("d", "f");
+    MockStoreFile sfBE = createFile("b", "e");
+    MockStoreFile sfUnknown = createFile(null, null);
+    MockStoreFile sfG = createFile("g", "g");
+    MockStoreFile sfXZ = createFile("x", "z");
+    // loaded out of order, the files are returned in sequence id order
+    List<StoreFile> sfs = Arrays.<StoreFile>asList(sfXZ, sfBE, sfG, sfAC, sfUnknown, sfDF);
+    DefaultStoreFileManager manager = createManager(sfs, TEST_UTIL.getConfiguration());
+
+    verifyFiles(manager, "a", "a", sfAC, sfUnknown);
+    verifyFiles(manager, "e", "e", sfDF, sfBE, sfUnknown);
+    verifyFiles(manager, "h", "h", sfUnknown);
+    verifyFiles(manager, "c", "g", sfAC, sfDF, sfBE, sfUnknown, sfG);
+    verifyFiles(manager, "h", null, sfUnknown, sfXZ);
+    verifyFiles(manager, null, "b", sfAC, sfBE, sfUnknown);
+    verifyFiles(manager, null, null, sfAC, sfDF, sfBE, sfUnknown, sfG, sfXZ);
+    assertSame(manager.getStorefiles(), manager.getFilesForScanOrGet(false,
+        HConstants.EMPTY_START_ROW, HConstants.EMPTY_END_ROW));
+
+    // new files are indexed too
+    MockStoreFile sfH = createFile("h", "i");
+    manager.insertNewFiles(Arrays.<StoreFile>asList(sfH));
+    verifyFiles(manager, "h", "h", sfUnknown, sfH);
+    manager.addCompactionResults(Arrays.<StoreFile>asList(sfUnknown, sfH),
+        new ArrayList<StoreFile>());
+    verifyFiles(manager, "h", "h");
+  }
+
+  @Test
+  public void testIndexDisabled() throws Exception {
+    Configuration conf = new Configuration(TEST_UTIL.getConfiguration());
+    conf.setBoolean(DefaultStoreFileManager.KEY_RANGE_INDEX_ENABLED_KEY, false);
+    MockStoreFile sfAB = createFile("a", "b");
+    MockStoreFile sfCD = createFile("c", "d");
+    DefaultStoreFileManager manager = createManager(Arrays.<StoreFile>asList(sfAB, sfCD), conf);
+    verifyFiles(manager, "a", "a", sfAB, sfCD);
+  }
+
+  @Test
+  public void testRandomRanges() throws Exception {
+    Random random = new Random(12345L);
+    List<StoreFile> sfs = new ArrayList<StoreFile>();
+    List<int[]> ranges = new ArrayList<int[]>();
+    for (int i = 0; i < 50; ++i) {
+      int first = random.nextInt(1000);
+      int last = first + random.nextInt(i % 10 == 0 ? 1000 : 50);
+      sfs.add(createFile(String.format("row%04d", first), String.format("row%04d", last)));
+      ranges.add(new int[] { first, last });
+    }
+    DefaultStoreFileManager manager = createManager(sfs, TEST_UTIL.getConfiguration());
+
+    for (int i = 0; i < 500; ++i) {
+      int start = random.nextInt(2100) - 50;
+      int stop = start + random.nextInt(i % 2 == 0 ? 1 : 200);
+      List<StoreFile> expected = new ArrayList<StoreFile>();
+      for (int j = 0; j < sfs.size(); ++j) {
+        if (ranges.get(j)[1] >= start && ranges.get(j)[0] <= stop) {
+          expected.add(sfs.get(j));
+        }
+      }
+      verifyFiles(manager, String.format("row%04d", start), String.format("row%04d", stop),
+          expected.toArray(new StoreFile[expected.size()]));
+    }
+  }
+}
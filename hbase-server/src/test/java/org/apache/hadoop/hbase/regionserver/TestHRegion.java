@@ -3909,6 +3909,147 @@ public class TestHRegion {
     }
   }
 
+  @Test
+  public void testReverseScanner() throws Exception {
+    byte[] cf1 = Bytes.toBytes("cf1");
+    byte[] cf2 = Bytes.toBytes("cf2");
+    this.region = initHRegion(tableName, method, conf, cf1, cf2);
+    try {
+      for (int i = 0; i < 30; i++) {
+        Put put = new Put(Bytes.toBytes(String.format("row%02d", i)));
+        put.add(cf1, qual1, Bytes.toBytes(i));
+        if (i % 3 != 0) {
+          put.add(cf2, qual2, value2);
+        }
+        region.put(put);
+        if (i % 10 == 9) {
+          // spread the rows over the memstore and several store files
+          region.flushcache();
+        }
+      }
+      // a deleted row and a column deleted in the memstore
+      region.delete(new Delete(Bytes.toBytes("row07")));
+      Delete delete = new Delete(Bytes.toBytes("row12"));
+      delete.deleteColumns(cf2, qual2);
+      region.delete(delete);
+
+      Scan scan = new Scan();
+      verifyReverseScan(scan, 29, 0);
+      verifyReverseScan(new Scan(Bytes.toBytes("row20"), Bytes.toBytes("row05")), 20, 6);
+      // the start row does not exist, the scan starts at the row before it
+      verifyReverseScan(new Scan(Bytes.toBytes("row15a"), Bytes.toBytes("row10")), 15, 11);
+      verifyReverseScan(new Scan(Bytes.toBytes("row99")), 29, 0);
+
+      scan = new Scan(Bytes.toBytes("row25"));
+      scan.setFilter(new SingleColumnValueFilter(cf1, qual1, CompareOp.LESS_OR_EQUAL,
+          Bytes.toBytes(15)));
+      scan.setLoadColumnFamiliesOnDemand(true);
+      verifyReverseScan(scan, 15, 0);
+    } finally {
+      HRegion.closeHRegion(this.region);
+      this.region = null;
+    }
+  }
+
+  /**
+   * Checks that a reversed scan returns the rows of a forward scan over the
+   * same range of rows from last to first, from the first row to the last one.
+   */
+  private void verifyReverseScan(Scan reverseScan, int firstRow, int lastRow)
+      throws IOException {
+    Scan forwardScan = new Scan(reverseScan);
+    forwardScan.setStartRow(Bytes.toBytes(String.format("row%02d", lastRow)));
+    forwardScan.setStopRow(Bytes.toBytes(String.format("row%02d", firstRow + 1)));
+    List<List<Cell>> expected = new ArrayList<List<Cell>>();
+    InternalScanner scanner = region.getScanner(forwardScan);
+    boolean hasNext;
+    do {
+      List<Cell> results = new ArrayList<Cell>();
+      hasNext = scanner.next(results);
+      if (!results.isEmpty()) {
+        expected.add(0, results);
+      }
+    } while (hasNext);
+    scanner.close();
+    assertFalse(expected.isEmpty());
+
+    reverseScan.setReversed(true);
+    List<List<Cell>> actual = new ArrayList<List<Cell>>();
+    scanner = region.getScanner(reverseScan);
+    do {
+      List<Cell> results = new ArrayList<Cell>();
+      hasNext = scanner.next(results);
+      if (!results.isEmpty()) {
+        actual.add(results);
+      }
+    } while (hasNext);
+    scanner.close();
+    assertEquals(expected, actual);
+  }
+
+  @Test
+  public void testBatchGet() throws Exception {
+    byte[] cf1 = Bytes.toBytes("cf1");
+    byte[] cf2 = Bytes.toBytes("cf2");
+    this.region = initHRegion(tableName, method, conf, cf1, cf2);
+    try {
+      // only the even rows
+      for (int i = 0; i < 30; i += 2) {
+        Put put = new Put(Bytes.toBytes(String.format("row%02d", i)));
+        put.add(cf1, qual1, Bytes.toBytes(i));
+        put.add(cf1, qual2, value1);
+        if (i % 3 != 0) {
+          put.add(cf2, qual2, value2);
+        }
+        region.put(put);
+        if (i % 10 == 8) {
+          region.flushcache();
+        }
+      }
+      Delete delete = new Delete(Bytes.toBytes("row14"));
+      delete.deleteColumns(cf1, qual1);
+      region.delete(delete);
+      region.delete(new Delete(Bytes.toBytes("row16")));
+
+      int[] rows = { 17, 4, 4, 9, 28, 0, 14, 13, 40, 16, 22, 2 };
+      List<Get> gets = new ArrayList<Get>();
+      List<Get> expectedGets = new ArrayList<Get>();
+      for (int i = 0; i < rows.length; i++) {
+        byte[] row = Bytes.toBytes(String.format("row%02d", rows[i]));
+        for (List<Get> list : Arrays.asList(gets, expectedGets)) {
+          Get get = new Get(row);
+          if (i == 3) {
+            // a get of its own
+            get.addFamily(cf2);
+          } else if (i == 7) {
+            get.setFilter(new PrefixFilter(row));
+          } else {
+            get.addColumn(cf1, qual1);
+            get.addFamily(cf2);
+          }
+          list.add(get);
+        }
+      }
+      gets.add(new Get(Bytes.toBytes("row06")));
+      expectedGets.add(new Get(Bytes.toBytes("row06")));
+
+      Result[] results = region.get(gets);
+      assertEquals(gets.size(), results.length);
+      for (int i = 0; i < results.length; i++) {
+        Result.compareResults(region.get(expectedGets.get(i)), results[i]);
+      }
+      assertArrayEquals(Bytes.toBytes(4), results[1].getValue(cf1, qual1));
+      assertArrayEquals(Bytes.toBytes(4), results[2].getValue(cf1, qual1));
+      assertTrue(results[3].isEmpty());
+      assertEquals(1, results[6].size());
+      assertTrue(results[9].isEmpty());
+      assertEquals(2, results[12].size());
+    } finally {
+      HRegion.closeHRegion(this.region);
+      this.region = null;
+    }
+  }
+
   private Configuration initSplit() {
     // Always compact if there is more than one store file.
     conf.setInt("hbase.hstore.compactionThreshold", 2);
@@ -63,6 +63,14 @@ public class TestKeyValueHeap extends HBaseTestCase {
     col5 = Bytes.toBytes("col5");
   }
 
+  /**
+   * Merges the given scanners, overridden to test the other merge
+   * implementations.
+   */
+  protected KeyValueHeap createHeap(List<KeyValueScanner> scanners) throws IOException {
+    return new KeyValueHeap(scanners, KeyValue.COMPARATOR);
+  }
+
   public void testSorted() throws IOException{
     //Cases that need to be checked are:
     //1. The "smallest" KeyValue is in the same scanners as current
@@ -100,8 +108,7 @@ public class TestKeyValueHeap extends HBaseTestCase {
     expected.add(new KeyValue(row2, fam1, col3, data));
 
     //Creating KeyValueHeap
-    KeyValueHeap kvh =
-      new KeyValueHeap(scanners, KeyValue.COMPARATOR);
+    KeyValueHeap kvh = createHeap(scanners);
 
     List<KeyValue> actual = new ArrayList<KeyValue>();
     while(kvh.peek() != null){
@@ -153,8 +160,7 @@ public class TestKeyValueHeap extends HBaseTestCase {
     expected.add(new KeyValue(row2, fam1, col1, data));
 
     //Creating KeyValueHeap
-    KeyValueHeap kvh =
-      new KeyValueHeap(scanners, KeyValue.COMPARATOR);
+    KeyValueHeap kvh = createHeap(scanners);
 
     KeyValue seekKv = new KeyValue(row2, fam1, null, null);
     kvh.seek(seekKv);
@@ -199,7 +205,7 @@ public class TestKeyValueHeap extends HBaseTestCase {
     scanners.add(new Scanner(l4));
 
     //Creating KeyValueHeap
-    KeyValueHeap kvh = new KeyValueHeap(scanners, KeyValue.COMPARATOR);
+    KeyValueHeap kvh = createHeap(scanners);
 
     while(kvh.next() != null);
 
@@ -208,7 +214,7 @@ public class TestKeyValueHeap extends HBaseTestCase {
     }
   }
 
-  private static class Scanner extends CollectionBackedScanner {
+  static class Scanner extends CollectionBackedScanner {
     private Iterator<KeyValue> iter;
     private KeyValue current;
     private boolean closed = false;
@@ -0,0 +1,125 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hbase.regionserver;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.SmallTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Runs the tests of {@link TestKeyValueHeap} on a {@link LoserTreeKeyValueHeap},
+ * and checks that it merges many scanners the same way as the binary heap.
+ */
+@Category(SmallTests.class)
+public class TestLoserTreeKeyValueHeap extends TestKeyValueHeap {
+  private static final byte[] FAMILY = Bytes.toBytes("f");
+  private static final byte[] QUALIFIER = Bytes.toBytes("q");
+
+  @Override
+  protected KeyValueHeap createHeap(List<KeyValueScanner> scanners) throws IOException {
+    return new LoserTreeKeyValueHeap(scanners, KeyValue.COMPARATOR);
+  }
+
+  /**
+   * Spreads random cells over the given number of scanners. Some cells are
+   * in several scanners with different timestamps, some scanners are empty.
+   */
+  private static List<List<KeyValue>> createInputs(Random random, int numScanners) {
+    List<List<KeyValue>> inputs = new ArrayList<List<KeyValue>>();
+    for (int i = 0; i < numScanners; ++i) {
+      List<KeyValue> input = new ArrayList<KeyValue>();
+      int numKvs = i % 5 == 3 ? 0 : random.nextInt(100);
+      for (int j = 0; j < numKvs; ++j) {
+        byte[] row = Bytes.toBytes(String.format("row%04d", random.nextInt(1000)));
+        input.add(new KeyValue(row, FAMILY, QUALIFIER, i, Bytes.toBytes(i + "_" + j)));
+      }
+      Collections.sort(input, KeyValue.COMPARATOR);
+      inputs.add(input);
+    }
+    return inputs;
+  }
+
+  private static List<KeyValueScanner> createScanners(List<List<KeyValue>> inputs) {
+    List<KeyValueScanner> scanners = new ArrayList<KeyValueScanner>();
+    for (List<KeyValue> input : inputs) {
+      scanners.add(new Scanner(input));
+    }
+    return scanners;
+  }
+
+  public void testManyScanners() throws IOException {
+    Random random = new Random(1234L);
+    for (int numScanners : new int[] { 1, 2, 3, 7, 8, 13, 64 }) {
+      List<List<KeyValue>> inputs = createInputs(random, numScanners);
+      List<KeyValue> expected = new ArrayList<KeyValue>();
+      for (List<KeyValue> input : inputs) {
+        expected.addAll(input);
+      }
+      Collections.sort(expected, KeyValue.COMPARATOR);
+
+      List<KeyValueScanner> scanners = createScanners(inputs);
+      KeyValueHeap kvh = createHeap(scanners);
+      List<KeyValue> actual = new ArrayList<KeyValue>();
+      KeyValue kv;
+      while ((kv = kvh.next()) != null) {
+        actual.add(kv);
+      }
+      assertEquals("Scanners: " + numScanners, expected, actual);
+      for (KeyValueScanner scanner : scanners) {
+        assertTrue(((Scanner) scanner).isClosed());
+      }
+    }
+  }
+
+  public void testSeeksLikeBinaryHeap() throws IOException {
+    Random random = new Random(5678L);
+    List<List<KeyValue>> inputs = createInputs(random, 21);
+    KeyValueHeap expectedHeap = new KeyValueHeap(createScanners(inputs), KeyValue.COMPARATOR);
+    KeyValueHeap actualHeap = createHeap(createScanners(inputs));
+    for (int i = 0; i < 200; ++i) {
+      KeyValue seekKey = KeyValue.createFirstOnRow(
+          Bytes.toBytes(String.format("row%04d", random.nextInt(1100))));
+      switch (random.nextInt(4)) {
+        case 0:
+          assertEquals(expectedHeap.seek(seekKey), actualHeap.seek(seekKey));
+          break;
+        case 1:
+          if (expectedHeap.peek() != null
+              && KeyValue.COMPARATOR.compare(seekKey, expectedHeap.peek()) >= 0) {
+            assertEquals(expectedHeap.reseek(seekKey), actualHeap.reseek(seekKey));
+          }
+          break;
+        default:
+          assertEquals(expectedHeap.next(), actualHeap.next());
+          break;
+      }
+      assertEquals(expectedHeap.peek(), actualHeap.peek());
+    }
+    expectedHeap.close();
+    actualHeap.close();
+  }
+}
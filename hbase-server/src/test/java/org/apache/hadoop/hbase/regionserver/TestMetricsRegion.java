@@ -18,9 +18,14 @@
 
 package org.apache.hadoop.hbase.regionserver;
 
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+
 import org.apache.hadoop.hbase.CompatibilityFactory;
 import org.apache.hadoop.hbase.SmallTests;
 import org.apache.hadoop.hbase.test.MetricsAssertHelper;
+import org.apache.hadoop.hbase.util.Bytes;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
@@ -40,4 +45,23 @@ public class TestMetricsRegion {
     HELPER.assertGauge("namespace_TestNS_table_MetricsRegionWrapperStub_region_DEADBEEF001_metric_memstoreSize", 103, agg);
     mr.close();
   }
+
+  @Test
+  public void testRowLockContention() {
+    MetricsRegion mr = new MetricsRegion(new MetricsRegionWrapperStub());
+    MetricsRegionAggregateSource agg = mr.getSource().getAggregateSource();
+
+    mr.updateRowLockWait(Bytes.toBytes("hot"), 10);
+    mr.updateRowLockWait(Bytes.toBytes("hot"), 20);
+    mr.updateRowLockWait(Bytes.toBytes("cold"), 5);
+    mr.updateRowLockTimeout(Bytes.toBytes("hot"));
+
+    HELPER.assertCounter("namespace_TestNS_table_MetricsRegionWrapperStub_region_DEADBEEF001_metric_rowLockTimeoutCount", 1, agg);
+    List<ContendedRows.ContendedRow> rows = mr.getContendedRows();
+    assertEquals(2, rows.size());
+    assertEquals("hot", Bytes.toString(rows.get(0).getRow()));
+    assertEquals(3, rows.get(0).getCount());
+    assertEquals(1, rows.get(1).getCount());
+    mr.close();
+  }
 }
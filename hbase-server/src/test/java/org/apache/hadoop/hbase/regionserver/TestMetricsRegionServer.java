@@ -72,6 +72,10 @@ public class TestMetricsRegionServer {
     HELPER.assertGauge("staticBloomSize", 408, serverSource);
     HELPER.assertGauge("mutationsWithoutWALCount", 409, serverSource);
     HELPER.assertGauge("mutationsWithoutWALSize", 410, serverSource);
+    HELPER.assertCounter("flushedOutputBytes", 420, serverSource);
+    HELPER.assertCounter("flushTime", 421, serverSource);
+    HELPER.assertCounter("compactedOutputBytes", 422, serverSource);
+    HELPER.assertCounter("compactionTime", 423, serverSource);
     HELPER.assertGauge("percentFilesLocal", 99, serverSource);
     HELPER.assertGauge("compactionQueueLength", 411, serverSource);
     HELPER.assertGauge("flushQueueLength", 412, serverSource);
@@ -0,0 +1,183 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.MediumTests;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Durability;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Mutation;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.regionserver.wal.HLog;
+import org.apache.hadoop.hbase.regionserver.wal.HLogFactory;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TestName;
+
+/**
+ * The puts of a multi call to several regions of a region server, synced
+ * once through an {@link HRegion.GroupCommit}.
+ */
+@Category(MediumTests.class)
+public class TestMultiGroupCommit {
+  private static final HBaseTestingUtility TEST_UTIL = HBaseTestingUtility.createLocalHTU();
+  private static final byte[] FAMILY = Bytes.toBytes("f");
+  private static final byte[] QUALIFIER = Bytes.toBytes("q");
+  private static final byte[][] KEYS = new byte[][] {
+    HConstants.EMPTY_START_ROW, Bytes.toBytes("m"), HConstants.EMPTY_END_ROW };
+
+  @Rule public TestName name = new TestName();
+
+  private HLog hlog;
+  private HLog log;
+  private HRegion[] regions;
+
+  @Before
+  public void setUp() throws IOException {
+    Configuration conf = TEST_UTIL.getConfiguration();
+    FileSystem fs = FileSystem.get(conf);
+    Path dir = TEST_UTIL.getDataTestDir(name.getMethodName());
+    hlog = HLogFactory.createHLog(fs, dir, "logs", conf);
+    log = spy(hlog);
+    HTableDescriptor htd = new HTableDescriptor(TableName.valueOf(name.getMethodName()));
+    htd.addFamily(new HColumnDescriptor(FAMILY));
+    // Regions opened by a region server, with a coprocessor host
+    RegionServerServices rsServices = mock(RegionServerServices.class);
+    regions = new HRegion[KEYS.length - 1];
+    for (int i = 0; i < regions.length; i++) {
+      HRegionInfo info = new HRegionInfo(htd.getTableName(), KEYS[i], KEYS[i + 1]);
+      HRegion.createHRegion(info, dir, conf, htd, log, false);
+      regions[i] = HRegion.openHRegion(dir, info, htd, log, conf, rsServices, null);
+      assertNotNull(regions[i].getCoprocessorHost());
+    }
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    for (HRegion region : regions) {
+      region.close();
+    }
+    hlog.closeAndDelete();
+  }
+
+  private static Mutation[] puts(String prefix) {
+    Mutation[] puts = new Mutation[5];
+    for (int i = 0; i < puts.length; i++) {
+      Put put = new Put(Bytes.toBytes(prefix + i));
+      put.add(FAMILY, QUALIFIER, Bytes.toBytes(i));
+      puts[i] = put;
+    }
+    return puts;
+  }
+
+  private static boolean isVisible(HRegion region, Mutation mutation) throws IOException {
+    return !region.get(new Get(mutation.getRow())).isEmpty();
+  }
+
+  @Test
+  public void testOneSyncPerMulti() throws IOException {
+    // Without a group, each region syncs on its own
+    regions[0].batchMutate(puts("a"));
+    regions[1].batchMutate(puts("n"));
+    verify(log, times(2)).sync(anyLong());
+
+    HRegion.GroupCommit groupCommit = new HRegion.GroupCommit();
+    Mutation[] first = puts("b");
+    Mutation[] second = puts("o");
+    regions[0].batchMutate(first, groupCommit);
+    regions[1].batchMutate(second, groupCommit);
+    assertFalse(groupCommit.isEmpty());
+    // Nothing synced nor visible until the group completes
+    verify(log, times(2)).sync(anyLong());
+    assertFalse(isVisible(regions[0], first[0]));
+    assertFalse(isVisible(regions[1], second[0]));
+
+    groupCommit.complete();
+    verify(log, times(3)).sync(anyLong());
+    for (Mutation put : first) {
+      assertTrue(isVisible(regions[0], put));
+    }
+    for (Mutation put : second) {
+      assertTrue(isVisible(regions[1], put));
+    }
+  }
+
+  @Test
+  public void testFailedSync() throws IOException {
+    final List<Mutation> rolledBack = new ArrayList<Mutation>();
+    HRegion.GroupCommit groupCommit = new HRegion.GroupCommit() {
+      @Override
+      protected void rolledBack(Mutation mutation, IOException e) {
+        rolledBack.add(mutation);
+      }
+    };
+    doThrow(new IOException("Injected sync failure")).when(log).sync(anyLong());
+    Mutation[] first = puts("b");
+    Mutation[] second = puts("o");
+    regions[0].batchMutate(first, groupCommit);
+    regions[1].batchMutate(second, groupCommit);
+    groupCommit.complete();
+    verify(log, times(1)).sync(anyLong());
+
+    // Every put is reported and rolled back
+    assertEquals(first.length + second.length, rolledBack.size());
+    for (Mutation put : first) {
+      assertTrue(rolledBack.contains(put));
+      assertFalse(isVisible(regions[0], put));
+    }
+    for (Mutation put : second) {
+      assertTrue(rolledBack.contains(put));
+      assertFalse(isVisible(regions[1], put));
+    }
+
+    // The regions go on with their writes
+    Put put = new Put(Bytes.toBytes("c"));
+    put.add(FAMILY, QUALIFIER, Bytes.toBytes(1));
+    put.setDurability(Durability.SKIP_WAL);
+    regions[0].put(put);
+    assertTrue(isVisible(regions[0], put));
+  }
+}
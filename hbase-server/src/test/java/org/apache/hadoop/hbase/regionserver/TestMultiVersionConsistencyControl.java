@@ -21,7 +21,11 @@ import junit.framework.TestCase;
 import org.apache.hadoop.hbase.SmallTests;
 import org.junit.experimental.categories.Category;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -71,6 +75,90 @@ public class TestMultiVersionConsistencyControl extends TestCase {
     }
   }
 
+  public void testCompleteOutOfOrder() {
+    // Small enough for the write numbers to wrap around the slots
+    MultiVersionConsistencyControl mvcc = new MultiVersionConsistencyControl(4);
+    for (int round = 0; round < 10; round++) {
+      long start = mvcc.memstoreReadPoint();
+      MultiVersionConsistencyControl.WriteEntry[] entries =
+          new MultiVersionConsistencyControl.WriteEntry[4];
+      for (int i = 0; i < entries.length; i++) {
+        entries[i] = mvcc.beginMemstoreInsert();
+      }
+      assertFalse(mvcc.advanceMemstore(entries[3]));
+      assertFalse(mvcc.advanceMemstore(entries[1]));
+      assertEquals(start, mvcc.memstoreReadPoint());
+      assertTrue(mvcc.advanceMemstore(entries[0]));
+      assertEquals(start + 2, mvcc.memstoreReadPoint());
+      assertTrue(mvcc.advanceMemstore(entries[2]));
+      assertEquals(start + 4, mvcc.memstoreReadPoint());
+    }
+  }
+
+  public void testBeginBeyondCapacity() {
+    MultiVersionConsistencyControl mvcc = new MultiVersionConsistencyControl(2);
+    MultiVersionConsistencyControl.WriteEntry[] entries =
+        new MultiVersionConsistencyControl.WriteEntry[5];
+    // More writes than slots may be in progress at once
+    for (int i = 0; i < entries.length; i++) {
+      entries[i] = mvcc.beginMemstoreInsert();
+    }
+    assertFalse(mvcc.advanceMemstore(entries[4]));
+    assertFalse(mvcc.advanceMemstore(entries[2]));
+    assertFalse(mvcc.advanceMemstore(entries[1]));
+    assertEquals(0, mvcc.memstoreReadPoint());
+    assertTrue(mvcc.advanceMemstore(entries[0]));
+    assertEquals(3, mvcc.memstoreReadPoint());
+    assertTrue(mvcc.advanceMemstore(entries[3]));
+    assertEquals(5, mvcc.memstoreReadPoint());
+    // The slots are reused once the read point caught up
+    mvcc.completeMemstoreInsert(mvcc.beginMemstoreInsert());
+    assertEquals(6, mvcc.memstoreReadPoint());
+  }
+
+  public void testFillRingFromSeveralThreads() throws Exception {
+    final MultiVersionConsistencyControl mvcc = new MultiVersionConsistencyControl(4);
+    final int perThread = 8;
+    int n = 5;
+    // Every writer holds its writes open until all of them began theirs, so
+    // the writes in progress are many more than the slots
+    final CountDownLatch begun = new CountDownLatch(n);
+    final AtomicBoolean failed = new AtomicBoolean(false);
+    Thread[] writers = new Thread[n];
+    for (int i = 0; i < n; i++) {
+      writers[i] = new Thread() {
+        @Override
+        public void run() {
+          try {
+            List<MultiVersionConsistencyControl.WriteEntry> entries =
+                new ArrayList<MultiVersionConsistencyControl.WriteEntry>();
+            for (int j = 0; j < perThread; j++) {
+              entries.add(mvcc.beginMemstoreInsert());
+            }
+            begun.countDown();
+            begun.await();
+            Collections.shuffle(entries);
+            for (MultiVersionConsistencyControl.WriteEntry e : entries) {
+              mvcc.advanceMemstore(e);
+            }
+            for (MultiVersionConsistencyControl.WriteEntry e : entries) {
+              mvcc.waitForRead(e);
+            }
+          } catch (InterruptedException e) {
+            failed.set(true);
+          }
+        }
+      };
+      writers[i].start();
+    }
+    for (int i = 0; i < n; i++) {
+      writers[i].join(10000);
+      assertFalse(writers[i].isAlive());
+    }
+    assertFalse(failed.get());
+    assertEquals(n * perThread, mvcc.memstoreReadPoint());
+  }
+
   public void testParallelism() throws Exception {
     final MultiVersionConsistencyControl mvcc = new MultiVersionConsistencyControl();
 
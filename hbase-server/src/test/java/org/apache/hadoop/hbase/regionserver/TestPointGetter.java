@@ -0,0 +1,204 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import static org.apache.hadoop.hbase.HBaseTestingUtility.COLUMNS;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.KeyValueUtil;
+import org.apache.hadoop.hbase.SmallTests;
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TestName;
+
+/**
+ * Checks that gets answered by a {@link PointGetter} return the same cells as
+ * the region scanner does for them.
+ */
+@Category(SmallTests.class)
+public class TestPointGetter {
+  HBaseTestingUtility hbu = HBaseTestingUtility.createLocalHTU();
+  private final byte[] ROW = Bytes.toBytes("row");
+  private final byte[] OTHER_ROW = Bytes.toBytes("row0");
+  private final byte[] c0 = COLUMNS[0];
+  private final byte[] c1 = COLUMNS[1];
+  private final byte[][] QUALIFIERS = { Bytes.toBytes("a"), Bytes.toBytes("b"),
+      Bytes.toBytes("c"), Bytes.toBytes("d"), Bytes.toBytes("e") };
+
+  @Rule public TestName name = new TestName();
+
+  @Test
+  public void testLatestVersions() throws Exception {
+    HRegion region = createRegion(HConstants.FOREVER);
+    try {
+      long ts = EnvironmentEdgeManager.currentTimeMillis();
+      put(region, ROW, c0, QUALIFIERS[0], ts - 3, "a1");
+      put(region, ROW, c0, QUALIFIERS[2], ts - 3, "c1");
+      put(region, OTHER_ROW, c0, QUALIFIERS[1], ts, "other");
+      region.flushcache();
+      put(region, ROW, c0, QUALIFIERS[0], ts - 1, "a2");
+      put(region, ROW, c0, QUALIFIERS[2], ts - 5, "c0");
+      put(region, ROW, c1, QUALIFIERS[3], ts, "d1");
+
+      Get get = new Get(ROW);
+      get.addColumn(c0, QUALIFIERS[0]);
+      get.addColumn(c0, QUALIFIERS[1]);
+      get.addColumn(c0, QUALIFIERS[2]);
+      get.addColumn(c1, QUALIFIERS[3]);
+      get.addColumn(c1, QUALIFIERS[4]);
+      checkGet(region, get, "a2", "c1", "d1");
+
+      region.flushcache();
+      checkGet(region, get, "a2", "c1", "d1");
+
+      get = new Get(ROW);
+      get.addColumn(c0, QUALIFIERS[1]);
+      checkGet(region, get);
+    } finally {
+      HRegion.closeHRegion(region);
+    }
+  }
+
+  @Test
+  public void testDeletes() throws Exception {
+    HRegion region = createRegion(HConstants.FOREVER);
+    try {
+      long ts = EnvironmentEdgeManager.currentTimeMillis();
+      for (byte[] qualifier : QUALIFIERS) {
+        for (int i = 0; i < 4; i++) {
+          put(region, ROW, c0, qualifier, ts - 10 * i,
+              Bytes.toString(qualifier) + i);
+        }
+      }
+      region.flushcache();
+
+      // the latest version of a, all the versions of b from the second one,
+      // and the third version of all the columns
+      Delete delete = new Delete(ROW);
+      delete.deleteColumn(c0, QUALIFIERS[0], ts);
+      delete.deleteColumns(c0, QUALIFIERS[1], ts - 10);
+      delete.deleteFamilyVersion(c0, ts - 20);
+      region.delete(delete);
+      Get get = new Get(ROW);
+      for (byte[] qualifier : QUALIFIERS) {
+        get.addColumn(c0, qualifier);
+      }
+      checkGet(region, get, "a1", "b0", "c0", "d0", "e0");
+
+      delete = new Delete(ROW);
+      delete.deleteColumn(c0, QUALIFIERS[2], ts);
+      delete.deleteColumn(c0, QUALIFIERS[2], ts - 10);
+      region.delete(delete);
+      checkGet(region, get, "a1", "b0", "c3", "d0", "e0");
+
+      region.flushcache();
+      delete = new Delete(ROW);
+      delete.deleteFamily(c0, ts);
+      region.delete(delete);
+      put(region, ROW, c0, QUALIFIERS[4], ts + 1, "e-new");
+      checkGet(region, get, "e-new");
+
+      region.flushcache();
+      checkGet(region, get, "e-new");
+    } finally {
+      HRegion.closeHRegion(region);
+    }
+  }
+
+  @Test
+  public void testExpiredCells() throws Exception {
+    HRegion region = createRegion(1000);
+    try {
+      long ts = EnvironmentEdgeManager.currentTimeMillis();
+      put(region, ROW, c0, QUALIFIERS[0], ts - 2000 * 1000L, "a-expired");
+      put(region, ROW, c0, QUALIFIERS[1], ts - 2000 * 1000L, "b-expired");
+      put(region, ROW, c0, QUALIFIERS[1], ts, "b");
+      region.flushcache();
+      put(region, ROW, c0, QUALIFIERS[2], ts - 2000 * 1000L, "c-expired");
+
+      Get get = new Get(ROW);
+      get.addColumn(c0, QUALIFIERS[0]);
+      get.addColumn(c0, QUALIFIERS[1]);
+      get.addColumn(c0, QUALIFIERS[2]);
+      checkGet(region, get, "b");
+    } finally {
+      HRegion.closeHRegion(region);
+    }
+  }
+
+  private HRegion createRegion(int ttl) throws Exception {
+    HTableDescriptor htd = hbu.createTableDescriptor(name.getMethodName(),
+        HColumnDescriptor.DEFAULT_MIN_VERSIONS, 10, ttl,
+        HColumnDescriptor.DEFAULT_KEEP_DELETED);
+    return hbu.createLocalHRegion(htd, null, null);
+  }
+
+  private void put(HRegion region, byte[] row, byte[] family, byte[] qualifier,
+      long ts, String value) throws Exception {
+    Put p = new Put(row, ts);
+    p.add(family, qualifier, Bytes.toBytes(value));
+    region.put(p);
+  }
+
+  /*
+   * Compares the get with the region scanner, then the values found with the
+   * expected ones.
+   */
+  private void checkGet(HRegion region, Get get, String... values) throws Exception {
+    Result result = region.get(get);
+
+    List<Cell> expected = new ArrayList<Cell>();
+    RegionScanner scanner = region.getScanner(new Scan(get));
+    try {
+      scanner.next(expected);
+    } finally {
+      scanner.close();
+    }
+    Cell[] cells = result.rawCells();
+    assertEquals(expected.size(), cells == null ? 0 : cells.length);
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(KeyValueUtil.ensureKeyValue(expected.get(i)),
+          KeyValueUtil.ensureKeyValue(cells[i]));
+      assertArrayEquals(CellUtil.cloneValue(expected.get(i)), CellUtil.cloneValue(cells[i]));
+    }
+
+    assertEquals(values.length, expected.size());
+    for (int i = 0; i < values.length; i++) {
+      assertArrayEquals(Bytes.toBytes(values[i]), CellUtil.cloneValue(cells[i]));
+    }
+  }
+}
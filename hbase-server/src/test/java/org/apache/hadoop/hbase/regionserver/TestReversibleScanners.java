@@ -0,0 +1,300 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.SmallTests;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.io.hfile.CacheConfig;
+import org.apache.hadoop.hbase.io.hfile.HFileContext;
+import org.apache.hadoop.hbase.io.hfile.HFileContextBuilder;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Test the reversed scanning of the memstore and store file scanners, of
+ * {@link ReversedKeyValueHeap} and of {@link ReversedStoreScanner}.
+ */
+@Category(SmallTests.class)
+public class TestReversibleScanners {
+  private static final HBaseTestingUtility TEST_UTIL = new HBaseTestingUtility();
+  private static final byte[] FAMILY = Bytes.toBytes("testCf");
+  private static final int ROWSIZE = 200;
+  private static final int QUALSIZE = 5;
+  private static final byte[][] ROWS = makeN("row", ROWSIZE);
+  private static final byte[][] QUALS = makeN("qual", QUALSIZE);
+  private static final byte[] VALUE = Bytes.toBytes("value");
+
+  /** Rows in descending order, cells of a row in ascending order. */
+  private static final Comparator<KeyValue> REVERSED_ORDER = new Comparator<KeyValue>() {
+    @Override
+    public int compare(KeyValue left, KeyValue right) {
+      int rowComparison = KeyValue.COMPARATOR.compareRows(left, right);
+      if (rowComparison != 0) {
+        return -rowComparison;
+      }
+      return KeyValue.COMPARATOR.compare(left, right);
+    }
+  };
+
+  private static byte[][] makeN(String prefix, int n) {
+    byte[][] ret = new byte[n][];
+    for (int i = 0; i < n; i++) {
+      ret[i] = Bytes.toBytes(String.format("%s%04d", prefix, i));
+    }
+    return ret;
+  }
+
+  /**
+   * Spreads all the cells over the given number of sources, row i and
+   * qualifier j going to source (i + j) % numSources.
+   */
+  private static List<List<KeyValue>> makeKVs(int numSources) {
+    List<List<KeyValue>> sources = new ArrayList<List<KeyValue>>();
+    for (int i = 0; i < numSources; i++) {
+      sources.add(new ArrayList<KeyValue>());
+    }
+    for (int i = 0; i < ROWSIZE; i++) {
+      for (int j = 0; j < QUALSIZE; j++) {
+        sources.get((i + j) % numSources).add(
+            new KeyValue(ROWS[i], FAMILY, QUALS[j], 1L, VALUE));
+      }
+    }
+    return sources;
+  }
+
+  private static KeyValueScanner createMemStoreScanner(List<KeyValue> kvs) {
+    MemStore memstore = new MemStore();
+    for (KeyValue kv : kvs) {
+      memstore.add(kv);
+    }
+    return memstore.getScanners(0).get(0);
+  }
+
+  private static KeyValueScanner createStoreFileScanner(List<KeyValue> kvs, String name)
+      throws IOException {
+    Configuration conf = TEST_UTIL.getConfiguration();
+    CacheConfig cacheConf = new CacheConfig(conf);
+    FileSystem fs = TEST_UTIL.getTestFileSystem();
+    Path dir = new Path(TEST_UTIL.getDataTestDir("TestReversibleScanners"), name);
+    HFileContext meta = new HFileContextBuilder().withBlockSize(512).build();
+    StoreFile.Writer writer = new StoreFile.WriterBuilder(conf, cacheConf, fs)
+        .withOutputDir(dir).withFileContext(meta).build();
+    try {
+      for (KeyValue kv : kvs) {
+        writer.append(kv);
+      }
+    } finally {
+      writer.close();
+    }
+    StoreFile sf = new StoreFile(fs, writer.getPath(), conf, cacheConf, BloomType.NONE);
+    return sf.createReader().getStoreFileScanner(false, false);
+  }
+
+  private static List<KeyValue> sortReversed(List<List<KeyValue>> sources) {
+    List<KeyValue> all = new ArrayList<KeyValue>();
+    for (List<KeyValue> source : sources) {
+      all.addAll(source);
+    }
+    Collections.sort(all, REVERSED_ORDER);
+    return all;
+  }
+
+  /**
+   * Reads all the cells of a scanner backwards, from its last row, by reading
+   * each row forwards and seeking to the previous one.
+   */
+  private static List<KeyValue> readBackwards(KeyValueScanner scanner) throws IOException {
+    List<KeyValue> result = new ArrayList<KeyValue>();
+    if (!scanner.seekToLastRow()) {
+      return result;
+    }
+    KeyValue kv;
+    while ((kv = scanner.peek()) != null) {
+      KeyValue last;
+      do {
+        last = scanner.next();
+        result.add(last);
+      } while (scanner.peek() != null && scanner.peek().matchingRow(kv));
+      if (!scanner.seekToPreviousRow(last)) {
+        break;
+      }
+    }
+    return result;
+  }
+
+  private void verifyReversibleScanner(KeyValueScanner scanner, List<KeyValue> kvs)
+      throws IOException {
+    List<KeyValue> expected = new ArrayList<KeyValue>(kvs);
+    Collections.sort(expected, REVERSED_ORDER);
+    assertEquals(expected, readBackwards(scanner));
+
+    // a row of its own, or the previous one when the key is past its cells
+    assertTrue(scanner.backwardSeek(KeyValue.createFirstOnRow(ROWS[100])));
+    assertTrue(scanner.peek().matchingRow(ROWS[100]));
+    assertTrue(scanner.backwardSeek(KeyValue.createLastOnRow(ROWS[100])));
+    assertTrue(scanner.peek().matchingRow(ROWS[99]));
+    assertTrue(scanner.seekToPreviousRow(KeyValue.createFirstOnRow(ROWS[50])));
+    assertTrue(scanner.peek().matchingRow(ROWS[49]));
+    assertEquals(QUALSIZE, countRow(scanner, ROWS[49]));
+    assertFalse(scanner.seekToPreviousRow(KeyValue.createFirstOnRow(ROWS[0])));
+  }
+
+  private static int countRow(KeyValueScanner scanner, byte[] row) throws IOException {
+    int count = 0;
+    while (scanner.peek() != null && scanner.peek().matchingRow(row)) {
+      scanner.next();
+      count++;
+    }
+    return count;
+  }
+
+  @Test
+  public void testReversibleMemStoreScanner() throws IOException {
+    List<KeyValue> kvs = makeKVs(1).get(0);
+    verifyReversibleScanner(createMemStoreScanner(kvs), kvs);
+  }
+
+  @Test
+  public void testReversibleStoreFileScanner() throws IOException {
+    List<KeyValue> kvs = makeKVs(1).get(0);
+    verifyReversibleScanner(createStoreFileScanner(kvs, "testReversibleStoreFileScanner"), kvs);
+  }
+
+  @Test
+  public void testReversibleKeyValueHeap() throws IOException {
+    List<List<KeyValue>> sources = makeKVs(3);
+    List<KeyValueScanner> scanners = new ArrayList<KeyValueScanner>();
+    scanners.add(createMemStoreScanner(sources.get(0)));
+    scanners.add(createStoreFileScanner(sources.get(1), "testReversibleKeyValueHeap1"));
+    scanners.add(createStoreFileScanner(sources.get(2), "testReversibleKeyValueHeap2"));
+    for (KeyValueScanner scanner : scanners) {
+      scanner.seekToLastRow();
+    }
+    ReversedKeyValueHeap heap = new ReversedKeyValueHeap(scanners, KeyValue.COMPARATOR);
+
+    List<KeyValue> actual = new ArrayList<KeyValue>();
+    KeyValue kv;
+    while ((kv = heap.next()) != null) {
+      actual.add(kv);
+    }
+    assertEquals(sortReversed(sources), actual);
+    heap.close();
+  }
+
+  @Test
+  public void testReversibleKeyValueHeapSeeks() throws IOException {
+    List<List<KeyValue>> sources = makeKVs(2);
+    List<KeyValueScanner> scanners = new ArrayList<KeyValueScanner>();
+    scanners.add(createMemStoreScanner(sources.get(0)));
+    scanners.add(createStoreFileScanner(sources.get(1), "testReversibleKeyValueHeapSeeks"));
+    for (KeyValueScanner scanner : scanners) {
+      scanner.seekToLastRow();
+    }
+    ReversedKeyValueHeap heap = new ReversedKeyValueHeap(scanners, KeyValue.COMPARATOR);
+
+    assertTrue(heap.backwardSeek(KeyValue.createFirstOnRow(ROWS[150])));
+    assertEquals(QUALSIZE, countRow(heap, ROWS[150]));
+    // next() goes on with the previous row once a row is read
+    assertTrue(heap.peek().matchingRow(ROWS[149]));
+    assertTrue(heap.seekToPreviousRow(heap.peek()));
+    assertTrue(heap.peek().matchingRow(ROWS[148]));
+    assertTrue(heap.backwardSeek(new KeyValue(ROWS[100], FAMILY, QUALS[2], 1L, VALUE)));
+    assertEquals(new KeyValue(ROWS[100], FAMILY, QUALS[2], 1L, VALUE), heap.peek());
+    assertEquals(QUALSIZE - 2, countRow(heap, ROWS[100]));
+    // back to the last row of all the scanners
+    assertTrue(heap.seekToLastRow());
+    assertEquals(QUALSIZE, countRow(heap, ROWS[ROWSIZE - 1]));
+    assertTrue(heap.peek().matchingRow(ROWS[ROWSIZE - 2]));
+    assertFalse(heap.seekToPreviousRow(KeyValue.createFirstOnRow(ROWS[0])));
+    assertEquals(null, heap.peek());
+    heap.close();
+  }
+
+  @Test
+  public void testReversedStoreScanner() throws IOException {
+    ScanInfo scanInfo = new ScanInfo(FAMILY, 0, Integer.MAX_VALUE, Long.MAX_VALUE, false, 0,
+        KeyValue.COMPARATOR);
+    Scan scan = new Scan(ROWS[150]);
+    scan.setReversed(true);
+    verifyReversedStoreScanner(new ReversedStoreScanner(scan, scanInfo, ScanType.USER_SCAN,
+        null, createScanners("testReversedStoreScanner")), 150, QUALSIZE);
+
+    NavigableSet<byte[]> columns = new TreeSet<byte[]>(Bytes.BYTES_COMPARATOR);
+    columns.add(QUALS[1]);
+    columns.add(QUALS[3]);
+    // the start row does not exist, the scan starts at the row before it
+    scan = new Scan(Bytes.add(ROWS[150], new byte[] { 0 }));
+    scan.setReversed(true);
+    verifyReversedStoreScanner(new ReversedStoreScanner(scan, scanInfo, ScanType.USER_SCAN,
+        columns, createScanners("testReversedStoreScannerColumns")), 150, 2);
+  }
+
+  private static List<KeyValueScanner> createScanners(String name) throws IOException {
+    List<List<KeyValue>> sources = makeKVs(3);
+    List<KeyValueScanner> scanners = new ArrayList<KeyValueScanner>();
+    scanners.add(createMemStoreScanner(sources.get(0)));
+    scanners.add(createStoreFileScanner(sources.get(1), name + "1"));
+    scanners.add(createStoreFileScanner(sources.get(2), name + "2"));
+    return scanners;
+  }
+
+  /**
+   * Checks that the scanner returns the rows from the given one down to the
+   * first row, with the given number of cells each.
+   */
+  private static void verifyReversedStoreScanner(StoreScanner scanner, int firstRow,
+      int cellsPerRow) throws IOException {
+    int expectedRow = firstRow;
+    List<Cell> results = new ArrayList<Cell>();
+    boolean hasNext;
+    do {
+      hasNext = scanner.next(results);
+      if (results.isEmpty()) {
+        continue;
+      }
+      assertEquals(cellsPerRow, results.size());
+      for (Cell cell : results) {
+        assertTrue(((KeyValue) cell).matchingRow(ROWS[expectedRow]));
+      }
+      expectedRow--;
+      results.clear();
+    } while (hasNext);
+    assertEquals(-1, expectedRow);
+    scanner.close();
+  }
+}
@@ -0,0 +1,149 @@
+/**
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.CompatibilityFactory;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.MediumTests;
+import org.apache.hadoop.hbase.Waiter;
+import org.apache.hadoop.hbase.client.HTable;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.test.MetricsAssertHelper;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Scans against a region server reading the next batch of its scanners ahead.
+ */
+@Category(MediumTests.class)
+public class TestScannerReadAhead {
+  private final static HBaseTestingUtility TEST_UTIL = new HBaseTestingUtility();
+  private static final byte[] FAMILY = Bytes.toBytes("f");
+  private static MetricsAssertHelper metricsHelper;
+  private static MetricsRegionServerSource serverSource;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    Configuration conf = TEST_UTIL.getConfiguration();
+    conf.setBoolean(HRegionServer.SCANNER_READ_AHEAD_KEY, true);
+    conf.setInt(HRegionServer.SCANNER_READ_AHEAD_THREADS_KEY, 2);
+    // Small enough for the batches read ahead to be cut by it
+    conf.setLong(HRegionServer.SCANNER_READ_AHEAD_MAX_SIZE_KEY, 64 * 1024);
+    TEST_UTIL.startMiniCluster(1);
+    metricsHelper = CompatibilityFactory.getInstance(MetricsAssertHelper.class);
+    serverSource = TEST_UTIL.getMiniHBaseCluster().getRegionServer(0).getMetrics()
+        .getMetricsSource();
+  }
+
+  @AfterClass
+  public static void tearDownAfterClass() throws Exception {
+    TEST_UTIL.shutdownMiniCluster();
+  }
+
+  @Test
+  public void testScan() throws Exception {
+    byte[] tableName = Bytes.toBytes("testScan");
+    HTable table = TEST_UTIL.createTable(tableName, FAMILY,
+        new byte[][] { Bytes.toBytes("m") });
+    int rowCount = TEST_UTIL.loadTable(table, FAMILY);
+    long hits = metricsHelper.getCounter("scanReadAheadHitCount", serverSource);
+
+    for (int caching : new int[] { 1, 7, 100 }) {
+      Scan scan = new Scan();
+      scan.setCaching(caching);
+      ResultScanner scanner = table.getScanner(scan);
+      int count = 0;
+      byte[] lastRow = null;
+      for (Result result : scanner) {
+        if (lastRow != null) {
+          assertTrue(Bytes.compareTo(lastRow, result.getRow()) < 0);
+        }
+        lastRow = result.getRow();
+        count++;
+      }
+      scanner.close();
+      assertEquals(rowCount, count);
+    }
+    metricsHelper.assertCounterGt("scanReadAheadHitCount", hits, serverSource);
+    table.close();
+  }
+
+  @Test
+  public void testReadAheadToEndOfScanner() throws Exception {
+    byte[] tableName = Bytes.toBytes("testReadAheadToEndOfScanner");
+    HTable table = TEST_UTIL.createTable(tableName, FAMILY);
+    for (int i = 0; i < 6; i++) {
+      Put put = new Put(Bytes.toBytes("row" + i));
+      put.add(FAMILY, FAMILY, Bytes.toBytes(i));
+      table.put(put);
+    }
+    table.flushCommits();
+    long hits = metricsHelper.getCounter("scanReadAheadHitCount", serverSource);
+
+    // The first batch is read by the call, the second one ahead of it up to
+    // the end of the scanner, after which nothing more is read ahead
+    Scan scan = new Scan();
+    scan.setCaching(3);
+    ResultScanner scanner = table.getScanner(scan);
+    int count = 0;
+    while (scanner.next() != null) {
+      count++;
+    }
+    scanner.close();
+    assertEquals(6, count);
+    metricsHelper.assertCounter("scanReadAheadHitCount", hits + 1, serverSource);
+    table.close();
+  }
+
+  @Test
+  public void testCloseWithRowsReadAhead() throws Exception {
+    byte[] tableName = Bytes.toBytes("testCloseWithRowsReadAhead");
+    HTable table = TEST_UTIL.createTable(tableName, FAMILY);
+    TEST_UTIL.loadTable(table, FAMILY);
+    final long wasted = metricsHelper.getCounter("scanReadAheadWastedCount", serverSource);
+
+    Scan scan = new Scan();
+    scan.setCaching(10);
+    ResultScanner scanner = table.getScanner(scan);
+    for (int i = 0; i < 5; i++) {
+      assertNotNull(scanner.next());
+    }
+    // Waits for the next batch, which is read ahead of the call
+    Thread.sleep(1000);
+    scanner.close();
+    TEST_UTIL.waitFor(30000, 100, new Waiter.Predicate<Exception>() {
+      @Override
+      public boolean evaluate() throws Exception {
+        return metricsHelper.getCounter("scanReadAheadWastedCount", serverSource) > wasted;
+      }
+    });
+    table.close();
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hadoop.hbase.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Compares the false positive rate and the lookup time of classic and blocked
+ * Bloom filter chunks. The chunks together are much larger than the processor
+ * caches, as the Bloom chunks of many store files are, so the lookup time is
+ * dominated by the cache misses.
+ */
+public class BloomFilterPerformanceTest {
+  private static final double NANOSEC_IN_SEC = 1000.0 * 1000.0 * 1000.0;
+  private static final int NUM_PROBE_KEYS = 1 << 20;
+  private static final int MAX_FOLD = 7;
+
+  private final int numChunks;
+  private final int chunkByteSize;
+  private final int numProbes;
+  private final float errorRate;
+  private final Hash hash = Hash.getInstance(Hash.MURMUR_HASH);
+
+  private final byte[][] probeKeys = new byte[NUM_PROBE_KEYS][];
+  private final int[] probeChunks = new int[NUM_PROBE_KEYS];
+
+  public BloomFilterPerformanceTest(int numChunks, int chunkByteSize, int numProbes,
+      float errorRate) {
+    this.numChunks = numChunks;
+    this.chunkByteSize = chunkByteSize;
+    this.numProbes = numProbes;
+    this.errorRate = errorRate;
+  }
+
+  private void prepareProbes() {
+    Random random = new Random(42L);
+    for (int i = 0; i < NUM_PROBE_KEYS; ++i) {
+      // none of these keys is in the filters
+      probeKeys[i] = Bytes.toBytes("absent-" + random.nextLong());
+      probeChunks[i] = random.nextInt(numChunks);
+    }
+  }
+
+  private static byte[] memberKey(int chunk, int i) {
+    return Bytes.toBytes("row-" + chunk + "-" + i);
+  }
+
+  private void runTest(boolean blocked) throws IOException {
+    byte[][] chunks = new byte[numChunks][];
+    ByteBloomFilter template = null;
+    for (int c = 0; c < numChunks; ++c) {
+      ByteBloomFilter chunk = template == null
+          ? ByteBloomFilter.createBySize(chunkByteSize, errorRate, Hash.MURMUR_HASH, MAX_FOLD,
+              blocked)
+          : template.createAnother();
+      template = chunk;
+      chunk.allocBloom();
+      for (int i = 0; i < chunk.getMaxKeys(); ++i) {
+        chunk.add(memberKey(c, i));
+      }
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      chunk.writeBloom(new DataOutputStream(out));
+      chunks[c] = out.toByteArray();
+    }
+    int hashCount = template.getHashCount();
+
+    // no false negatives
+    for (int c = 0; c < numChunks; ++c) {
+      for (int i = 0; i < template.getMaxKeys(); i += 97) {
+        byte[] key = memberKey(c, i);
+        if (!contains(blocked, key, chunks[c], hashCount)) {
+          throw new AssertionError("False negative for " + Bytes.toString(key));
+        }
+      }
+    }
+
+    long positives = 0;
+    long startTime = System.nanoTime();
+    for (int i = 0; i < numProbes; ++i) {
+      int probe = i & (NUM_PROBE_KEYS - 1);
+      if (contains(blocked, probeKeys[probe], chunks[probeChunks[probe]], hashCount)) {
+        ++positives;
+      }
+    }
+    long elapsed = System.nanoTime() - startTime;
+
+    System.out.println(blocked ? "Blocked" : "Classic");
+    System.out.printf("  Chunk size:          %10d (bytes)\n", template.getByteSize());
+    System.out.printf("  Keys per chunk:      %10d\n", template.getMaxKeys());
+    System.out.printf("  Hash functions:      %10d\n", hashCount);
+    System.out.printf("  False positive rate: %10.6f\n", positives * 1.0 / numProbes);
+    System.out.printf("  Probe time:          %10.2f (ns)\n", elapsed * 1.0 / numProbes);
+    System.out.printf("  Probes per second:   %10.2f (#/s)\n",
+        numProbes * NANOSEC_IN_SEC / elapsed);
+  }
+
+  private boolean contains(boolean blocked, byte[] key, byte[] bloom, int hashCount) {
+    if (blocked) {
+      return ByteBloomFilter.containsBlocked(key, 0, key.length, bloom, 0, bloom.length,
+          hash, hashCount);
+    }
+    return ByteBloomFilter.contains(key, 0, key.length, bloom, 0, bloom.length,
+        hash, hashCount);
+  }
+
+  public void runTests() throws IOException {
+    prepareProbes();
+    // the first pass warms up the JIT
+    for (int pass = 0; pass < 2; ++pass) {
+      System.out.println(pass == 0 ? "Warm up" : "Measurement");
+      runTest(false);
+      runTest(true);
+    }
+  }
+
+  /**
+   * Command line interface.
+   * @param args optional number of chunks, chunk size in bytes, number of
+   *          probes and target error rate
+   */
+  public static void main(final String[] args) throws IOException {
+    int numChunks = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+    int chunkByteSize = args.length > 1 ? Integer.parseInt(args[1]) : 128 * 1024;
+    int numProbes = args.length > 2 ? Integer.parseInt(args[2]) : 10 * 1000 * 1000;
+    float errorRate = args.length > 3 ? Float.parseFloat(args[3]) : 0.01f;
+    new BloomFilterPerformanceTest(numChunks, chunkByteSize, numProbes, errorRate).runTests();
+  }
+}
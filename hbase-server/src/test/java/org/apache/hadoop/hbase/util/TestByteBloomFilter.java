@@ -102,6 +102,32 @@ public class TestByteBloomFilter extends TestCase {
     // test: foldFactor > log(max/actual)
   }
 
+  public void testBlockedBloomFold() throws Exception {
+    ByteBloomFilter b = ByteBloomFilter.createBySize(4096, 0.01,
+        Hash.MURMUR_HASH, 7, true);
+    b.allocBloom();
+    assertTrue(b.isBlocked());
+    assertEquals(0, b.getByteSize() % ByteBloomFilter.BLOOM_BLOCK_BYTES);
+    assertTrue(b.getMaxKeys() <= ByteBloomFilter.computeMaxKeys(
+        b.getByteSize() * 8, 0.01, b.getHashCount()));
+    for (int i = 0; i < 100; ++i) {
+      b.add(Bytes.toBytes(i));
+    }
+    b.compactBloom();
+    // folded, but still made of whole blocks
+    assertTrue(b.getByteSize() < 4096);
+    assertEquals(0, b.getByteSize() % ByteBloomFilter.BLOOM_BLOCK_BYTES);
+    int falsePositives = 0;
+    for (int i = 0; i < 1100; ++i) {
+      if (b.contains(Bytes.toBytes(i))) {
+        if (i >= 100) falsePositives++;
+      } else {
+        assertFalse(i < 100);
+      }
+    }
+    assertTrue(falsePositives < 50);
+  }
+
   public void testBloomPerf() throws Exception {
     // add
     float err = (float)0.01;